@@ -0,0 +1,34 @@
+package com.example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Helpers shared by benchmark states.
+ */
+final class BenchmarkSupport {
+    private static PrintStream originalOut;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Player prints every message to stdout; silence it so the benchmark measures messaging, not console I/O.
+     */
+    static synchronized void silenceStdout() {
+        if (originalOut == null) {
+            originalOut = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    /**
+     * Restores stdout replaced by silenceStdout().
+     */
+    static synchronized void restoreStdout() {
+        if (originalOut != null) {
+            System.setOut(originalOut);
+            originalOut = null;
+        }
+    }
+}
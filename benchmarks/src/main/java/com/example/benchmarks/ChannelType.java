@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryMessageChannel;
+import com.example.MessageChannel;
+import com.example.MessageRouter;
+import com.example.SharedMemoryMessageChannel;
+import com.example.SpscRingBufferChannel;
+import com.example.WaitStrategy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Channel implementations selectable through the "channel" benchmark parameter.
+ */
+enum ChannelType {
+    IN_MEMORY {
+        @Override
+        MessageChannel create(MessageRouter router, String playerId, String targetPlayerId) {
+            return new InMemoryMessageChannel(router, targetPlayerId);
+        }
+    },
+    SPSC_PARK {
+        @Override
+        MessageChannel create(MessageRouter router, String playerId, String targetPlayerId) {
+            return new SpscRingBufferChannel(router, targetPlayerId,
+                    SpscRingBufferChannel.DEFAULT_CAPACITY, WaitStrategy.PARK);
+        }
+    },
+    SPSC_SPIN {
+        @Override
+        MessageChannel create(MessageRouter router, String playerId, String targetPlayerId) {
+            return new SpscRingBufferChannel(router, targetPlayerId,
+                    SpscRingBufferChannel.DEFAULT_CAPACITY, WaitStrategy.BUSY_SPIN);
+        }
+    },
+    /**
+     * Both players in this JVM, each mapping the pair's ring files on its own as separate processes would.
+     */
+    SHARED_MEMORY {
+        @Override
+        MessageChannel create(MessageRouter router, String playerId, String targetPlayerId) {
+            return new SharedMemoryMessageChannel(router, ring(playerId, targetPlayerId),
+                    ring(targetPlayerId, playerId), WaitStrategy.PARK, null);
+        }
+    };
+
+    private static Path ringDirectory;
+
+    abstract MessageChannel create(MessageRouter router, String playerId, String targetPlayerId);
+
+    /**
+     * Gets the ring file from one player to another, created by whichever of the pair asks first.
+     */
+    private static synchronized Path ring(String from, String to) {
+        if (ringDirectory == null) {
+            ringDirectory = SharedMemoryMessageChannel.createDirectory("benchmark-rings-");
+            ringDirectory.toFile().deleteOnExit();
+        }
+        Path file = ringDirectory.resolve(from + "-to-" + to + ".ring");
+        if (!Files.exists(file)) {
+            SharedMemoryMessageChannel.createRing(file, SharedMemoryMessageChannel.DEFAULT_RING_BYTES);
+            file.toFile().deleteOnExit();
+        }
+        return file;
+    }
+}
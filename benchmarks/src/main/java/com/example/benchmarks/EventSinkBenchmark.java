@@ -0,0 +1,57 @@
+package com.example.benchmarks;
+
+import com.example.EventSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the player's thread of reporting the events of one received-and-answered message.
+ * Stdout is silenced, so "console" measures formatting plus the stdout lock and "async" measures the ring
+ * hand-off (events beyond the writer's pace are dropped, which is the sink's overload behaviour).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSinkBenchmark {
+
+    @Param({"console", "console:info", "async", "off"})
+    public String sink;
+
+    private EventSink events;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        events = EventSink.parse(sink);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        events.close();
+        BenchmarkSupport.restoreStdout();
+    }
+
+    @Benchmark
+    public void receiveAndReply() {
+        long next = ++sequence;
+        events.messageReceived("responder", "initiator", "41");
+        events.messageSent("responder", next, "initiator", "42");
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.benchmarks;
+
+import com.example.ExecutionModel;
+import com.example.InMemoryMessageChannel;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerRole;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Scaling test for the channel execution models at 1k, 10k and 100k players.
+ * Starts N/2 initiator/responder pairs, plays one full game on every pair and reports elapsed time,
+ * heap in use, live threads and context switches (Linux only, read from /proc/self/task/N/status).
+ * This is a plain main class rather than a JMH benchmark because the interesting numbers are resource usage.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.ExecutionScaling [--all] [--models=pool,virtual] [sizes...]
+ * </pre>
+ * Platform threads are skipped at 100k players unless --all is given; that many OS threads can take
+ * down a developer machine.
+ */
+public final class ExecutionScaling {
+    private static final int PLATFORM_THREAD_LIMIT = 10_000;
+
+    private ExecutionScaling() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        boolean all = false;
+        String[] models = {"platform", "virtual", "pool"};
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--all")) {
+                all = true;
+            } else if (arg.startsWith("--models=")) {
+                models = arg.substring("--models=".length()).split(",");
+            } else {
+                sizes.add(Integer.parseInt(arg));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.add(1_000);
+            sizes.add(10_000);
+            sizes.add(100_000);
+        }
+
+        PrintStream out = System.out;
+        BenchmarkSupport.silenceStdout();
+        out.printf("%-18s %8s %10s %10s %9s %14s%n", "model", "players", "elapsed ms", "heap MB", "threads",
+                "ctx switches");
+        for (int players : sizes) {
+            for (String model : models) {
+                if (model.equals("virtual") && !ExecutionModel.isVirtualThreadSupported()) {
+                    out.printf("%-18s %8d %s%n", model, players, "skipped: needs Java 21+");
+                    continue;
+                }
+                if (model.equals("platform") && players > PLATFORM_THREAD_LIMIT && !all) {
+                    out.printf("%-18s %8d %s%n", model, players, "skipped: use --all");
+                    continue;
+                }
+                out.println(run(model, ExecutionModel.parse(model), players));
+            }
+        }
+        BenchmarkSupport.restoreStdout();
+    }
+
+    private static String run(String label, ExecutionModel model, int players) throws InterruptedException {
+        int pairs = players / 2;
+        MessageRouter router = new MessageRouter();
+        CountDownLatch finished = new CountDownLatch(pairs);
+        List<Player> all = new ArrayList<>(players);
+        List<Player> initiators = new ArrayList<>(pairs);
+
+        for (int i = 0; i < pairs; i++) {
+            String initiatorId = "initiator-" + i;
+            String responderId = "responder-" + i;
+            boolean[] done = new boolean[1];
+            Runnable onStop = () -> {
+                if (!done[0]) {
+                    done[0] = true;
+                    finished.countDown();
+                }
+            };
+            Player responder = new Player(responderId, PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, initiatorId, model), null);
+            Player initiator = new Player(initiatorId, PlayerRole.INITIATOR,
+                    new InMemoryMessageChannel(router, responderId, model), onStop);
+            router.register(responderId, responder);
+            router.register(initiatorId, initiator);
+            all.add(responder);
+            all.add(initiator);
+            initiators.add(initiator);
+        }
+
+        long switchesBefore = contextSwitches();
+        long start = System.nanoTime();
+        try {
+            for (Player player : all) {
+                player.start();
+            }
+            for (int i = 0; i < pairs; i++) {
+                initiators.get(i).send("1", "responder-" + i);
+            }
+            boolean completed = finished.await(5, TimeUnit.MINUTES);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Sample while every channel is still alive
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            long switches = contextSwitches() - switchesBefore;
+            System.gc();
+            long heapMb = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+
+            return String.format("%-18s %8d %10s %10d %9d %14s", label, players,
+                    completed ? String.valueOf(elapsedMs) : "timeout", heapMb, threads,
+                    switches < 0 ? "n/a" : String.valueOf(switches));
+        } catch (OutOfMemoryError e) {
+            return String.format("%-18s %8d failed: %s", label, players, e.getMessage());
+        } finally {
+            all.parallelStream().forEach(Player::stop);
+            model.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sums voluntary and involuntary context switches over all live threads of this process, or -1 if unavailable.
+     * Threads that already exited are not counted, so sample before stopping channels.
+     */
+    private static long contextSwitches() {
+        Path tasks = Paths.get("/proc/self/task");
+        if (!Files.isDirectory(tasks)) {
+            return -1;
+        }
+        long total = 0;
+        try (Stream<Path> taskDirs = Files.list(tasks)) {
+            for (Path task : (Iterable<Path>) taskDirs::iterator) {
+                try {
+                    for (String line : Files.readAllLines(task.resolve("status"))) {
+                        if (line.startsWith("voluntary_ctxt_switches") || line.startsWith("nonvoluntary_ctxt_switches")) {
+                            total += Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                        }
+                    }
+                } catch (IOException e) {
+                    // Thread exited while we were reading it
+                }
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return total;
+    }
+}
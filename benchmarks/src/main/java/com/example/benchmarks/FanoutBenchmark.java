@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryMessageChannel;
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerIds;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish-to-last-delivery latency of a topic message: MessageRouter.route returns once every subscriber's
+ * onMessage returned. "inline" delivers on the publishing thread; "parallel" splits fan-outs above
+ * MessageRouter.DEFAULT_FANOUT_PARTITION subscribers over a ForkJoinPool with one worker per core.
+ * SampleTime mode reports the p50/p99/p999 percentiles in the JSON result.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanoutBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int subscribers;
+
+    @Param({"inline", "parallel"})
+    public String delivery;
+
+    private ForkJoinPool pool;
+    private MessageRouter router;
+    private Message message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        router = new MessageRouter();
+        if (delivery.equals("parallel")) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            router.setFanoutPool(pool, MessageRouter.DEFAULT_FANOUT_PARTITION);
+        }
+        // Subscribers only receive, so they can share one channel that is never started
+        InMemoryMessageChannel unused = new InMemoryMessageChannel(router, "unused");
+        for (int i = 0; i < subscribers; i++) {
+            String playerId = "subscriber-" + i;
+            router.register(playerId, new Subscriber(playerId, unused));
+            router.subscribe("game-state", playerId);
+        }
+        message = new Message(1L, PlayerIds.intern("publisher"), PlayerIds.handleOf("game-state"), 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        router.route(message);
+    }
+
+    /**
+     * Counts deliveries in a plain field: each subscriber is called by one thread per message.
+     */
+    private static final class Subscriber extends Player {
+        private long received;
+
+        Subscriber(String playerId, InMemoryMessageChannel channel) {
+            super(playerId, PlayerRole.RESPONDER, channel, null);
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            received += message.getNumericPayload();
+        }
+    }
+}
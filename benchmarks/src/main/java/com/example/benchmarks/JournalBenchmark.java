@@ -0,0 +1,106 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryMessageChannel;
+import com.example.JournalSyncPolicy;
+import com.example.Message;
+import com.example.MessageJournal;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * MessageRouter.route throughput with and without a MessageJournal, for each sync policy.
+ * "off" routes without a journal; the others journal to a temporary directory that is recreated every
+ * iteration so the disk footprint stays bounded.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+    private static final int MESSAGE_COUNT = 1024;
+
+    @Param({"off", "none", "every:1024", "interval:10"})
+    public String sync;
+
+    private MessageRouter router;
+    private Message[] messages;
+    private Path directory;
+    private MessageJournal journal;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        router = new MessageRouter();
+        // Channel is never started: routing delivers straight to onMessage
+        router.register("responder", new Player("responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "unused"), null) {
+            @Override
+            public void onMessage(Message message) {
+                blackhole.consume(message);
+            }
+        });
+        messages = new Message[MESSAGE_COUNT];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            messages[i] = new Message(String.valueOf(i), "initiator", "responder", i + 1);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        if (sync.equals("off")) {
+            return;
+        }
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new MessageJournal(directory, MessageJournal.DEFAULT_SEGMENT_SIZE, JournalSyncPolicy.parse(sync));
+        router.setJournal(journal);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        router.setJournal(null);
+        journal.close();
+        journal = null;
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public void route() {
+        router.route(messages[next++ & (MESSAGE_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmarks;
+
+import com.example.BinaryMessageCodec;
+import com.example.Message;
+import com.example.MessageFlyweight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message codec throughput. Run with "-prof gc" (the module default) to get
+ * gc.alloc.rate.norm, the bytes allocated per operation.
+ * Compares the pipe-delimited text format with BinaryMessageCodec and MessageFlyweight.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    private Message message;
+    private String serialized;
+    private BinaryMessageCodec codec;
+    private MessageFlyweight flyweight;
+    private ByteBuffer encodeBuffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() {
+        message = new Message("123456", "initiator", "responder", 4242);
+        serialized = message.serialize();
+        codec = new BinaryMessageCodec();
+        flyweight = new MessageFlyweight();
+        encodeBuffer = ByteBuffer.allocateDirect(256);
+        encoded = ByteBuffer.allocateDirect(256);
+        codec.encode(message, encoded);
+        encoded.flip();
+    }
+
+    @Benchmark
+    public String serialize() {
+        return message.serialize();
+    }
+
+    @Benchmark
+    public Message deserialize() {
+        return Message.deserialize(serialized);
+    }
+
+    @Benchmark
+    public int binaryEncode() {
+        encodeBuffer.clear();
+        codec.encode(message, encodeBuffer);
+        return encodeBuffer.position();
+    }
+
+    @Benchmark
+    public Message binaryDecode() {
+        encoded.position(0);
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public long flyweightRead() {
+        flyweight.wrap(encoded, 0);
+        return flyweight.getSequence() + flyweight.payloadLength() + (flyweight.toPlayerIdEquals("responder") ? 1 : 0);
+    }
+}
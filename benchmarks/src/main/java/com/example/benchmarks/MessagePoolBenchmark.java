@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.EventSink;
+import com.example.Message;
+import com.example.MessageChannel;
+import com.example.MessagePool;
+import com.example.Player;
+import com.example.PlayerIds;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one Player.onMessage hop (read the number, build reply, send) with immutable messages versus pooled
+ * envelopes, for an incoming numeric payload and for a text payload that has to be parsed.
+ * The reply channel consumes and recycles the reply right away, as a delivering channel would.
+ * Run with -prof gc to compare bytes allocated per hop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessagePoolBenchmark {
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    @Param({"numeric", "text"})
+    public String payload;
+
+    private Player responder;
+    private Message incoming;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        MessageChannel replies = new MessageChannel() {
+            @Override
+            public void send(Message message) {
+                blackhole.consume(message.getSequence());
+                message.recycle();
+            }
+
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+            }
+
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        };
+        responder = new Player("bench-responder", PlayerRole.RESPONDER, replies, null, EventSink.noOp());
+        responder.setMessagePool(pooled ? new MessagePool() : null);
+        int from = PlayerIds.intern("bench-initiator");
+        incoming = payload.equals("numeric")
+                ? new Message(41L, from, responder.getHandle(), 1)
+                : new Message("41", from, responder.getHandle(), 1);
+    }
+
+    @Benchmark
+    public void reply() {
+        responder.onMessage(incoming);
+    }
+}
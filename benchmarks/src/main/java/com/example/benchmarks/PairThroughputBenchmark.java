@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.MessageRouter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip throughput with N player pairs exchanging messages concurrently through one router.
+ * Each invocation sends one message on every pair and waits for all replies;
+ * the "roundTrips" counter reports completed round trips per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PairThroughputBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int pairs;
+
+    @Param({"IN_MEMORY", "SPSC_PARK"})
+    public String channel;
+
+    private PlayerPair[] players;
+    private long round;
+
+    /**
+     * Secondary result: number of completed round trips.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long roundTrips;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        MessageRouter router = new MessageRouter();
+        ChannelType type = ChannelType.valueOf(channel);
+        players = new PlayerPair[pairs];
+        for (int i = 0; i < pairs; i++) {
+            players[i] = new PlayerPair(router, type, "-" + i);
+            players[i].start();
+        }
+        round = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (PlayerPair pair : players) {
+            pair.stop();
+        }
+        BenchmarkSupport.restoreStdout();
+    }
+
+    @Benchmark
+    public void allPairsRoundTrip(Counters counters) {
+        round++;
+        for (PlayerPair pair : players) {
+            pair.sendAsync();
+        }
+        for (PlayerPair pair : players) {
+            pair.awaitReplies(round);
+        }
+        counters.roundTrips += players.length;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.benchmarks;
+
+import com.example.ConsistentHashRing;
+import com.example.InMemoryMessageChannel;
+import com.example.LoopbackTransport;
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.PartitionedRouter;
+import com.example.Player;
+import com.example.PlayerIds;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of routing through a PartitionedRouter on the first of several nodes connected by LoopbackTransport.
+ * "singleRouter" is the baseline of a plain MessageRouter holding every player, "localRoute" targets players on
+ * the routing node (ring owner lookup on top of the baseline) and "remoteRoute" players on other nodes, which adds
+ * encoding, decoding and the receiving node's delivery. Target players swallow messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PartitionedRouterBenchmark {
+    private static final int MESSAGE_COUNT = 1024;
+    private static final int PLAYER_COUNT = 10_000;
+
+    @Param({"2", "4"})
+    public int nodes;
+
+    private MessageRouter single;
+    private PartitionedRouter first;
+    private Message[] localMessages;
+    private Message[] remoteMessages;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        ConsistentHashRing ring = new ConsistentHashRing();
+        LoopbackTransport transport = new LoopbackTransport();
+        List<PartitionedRouter> routers = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ring.addNode("node-" + i);
+        }
+        for (int i = 0; i < nodes; i++) {
+            PartitionedRouter router = new PartitionedRouter("node-" + i, ring, transport);
+            transport.connect(router);
+            routers.add(router);
+        }
+        first = routers.get(0);
+        single = new MessageRouter();
+
+        // Players only receive, so they can share one channel that is never started
+        InMemoryMessageChannel unused = new InMemoryMessageChannel(single, "unused");
+        List<String> local = new ArrayList<>();
+        List<String> remote = new ArrayList<>();
+        for (int i = 0; i < PLAYER_COUNT; i++) {
+            String playerId = "player-" + i;
+            Player player = new Player(playerId, PlayerRole.RESPONDER, unused, null) {
+                @Override
+                public void onMessage(Message message) {
+                    blackhole.consume(message);
+                }
+            };
+            single.register(playerId, player);
+            String owner = ring.nodeFor(playerId);
+            routers.get(Integer.parseInt(owner.substring("node-".length()))).register(playerId, player);
+            (first.getNodeId().equals(owner) ? local : remote).add(playerId);
+        }
+
+        Random random = new Random(42);
+        int sender = PlayerIds.intern("sender");
+        localMessages = new Message[MESSAGE_COUNT];
+        remoteMessages = new Message[MESSAGE_COUNT];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            localMessages[i] = new Message("1", sender,
+                    PlayerIds.handleOf(local.get(random.nextInt(local.size()))), i);
+            remoteMessages[i] = new Message("1", sender,
+                    PlayerIds.handleOf(remote.get(random.nextInt(remote.size()))), i);
+        }
+    }
+
+    @Benchmark
+    public void singleRouter() {
+        single.route(localMessages[next++ & (MESSAGE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void localRoute() {
+        first.route(localMessages[next++ & (MESSAGE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void remoteRoute() {
+        first.route(remoteMessages[next++ & (MESSAGE_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.benchmarks;
+
+import com.example.MessageRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip latency of Player.send -> channel -> MessageRouter.route -> Player.onMessage and back.
+ * SampleTime mode reports the p50/p99/p999 percentiles in the JSON result.
+ * SHARED_MEMORY goes through the memory-mapped rings used between processes, for comparison with the in-process
+ * channels. Its consumers cannot be unparked across processes, so once idle they sleep in timed 50 us parks.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PingPongBenchmark {
+
+    @Param({"IN_MEMORY", "SPSC_PARK", "SPSC_SPIN", "SHARED_MEMORY"})
+    public String channel;
+
+    private PlayerPair pair;
+    private long sent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silenceStdout();
+        pair = new PlayerPair(new MessageRouter(), ChannelType.valueOf(channel), "");
+        pair.start();
+        sent = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pair.stop();
+        BenchmarkSupport.restoreStdout();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        pair.sendAsync();
+        pair.awaitReplies(++sent);
+        return sent;
+    }
+}
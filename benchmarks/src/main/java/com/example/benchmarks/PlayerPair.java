@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerRole;
+
+/**
+ * One initiator/responder pair wired through a router.
+ * The responder is a regular Player that increments and replies; the initiator only counts replies
+ * instead of answering, so each send() is exactly one round trip.
+ */
+final class PlayerPair {
+    private final Player initiator;
+    private final Player responder;
+    private final String responderId;
+    private volatile long replies;
+
+    PlayerPair(MessageRouter router, ChannelType channelType, String suffix) {
+        String initiatorId = "initiator" + suffix;
+        this.responderId = "responder" + suffix;
+        this.responder = new Player(responderId, PlayerRole.RESPONDER,
+                channelType.create(router, responderId, initiatorId), null);
+        this.initiator = new Player(initiatorId, PlayerRole.INITIATOR,
+                channelType.create(router, initiatorId, responderId), null) {
+            @Override
+            public void onMessage(Message message) {
+                replies++; // single writer: the responder channel's thread
+            }
+        };
+        router.register(responderId, responder);
+        router.register(initiatorId, initiator);
+    }
+
+    void start() {
+        responder.start();
+        initiator.start();
+    }
+
+    void stop() {
+        initiator.stop();
+        responder.stop();
+    }
+
+    /**
+     * Sends one message to the responder without waiting for the reply.
+     */
+    void sendAsync() {
+        initiator.send("1", responderId);
+    }
+
+    long replies() {
+        return replies;
+    }
+
+    /**
+     * Spins (then yields, so small machines are not starved) until the number of replies reaches the given value.
+     */
+    void awaitReplies(long expected) {
+        int spins = 0;
+        while (replies < expected) {
+            if (++spins < 1000) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryMessageChannel;
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerIds;
+import com.example.PlayerRole;
+import com.example.RateLimitPolicy;
+import com.example.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of rate limiting when nothing is throttled: the limiters allow 10^9 messages a second, far above what
+ * one thread can route. "route" is MessageRouter.route without admission control, "routeAdmitted" the same with a
+ * RateLimiter as AdmissionControl, and "acquire" the bare token bucket (a clock read and a CAS).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RateLimiterBenchmark {
+    private static final long UNLIMITED_RATE = TimeUnit.SECONDS.toNanos(1);
+    private static final int BURST = 1_000_000;
+
+    private MessageRouter router;
+    private MessageRouter admittingRouter;
+    private RateLimiter limiter;
+    private Message message;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        router = new MessageRouter();
+        admittingRouter = new MessageRouter();
+        Player target = new Player("limited-target", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "unused"), null) {
+            @Override
+            public void onMessage(Message message) {
+                blackhole.consume(message);
+            }
+        };
+        router.register("limited-target", target);
+        admittingRouter.register("limited-target", target);
+        admittingRouter.setAdmissionControl(new RateLimiter(UNLIMITED_RATE, BURST, RateLimitPolicy.SHED));
+        limiter = new RateLimiter(UNLIMITED_RATE, BURST, RateLimitPolicy.SHED);
+        message = new Message("1", PlayerIds.intern("sender"), PlayerIds.handleOf("limited-target"), 1);
+    }
+
+    @Benchmark
+    public void route() {
+        router.route(message);
+    }
+
+    @Benchmark
+    public void routeAdmitted() {
+        admittingRouter.route(message);
+    }
+
+    @Benchmark
+    public boolean acquire() {
+        return limiter.acquire();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.Message;
+import com.example.ReceiveWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second through a ReceiveWindow on one sender's stream with 1% duplicates and 5% of the messages
+ * delivered up to 8 positions late. "inOrder" is the same stream without duplicates or reordering, "baseline"
+ * hands the messages straight to the sink.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceiveWindowBenchmark {
+    private static final int STREAM_LENGTH = 1 << 16;
+    private static final double DUPLICATE_RATE = 0.01;
+    private static final double REORDER_RATE = 0.05;
+    private static final int MAX_DELAY = 8;
+
+    private Message[] inOrder;
+    private Message[] disordered;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        inOrder = new Message[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            inOrder[i] = new Message(i, "sender", "receiver", i + 1);
+        }
+
+        List<Message> stream = new ArrayList<>(STREAM_LENGTH + STREAM_LENGTH / 50);
+        for (Message message : inOrder) {
+            stream.add(message);
+            if (random.nextDouble() < DUPLICATE_RATE) {
+                stream.add(message);
+            }
+        }
+        for (int i = 0; i < stream.size() - MAX_DELAY; i++) {
+            if (random.nextDouble() < REORDER_RATE) {
+                Collections.swap(stream, i, i + 1 + random.nextInt(MAX_DELAY));
+            }
+        }
+        disordered = stream.toArray(new Message[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_LENGTH)
+    public void baseline(Blackhole blackhole) {
+        for (Message message : inOrder) {
+            blackhole.consume(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_LENGTH)
+    public ReceiveWindow inOrder(Blackhole blackhole) {
+        ReceiveWindow window = new ReceiveWindow(ReceiveWindow.MAX_SIZE);
+        for (Message message : inOrder) {
+            window.accept(message, blackhole::consume);
+        }
+        return window;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_LENGTH)
+    public ReceiveWindow withDuplicatesAndReordering(Blackhole blackhole) {
+        ReceiveWindow window = new ReceiveWindow(ReceiveWindow.MAX_SIZE);
+        for (Message message : disordered) {
+            window.accept(message, blackhole::consume);
+        }
+        if (window.getGapCount() != 0) {
+            throw new IllegalStateException("Reordering exceeded the window: " + window.getGapCount());
+        }
+        return window;
+    }
+}
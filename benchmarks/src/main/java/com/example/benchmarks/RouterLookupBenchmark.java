@@ -0,0 +1,92 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryMessageChannel;
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerIds;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of MessageRouter.route lookup as the number of registered players grows.
+ * Target players swallow messages, so only the lookup and dispatch call are measured.
+ * "stringMapLookup" replays what route() did before ids were interned to PlayerIds handles: a String-keyed
+ * ConcurrentHashMap lookup plus the hit counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouterLookupBenchmark {
+    private static final int MESSAGE_COUNT = 1024;
+
+    @Param({"10", "10000", "1000000"})
+    public int registeredPlayers;
+
+    private MessageRouter router;
+    private Map<String, Player> playersById;
+    private LongAdder hits;
+    private Message[] messages;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        router = new MessageRouter();
+        playersById = new ConcurrentHashMap<>();
+        hits = new LongAdder();
+        // Players only receive, so they can share one channel that is never started
+        InMemoryMessageChannel unused = new InMemoryMessageChannel(router, "unused");
+        for (int i = 0; i < registeredPlayers; i++) {
+            String playerId = "player-" + i;
+            Player player = new Player(playerId, PlayerRole.RESPONDER, unused, null) {
+                @Override
+                public void onMessage(Message message) {
+                    blackhole.consume(message);
+                }
+            };
+            router.register(playerId, player);
+            playersById.put(playerId, player);
+        }
+
+        Random random = new Random(42);
+        int sender = PlayerIds.intern("sender");
+        messages = new Message[MESSAGE_COUNT];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            int target = PlayerIds.handleOf("player-" + random.nextInt(registeredPlayers));
+            messages[i] = new Message("1", sender, target, i);
+        }
+    }
+
+    @Benchmark
+    public void route() {
+        router.route(messages[next++ & (MESSAGE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void stringMapLookup() {
+        Message message = messages[next++ & (MESSAGE_COUNT - 1)];
+        Player target = playersById.get(message.getToPlayerId());
+        hits.increment();
+        target.onMessage(message);
+    }
+}
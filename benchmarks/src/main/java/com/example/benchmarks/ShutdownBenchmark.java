@@ -0,0 +1,101 @@
+package com.example.benchmarks;
+
+import com.example.ChannelConfig;
+import com.example.DrainMode;
+import com.example.EventSink;
+import com.example.ExecutionModel;
+import com.example.GracefulShutdown;
+import com.example.InMemoryMessageChannel;
+import com.example.Message;
+import com.example.MessageRouter;
+import com.example.Player;
+import com.example.PlayerRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to stop 10,000 running players, each with a few messages still queued: one after the other with
+ * Player.stop, which waits for every channel in turn, or all at once with GracefulShutdown.stopAll.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ShutdownBenchmark {
+    private static final int QUEUED_PER_PLAYER = 4;
+
+    @Param({"10000"})
+    public int players;
+
+    @Param({"platform", "pool"})
+    public String execution;
+
+    @Param({"sequential", "parallel"})
+    public String strategy;
+
+    private ExecutionModel executionModel;
+    private List<Player> running;
+
+    @Setup(Level.Invocation)
+    public void startPlayers() {
+        executionModel = ExecutionModel.parse(execution);
+        ChannelConfig config = ChannelConfig.defaults().withExecutionModel(executionModel);
+        MessageRouter router = new MessageRouter();
+        running = new ArrayList<>(players);
+        List<InMemoryMessageChannel> channels = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            String playerId = "player-" + i;
+            // Each player's channel delivers to the next player, which just counts what it receives
+            InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "player-" + ((i + 1) % players), config);
+            Player player = new Player(playerId, PlayerRole.INITIATOR, channel, null, EventSink.noOp()) {
+                @Override
+                public void onMessage(Message message) {
+                }
+            };
+            router.register(playerId, player);
+            running.add(player);
+            channels.add(channel);
+        }
+        for (Player player : running) {
+            player.start();
+        }
+        for (int i = 0; i < players; i++) {
+            for (int j = 0; j < QUEUED_PER_PLAYER; j++) {
+                channels.get(i).send(new Message(j, "player-" + i, "player-" + ((i + 1) % players), j));
+            }
+        }
+    }
+
+    @Benchmark
+    public int stopAll() {
+        if (strategy.equals("parallel")) {
+            return GracefulShutdown.stopAll(running, DrainMode.FLUSH, 30, TimeUnit.SECONDS).getTimedOutCount();
+        }
+        for (Player player : running) {
+            player.stop();
+        }
+        return 0;
+    }
+
+    @TearDown(Level.Invocation)
+    public void shutdownExecutionModel() {
+        executionModel.shutdown(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * Decides whether MessageRouter delivers a message at all (see MessageRouter.setAdmissionControl).
+ * A RateLimiter is one, capping what a whole router delivers across every sender.
+ */
+public interface AdmissionControl {
+    /**
+     * Checks a message before it is routed; it may block to delay the message. Called on the routing thread
+     * for every message, so it must be cheap and thread-safe.
+     *
+     * @return false to drop the message, which the router counts as rejected
+     */
+    boolean admit(Message message);
+}
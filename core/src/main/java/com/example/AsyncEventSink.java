@@ -0,0 +1,355 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands events to a background writer through a preallocated multi-producer ring buffer.
+ * Reporting an event only claims a slot and copies the raw fields into it; formatting and I/O happen on the
+ * writer thread, which formats into a reused buffer and flushes whenever the ring runs empty.
+ * When the ring is full the event is dropped and counted rather than blocking the player (see getDroppedCount()).
+ */
+public final class AsyncEventSink implements EventSink {
+    /**
+     * Ring capacity used by EventSink.parse("async").
+     */
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    private static final int SENT = 0;
+    private static final int RECEIVED = 1;
+    private static final int PROGRESS = 2;
+    private static final int INFO = 3;
+    private static final int SENT_NUMBER = 4;
+    private static final int RECEIVED_NUMBER = 5;
+
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    private static final int OUTPUT_CHUNK_CHARS = 8 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimSequence;
+    private final PaddedSequence consumeSequence;
+    private final LongAdder dropped;
+    private final Writer out;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    // Writer thread state
+    private final StringBuilder line;
+    private final char[] chunk;
+    private int chunkLength;
+
+    /**
+     * Creates new async sink writing to System.out.
+     */
+    public AsyncEventSink(int capacity) {
+        this(new PrintStreamWriter(System.out), capacity);
+    }
+
+    /**
+     * Creates new async sink writing to out. Output is handed to out in chunks of whole lines.
+     *
+     * @param capacity number of ring slots, rounded up to a power of two
+     */
+    public AsyncEventSink(Writer out, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = SpscRingBufferChannel.nextPowerOfTwo(capacity);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.claimSequence = new AtomicLong();
+        this.consumeSequence = new PaddedSequence(0L);
+        this.dropped = new LongAdder();
+        this.out = out;
+        this.line = new StringBuilder(128);
+        this.chunk = new char[OUTPUT_CHUNK_CHARS];
+        this.writerThread = new Thread(this::writeLoop, "AsyncEventSink-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(SENT, playerId, toPlayerId, copy(payload), sequence, 0L);
+            slot.publish();
+        }
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(RECEIVED, playerId, fromPlayerId, copy(payload), 0L, 0L);
+            slot.publish();
+        }
+    }
+
+    /**
+     * Captures the payload: it may be the reusable buffer of a pooled message, which changes after the call.
+     */
+    private static String copy(CharSequence payload) {
+        return payload != null ? payload.toString() : null;
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, long payload) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(SENT_NUMBER, playerId, toPlayerId, null, sequence, payload);
+            slot.publish();
+        }
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, long payload) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(RECEIVED_NUMBER, playerId, fromPlayerId, null, payload, 0L);
+            slot.publish();
+        }
+    }
+
+    @Override
+    public void progress(String playerId, long sent, long received) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(PROGRESS, playerId, null, null, sent, received);
+            slot.publish();
+        }
+    }
+
+    @Override
+    public void info(String playerId, String text) {
+        Slot slot = claim();
+        if (slot != null) {
+            slot.set(INFO, playerId, null, text, 0L, 0L);
+            slot.publish();
+        }
+    }
+
+    /**
+     * Claims the next slot, or returns null (and counts a drop) if the ring is full or the sink is closed.
+     */
+    private Slot claim() {
+        if (closed) {
+            dropped.increment();
+            return null;
+        }
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if (sequence - consumeSequence.getAcquire() >= slots.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.claimedSequence = sequence;
+        return slot;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            if (drain() > 0) {
+                continue;
+            }
+            // Nothing published: either idle, or a producer is between claim and publish
+            if (closed && claimSequence.get() == consumeSequence.get()) {
+                break;
+            }
+            flush();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        long lost = dropped.sum();
+        if (lost > 0) {
+            line.setLength(0);
+            write(line.append("[events] ").append(lost).append(" events dropped"));
+        }
+        flush();
+    }
+
+    /**
+     * Formats and writes every contiguously published event.
+     */
+    private int drain() {
+        long next = consumeSequence.get();
+        int count = 0;
+        while (true) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.published != next) {
+                break;
+            }
+            line.setLength(0);
+            format(slot);
+            slot.clear();
+            next++;
+            consumeSequence.setRelease(next);
+            write(line);
+            count++;
+        }
+        return count;
+    }
+
+    private void format(Slot slot) {
+        switch (slot.type) {
+            case SENT:
+                EventFormat.sent(line, slot.playerId, slot.first, slot.peerId, slot.text);
+                break;
+            case RECEIVED:
+                EventFormat.received(line, slot.playerId, slot.peerId, slot.text);
+                break;
+            case SENT_NUMBER:
+                EventFormat.sent(line, slot.playerId, slot.first, slot.peerId, slot.second);
+                break;
+            case RECEIVED_NUMBER:
+                EventFormat.received(line, slot.playerId, slot.peerId, slot.first);
+                break;
+            case PROGRESS:
+                EventFormat.progress(line, slot.playerId, slot.first, slot.second);
+                break;
+            default:
+                EventFormat.info(line, slot.playerId, slot.text);
+                break;
+        }
+    }
+
+    /**
+     * Appends one line to the output chunk, writing the chunk out first if the line does not fit.
+     */
+    private void write(StringBuilder text) {
+        text.append(LINE_SEPARATOR);
+        int length = text.length();
+        if (chunkLength + length > chunk.length) {
+            writeChunk();
+        }
+        if (length > chunk.length) {
+            writeQuietly(text.toString().toCharArray(), length);
+            return;
+        }
+        text.getChars(0, length, chunk, chunkLength);
+        chunkLength += length;
+    }
+
+    private void writeChunk() {
+        if (chunkLength > 0) {
+            writeQuietly(chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+
+    private void writeQuietly(char[] chars, int length) {
+        try {
+            out.write(chars, 0, length);
+        } catch (IOException e) {
+            // The writer keeps draining so producers never stall on a broken output
+        }
+    }
+
+    private void flush() {
+        writeChunk();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            // See writeQuietly()
+        }
+    }
+
+    /**
+     * Gets the number of events dropped because the ring was full or the sink was closed.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting events, writes everything already published and waits for the writer to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(1000); // Wait up to 1 second
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "async";
+    }
+
+    /**
+     * One preallocated event. Fields are written by the claiming producer before publish() and read by the writer.
+     */
+    private static final class Slot {
+        private volatile long published = -1L;
+        private long claimedSequence;
+        private int type;
+        private String playerId;
+        private String peerId;
+        private String text;
+        private long first;
+        private long second;
+
+        void set(int type, String playerId, String peerId, String text, long first, long second) {
+            this.type = type;
+            this.playerId = playerId;
+            this.peerId = peerId;
+            this.text = text;
+            this.first = first;
+            this.second = second;
+        }
+
+        void publish() {
+            published = claimedSequence;
+        }
+
+        void clear() {
+            playerId = null;
+            peerId = null;
+            text = null;
+        }
+    }
+
+    /**
+     * Writes each chunk with a single print call, so chunks never interleave mid-line with other stdout users.
+     */
+    private static final class PrintStreamWriter extends Writer {
+        private final PrintStream stream;
+
+        PrintStreamWriter(PrintStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            stream.print(new String(chars, offset, length));
+        }
+
+        @Override
+        public void flush() {
+            stream.flush();
+        }
+
+        @Override
+        public void close() {
+            stream.flush();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the sizes of batches delivered by a channel.
+ * Sizes are bucketed by power of two (1, 2-3, 4-7, ...), so recording is allocation-free.
+ */
+public final class BatchStats {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder batches;
+    private final LongAdder messages;
+    private final AtomicLong maxBatchSize;
+    private final AtomicLongArray histogram;
+
+    /**
+     * Creates empty batch statistics.
+     */
+    public BatchStats() {
+        this.batches = new LongAdder();
+        this.messages = new LongAdder();
+        this.maxBatchSize = new AtomicLong();
+        this.histogram = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Records one delivered batch.
+     */
+    public void record(int batchSize) {
+        if (batchSize <= 0) {
+            return;
+        }
+        batches.increment();
+        messages.add(batchSize);
+        histogram.incrementAndGet(31 - Integer.numberOfLeadingZeros(batchSize));
+        long max;
+        while (batchSize > (max = maxBatchSize.get()) && !maxBatchSize.compareAndSet(max, batchSize)) {
+            // Retry until we either published our size or someone published a larger one
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) messages.sum() / count;
+    }
+
+    /**
+     * Gets the number of batches whose size was in [2^bucket, 2^(bucket+1)).
+     */
+    public long getBucketCount(int bucket) {
+        return histogram.get(bucket);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("batches=%d, messages=%d, avg=%.2f, max=%d, sizes={",
+                getBatchCount(), getMessageCount(), getAverageBatchSize(), getMaxBatchSize()));
+        boolean first = true;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = histogram.get(bucket);
+            if (count > 0) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(1L << bucket).append('+').append('=').append(count);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact, length-prefixed binary encoding of Message (CodecVersion.BINARY).
+ * Encoding writes straight into the caller's ByteBuffer and does not allocate.
+ * Decoding allocates only the Strings of the resulting Message; use MessageFlyweight to read
+ * fields without building a Message at all.
+ *
+ * Frame layout (big-endian):
+ * <pre>
+ * int   bodyLength       length of everything below
+ * byte  version          CodecVersion.BINARY id
+ * byte  flags            bit 0: sequence number present, bit 1: correlation id present, bit 2: reply,
+ *                        bits 3-4: MessagePriority wire code (0 = NORMAL)
+ * long  sequenceNumber
+ * short fromLength       UTF-8 byte length, -1 for null
+ * ...   fromPlayerId
+ * short toLength         UTF-8 byte length, -1 for null
+ * ...   toPlayerId
+ * int   payloadLength    UTF-8 byte length, -1 for null, -2 for a numeric payload
+ * ...   payload          UTF-8 bytes, or a long for a numeric payload
+ * long  correlationId    only if flag bit 1 is set
+ * </pre>
+ * Decoders that predate numeric payloads or correlation ids reject the -2 length or the trailing correlation id
+ * (frame length mismatch) instead of misreading the frame.
+ * Not thread-safe: the decoder keeps a scratch array for direct buffers.
+ */
+public final class BinaryMessageCodec implements MessageCodec {
+    static final int VERSION_OFFSET = 0;
+    static final int FLAGS_OFFSET = 1;
+    static final int SEQUENCE_OFFSET = 2;
+    static final int FROM_LENGTH_OFFSET = 10;
+    static final int FLAG_HAS_SEQUENCE = 1;
+    static final int FLAG_HAS_CORRELATION = 2;
+    static final int FLAG_REPLY = 4;
+    static final int PRIORITY_SHIFT = 3;
+    static final int PRIORITY_MASK = 3;
+
+    static final int NUMERIC_LENGTH = -2;
+
+    private static final int NULL_LENGTH = -1;
+
+    private byte[] scratch = new byte[256];
+
+    @Override
+    public CodecVersion version() {
+        return CodecVersion.BINARY;
+    }
+
+    @Override
+    public void encode(Message message, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            buffer.position(start + LENGTH_PREFIX_BYTES);
+            buffer.put((byte) CodecVersion.BINARY.getId());
+            long correlationId = message.getCorrelationId();
+            buffer.put((byte) ((message.hasSequenceNumber() ? FLAG_HAS_SEQUENCE : 0)
+                    | (correlationId != 0 ? FLAG_HAS_CORRELATION : 0)
+                    | (message.isReply() ? FLAG_REPLY : 0)
+                    | message.getPriority().getWireCode() << PRIORITY_SHIFT));
+            buffer.putLong(message.getSequence());
+            putShortString(message.getFromPlayerId(), buffer);
+            putShortString(message.getToPlayerId(), buffer);
+
+            CharSequence payload = message.hasNumericPayload() ? null : message.getPayloadChars();
+            if (message.hasNumericPayload()) {
+                buffer.putInt(NUMERIC_LENGTH);
+                buffer.putLong(message.getNumericPayload());
+            } else if (payload == null) {
+                buffer.putInt(NULL_LENGTH);
+            } else {
+                int lengthIndex = buffer.position();
+                buffer.putInt(0);
+                buffer.putInt(lengthIndex, Utf8.encode(payload, buffer));
+            }
+            if (correlationId != 0) {
+                buffer.putLong(correlationId);
+            }
+        } catch (BufferOverflowException | IllegalArgumentException e) {
+            // Leave the buffer as it was so the caller can flush and retry
+            buffer.position(start);
+            throw e;
+        }
+        buffer.putInt(start, buffer.position() - start - LENGTH_PREFIX_BYTES);
+    }
+
+    private static void putShortString(String value, ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putShort((short) NULL_LENGTH);
+            return;
+        }
+        int lengthIndex = buffer.position();
+        buffer.putShort((short) 0);
+        int length = Utf8.encode(value, buffer);
+        if (length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Player id too long for binary codec: " + length + " bytes");
+        }
+        buffer.putShort(lengthIndex, (short) length);
+    }
+
+    @Override
+    public Message decode(ByteBuffer buffer) {
+        if (!MessageCodec.hasCompleteFrame(buffer)) {
+            return null;
+        }
+        int bodyLength = buffer.getInt();
+        int bodyStart = buffer.position();
+        int version = buffer.get(bodyStart + VERSION_OFFSET);
+        if (version != CodecVersion.BINARY.getId()) {
+            throw new IllegalArgumentException("Unexpected codec version in frame: " + version);
+        }
+        int flags = buffer.get(bodyStart + FLAGS_OFFSET);
+        boolean hasSequence = (flags & FLAG_HAS_SEQUENCE) != 0;
+        long sequence = buffer.getLong(bodyStart + SEQUENCE_OFFSET);
+
+        buffer.position(bodyStart + FROM_LENGTH_OFFSET);
+        String from = readString(buffer, buffer.getShort());
+        String to = readString(buffer, buffer.getShort());
+        int payloadLength = buffer.getInt();
+        boolean numeric = payloadLength == NUMERIC_LENGTH;
+        if (numeric && buffer.remaining() < Long.BYTES) {
+            throw new IllegalArgumentException("Truncated numeric payload in frame");
+        }
+        long number = numeric ? buffer.getLong() : 0L;
+        String payload = numeric ? null : readString(buffer, payloadLength);
+        long correlationId = 0;
+        if ((flags & FLAG_HAS_CORRELATION) != 0) {
+            if (buffer.remaining() < Long.BYTES) {
+                throw new IllegalArgumentException("Truncated correlation id in frame");
+            }
+            correlationId = buffer.getLong();
+        }
+
+        if (buffer.position() != bodyStart + bodyLength) {
+            throw new IllegalArgumentException("Frame length mismatch: declared " + bodyLength
+                    + ", read " + (buffer.position() - bodyStart));
+        }
+        int priority = flags >> PRIORITY_SHIFT & PRIORITY_MASK;
+        // Numeric payloads always carry a sequence number
+        boolean sequenced = numeric || hasSequence;
+        return new Message(payload, numeric, number, from, to, PlayerIds.NO_HANDLE, PlayerIds.NO_HANDLE,
+                sequenced ? sequence : 0, sequenced, correlationId, correlationId != 0 && (flags & FLAG_REPLY) != 0,
+                priority != 0 ? MessagePriority.fromWireCode(priority) : MessagePriority.NORMAL);
+    }
+
+    private String readString(ByteBuffer buffer, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid field length in frame: " + length);
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
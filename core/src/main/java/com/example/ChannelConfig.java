@@ -0,0 +1,204 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable tuning options for InMemoryMessageChannel. Start from defaults() and override with the with* methods.
+ */
+public final class ChannelConfig {
+    /**
+     * Messages the CONTROL lane of a channel with priority lanes holds; control traffic is small by design.
+     */
+    public static final int CONTROL_LANE_CAPACITY = 1024;
+
+    private static final ChannelConfig DEFAULTS = new ChannelConfig(ExecutionModel.platformThreads(), 1, 0L,
+            Integer.MAX_VALUE, OverflowPolicy.BLOCK, null, null, null, null);
+
+    private final ExecutionModel executionModel;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final MetricsRegistry metrics;
+    private final MessagePool messagePool;
+    private final Dispatcher dispatcher;
+    // Lane weights in CONTROL, NORMAL, BULK order, or null for a single FIFO queue
+    private final int[] laneWeights;
+
+    private ChannelConfig(ExecutionModel executionModel, int maxBatchSize, long lingerNanos, int capacity,
+            OverflowPolicy overflowPolicy, MetricsRegistry metrics, MessagePool messagePool, Dispatcher dispatcher,
+            int[] laneWeights) {
+        this.executionModel = executionModel;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = lingerNanos;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.metrics = metrics;
+        this.messagePool = messagePool;
+        this.dispatcher = dispatcher;
+        this.laneWeights = laneWeights;
+    }
+
+    /**
+     * Platform thread per channel, unbounded queue, one message per delivery, no linger, no metrics.
+     */
+    public static ChannelConfig defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns a copy running channel consume loops on the given execution model.
+     */
+    public ChannelConfig withExecutionModel(ExecutionModel executionModel) {
+        if (executionModel == null) {
+            throw new IllegalArgumentException("Execution model cannot be null");
+        }
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy that delivers up to maxBatchSize queued messages per wakeup.
+     */
+    public ChannelConfig withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy that waits up to the given time for a batch to fill before delivering it.
+     * Linger trades latency for larger batches; it only applies to channels that own a thread.
+     */
+    public ChannelConfig withLinger(long linger, TimeUnit unit) {
+        if (linger < 0) {
+            throw new IllegalArgumentException("Linger cannot be negative: " + linger);
+        }
+        return new ChannelConfig(executionModel, maxBatchSize, unit.toNanos(linger), capacity, overflowPolicy,
+                metrics, messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy whose channels queue at most capacity messages and apply the policy when full.
+     */
+    public ChannelConfig withCapacity(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy cannot be null");
+        }
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy whose channels record queue depth, enqueue-to-delivery latency and batch sizes
+     * under "channel.&lt;target&gt;." in the registry; null turns instrumentation off.
+     */
+    public ChannelConfig withMetrics(MetricsRegistry metrics) {
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy whose games let players reply with envelopes from the pool (see Player.setMessagePool);
+     * null (the default) keeps immutable messages. Channels recycle delivered envelopes either way.
+     */
+    public ChannelConfig withMessagePool(MessagePool messagePool) {
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy whose games deliver routed messages through the dispatcher's per-player mailboxes
+     * (see MessageRouter.setDispatcher); null (the default) delivers on the channel threads.
+     */
+    public ChannelConfig withDispatcher(Dispatcher dispatcher) {
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, laneWeights);
+    }
+
+    /**
+     * Returns a copy whose channels queue messages in one lane per MessagePriority and deliver them by weight:
+     * per round, up to controlWeight CONTROL messages, then normalWeight NORMAL and bulkWeight BULK ones (see
+     * PriorityLaneQueue). The NORMAL and BULK lanes each hold up to the configured capacity, the CONTROL lane up to
+     * CONTROL_LANE_CAPACITY; the overflow policy applies per lane.
+     */
+    public ChannelConfig withPriorityLanes(int controlWeight, int normalWeight, int bulkWeight) {
+        if (controlWeight < 1 || normalWeight < 1 || bulkWeight < 1) {
+            throw new IllegalArgumentException("Lane weights must be positive: " + controlWeight + "/"
+                    + normalWeight + "/" + bulkWeight);
+        }
+        return new ChannelConfig(executionModel, maxBatchSize, lingerNanos, capacity, overflowPolicy, metrics,
+                messagePool, dispatcher, new int[] {controlWeight, normalWeight, bulkWeight});
+    }
+
+    public ExecutionModel getExecutionModel() {
+        return executionModel;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getLingerNanos() {
+        return lingerNanos;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the registry channels report to, or null if instrumentation is off.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the pool players reply from, or null if messages are not pooled.
+     */
+    public MessagePool getMessagePool() {
+        return messagePool;
+    }
+
+    /**
+     * Gets the dispatcher routers deliver through, or null if delivery runs on the channel threads.
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Checks if channels queue messages in priority lanes (see withPriorityLanes).
+     */
+    public boolean hasPriorityLanes() {
+        return laneWeights != null;
+    }
+
+    /**
+     * Gets the lane weights in CONTROL, NORMAL, BULK order, or null without priority lanes.
+     */
+    public int[] getLaneWeights() {
+        return laneWeights != null ? laneWeights.clone() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelConfig{execution=" + executionModel + ", maxBatchSize=" + maxBatchSize
+                + ", lingerNanos=" + lingerNanos + ", capacity=" + capacity + ", overflow=" + overflowPolicy
+                + ", metrics=" + (metrics != null) + ", messagePool=" + (messagePool != null ? messagePool : "off")
+                + ", dispatcher=" + (dispatcher != null ? dispatcher : "off")
+                + ", lanes=" + (laneWeights != null
+                        ? laneWeights[0] + "/" + laneWeights[1] + "/" + laneWeights[2] : "off")
+                + "}";
+    }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Thrown by send on a full channel whose overflow policy is FAIL_FAST.
+ */
+public class ChannelFullException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public ChannelFullException(String message) {
+        super(message);
+    }
+}
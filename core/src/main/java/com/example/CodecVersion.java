@@ -0,0 +1,102 @@
+package com.example;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Wire format versions understood by this system.
+ * Peers exchange their supported versions as a bit mask (see toMask/fromMask) and pick the highest common one.
+ */
+public enum CodecVersion {
+    /**
+     * Original pipe-delimited text format produced by Message.serialize(), kept for compatibility.
+     */
+    TEXT(1) {
+        @Override
+        public MessageCodec newCodec() {
+            return new TextMessageCodec();
+        }
+    },
+
+    /**
+     * Compact binary format written by BinaryMessageCodec.
+     */
+    BINARY(2) {
+        @Override
+        public MessageCodec newCodec() {
+            return new BinaryMessageCodec();
+        }
+    };
+
+    private final int id;
+
+    CodecVersion(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the numeric version id written on the wire.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Creates a new (non thread-safe) codec for this version.
+     */
+    public abstract MessageCodec newCodec();
+
+    /**
+     * Looks up a version by its wire id.
+     */
+    public static CodecVersion fromId(int id) {
+        for (CodecVersion version : values()) {
+            if (version.id == id) {
+                return version;
+            }
+        }
+        throw new IllegalArgumentException("Unknown codec version: " + id);
+    }
+
+    /**
+     * Encodes a set of supported versions as a bit mask (bit n set = version id n supported).
+     */
+    public static int toMask(Set<CodecVersion> versions) {
+        int mask = 0;
+        for (CodecVersion version : versions) {
+            mask |= 1 << version.id;
+        }
+        return mask;
+    }
+
+    /**
+     * Decodes a bit mask produced by toMask(). Unknown bits are ignored.
+     */
+    public static Set<CodecVersion> fromMask(int mask) {
+        Set<CodecVersion> versions = EnumSet.noneOf(CodecVersion.class);
+        for (CodecVersion version : values()) {
+            if ((mask & (1 << version.id)) != 0) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Picks the highest version supported by both sides.
+     *
+     * @throws IllegalArgumentException if the two sides have no version in common
+     */
+    public static CodecVersion negotiate(Set<CodecVersion> local, Set<CodecVersion> remote) {
+        CodecVersion best = null;
+        for (CodecVersion version : local) {
+            if (remote.contains(version) && (best == null || version.id > best.id)) {
+                best = version;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("No common codec version between " + local + " and " + remote);
+        }
+        return best;
+    }
+}
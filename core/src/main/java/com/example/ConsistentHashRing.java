@@ -0,0 +1,161 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Consistent-hash ring that places player ids on nodes (see PartitionedRouter).
+ * Each node is hashed onto the ring at many points (virtual nodes), and a key belongs to the node owning the first
+ * point at or after the key's hash. When a node joins it takes over only the keys just before its own points, and
+ * when it leaves only its keys move, to the next points, so about 1/N of the keys move per change instead of all.
+ * <p>
+ * Lookups are lock-free reads of an immutable snapshot; membership changes are rare and rebuild it under a lock.
+ */
+public final class ConsistentHashRing {
+    /**
+     * Points per node, unless set otherwise; enough for a few percent load spread between nodes.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates an empty ring with DEFAULT_VIRTUAL_NODES points per node.
+     */
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates an empty ring with the given number of points per node.
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one virtual node per node: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.snapshot = new Snapshot(new long[0], new String[0], Collections.emptySet(), 0);
+    }
+
+    /**
+     * Adds a node to the ring.
+     *
+     * @throws IllegalArgumentException if the node is already on the ring
+     */
+    public synchronized void addNode(String nodeId) {
+        Set<String> nodes = new LinkedHashSet<>(snapshot.nodes);
+        if (!nodes.add(nodeId)) {
+            throw new IllegalArgumentException("Node already on the ring: " + nodeId);
+        }
+        rebuild(nodes);
+    }
+
+    /**
+     * Removes a node from the ring; its keys move to the nodes owning the next points.
+     *
+     * @return false if the node was not on the ring
+     */
+    public synchronized boolean removeNode(String nodeId) {
+        Set<String> nodes = new LinkedHashSet<>(snapshot.nodes);
+        if (!nodes.remove(nodeId)) {
+            return false;
+        }
+        rebuild(nodes);
+        return true;
+    }
+
+    private void rebuild(Set<String> nodes) {
+        long[] points = new long[nodes.size() * virtualNodes];
+        String[] owners = new String[points.length];
+        // Sort (point, owner) pairs by point through an index array
+        Integer[] order = new Integer[points.length];
+        long[] unsorted = new long[points.length];
+        String[] unsortedOwners = new String[points.length];
+        int i = 0;
+        for (String node : nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                unsorted[i] = hash(node + "#" + v);
+                unsortedOwners[i] = node;
+                order[i] = i;
+                i++;
+            }
+        }
+        // Ties between nodes are astronomically rare; breaking them by node id keeps every view of the ring equal
+        Arrays.sort(order, (a, b) -> {
+            int byPoint = Long.compare(unsorted[a], unsorted[b]);
+            return byPoint != 0 ? byPoint : unsortedOwners[a].compareTo(unsortedOwners[b]);
+        });
+        for (i = 0; i < order.length; i++) {
+            points[i] = unsorted[order[i]];
+            owners[i] = unsortedOwners[order[i]];
+        }
+        snapshot = new Snapshot(points, owners, Collections.unmodifiableSet(nodes), snapshot.version + 1);
+    }
+
+    /**
+     * Gets the node the key belongs to.
+     *
+     * @throws IllegalStateException if the ring has no nodes
+     */
+    public String nodeFor(CharSequence key) {
+        Snapshot current = snapshot;
+        if (current.points.length == 0) {
+            throw new IllegalStateException("No nodes on the ring");
+        }
+        int index = Arrays.binarySearch(current.points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Past the last point the ring wraps around to the first
+        return current.owners[index == current.points.length ? 0 : index];
+    }
+
+    /**
+     * Gets the nodes on the ring, in the order they joined.
+     */
+    public Set<String> getNodes() {
+        return snapshot.nodes;
+    }
+
+    /**
+     * Gets a number that changes whenever a node joins or leaves, for caching lookups.
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer so that similar ids
+     * (player-1, player-2, ...) spread over the whole ring.
+     */
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Snapshot {
+        final long[] points;
+        final String[] owners;
+        final Set<String> nodes;
+        final long version;
+
+        Snapshot(long[] points, String[] owners, Set<String> nodes, long version) {
+            this.points = points;
+            this.owners = owners;
+            this.nodes = nodes;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example;
+
+/**
+ * Prints every event synchronously to System.out. Simple and ordered, but each event formats a line and
+ * takes the stdout lock on the calling thread; use AsyncEventSink or a filtered sink under load.
+ */
+final class ConsoleEventSink implements EventSink {
+    static final ConsoleEventSink INSTANCE = new ConsoleEventSink();
+
+    private ConsoleEventSink() {
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload) {
+        System.out.println(EventFormat.sent(new StringBuilder(64), playerId, sequence, toPlayerId, payload));
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+        System.out.println(EventFormat.received(new StringBuilder(64), playerId, fromPlayerId, payload));
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, long payload) {
+        System.out.println(EventFormat.sent(new StringBuilder(64), playerId, sequence, toPlayerId, payload));
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, long payload) {
+        System.out.println(EventFormat.received(new StringBuilder(64), playerId, fromPlayerId, payload));
+    }
+
+    @Override
+    public void progress(String playerId, long sent, long received) {
+        System.out.println(EventFormat.progress(new StringBuilder(64), playerId, sent, received));
+    }
+
+    @Override
+    public void info(String playerId, String text) {
+        System.out.println(EventFormat.info(new StringBuilder(64), playerId, text));
+    }
+
+    @Override
+    public String toString() {
+        return "console";
+    }
+}
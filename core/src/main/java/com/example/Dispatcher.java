@@ -0,0 +1,191 @@
+package com.example;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers routed messages from per-player mailboxes on a work-stealing ForkJoinPool, so a slow receiver only
+ * delays its own messages instead of the channel thread (and every other sender) that routed to it.
+ * See MessageRouter.setDispatcher.
+ * <p>
+ * Each player gets a Mailbox the first time a message is dispatched to it, kept on the player itself, so the
+ * dispatcher holds no table of players and a mailbox goes away with its player. Messages to one player are delivered
+ * in order, one turn at a time; a turn delivers at most throughput messages before the worker moves on to the next
+ * mailbox (actor-style fairness). Idle mailboxes are not scheduled at all.
+ * <p>
+ * Scheduled mailboxes wait in one FIFO ready queue, and every pool task runs the turn of whichever mailbox is at
+ * its head. A ForkJoinPool worker runs the tasks it submitted itself before anything submitted by other threads,
+ * so handing the mailbox itself to the pool would let a busy mailbox that reschedules itself run ahead of mailboxes
+ * scheduled by channel threads; the ready queue keeps turns in order while the pool still balances the work.
+ */
+public final class Dispatcher implements AutoCloseable {
+    /**
+     * Messages a mailbox delivers per turn, unless set otherwise.
+     */
+    public static final int DEFAULT_THROUGHPUT = 32;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int throughput;
+    private final Queue<Mailbox> ready;
+    private final Runnable runNextTurn;
+    private final LongAdder turns;
+    private final LongAdder delivered;
+    private final LongAdder failed;
+    private volatile EventSink events;
+
+    /**
+     * Creates a dispatcher with its own pool of parallelism daemon workers.
+     */
+    public Dispatcher(int parallelism, int throughput) {
+        this(new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Dispatcher-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true), throughput, true);
+    }
+
+    /**
+     * Creates a dispatcher on the caller's pool, which the caller shuts down. The pool should be in async mode
+     * (see the ForkJoinPool constructor) for fair turns.
+     */
+    public Dispatcher(ForkJoinPool pool, int throughput) {
+        this(pool, throughput, false);
+    }
+
+    private Dispatcher(ForkJoinPool pool, int throughput, boolean ownsPool) {
+        if (throughput < 1) {
+            throw new IllegalArgumentException("Throughput must be positive: " + throughput);
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.throughput = throughput;
+        this.ready = new ConcurrentLinkedQueue<>();
+        this.runNextTurn = () -> {
+            Mailbox next = ready.poll();
+            if (next != null) {
+                next.run();
+            }
+        };
+        this.turns = new LongAdder();
+        this.delivered = new LongAdder();
+        this.failed = new LongAdder();
+        this.events = EventSink.console();
+    }
+
+    /**
+     * Parses a command line value: "on" (one worker per core) or the number of workers.
+     */
+    public static Dispatcher parse(String value, int throughput) {
+        int parallelism = value.equals("on")
+                ? Runtime.getRuntime().availableProcessors()
+                : Integer.parseInt(value);
+        return new Dispatcher(parallelism, throughput);
+    }
+
+    /**
+     * Queues the message in the target's mailbox and returns; the target's onMessages runs later on the pool.
+     * The message must stay valid until then (see Message.detach()).
+     */
+    void dispatch(Player target, Message message) {
+        mailboxOf(target).enqueue(message);
+    }
+
+    private Mailbox mailboxOf(Player target) {
+        Mailbox mailbox = target.getMailbox();
+        if (mailbox != null && mailbox.getDispatcher() == this) {
+            return mailbox;
+        }
+        return createMailbox(target);
+    }
+
+    private synchronized Mailbox createMailbox(Player target) {
+        Mailbox mailbox = target.getMailbox();
+        if (mailbox != null && mailbox.getDispatcher() == this) {
+            return mailbox;
+        }
+        // A player moved over from another dispatcher leaves its old mailbox behind
+        mailbox = new Mailbox(target, this);
+        target.setMailbox(mailbox);
+        return mailbox;
+    }
+
+    /**
+     * Puts a mailbox that has just been scheduled at the back of the ready queue, with one pool task for its turn.
+     */
+    void execute(Mailbox mailbox) {
+        ready.add(mailbox);
+        pool.execute(runNextTurn);
+    }
+
+    void recordTurn(int messages) {
+        turns.increment();
+        delivered.add(messages);
+    }
+
+    public int getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Gets the number of mailbox turns run so far.
+     */
+    public long getTurnCount() {
+        return turns.sum();
+    }
+
+    /**
+     * Gets the number of messages delivered so far.
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Sets where failed deliveries are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the number of mailbox turns whose delivery threw; the mailboxes went on with their next messages.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Counts and reports a turn whose delivery to the player threw.
+     */
+    void deliveryFailed(Player player, RuntimeException e) {
+        failed.increment();
+        events.info(player.getPlayerId(), "Delivery failed: " + e);
+    }
+
+    /**
+     * Shuts down the pool if the dispatcher created it, waiting up to a second for running turns.
+     */
+    @Override
+    public void close() {
+        if (!ownsPool) {
+            return;
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Dispatcher{parallelism=" + pool.getParallelism() + ", throughput=" + throughput + "}";
+    }
+}
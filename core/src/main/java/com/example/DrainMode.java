@@ -0,0 +1,23 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * What a stopping channel does with the messages still queued in it (see MessageChannel.stopAsync).
+ * <ul>
+ * <li>FLUSH - delivers them before it stops, as long as the shutdown deadline allows</li>
+ * <li>DISCARD - stops right after the delivery in progress and hands them back undelivered</li>
+ * </ul>
+ * Either way, messages a channel could not deliver before the deadline are reported, not silently dropped.
+ */
+public enum DrainMode {
+    FLUSH,
+    DISCARD;
+
+    /**
+     * Parses a command line value: "flush" or "discard".
+     */
+    public static DrainMode parse(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
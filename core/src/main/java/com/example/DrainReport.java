@@ -0,0 +1,63 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of GracefulShutdown.stopAll: how many players stopped, how many missed the deadline, and the messages
+ * their channels accepted but never delivered.
+ */
+public final class DrainReport {
+    private final int playerCount;
+    private final int timedOutCount;
+    private final List<Message> undelivered;
+    private final long elapsedNanos;
+
+    /**
+     * Creates new report.
+     */
+    public DrainReport(int playerCount, int timedOutCount, List<Message> undelivered, long elapsedNanos) {
+        this.playerCount = playerCount;
+        this.timedOutCount = timedOutCount;
+        this.undelivered = Collections.unmodifiableList(undelivered);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Gets the number of players whose channel had not stopped by the deadline.
+     */
+    public int getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    /**
+     * Gets the messages that were queued but never delivered, in no particular order across players.
+     */
+    public List<Message> getUndelivered() {
+        return undelivered;
+    }
+
+    /**
+     * Gets the time from the first stop request until the last channel stopped or the deadline passed.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Checks if every channel stopped in time with nothing left undelivered.
+     */
+    public boolean isClean() {
+        return timedOutCount == 0 && undelivered.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Stopped %d players in %.1f ms (%d timed out, %d undelivered messages)",
+                playerCount, elapsedNanos / 1_000_000.0, timedOutCount, undelivered.size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example;
+
+/**
+ * Text layout of player events, shared by the console and async sinks so both print identical lines.
+ * Appends into a caller-supplied StringBuilder, which the async writer reuses across events.
+ */
+final class EventFormat {
+
+    private EventFormat() {
+    }
+
+    static StringBuilder sent(StringBuilder sb, String playerId, long sequence, String toPlayerId,
+            CharSequence payload) {
+        return sb.append('[').append(playerId).append("] Sent message #").append(sequence)
+                .append(" to ").append(toPlayerId).append(": ").append(payload);
+    }
+
+    static StringBuilder sent(StringBuilder sb, String playerId, long sequence, String toPlayerId, long payload) {
+        return sb.append('[').append(playerId).append("] Sent message #").append(sequence)
+                .append(" to ").append(toPlayerId).append(": ").append(payload);
+    }
+
+    static StringBuilder received(StringBuilder sb, String playerId, String fromPlayerId, long payload) {
+        return sb.append('[').append(playerId).append("] Received message from ").append(fromPlayerId)
+                .append(": ").append(payload);
+    }
+
+    static StringBuilder received(StringBuilder sb, String playerId, String fromPlayerId, CharSequence payload) {
+        return sb.append('[').append(playerId).append("] Received message from ").append(fromPlayerId)
+                .append(": ").append(payload);
+    }
+
+    static StringBuilder progress(StringBuilder sb, String playerId, long sent, long received) {
+        return sb.append('[').append(playerId).append("] Progress: sent=").append(sent)
+                .append(", received=").append(received);
+    }
+
+    static StringBuilder info(StringBuilder sb, String playerId, String text) {
+        return sb.append('[').append(playerId).append("] ").append(text);
+    }
+}
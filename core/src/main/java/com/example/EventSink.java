@@ -0,0 +1,98 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * Receives the events a Player reports while playing: per-message sends and receives, progress and lifecycle notes.
+ * Channels, dispatchers and timers report failed deliveries as INFO notes too, under the id of the player or
+ * resource concerned.
+ * Events are passed as raw fields rather than formatted strings, so a sink that discards or defers an event
+ * costs no formatting or allocation on the caller's thread.
+ * Implementations must be thread-safe; players call them from their channel threads. A payload may be the reusable
+ * buffer of a pooled message, so implementations must not keep a reference to it beyond the call.
+ */
+public interface EventSink {
+
+    /**
+     * Severity of an event. Per-message events are DEBUG, lifecycle notes are INFO.
+     */
+    enum Level {
+        DEBUG,
+        INFO
+    }
+
+    /**
+     * A player sent a message (DEBUG).
+     */
+    void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload);
+
+    /**
+     * A player received a message (DEBUG).
+     */
+    void messageReceived(String playerId, String fromPlayerId, CharSequence payload);
+
+    /**
+     * A player sent a message with a numeric payload (DEBUG). The default formats the number for the text variant;
+     * the built-in sinks override it so that a discarded or deferred event does not format anything.
+     */
+    default void messageSent(String playerId, long sequence, String toPlayerId, long payload) {
+        messageSent(playerId, sequence, toPlayerId, Long.toString(payload));
+    }
+
+    /**
+     * A player received a message with a numeric payload (DEBUG). See the numeric messageSent.
+     */
+    default void messageReceived(String playerId, String fromPlayerId, long payload) {
+        messageReceived(playerId, fromPlayerId, Long.toString(payload));
+    }
+
+    /**
+     * The initiator's progress towards its stop condition (DEBUG).
+     */
+    void progress(String playerId, long sent, long received);
+
+    /**
+     * A lifecycle note such as the stop condition being met (INFO).
+     */
+    void info(String playerId, String text);
+
+    /**
+     * Flushes pending events and releases resources. Events reported afterwards may be dropped.
+     */
+    default void close() {
+    }
+
+    /**
+     * Prints every event synchronously to System.out (the original behaviour).
+     */
+    static EventSink console() {
+        return ConsoleEventSink.INSTANCE;
+    }
+
+    /**
+     * Discards every event.
+     */
+    static EventSink noOp() {
+        return NoOpEventSink.INSTANCE;
+    }
+
+    /**
+     * Parses a command line value: "console", "async" or "off", optionally followed by a minimum level
+     * such as "console:info" (lifecycle events only). The toString() of parsed sinks yields the same value.
+     */
+    static EventSink parse(String value) {
+        int colon = value.indexOf(':');
+        if (colon >= 0) {
+            Level threshold = Level.valueOf(value.substring(colon + 1).toUpperCase(Locale.ROOT));
+            return new LevelFilteredEventSink(parse(value.substring(0, colon)), threshold);
+        }
+        if (value.equals("console")) {
+            return console();
+        } else if (value.equals("async")) {
+            return new AsyncEventSink(AsyncEventSink.DEFAULT_CAPACITY);
+        } else if (value.equals("off")) {
+            return noOp();
+        }
+        throw new IllegalArgumentException("Unknown event sink: " + value);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which threads run the consume loops of message channels.
+ * <ul>
+ * <li>PLATFORM_THREADS - one dedicated OS thread per channel (the original behaviour)</li>
+ * <li>VIRTUAL_THREADS - one virtual thread per channel; requires a Java 21+ runtime</li>
+ * <li>WORKER_POOL - many channels multiplexed onto a small fixed pool of worker threads</li>
+ * </ul>
+ * The project still compiles for Java 11, so virtual threads are created reflectively.
+ */
+public final class ExecutionModel {
+
+    /**
+     * Available execution models.
+     */
+    public enum Kind {
+        PLATFORM_THREADS,
+        VIRTUAL_THREADS,
+        WORKER_POOL
+    }
+
+    private static final ExecutionModel PLATFORM = new ExecutionModel(Kind.PLATFORM_THREADS, null, null);
+
+    private final Kind kind;
+    private final ThreadFactory virtualThreadFactory;
+    private final ExecutorService workerPool;
+
+    private ExecutionModel(Kind kind, ThreadFactory virtualThreadFactory, ExecutorService workerPool) {
+        this.kind = kind;
+        this.virtualThreadFactory = virtualThreadFactory;
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * One dedicated platform thread per channel.
+     */
+    public static ExecutionModel platformThreads() {
+        return PLATFORM;
+    }
+
+    /**
+     * One virtual thread per channel.
+     *
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads
+     */
+    public static ExecutionModel virtualThreads() {
+        return new ExecutionModel(Kind.VIRTUAL_THREADS, createVirtualThreadFactory(), null);
+    }
+
+    /**
+     * Checks if the current runtime supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            createVirtualThreadFactory();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Multiplexes channels onto a fixed pool of daemon worker threads.
+     */
+    public static ExecutionModel workerPool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Worker pool needs at least one thread: " + threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ChannelWorker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ExecutionModel(Kind.WORKER_POOL, null, pool);
+    }
+
+    /**
+     * Parses a command line value: "platform", "virtual", "pool" (one worker per core) or "pool:N".
+     */
+    public static ExecutionModel parse(String value) {
+        if (value.equals("platform")) {
+            return platformThreads();
+        } else if (value.equals("virtual")) {
+            return virtualThreads();
+        } else if (value.equals("pool")) {
+            return workerPool(Runtime.getRuntime().availableProcessors());
+        } else if (value.startsWith("pool:")) {
+            return workerPool(Integer.parseInt(value.substring("pool:".length())));
+        }
+        throw new IllegalArgumentException("Unknown execution model: " + value);
+    }
+
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer (running "
+                    + System.getProperty("java.version") + ")", e);
+        }
+    }
+
+    /**
+     * Gets the kind of this execution model.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Checks if channels share worker threads instead of owning a thread each.
+     * Multiplexed channels must not block in their consume loop; they schedule drain tasks with execute().
+     */
+    public boolean isMultiplexed() {
+        return kind == Kind.WORKER_POOL;
+    }
+
+    /**
+     * Creates and starts a dedicated thread for a channel's consume loop (non-multiplexed models only).
+     */
+    public Thread startThread(String name, Runnable loop) {
+        Thread thread;
+        if (kind == Kind.VIRTUAL_THREADS) {
+            thread = virtualThreadFactory.newThread(loop);
+            thread.setName(name);
+        } else if (kind == Kind.PLATFORM_THREADS) {
+            thread = new Thread(loop, name);
+        } else {
+            throw new IllegalStateException("Worker pool channels do not own threads");
+        }
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Runs a drain task on the worker pool (multiplexed models only).
+     */
+    public void execute(Runnable task) {
+        if (workerPool == null) {
+            throw new IllegalStateException(kind + " does not have a worker pool");
+        }
+        workerPool.execute(task);
+    }
+
+    /**
+     * Shuts down the worker pool, if any, waiting up to the timeout for queued drain tasks.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        if (workerPool == null) {
+            return;
+        }
+        workerPool.shutdown();
+        try {
+            workerPool.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind.name();
+    }
+}
@@ -0,0 +1,560 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orchestrates messaging game between two players.
+ */
+public class GameController {
+    private static final String READY_PREFIX = "READY ";
+    // Overall deadline for stopping all players of a game or a multi-game run
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 1;
+    private static final String TO_RESPONDER_RING = "initiator-to-responder.ring";
+    private static final String TO_INITIATOR_RING = "responder-to-initiator.ring";
+
+    private final ChannelConfig channelConfig;
+    private final ExecutionModel executionModel;
+    private final EventSink events;
+    private Player initiator;
+    private Player responder;
+    private final CountDownLatch stopLatch;
+    private volatile boolean stopped;
+    private MessageJournal journal;
+    private long firstPayload = 1;
+    private long messageLimit = Player.DEFAULT_MESSAGE_LIMIT;
+    private DrainMode drainMode = DrainMode.FLUSH;
+
+    /**
+     * Creates new GameController where every channel owns a platform thread.
+     */
+    public GameController() {
+        this(ExecutionModel.platformThreads());
+    }
+
+    /**
+     * Creates new GameController whose in-memory channels run on the given execution model.
+     */
+    public GameController(ExecutionModel executionModel) {
+        this(ChannelConfig.defaults().withExecutionModel(executionModel));
+    }
+
+    /**
+     * Creates new GameController whose in-memory channels use the given execution model and batching settings.
+     */
+    public GameController(ChannelConfig channelConfig) {
+        this(channelConfig, EventSink.console());
+    }
+
+    /**
+     * Creates new GameController whose players report their per-message events to the given sink.
+     * The caller owns the sink and closes it after the game.
+     */
+    public GameController(ChannelConfig channelConfig, EventSink events) {
+        this.channelConfig = channelConfig;
+        this.events = events;
+        this.executionModel = channelConfig.getExecutionModel();
+        this.stopLatch = new CountDownLatch(1);
+        this.stopped = false;
+    }
+
+    /**
+     * Sets the journal for the single-process game. start() then first recovers the players' counters from it
+     * and resumes the conversation with the last journaled message, and journals every routed message.
+     * The caller owns the journal and closes it after the game.
+     */
+    public void setJournal(MessageJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the number the initiator opens every game with (default 1). Payloads are 64-bit, so e.g. a value near
+     * Integer.MAX_VALUE runs the game across the int range.
+     */
+    public void setFirstPayload(long firstPayload) {
+        this.firstPayload = firstPayload;
+    }
+
+    /**
+     * Sets how many messages every initiator sends and receives before its game stops (default 10).
+     */
+    public void setMessageLimit(long messageLimit) {
+        if (messageLimit < 1) {
+            throw new IllegalArgumentException("Message limit must be positive: " + messageLimit);
+        }
+        this.messageLimit = messageLimit;
+    }
+
+    /**
+     * Sets what stopping channels do with the messages still queued in them (default FLUSH).
+     */
+    public void setDrainMode(DrainMode drainMode) {
+        if (drainMode == null) {
+            throw new IllegalArgumentException("Drain mode cannot be null");
+        }
+        this.drainMode = drainMode;
+    }
+
+    /**
+     * Initializes and starts the game.
+     * Creates both players in same JVM and starts conversation.
+     */
+    public void start() {
+        System.out.println("Starting player messaging system (" + channelConfig + ")...");
+
+        // Create message router
+        MessageRouter router = newRouter();
+
+        // Create message channels
+        InMemoryMessageChannel initiatorChannel = new InMemoryMessageChannel(router, "responder", channelConfig);
+        InMemoryMessageChannel responderChannel = new InMemoryMessageChannel(router, "initiator", channelConfig);
+
+        // Create players with stop condition callback
+        Runnable onStop = () -> {
+            if (!stopped) {
+                stopped = true;
+                stopLatch.countDown();
+            }
+        };
+
+        responder = new Player("responder", PlayerRole.RESPONDER, responderChannel, null, events);
+        initiator = new Player("initiator", PlayerRole.INITIATOR, initiatorChannel, onStop, events);
+
+        // Register players with router
+        router.register("responder", responder);
+        router.register("initiator", initiator);
+        configure(responder);
+        configure(initiator);
+
+        JournalRecovery recovery = null;
+        if (journal != null) {
+            recovery = JournalRecovery.recover(journal);
+            router.setJournal(journal);
+        }
+        boolean resuming = recovery != null && !recovery.isEmpty();
+        if (resuming) {
+            // Counters are restored before the players start, so no delivery sees them half set
+            restore(recovery);
+        }
+
+        // Start both players
+        responder.start();
+        initiator.start();
+
+        if (resuming) {
+            resendLast(recovery);
+        } else {
+            // Start the conversation
+            System.out.println("Initiator sending first message...");
+            initiator.send(firstPayload, "responder");
+        }
+
+        // Wait for stop condition
+        try {
+            stopLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        shutdown();
+        if (channelConfig.getMaxBatchSize() > 1) {
+            System.out.println("Initiator channel batches: " + initiatorChannel.getBatchStats());
+            System.out.println("Responder channel batches: " + responderChannel.getBatchStats());
+        }
+    }
+
+    /**
+     * Runs the game as pipelined requests (see RequestPipeline): the initiator keeps up to window requests in
+     * flight and sends message-limit requests in total. A window of 1 is strict lock-step, for comparison.
+     *
+     * @return summary of the run, counting the messages of both players
+     */
+    public GameSummary startPipelined(int window) {
+        System.out.println("Starting pipelined game with window " + window + " (" + channelConfig + ")...");
+
+        MessageRouter router = newRouter();
+        InMemoryMessageChannel initiatorChannel = new InMemoryMessageChannel(router, "responder", channelConfig);
+        InMemoryMessageChannel responderChannel = new InMemoryMessageChannel(router, "initiator", channelConfig);
+        responder = new Player("responder", PlayerRole.RESPONDER, responderChannel, null, events);
+        initiator = new Player("initiator", PlayerRole.INITIATOR, initiatorChannel, null, events);
+        router.register("responder", responder);
+        router.register("initiator", initiator);
+        configure(responder);
+        configure(initiator);
+
+        long elapsed;
+        boolean completed = false;
+        try (HashedWheelTimer timer = new HashedWheelTimer()) {
+            initiator.setRequestTimeout(timer, 10, TimeUnit.SECONDS);
+            initiator.setMaxPendingRequests(window);
+            responder.start();
+            initiator.start();
+
+            long start = System.nanoTime();
+            try {
+                new RequestPipeline(initiator, "responder", window).run(firstPayload, messageLimit).get();
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Pipelined game failed: " + e.getCause());
+            }
+            elapsed = System.nanoTime() - start;
+            shutdown();
+        }
+
+        GameSummary summary = new GameSummary(1, 1, completed ? 1 : 0,
+                initiator.getSentCount() + responder.getSentCount(), elapsed);
+        System.out.println(summary);
+        return summary;
+    }
+
+    /**
+     * Runs a load test (see LoadGenerator) with this controller's channel config and prints its report.
+     */
+    public LoadReport startLoad(LoadScenario scenario) {
+        System.out.println("Starting load test: " + scenario + " (" + channelConfig + ")...");
+        LoadReport report = new LoadGenerator(newRouter(), channelConfig, scenario).run();
+        executionModel.shutdown(1, TimeUnit.SECONDS);
+        System.out.println(report);
+        return report;
+    }
+
+    /**
+     * Runs many independent games at once. Games are spread round-robin over shards; each shard has its own
+     * MessageRouter and a single worker thread, so shards scale across cores without sharing routing state.
+     * Blocks until every game reached its stop condition or the timeout elapsed.
+     *
+     * @param games number of initiator/responder pairs
+     * @param shards number of partitions, typically the number of available cores
+     */
+    public GameSummary startMultiGame(int games, int shards, long timeout, TimeUnit unit) {
+        if (games < 1 || shards < 1) {
+            throw new IllegalArgumentException("Need at least one game and one shard");
+        }
+        int shardCount = Math.min(games, shards);
+        System.out.println("Starting " + games + " games on " + shardCount + " shards...");
+
+        CountDownLatch allGamesFinished = new CountDownLatch(games);
+        GameShard[] partitions = new GameShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            partitions[i] = new GameShard(i, channelConfig, events, allGamesFinished, firstPayload, messageLimit);
+        }
+        for (int game = 0; game < games; game++) {
+            partitions[game % shardCount].addGame(game);
+        }
+
+        long start = System.nanoTime();
+        for (GameShard shard : partitions) {
+            shard.start();
+        }
+        try {
+            allGamesFinished.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long messagesSent = 0;
+        for (GameShard shard : partitions) {
+            messagesSent += shard.getMessagesSent();
+        }
+        System.out.println("Shutting down...");
+        List<Player> players = new ArrayList<>();
+        for (GameShard shard : partitions) {
+            players.addAll(shard.getPlayers());
+        }
+        System.out.println(GracefulShutdown.stopAll(players, drainMode, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (GameShard shard : partitions) {
+            shard.shutdownWorker();
+        }
+
+        GameSummary summary = new GameSummary(games, shardCount, games - (int) allGamesFinished.getCount(),
+                messagesSent, elapsed);
+        System.out.println(summary);
+        return summary;
+    }
+
+    /**
+     * Runs the game with the responder in a separate JVM on localhost.
+     * This process hosts the initiator; players talk through TcpMessageChannel/TcpMessageAcceptor.
+     */
+    public void startMultiProcess() {
+        System.out.println("Starting player messaging system in multi-process mode...");
+
+        MessageRouter router = newRouter();
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, 0);
+        acceptor.start();
+
+        Process responderProcess = launchResponderProcess("--peer-port=" + acceptor.getPort());
+        try {
+            int responderPort = Integer.parseInt(awaitResponderReady(responderProcess));
+
+            Runnable onStop = () -> {
+                if (!stopped) {
+                    stopped = true;
+                    stopLatch.countDown();
+                }
+            };
+            initiator = new Player("initiator", PlayerRole.INITIATOR,
+                    new TcpMessageChannel("localhost", responderPort), onStop, events);
+            router.register("initiator", initiator);
+            configure(initiator);
+            initiator.start();
+
+            System.out.println("Initiator sending first message...");
+            initiator.send(firstPayload, "responder");
+
+            stopLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Closing the initiator's connection tells the responder process to shut down
+            shutdown();
+            awaitExit(responderProcess);
+            acceptor.stop();
+        }
+    }
+
+    /**
+     * Runs the game with the responder in a separate JVM on this host, exchanging messages through
+     * memory-mapped ring files (see SharedMemoryMessageChannel) instead of TCP.
+     */
+    public void startSharedMemory() {
+        System.out.println("Starting player messaging system in shared memory mode...");
+
+        Path directory = SharedMemoryMessageChannel.createDirectory("player-messaging-");
+        Path toResponder = directory.resolve(TO_RESPONDER_RING);
+        Path toInitiator = directory.resolve(TO_INITIATOR_RING);
+        Process responderProcess = null;
+        try {
+            // Both rings exist before the child starts, so messages sent before it maps them simply wait there
+            SharedMemoryMessageChannel.createRing(toResponder, SharedMemoryMessageChannel.DEFAULT_RING_BYTES);
+            SharedMemoryMessageChannel.createRing(toInitiator, SharedMemoryMessageChannel.DEFAULT_RING_BYTES);
+            responderProcess = launchResponderProcess("--shm=" + directory);
+            awaitResponderReady(responderProcess);
+
+            Runnable onStop = () -> {
+                if (!stopped) {
+                    stopped = true;
+                    stopLatch.countDown();
+                }
+            };
+            MessageRouter router = newRouter();
+            initiator = new Player("initiator", PlayerRole.INITIATOR,
+                    new SharedMemoryMessageChannel(router, toResponder, toInitiator), onStop, events);
+            router.register("initiator", initiator);
+            configure(initiator);
+            initiator.start();
+
+            System.out.println("Initiator sending first message...");
+            initiator.send(firstPayload, "responder");
+
+            stopLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Stopping the initiator closes its ring, which tells the responder process to shut down
+            shutdown();
+            if (responderProcess != null) {
+                awaitExit(responderProcess);
+            }
+            deleteRings(directory, toResponder, toInitiator);
+        }
+    }
+
+    /**
+     * Runs the responder side of a multi-process game. Prints "READY <port>" once it accepts connections and
+     * returns when the initiator disconnects.
+     */
+    public void runRemoteResponder(int initiatorPort) {
+        MessageRouter router = newRouter();
+        CountDownLatch disconnected = new CountDownLatch(1);
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, "localhost", 0, true,
+                EnumSet.allOf(CodecVersion.class), disconnected::countDown);
+        acceptor.start();
+
+        responder = new Player("responder", PlayerRole.RESPONDER,
+                new TcpMessageChannel("localhost", initiatorPort), null, events);
+        router.register("responder", responder);
+        configure(responder);
+        responder.start();
+
+        System.out.println(READY_PREFIX + acceptor.getPort());
+        System.out.flush();
+
+        try {
+            disconnected.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        responder.stop();
+        acceptor.stop();
+    }
+
+    /**
+     * Runs the responder side of a shared memory game over the ring files in the given directory. Prints
+     * "READY <directory>" once its channel runs and returns when the initiator closes its ring.
+     */
+    public void runRemoteResponder(Path directory) {
+        MessageRouter router = newRouter();
+        CountDownLatch disconnected = new CountDownLatch(1);
+        responder = new Player("responder", PlayerRole.RESPONDER,
+                new SharedMemoryMessageChannel(router, directory.resolve(TO_INITIATOR_RING),
+                        directory.resolve(TO_RESPONDER_RING), WaitStrategy.PARK, disconnected::countDown),
+                null, events);
+        router.register("responder", responder);
+        configure(responder);
+        responder.start();
+
+        System.out.println(READY_PREFIX + directory);
+        System.out.flush();
+
+        try {
+            disconnected.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        responder.stop();
+    }
+
+    private Process launchResponderProcess(String peerArgument) {
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(), "--role=responder", peerArgument, "--events=" + events);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        try {
+            return builder.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start responder process", e);
+        }
+    }
+
+    /**
+     * Waits for the READY line from the child process, then forwards the rest of its output to our stdout.
+     *
+     * @return what the child printed after READY
+     */
+    private static String awaitResponderReady(Process process) {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(READY_PREFIX)) {
+                    String endpoint = line.substring(READY_PREFIX.length()).trim();
+                    Thread pump = new Thread(() -> pumpOutput(reader), "ResponderOutput");
+                    pump.setDaemon(true);
+                    pump.start();
+                    return endpoint;
+                }
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read responder process output", e);
+        }
+        throw new IllegalStateException("Responder process exited before it was ready");
+    }
+
+    private static void pumpOutput(BufferedReader reader) {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            // Child process went away
+        }
+    }
+
+    private static void deleteRings(Path directory, Path... rings) {
+        try {
+            for (Path ring : rings) {
+                Files.deleteIfExists(ring);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            System.err.println("Failed to delete shared memory rings in " + directory + ": " + e);
+        }
+    }
+
+    private static void awaitExit(Process process) {
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                System.err.println("Responder process did not exit, destroying it");
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Restores both players' counters from the journal, before they are started.
+     */
+    private void restore(JournalRecovery recovery) {
+        System.out.println("Resuming from journal: " + recovery);
+        for (Player player : new Player[] {initiator, responder}) {
+            player.restore(recovery.getSentCount(player.getPlayerId()),
+                    recovery.getReceivedCount(player.getPlayerId()), recovery.getLastSequences(player.getPlayerId()));
+        }
+    }
+
+    /**
+     * Sends the last journaled message again, once the players are started, since its receiver may not have
+     * handled it before the previous run ended.
+     */
+    private void resendLast(JournalRecovery recovery) {
+        Message last = recovery.getLastMessage();
+        Player sender = initiator.getPlayerId().equals(last.getFromPlayerId()) ? initiator : responder;
+        sender.getMessageChannel().send(last);
+    }
+
+    private MessageRouter newRouter() {
+        MetricsRegistry metrics = channelConfig.getMetrics();
+        MessageRouter router = metrics != null ? new MessageRouter(metrics) : new MessageRouter();
+        router.setDispatcher(channelConfig.getDispatcher());
+        return router;
+    }
+
+    /**
+     * Applies the player-level parts of the channel config: metrics and message pooling.
+     */
+    private void configure(Player player) {
+        if (channelConfig.getMetrics() != null) {
+            player.registerMetrics(channelConfig.getMetrics());
+        }
+        player.setMessagePool(channelConfig.getMessagePool());
+        player.setMessageLimit(messageLimit);
+    }
+
+    private void shutdown() {
+        System.out.println("Shutting down...");
+        List<Player> players = new ArrayList<>();
+        if (initiator != null) {
+            players.add(initiator);
+        }
+        if (responder != null) {
+            players.add(responder);
+        }
+        DrainReport report = GracefulShutdown.stopAll(players, drainMode, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (!report.isClean()) {
+            System.out.println(report);
+        }
+        executionModel.shutdown(1, TimeUnit.SECONDS);
+        System.out.println("Shutdown complete");
+    }
+}
\ No newline at end of file
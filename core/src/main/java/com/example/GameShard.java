@@ -0,0 +1,122 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One partition of a multi-game run: a private MessageRouter and a single worker thread that runs
+ * the channels of every game assigned to this shard. Games in different shards share no state.
+ */
+class GameShard {
+    private final int shardId;
+    private final MessageRouter router;
+    private final ExecutionModel executionModel;
+    private final ChannelConfig channelConfig;
+    private final EventSink events;
+    private final List<Player> initiators;
+    private final List<Player> responders;
+    private final CountDownLatch allGamesFinished;
+    private final long firstPayload;
+    private final long messageLimit;
+
+    /**
+     * Creates a shard; the execution model of channelConfig is replaced by the shard's own single worker.
+     */
+    GameShard(int shardId, ChannelConfig channelConfig, EventSink events, CountDownLatch allGamesFinished,
+            long firstPayload, long messageLimit) {
+        this.shardId = shardId;
+        MetricsRegistry metrics = channelConfig.getMetrics();
+        this.router = metrics != null ? new MessageRouter(metrics) : new MessageRouter();
+        router.setDispatcher(channelConfig.getDispatcher());
+        this.executionModel = ExecutionModel.workerPool(1);
+        // Per-channel metrics would mean thousands of entries; shards report router counters and a message meter
+        this.channelConfig = channelConfig.withExecutionModel(executionModel).withMetrics(null);
+        this.events = events;
+        this.initiators = new ArrayList<>();
+        this.responders = new ArrayList<>();
+        this.allGamesFinished = allGamesFinished;
+        this.firstPayload = firstPayload;
+        this.messageLimit = messageLimit;
+        if (metrics != null) {
+            metrics.meter("shard." + shardId + ".messages", this::getMessagesSent);
+        }
+    }
+
+    /**
+     * Creates the initiator/responder pair for one game. Each game has its own stop condition;
+     * the shared latch is counted down once per game.
+     */
+    void addGame(int gameId) {
+        String initiatorId = "initiator-" + gameId;
+        String responderId = "responder-" + gameId;
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable onStop = () -> {
+            if (finished.compareAndSet(false, true)) {
+                allGamesFinished.countDown();
+            }
+        };
+
+        Player responder = new Player(responderId, PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, initiatorId, channelConfig), null, events);
+        Player initiator = new Player(initiatorId, PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, responderId, channelConfig), onStop, events);
+        responder.setMessagePool(channelConfig.getMessagePool());
+        initiator.setMessagePool(channelConfig.getMessagePool());
+        initiator.setMessageLimit(messageLimit);
+        router.register(responderId, responder);
+        router.register(initiatorId, initiator);
+        responders.add(responder);
+        initiators.add(initiator);
+    }
+
+    /**
+     * Starts all players and sends the first message of every game.
+     */
+    void start() {
+        for (int i = 0; i < initiators.size(); i++) {
+            responders.get(i).start();
+            initiators.get(i).start();
+        }
+        for (int i = 0; i < initiators.size(); i++) {
+            initiators.get(i).send(firstPayload, responders.get(i).getPlayerId());
+        }
+    }
+
+    /**
+     * Gets the shard's players, responders and initiators, for stopping them (see GracefulShutdown).
+     */
+    List<Player> getPlayers() {
+        List<Player> players = new ArrayList<>(responders);
+        players.addAll(initiators);
+        return players;
+    }
+
+    /**
+     * Shuts down the shard's worker once its players were stopped.
+     */
+    void shutdownWorker() {
+        executionModel.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    int getShardId() {
+        return shardId;
+    }
+
+    int getGameCount() {
+        return initiators.size();
+    }
+
+    /**
+     * Gets the number of messages sent by all players of this shard.
+     */
+    long getMessagesSent() {
+        long total = 0;
+        for (int i = 0; i < initiators.size(); i++) {
+            total += initiators.get(i).getSentCount() + responders.get(i).getSentCount();
+        }
+        return total;
+    }
+}
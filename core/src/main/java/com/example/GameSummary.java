@@ -0,0 +1,56 @@
+package com.example;
+
+/**
+ * Result of a multi-game run.
+ */
+public final class GameSummary {
+    private final int games;
+    private final int shards;
+    private final int gamesCompleted;
+    private final long messagesSent;
+    private final long elapsedNanos;
+
+    /**
+     * Creates new summary.
+     */
+    public GameSummary(int games, int shards, int gamesCompleted, long messagesSent, long elapsedNanos) {
+        this.games = games;
+        this.shards = shards;
+        this.gamesCompleted = gamesCompleted;
+        this.messagesSent = messagesSent;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int getGamesCompleted() {
+        return gamesCompleted;
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets messages sent per second over the whole run.
+     */
+    public double getMessagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : messagesSent * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Games: %d/%d completed on %d shards in %.1f ms, %d messages (%.0f msg/s)",
+                gamesCompleted, games, shards, elapsedNanos / 1_000_000.0, messagesSent, getMessagesPerSecond());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops many players at once under one overall deadline. Every channel is told to stop first (stopAsync, which
+ * never blocks), and only then is each awaited with whatever is left of the deadline, so the channels drain in
+ * parallel and the total time is that of the slowest one rather than the sum of all.
+ */
+public final class GracefulShutdown {
+
+    private GracefulShutdown() {
+    }
+
+    /**
+     * Stops the players' channels, flushing or discarding their queues as the mode says, and waits until all
+     * stopped or the timeout elapsed. Channels still running at the deadline give up and report their queue.
+     */
+    public static DrainReport stopAll(Collection<Player> players, DrainMode mode, long timeout, TimeUnit unit) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Drain mode cannot be null");
+        }
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        for (Player player : players) {
+            player.stopAsync(mode);
+        }
+
+        List<Message> undelivered = new ArrayList<>();
+        int timedOut = 0;
+        boolean interrupted = false;
+        for (Player player : players) {
+            // Once interrupted, the remaining players are only collected, not waited for
+            long remaining = interrupted ? 0 : Math.max(0, deadline - System.nanoTime());
+            try {
+                if (!player.awaitStop(remaining, TimeUnit.NANOSECONDS, undelivered)) {
+                    timedOut++;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                timedOut++;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new DrainReport(players.size(), timedOut, undelivered, System.nanoTime() - start);
+    }
+}
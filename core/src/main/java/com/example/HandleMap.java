@@ -0,0 +1,164 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Map from PlayerIds handles to values, sized by the entries it holds rather than by the highest handle, so a
+ * router holding a few of the process's ids does not pay for all of them.
+ * <p>
+ * Open addressing with linear probing over an array of immutable entries: a reader sees a handle together with its
+ * value and needs no lock, for the price of a short probe instead of a plain array index. Writers synchronize on
+ * the map. The array is replaced (copy-on-grow) when live and removed entries fill half of it, which drops the
+ * removed ones and shrinks it again after many removals.
+ */
+final class HandleMap<T> {
+    private static final int MIN_CAPACITY = 16;
+
+    private final Entry<T> removed;
+    private volatile AtomicReferenceArray<Entry<T>> entries;
+    // Guarded by this: live entries, and live plus removed ones
+    private int size;
+    private int used;
+
+    HandleMap() {
+        this.removed = new Entry<>(PlayerIds.NO_HANDLE, null);
+        this.entries = new AtomicReferenceArray<>(MIN_CAPACITY);
+    }
+
+    /**
+     * Gets the value under the handle, or null.
+     */
+    T get(int handle) {
+        if (handle < 0) {
+            return null;
+        }
+        AtomicReferenceArray<Entry<T>> table = entries;
+        int mask = table.length() - 1;
+        for (int i = slot(handle, mask); ; i = (i + 1) & mask) {
+            Entry<T> entry = table.get(i);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.handle == handle) {
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Puts the value under the handle.
+     *
+     * @return the previous value, or null
+     */
+    synchronized T put(int handle, T value) {
+        if (handle < 0) {
+            throw new IllegalArgumentException("Invalid player handle: " + handle);
+        }
+        if ((used + 1) * 2 > entries.length()) {
+            rehash();
+        }
+        AtomicReferenceArray<Entry<T>> table = entries;
+        int mask = table.length() - 1;
+        int free = -1;
+        for (int i = slot(handle, mask); ; i = (i + 1) & mask) {
+            Entry<T> entry = table.get(i);
+            if (entry == null) {
+                if (free < 0) {
+                    free = i;
+                    used++;
+                }
+                table.set(free, new Entry<>(handle, value));
+                size++;
+                return null;
+            }
+            if (entry == removed) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (entry.handle == handle) {
+                table.set(i, new Entry<>(handle, value));
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Removes the value under the handle.
+     *
+     * @return the removed value, or null
+     */
+    synchronized T remove(int handle) {
+        if (handle < 0) {
+            return null;
+        }
+        AtomicReferenceArray<Entry<T>> table = entries;
+        int mask = table.length() - 1;
+        for (int i = slot(handle, mask); ; i = (i + 1) & mask) {
+            Entry<T> entry = table.get(i);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.handle == handle) {
+                table.set(i, removed);
+                size--;
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Passes every value to the action, in no particular order.
+     */
+    void forEach(Consumer<? super T> action) {
+        AtomicReferenceArray<Entry<T>> table = entries;
+        for (int i = 0; i < table.length(); i++) {
+            Entry<T> entry = table.get(i);
+            if (entry != null && entry != removed) {
+                action.accept(entry.value);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int capacity = MIN_CAPACITY;
+        while (capacity < (size + 1) * 4) {
+            capacity *= 2;
+        }
+        AtomicReferenceArray<Entry<T>> table = entries;
+        AtomicReferenceArray<Entry<T>> rehashed = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < table.length(); i++) {
+            Entry<T> entry = table.get(i);
+            if (entry != null && entry != removed) {
+                int j = slot(entry.handle, mask);
+                while (rehashed.get(j) != null) {
+                    j = (j + 1) & mask;
+                }
+                rehashed.set(j, entry);
+            }
+        }
+        used = size;
+        entries = rehashed;
+    }
+
+    private static int slot(int handle, int mask) {
+        // Handles are dense; spread neighbours so that one router's share of them does not cluster
+        int hash = handle * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Entry<T> {
+        final int handle;
+        final T value;
+
+        Entry(int handle, T value) {
+            this.handle = handle;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Approximate timer for many short timeouts that are mostly cancelled, such as request expiry.
+ * <p>
+ * One daemon thread advances a wheel of buckets every tick. schedule() only enqueues the timeout on a lock-free
+ * queue; the timer thread moves new timeouts into the bucket of their deadline (counting the full wheel rounds
+ * left) and runs the expired ones of the current bucket. Cancelling just flips the timeout's state, and the entry
+ * is dropped when its bucket comes round. Scheduling and cancelling are O(1) and no task per timeout is queued
+ * anywhere else; timeouts fire up to one tick late.
+ * <p>
+ * Expiry tasks run on the timer thread and must be short.
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added;
+    private final Thread worker;
+    private final long startNanos;
+    private final LongAdder failed;
+    private volatile EventSink events;
+    private volatile boolean closed;
+
+    /**
+     * Creates a timer with 10 ms ticks and 512 buckets.
+     */
+    public HashedWheelTimer() {
+        this(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * Creates and starts a timer.
+     *
+     * @param tickDuration resolution of the timer
+     * @param wheelSize number of buckets, rounded up to a power of two; timeouts further away than
+     *                  tickDuration * wheelSize wait out extra rounds in their bucket
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize < 1) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int buckets = Integer.highestOneBit(wheelSize);
+        if (buckets < wheelSize) {
+            buckets <<= 1;
+        }
+        this.wheel = new Queue[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = buckets - 1;
+        this.added = new ConcurrentLinkedQueue<>();
+        this.startNanos = System.nanoTime();
+        this.failed = new LongAdder();
+        this.events = EventSink.console();
+        this.worker = new Thread(this::run, "wheel-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules the task to run on the timer thread after the delay, unless the returned timeout is cancelled first.
+     *
+     * @throws IllegalStateException if the timer was closed
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Timer is closed");
+        }
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Sets where failed tasks are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the number of expired tasks that threw.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Stops the timer thread; pending timeouts never fire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!closed) {
+            long tickDeadline = (tick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = tickDeadline - (System.nanoTime() - startNanos)) > 0 && !closed) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+            if (closed) {
+                return;
+            }
+            transferAdded(tick);
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Moves newly scheduled timeouts into the bucket of their deadline tick (this tick at the earliest).
+     */
+    private void transferAdded(long currentTick) {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state != PENDING) {
+                continue;
+            }
+            long deadlineTick = Math.max(currentTick, timeout.deadlineNanos / tickNanos);
+            timeout.remainingRounds = (deadlineTick - currentTick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+            Timeout timeout = it.next();
+            if (timeout.state != PENDING) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                try {
+                    timeout.expire();
+                } catch (RuntimeException e) {
+                    // One failing task must not stop the timer thread
+                    failed.increment();
+                    events.info(worker.getName(), "Timer task failed: " + e);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state;
+        // Timer thread only
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            return STATE.compareAndSet(this, PENDING, CANCELLED);
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            task.run();
+        }
+    }
+}
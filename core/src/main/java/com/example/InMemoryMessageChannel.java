@@ -0,0 +1,571 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory implementation of MessageChannel for same-process communication.
+ * The consume loop runs according to the channel's ExecutionModel: on a dedicated platform or virtual thread,
+ * or as short drain tasks on a shared worker pool. Queued messages are drained up to ChannelConfig's batch size
+ * at a time and handed to MessageRouter.routeBatch, so a backlog costs one wakeup per batch instead of per message.
+ * The queue can be bounded; ChannelConfig's OverflowPolicy then decides what a send to a full channel does.
+ * With ChannelConfig.withPriorityLanes the queue has one lane per MessagePriority (see PriorityLaneQueue), so
+ * control messages overtake a backlog of bulk data.
+ * Stopping is signalled out of band (a private marker the consumer compares by identity, plus the running flag),
+ * so no payload a player sends can stop the channel, and stopAsync/awaitStop let many channels stop in parallel.
+ * Thread-safety: This implementation is thread-safe and supports concurrent send operations from multiple threads.
+ */
+public class InMemoryMessageChannel implements MessageChannel {
+    // Messages routed per worker pool turn before the channel yields the worker to other channels
+    private static final int DRAIN_QUOTA = 64;
+    // How often a waiting sender rechecks whether the channel was stopped
+    private static final long WAIT_CHECK_MILLIS = 100;
+    // Wakes a consumer thread blocked on the empty queue; never routed, compared by identity only
+    private static final Message STOP_SIGNAL = new Message("STOP_SIGNAL", "system", null, (Integer) null)
+            .withPriority(MessagePriority.CONTROL);
+
+    private final MessageRouter router;
+    private final String targetPlayerId;
+    private final ChannelConfig config;
+    private final ExecutionModel executionModel;
+    private final BlockingQueue<Message> messageQueue;
+    // The same queue when priority lanes are configured, otherwise null
+    private final PriorityLaneQueue lanes;
+    private final AtomicBoolean running;
+    private final AtomicBoolean drainScheduled;
+    private final OverflowPolicy overflowPolicy;
+    private final Semaphore credits;
+    private final LongAdder dropped;
+    private final LongAdder blocked;
+    private final LongAdder rejected;
+    private final LongAdder failed;
+    private volatile EventSink events;
+    private final BatchStats batchStats;
+    private final LatencyHistogram latency;
+    // Messages accepted but not delivered because the channel stopped first, until awaitStop collects them
+    private final Queue<Message> undelivered;
+    private volatile boolean discarding;
+    private volatile CountDownLatch terminated;
+    private Thread processingThread;
+
+    /**
+     * Creates new in-memory message channel that routes messages through router.
+     */
+    public InMemoryMessageChannel(MessageRouter router, String targetPlayerId) {
+        this(router, targetPlayerId, ChannelConfig.defaults());
+    }
+
+    /**
+     * Creates new in-memory message channel whose consume loop runs on the given execution model.
+     */
+    public InMemoryMessageChannel(MessageRouter router, String targetPlayerId, ExecutionModel executionModel) {
+        this(router, targetPlayerId, ChannelConfig.defaults().withExecutionModel(executionModel));
+    }
+
+    /**
+     * Creates new in-memory message channel with the given execution model and batching settings.
+     */
+    public InMemoryMessageChannel(MessageRouter router, String targetPlayerId, ChannelConfig config) {
+        this.router = router;
+        this.targetPlayerId = targetPlayerId;
+        this.config = config;
+        this.executionModel = config.getExecutionModel();
+        if (config.hasPriorityLanes()) {
+            int capacity = config.getCapacity();
+            this.lanes = new PriorityLaneQueue(
+                    new int[] {Math.min(capacity, ChannelConfig.CONTROL_LANE_CAPACITY), capacity, capacity},
+                    config.getLaneWeights());
+            this.messageQueue = lanes;
+        } else {
+            this.lanes = null;
+            this.messageQueue = new LinkedBlockingQueue<>(config.getCapacity());
+        }
+        this.running = new AtomicBoolean(false);
+        this.drainScheduled = new AtomicBoolean(false);
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.credits = overflowPolicy == OverflowPolicy.CREDIT ? new Semaphore(config.getCapacity()) : null;
+        this.dropped = new LongAdder();
+        this.blocked = new LongAdder();
+        this.rejected = new LongAdder();
+        this.failed = new LongAdder();
+        this.events = EventSink.console();
+        this.batchStats = new BatchStats();
+        this.undelivered = new ConcurrentLinkedQueue<>();
+
+        MetricsRegistry metrics = config.getMetrics();
+        if (metrics != null) {
+            String prefix = "channel." + targetPlayerId;
+            metrics.gauge(prefix + ".queueDepth", messageQueue::size);
+            if (lanes != null) {
+                for (MessagePriority priority : MessagePriority.values()) {
+                    metrics.gauge(prefix + ".lane." + priority.name().toLowerCase(Locale.ROOT) + ".depth",
+                            () -> lanes.size(priority));
+                }
+            }
+            metrics.meter(prefix + ".delivered", batchStats::getMessageCount);
+            metrics.meter(prefix + ".batches", batchStats::getBatchCount);
+            metrics.meter(prefix + ".dropped", dropped::sum);
+            metrics.meter(prefix + ".blocked", blocked::sum);
+            metrics.meter(prefix + ".rejected", rejected::sum);
+            metrics.meter(prefix + ".failed", failed::sum);
+            this.latency = metrics.histogram(prefix + ".latencyNanos");
+        } else {
+            this.latency = null;
+        }
+    }
+
+    @Override
+    public void send(Message message) {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+        if (latency != null) {
+            message.enqueuedAtNanos = System.nanoTime();
+        }
+        try {
+            switch (overflowPolicy) {
+                case FAIL_FAST:
+                    if (!messageQueue.offer(message)) {
+                        rejected.increment();
+                        throw new ChannelFullException("Channel to " + targetPlayerId + " is full ("
+                                + config.getCapacity() + " messages)");
+                    }
+                    break;
+                case DROP_NEWEST:
+                    if (!messageQueue.offer(message)) {
+                        dropped.increment();
+                        message.recycle();
+                        return;
+                    }
+                    break;
+                case DROP_OLDEST:
+                    enqueueDroppingOldest(message);
+                    break;
+                case CREDIT:
+                    if (!credits.tryAcquire()) {
+                        blocked.increment();
+                        while (!credits.tryAcquire(WAIT_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                            checkRunningWhileWaiting();
+                        }
+                    }
+                    // Credits never exceed the queue capacity, so this does not wait
+                    messageQueue.put(message);
+                    break;
+                default:
+                    if (!messageQueue.offer(message)) {
+                        blocked.increment();
+                        while (!messageQueue.offer(message, WAIT_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                            checkRunningWhileWaiting();
+                        }
+                    }
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending message", e);
+        }
+        if (executionModel.isMultiplexed()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues the message if there is room right now, whatever the overflow policy; never blocks.
+     * DROP_OLDEST always makes room. Refused offers are counted as rejected.
+     */
+    @Override
+    public boolean offer(Message message) {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+        if (latency != null) {
+            message.enqueuedAtNanos = System.nanoTime();
+        }
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            enqueueDroppingOldest(message);
+            accepted = true;
+        } else if (overflowPolicy == OverflowPolicy.CREDIT) {
+            accepted = credits.tryAcquire() && messageQueue.offer(message);
+        } else {
+            accepted = messageQueue.offer(message);
+        }
+        if (!accepted) {
+            rejected.increment();
+            return false;
+        }
+        if (executionModel.isMultiplexed()) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    private void enqueueDroppingOldest(Message message) {
+        while (!messageQueue.offer(message)) {
+            // With lanes, room has to be made in the new message's own lane
+            Message oldest = lanes != null ? lanes.pollLane(message.getPriority()) : messageQueue.poll();
+            if (oldest != null) {
+                dropped.increment();
+                oldest.recycle();
+            }
+        }
+    }
+
+    private void checkRunningWhileWaiting() {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel stopped while waiting for free space");
+        }
+    }
+
+    @Override
+    public void grantCredits(int granted) {
+        if (credits != null) {
+            credits.release(granted);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running.getAndSet(true)) {
+            throw new IllegalStateException("Channel is already running");
+        }
+        discarding = false;
+        // A signal left over from a previous stop must not end the new consumer
+        messageQueue.removeIf(message -> message == STOP_SIGNAL);
+        CountDownLatch done = new CountDownLatch(1);
+        terminated = done;
+
+        if (executionModel.isMultiplexed()) {
+            if (!messageQueue.isEmpty()) {
+                scheduleDrain();
+            }
+            return;
+        }
+
+        processingThread = executionModel.startThread("InMemoryChannel-" + targetPlayerId, () -> {
+            List<Message> batch = new ArrayList<>(config.getMaxBatchSize());
+            try {
+                while ((running.get() || !messageQueue.isEmpty()) && !discarding) {
+                    batch.add(messageQueue.take());
+                    fillBatch(batch);
+                    try {
+                        if (!deliver(batch)) {
+                            break;
+                        }
+                    } catch (RuntimeException e) {
+                        // The channel still reports itself running, so it must go on consuming
+                        routeFailed(batch, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                setAside(batch);
+                setAsideQueued();
+                done.countDown();
+            }
+        });
+    }
+
+    /**
+     * Adds whatever is already queued to the batch, then lingers for more if a linger time is configured.
+     */
+    private void fillBatch(List<Message> batch) throws InterruptedException {
+        int maxBatchSize = config.getMaxBatchSize();
+        messageQueue.drainTo(batch, maxBatchSize - batch.size());
+        long remaining = config.getLingerNanos();
+        // A stopping channel delivers what it has instead of waiting for more
+        if (remaining <= 0 || !running.get()) {
+            return;
+        }
+        long deadline = System.nanoTime() + remaining;
+        while (batch.size() < maxBatchSize && remaining > 0) {
+            Message next = messageQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            if (next == STOP_SIGNAL) {
+                break;
+            }
+            messageQueue.drainTo(batch, maxBatchSize - batch.size());
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Routes the batch and clears it. The stop signal only wakes the consumer, which then finishes the queue
+     * (the signal may overtake messages in a priority lane); with DrainMode.DISCARD the batch is set aside instead.
+     *
+     * @return false if the channel is discarding
+     */
+    private boolean deliver(List<Message> batch) {
+        batch.removeIf(message -> message == STOP_SIGNAL);
+        if (discarding) {
+            setAside(batch);
+            return false;
+        }
+        if (latency != null && !batch.isEmpty()) {
+            long now = System.nanoTime();
+            for (int i = 0; i < batch.size(); i++) {
+                latency.record(now - batch.get(i).enqueuedAtNanos);
+            }
+        }
+        try {
+            if (batch.size() == 1) {
+                batchStats.record(1);
+                router.route(batch.get(0));
+            } else if (!batch.isEmpty()) {
+                batchStats.record(batch.size());
+                router.routeBatch(batch);
+            }
+        } finally {
+            // Receivers are done with the messages, even if one of them failed; credits and pooled envelopes go back
+            if (credits != null) {
+                returnCredits(batch);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).recycle();
+            }
+            batch.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Counts and reports a batch the router failed on; the rest of the batch is given up, the channel carries on.
+     */
+    private void routeFailed(List<Message> batch, RuntimeException e) {
+        failed.increment();
+        events.info(targetPlayerId, "Failed to route batch: " + e);
+        batch.clear();
+    }
+
+    /**
+     * Grants one credit per handled message back to each sender through the router. A sender the router
+     * does not know (e.g. a message sent with another player's id) gets its credits back on this channel.
+     */
+    private void returnCredits(List<Message> batch) {
+        int run = 0;
+        String sender = null;
+        for (int i = 0; i < batch.size(); i++) {
+            String from = batch.get(i).getFromPlayerId();
+            if (run > 0 && !Objects.equals(from, sender)) {
+                returnCredits(sender, run);
+                run = 0;
+            }
+            sender = from;
+            run++;
+        }
+        if (run > 0) {
+            returnCredits(sender, run);
+        }
+    }
+
+    private void returnCredits(String sender, int count) {
+        if (!router.grantCredits(sender, count)) {
+            grantCredits(count);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executionModel.execute(this::drainTurn);
+            } catch (RejectedExecutionException e) {
+                drainScheduled.set(false);
+                // Expected while a stopped channel's pool shuts down; leftover messages count as undelivered
+                if (running.get()) {
+                    throw new IllegalStateException("Worker pool is shut down", e);
+                }
+                markTerminated();
+            }
+        }
+    }
+
+    /**
+     * One worker pool turn: routes up to DRAIN_QUOTA messages in batches, then reschedules if more are waiting
+     * so a busy channel cannot monopolize a worker. Pool workers must not block, so linger is not applied here.
+     */
+    private void drainTurn() {
+        try {
+            int maxBatchSize = Math.min(config.getMaxBatchSize(), DRAIN_QUOTA);
+            List<Message> batch = new ArrayList<>(maxBatchSize);
+            int routed = 0;
+            while (routed < DRAIN_QUOTA
+                    && messageQueue.drainTo(batch, Math.min(maxBatchSize, DRAIN_QUOTA - routed)) > 0) {
+                routed += batch.size();
+                try {
+                    deliver(batch);
+                } catch (RuntimeException e) {
+                    // Workers are shared with other channels; one failed delivery must not take a worker down
+                    routeFailed(batch, e);
+                }
+            }
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (!messageQueue.isEmpty()) {
+            scheduleDrain();
+        } else if (!running.get()) {
+            markTerminated();
+        }
+    }
+
+    private void markTerminated() {
+        CountDownLatch done = terminated;
+        if (done != null) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Moves the messages to the undelivered queue and clears the list.
+     */
+    private void setAside(List<Message> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message != STOP_SIGNAL) {
+                undelivered.add(message);
+            }
+        }
+        messages.clear();
+    }
+
+    private void setAsideQueued() {
+        Message message;
+        while ((message = messageQueue.poll()) != null) {
+            if (message != STOP_SIGNAL) {
+                undelivered.add(message);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of messages discarded by the DROP_OLDEST or DROP_NEWEST policy.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of sends that had to wait for space (BLOCK) or credits (CREDIT).
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets the number of sends refused by FAIL_FAST and of offers that returned false.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Sets where failed deliveries are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the number of batches whose routing threw; the channel went on with the next batch.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the batch size statistics of this channel's consume loop.
+     */
+    public BatchStats getBatchStats() {
+        return batchStats;
+    }
+
+    /**
+     * Stops the channel, delivering what is queued for up to a second; anything left after that is dropped.
+     */
+    @Override
+    public void stop() {
+        if (!running.get()) {
+            return; // Already stopped
+        }
+        stopAsync(DrainMode.FLUSH);
+        try {
+            awaitStop(1, TimeUnit.SECONDS, new ArrayList<>());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting messages and wakes the consumer without blocking: the stop signal only goes into the queue
+     * if there is room, since a full queue means the consumer is not waiting and will see the running flag.
+     */
+    @Override
+    public void stopAsync(DrainMode mode) {
+        boolean wasRunning = running.getAndSet(false);
+        if (mode == DrainMode.DISCARD && terminated != null) {
+            // Also turns a flush already in progress into a discard
+            discarding = true;
+            setAsideQueued();
+        } else if (!wasRunning) {
+            return; // Already stopped, or never started
+        }
+
+        if (executionModel.isMultiplexed()) {
+            // A scheduled drain task finishes the channel; without one, there is nothing left to deliver
+            if (messageQueue.isEmpty() && !drainScheduled.get()) {
+                markTerminated();
+            } else {
+                scheduleDrain();
+            }
+            return;
+        }
+        messageQueue.offer(STOP_SIGNAL);
+    }
+
+    /**
+     * Waits for the consumer to finish. On timeout the channel stops delivering after the batch in progress
+     * (interrupting a consumer thread stuck in a receiver) and reports its queue as undelivered.
+     */
+    @Override
+    public boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undeliveredMessages)
+            throws InterruptedException {
+        CountDownLatch done = terminated;
+        boolean stopped = done == null || done.await(timeout, unit);
+        if (!stopped) {
+            discarding = true;
+            setAsideQueued();
+            Thread thread = processingThread;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        Message message;
+        while ((message = undelivered.poll()) != null) {
+            undeliveredMessages.add(message.detach());
+            message.recycle();
+        }
+        return stopped;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State rebuilt by replaying a MessageJournal: how many messages each player sent and received, and the last
+ * routed message, which may not have been handled before the crash and is sent again on resume.
+ * <p>
+ * Replay is idempotent: a message whose sequence number is not above the highest one seen so far from its sender
+ * to its target (a duplicate written by a re-send after an earlier recovery) is ignored. Players number the
+ * messages to each target separately, so the check is per pair.
+ */
+public final class JournalRecovery {
+    private final Map<String, Long> sentCounts;
+    // Highest sequence number seen by sender, then by target
+    private final Map<String, Map<String, Long>> lastSequences;
+    private final Map<String, Long> receivedCounts;
+    private Message lastMessage;
+    private long messageCount;
+
+    private JournalRecovery() {
+        this.sentCounts = new HashMap<>();
+        this.lastSequences = new HashMap<>();
+        this.receivedCounts = new HashMap<>();
+    }
+
+    /**
+     * Replays the journal from its first record.
+     */
+    public static JournalRecovery recover(MessageJournal journal) {
+        JournalRecovery recovery = new JournalRecovery();
+        journal.replay(recovery::apply);
+        return recovery;
+    }
+
+    private void apply(Message message) {
+        String from = message.getFromPlayerId();
+        if (from != null && message.hasSequenceNumber()) {
+            Map<String, Long> byTarget = lastSequences.computeIfAbsent(from, id -> new HashMap<>());
+            long sequence = message.getSequence();
+            if (sequence <= byTarget.getOrDefault(message.getToPlayerId(), 0L)) {
+                return;
+            }
+            byTarget.put(message.getToPlayerId(), sequence);
+            sentCounts.merge(from, 1L, Long::sum);
+        }
+        // The previous last message was handled: its receiver answered with this one
+        if (lastMessage != null) {
+            receivedCounts.merge(lastMessage.getToPlayerId(), 1L, Long::sum);
+        }
+        lastMessage = message;
+        messageCount++;
+    }
+
+    /**
+     * Gets the number of distinct numbered messages the player sent, i.e. its sent count.
+     */
+    public long getSentCount(String playerId) {
+        return sentCounts.getOrDefault(playerId, 0L);
+    }
+
+    /**
+     * Gets the highest sequence number the player sent to each target, by target id (null for messages without
+     * a target), for Player.restore.
+     */
+    public Map<String, Long> getLastSequences(String playerId) {
+        Map<String, Long> byTarget = lastSequences.get(playerId);
+        return byTarget != null ? Collections.unmodifiableMap(byTarget) : Collections.emptyMap();
+    }
+
+    /**
+     * Gets the number of messages the player received and handled; the last message is not counted.
+     */
+    public long getReceivedCount(String playerId) {
+        return receivedCounts.getOrDefault(playerId, 0L);
+    }
+
+    /**
+     * Gets the last routed message, or null if the journal was empty.
+     */
+    public Message getLastMessage() {
+        return lastMessage;
+    }
+
+    /**
+     * Gets the number of distinct messages replayed.
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Checks if the journal held no messages.
+     */
+    public boolean isEmpty() {
+        return lastMessage == null;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecovery{messages=" + messageCount + ", sent=" + sentCounts + ", received=" + receivedCounts
+                + ", last=" + lastMessage + "}";
+    }
+}
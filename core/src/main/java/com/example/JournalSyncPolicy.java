@@ -0,0 +1,97 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When MessageJournal forces appended records to disk.
+ * <ul>
+ * <li>none() - never explicitly; the OS writes dirty pages back on its own (segments are still forced on roll
+ * and close). Survives a process crash, not a power loss.</li>
+ * <li>everyMessages(n) - after every n appended messages</li>
+ * <li>interval(t) - every t on a background thread</li>
+ * </ul>
+ * Every sync covers all records appended before it, so concurrent appenders share one fsync (group commit).
+ */
+public final class JournalSyncPolicy {
+
+    /**
+     * Available sync policies.
+     */
+    public enum Kind {
+        NONE,
+        EVERY_MESSAGES,
+        INTERVAL
+    }
+
+    private static final JournalSyncPolicy NONE = new JournalSyncPolicy(Kind.NONE, 0);
+
+    private final Kind kind;
+    private final long value;
+
+    private JournalSyncPolicy(Kind kind, long value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    public static JournalSyncPolicy none() {
+        return NONE;
+    }
+
+    public static JournalSyncPolicy everyMessages(int messages) {
+        if (messages < 1) {
+            throw new IllegalArgumentException("Message count must be positive: " + messages);
+        }
+        return new JournalSyncPolicy(Kind.EVERY_MESSAGES, messages);
+    }
+
+    public static JournalSyncPolicy interval(long interval, TimeUnit unit) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        return new JournalSyncPolicy(Kind.INTERVAL, unit.toNanos(interval));
+    }
+
+    /**
+     * Parses a command line value: "none", "every:N" (messages) or "interval:MS" (milliseconds).
+     */
+    public static JournalSyncPolicy parse(String value) {
+        if (value.equals("none")) {
+            return none();
+        } else if (value.startsWith("every:")) {
+            return everyMessages(Integer.parseInt(value.substring("every:".length())));
+        } else if (value.startsWith("interval:")) {
+            return interval(Long.parseLong(value.substring("interval:".length())), TimeUnit.MILLISECONDS);
+        }
+        throw new IllegalArgumentException("Unknown journal sync policy: " + value);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the message count for EVERY_MESSAGES.
+     */
+    public int getMessages() {
+        return kind == Kind.EVERY_MESSAGES ? (int) value : 0;
+    }
+
+    /**
+     * Gets the interval in nanoseconds for INTERVAL.
+     */
+    public long getIntervalNanos() {
+        return kind == Kind.INTERVAL ? value : 0;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case EVERY_MESSAGES:
+                return "every:" + value;
+            case INTERVAL:
+                return "interval:" + TimeUnit.NANOSECONDS.toMillis(value);
+            default:
+                return "none";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative values (typically nanoseconds), in the style of HdrHistogram.
+ * Values below 32 are counted exactly; above that every power-of-two range is split into 16 linear sub-buckets,
+ * so reported percentiles are within about 6% of the true value. All buckets are allocated up front,
+ * so record() never allocates and is safe to call from any number of threads.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+    // Highest shift is for values with bit 62 set: (62 - SUB_BUCKET_BITS + 1) groups above the exact range
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount;
+    private final LongAdder totalValue;
+    private final AtomicLong maxValue;
+
+    /**
+     * Creates empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalCount = new LongAdder();
+        this.totalValue = new LongAdder();
+        this.maxValue = new AtomicLong();
+    }
+
+    /**
+     * Records one value; negative values (e.g. from a clock adjustment) are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        counts.incrementAndGet(bucketIndex(v));
+        totalCount.increment();
+        totalValue.add(v);
+        long max;
+        while (v > (max = maxValue.get()) && !maxValue.compareAndSet(max, v)) {
+            // Retry until we either published our value or someone published a larger one
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Gets the highest value that falls into the given bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * Gets the value at the given percentile (0-100), reported as the upper bound of its bucket
+     * and never above the recorded maximum. Returns 0 for an empty histogram.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Writes the distribution in HdrHistogram's percentile distribution format (.hgrm), one line per non-empty
+     * bucket, so the output can be fed to HdrHistogram's plotting tools. Values are divided by the scaling ratio,
+     * e.g. 1000 to write nanoseconds as microseconds.
+     */
+    public void outputPercentileDistribution(PrintStream out, double outputValueUnitScalingRatio) {
+        long count = totalCount.sum();
+        long max = maxValue.get();
+        out.format("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long seen = 0;
+        double sumOfSquares = 0;
+        double mean = getMean();
+        for (int i = 0; i < BUCKET_COUNT && seen < count; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount == 0) {
+                continue;
+            }
+            seen += bucketCount;
+            long value = Math.min(bucketUpperBound(i), max);
+            sumOfSquares += bucketCount * (value - mean) * (value - mean);
+            double fraction = (double) seen / count;
+            if (seen < count) {
+                out.format("%12.3f %2.12f %10d %14.2f%n", value / outputValueUnitScalingRatio, fraction, seen,
+                        1 / (1 - fraction));
+            } else {
+                out.format("%12.3f %2.12f %10d%n", value / outputValueUnitScalingRatio, fraction, seen);
+            }
+        }
+        double deviation = count == 0 ? 0 : Math.sqrt(sumOfSquares / count);
+        out.format("#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", mean / outputValueUnitScalingRatio,
+                deviation / outputValueUnitScalingRatio);
+        out.format("#[Max     = %12.3f, Total count    = %12d]%n", max / outputValueUnitScalingRatio, count);
+        out.format("#[Buckets = %12d, SubBuckets     = %12d]%n", BUCKET_COUNT / SUB_BUCKETS, SUB_BUCKETS);
+        out.flush();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.0f, p50=%d, p99=%d, p999=%d, max=%d", getCount(), getMean(),
+                getValueAtPercentile(50), getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * Forwards events at or above a threshold level to another sink and drops the rest.
+ * The check is a single field comparison made before any formatting happens.
+ */
+public final class LevelFilteredEventSink implements EventSink {
+    private final EventSink delegate;
+    private final boolean debugEnabled;
+    private final boolean infoEnabled;
+    private final Level threshold;
+
+    /**
+     * Creates new filtered sink.
+     *
+     * @param threshold lowest level that is forwarded to delegate
+     */
+    public LevelFilteredEventSink(EventSink delegate, Level threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.debugEnabled = threshold.compareTo(Level.DEBUG) <= 0;
+        this.infoEnabled = threshold.compareTo(Level.INFO) <= 0;
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload) {
+        if (debugEnabled) {
+            delegate.messageSent(playerId, sequence, toPlayerId, payload);
+        }
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+        if (debugEnabled) {
+            delegate.messageReceived(playerId, fromPlayerId, payload);
+        }
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, long payload) {
+        if (debugEnabled) {
+            delegate.messageSent(playerId, sequence, toPlayerId, payload);
+        }
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, long payload) {
+        if (debugEnabled) {
+            delegate.messageReceived(playerId, fromPlayerId, payload);
+        }
+    }
+
+    @Override
+    public void progress(String playerId, long sent, long received) {
+        if (debugEnabled) {
+            delegate.progress(playerId, sent, received);
+        }
+    }
+
+    @Override
+    public void info(String playerId, String text) {
+        if (infoEnabled) {
+            delegate.info(playerId, text);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return delegate + ":" + threshold.name().toLowerCase(Locale.ROOT);
+    }
+}
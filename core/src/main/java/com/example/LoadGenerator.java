@@ -0,0 +1,280 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Drives a LoadScenario: pairs of initiator/responder players on one router, the initiators sending requests
+ * (see Player.request) that the responders answer with the usual increment.
+ * <p>
+ * Closed loop (rate 0), each pair has one request in flight and sends the next as soon as the reply arrived; a
+ * pair stops at its first failed request. Open loop, the calling thread issues requests round-robin over the
+ * pairs on a fixed schedule of rate requests per second, without waiting for replies. A request that could not go
+ * out on time (a stalled channel, a GC pause in the sender) is still timed from its scheduled start, so the
+ * response times include the queueing delay a real client would have seen instead of hiding it.
+ * <p>
+ * Players report nothing to the event sink, so the generator measures messaging rather than console output.
+ */
+public final class LoadGenerator {
+    /**
+     * Time a request may wait for its reply before it counts as failed.
+     */
+    public static final long REPLY_TIMEOUT_SECONDS = 10;
+
+    // Below this the issuer spins instead of parking, since a park may overshoot by tens of microseconds
+    private static final long SPIN_THRESHOLD_NANOS = 50_000L;
+    private static final long POLL_NANOS = 1_000_000L;
+
+    private final MessageRouter router;
+    private final ChannelConfig channelConfig;
+    private final LoadScenario scenario;
+    private final String payload;
+    private final LatencyHistogram responseTimes;
+    private final LatencyHistogram serviceTimes;
+    private final AtomicLong issued;
+    private final LongAdder completed;
+    private final LongAdder failed;
+    private final AtomicInteger activePairs;
+    private long startNanos;
+
+    /**
+     * Creates new generator whose players register with the given router. The channel config applies to
+     * in-memory channels and to the players (metrics, message pool).
+     */
+    public LoadGenerator(MessageRouter router, ChannelConfig channelConfig, LoadScenario scenario) {
+        this.router = router;
+        this.channelConfig = channelConfig;
+        this.scenario = scenario;
+        this.payload = scenario.getPayloadBytes() > 0 ? "x".repeat(scenario.getPayloadBytes()) : null;
+        this.responseTimes = new LatencyHistogram();
+        this.serviceTimes = new LatencyHistogram();
+        this.issued = new AtomicLong();
+        this.completed = new LongAdder();
+        this.failed = new LongAdder();
+        this.activePairs = new AtomicInteger();
+    }
+
+    /**
+     * Runs the scenario and returns once every request was answered or timed out.
+     */
+    public LoadReport run() {
+        Pair[] pairs = new Pair[scenario.getPairs()];
+        List<Player> players = new ArrayList<>();
+        TcpMessageAcceptor acceptor = null;
+        Path ringDirectory = null;
+        long elapsed;
+        try (HashedWheelTimer timer = new HashedWheelTimer()) {
+            if (scenario.getTransport() == Transport.TCP) {
+                acceptor = new TcpMessageAcceptor(router, 0);
+                acceptor.start();
+            } else if (scenario.getTransport() == Transport.SHARED_MEMORY) {
+                ringDirectory = SharedMemoryMessageChannel.createDirectory("load-rings-");
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                String initiatorId = "load-initiator-" + i;
+                String responderId = "load-responder-" + i;
+                Player responder = new Player(responderId, PlayerRole.RESPONDER,
+                        newChannel(responderId, initiatorId, acceptor, ringDirectory), null, EventSink.noOp());
+                Player initiator = new Player(initiatorId, PlayerRole.INITIATOR,
+                        newChannel(initiatorId, responderId, acceptor, ringDirectory), null, EventSink.noOp());
+                for (Player player : new Player[] {responder, initiator}) {
+                    router.register(player.getPlayerId(), player);
+                    configure(player);
+                    players.add(player);
+                }
+                initiator.setRequestTimeout(timer, REPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                initiator.setMaxPendingRequests(Integer.MAX_VALUE);
+                pairs[i] = new Pair(initiator, responderId);
+            }
+            for (Player player : players) {
+                player.start();
+            }
+
+            startNanos = System.nanoTime();
+            if (scenario.getRate() > 0) {
+                runOpenLoop(pairs);
+            } else {
+                runClosedLoop(pairs);
+            }
+            elapsed = System.nanoTime() - startNanos;
+        } finally {
+            for (Player player : players) {
+                player.stop();
+                router.unregister(player.getPlayerId());
+            }
+            if (acceptor != null) {
+                acceptor.stop();
+            }
+            if (ringDirectory != null) {
+                deleteRings(ringDirectory);
+            }
+        }
+        return new LoadReport(scenario, issued.get(), completed.sum(), failed.sum(), elapsed,
+                responseTimes, serviceTimes);
+    }
+
+    private MessageChannel newChannel(String playerId, String targetId, TcpMessageAcceptor acceptor, Path rings) {
+        switch (scenario.getTransport()) {
+            case SPSC:
+                return new SpscRingBufferChannel(router, targetId);
+            case SHARED_MEMORY:
+                // Each side maps both rings on its own, as players in two processes would
+                Path outbound = rings.resolve(playerId + ".ring");
+                Path inbound = rings.resolve(targetId + ".ring");
+                for (Path ring : new Path[] {outbound, inbound}) {
+                    if (!Files.exists(ring)) {
+                        SharedMemoryMessageChannel.createRing(ring, SharedMemoryMessageChannel.DEFAULT_RING_BYTES);
+                    }
+                }
+                return new SharedMemoryMessageChannel(router, outbound, inbound);
+            case TCP:
+                return new TcpMessageChannel("localhost", acceptor.getPort());
+            default:
+                return new InMemoryMessageChannel(router, targetId, channelConfig);
+        }
+    }
+
+    private void configure(Player player) {
+        if (channelConfig.getMetrics() != null) {
+            player.registerMetrics(channelConfig.getMetrics());
+        }
+        player.setMessagePool(channelConfig.getMessagePool());
+    }
+
+    private void runClosedLoop(Pair[] pairs) {
+        activePairs.set(pairs.length);
+        for (Pair pair : pairs) {
+            sendNext(pair);
+        }
+        // Every request is answered or times out, so each pair eventually stops
+        while (activePairs.get() > 0) {
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+    }
+
+    /**
+     * Sends the pair's next request if the scenario has more; called again from its reply.
+     */
+    private void sendNext(Pair pair) {
+        long number = tryIssue();
+        if (number < 0) {
+            activePairs.decrementAndGet();
+            return;
+        }
+        long sentAt = System.nanoTime();
+        request(pair, number).whenComplete((reply, failure) -> {
+            if (record(sentAt, sentAt, failure)) {
+                sendNext(pair);
+            } else {
+                activePairs.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Claims the next request of the scenario.
+     *
+     * @return number of the request, or -1 once the message count is reached or the duration elapsed
+     */
+    private long tryIssue() {
+        long duration = scenario.getDurationNanos();
+        if (duration > 0 && System.nanoTime() - startNanos >= duration) {
+            return -1;
+        }
+        long limit = scenario.getMessages();
+        long current;
+        do {
+            current = issued.get();
+            if (limit > 0 && current >= limit) {
+                return -1;
+            }
+        } while (!issued.compareAndSet(current, current + 1));
+        return current;
+    }
+
+    private void runOpenLoop(Pair[] pairs) {
+        double intervalNanos = 1_000_000_000.0 / scenario.getRate();
+        long limit = scenario.getMessages();
+        long duration = scenario.getDurationNanos();
+        for (long i = 0; limit == 0 || i < limit; i++) {
+            long scheduled = startNanos + (long) (i * intervalNanos);
+            if (duration > 0 && scheduled - startNanos >= duration) {
+                break;
+            }
+            awaitSchedule(scheduled);
+            issued.incrementAndGet();
+            long sentAt = System.nanoTime();
+            request(pairs[(int) (i % pairs.length)], i)
+                    .whenComplete((reply, failure) -> record(scheduled, sentAt, failure));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(REPLY_TIMEOUT_SECONDS + 1);
+        while (completed.sum() + failed.sum() < issued.get() && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+    }
+
+    private static void awaitSchedule(long scheduled) {
+        long remaining;
+        while ((remaining = scheduled - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private CompletableFuture<Message> request(Pair pair, long number) {
+        return payload != null
+                ? pair.initiator.request(payload, pair.responderId)
+                : pair.initiator.request(number, pair.responderId);
+    }
+
+    /**
+     * Records one finished request.
+     *
+     * @return true if it was answered
+     */
+    private boolean record(long scheduled, long sentAt, Throwable failure) {
+        if (failure != null) {
+            failed.increment();
+            return false;
+        }
+        long now = System.nanoTime();
+        responseTimes.record(now - scheduled);
+        serviceTimes.record(now - sentAt);
+        completed.increment();
+        return true;
+    }
+
+    private static void deleteRings(Path directory) {
+        try (Stream<Path> rings = Files.list(directory)) {
+            for (Path ring : (Iterable<Path>) rings::iterator) {
+                Files.deleteIfExists(ring);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            System.err.println("Failed to delete shared memory rings in " + directory + ": " + e);
+        }
+    }
+
+    private static final class Pair {
+        final Player initiator;
+        final String responderId;
+
+        Pair(Player initiator, String responderId) {
+            this.initiator = initiator;
+            this.responderId = responderId;
+        }
+    }
+}
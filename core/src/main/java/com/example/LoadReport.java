@@ -0,0 +1,117 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Result of a LoadGenerator run: request counts, throughput and two latency histograms in nanoseconds.
+ * Response times are measured from when a request was due to be sent, so time spent queued behind a stalled
+ * sender counts (no coordinated omission); service times are measured from when it was actually sent.
+ * In closed loop both are the same.
+ */
+public final class LoadReport {
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final LoadScenario scenario;
+    private final long issued;
+    private final long completed;
+    private final long failed;
+    private final long elapsedNanos;
+    private final LatencyHistogram responseTimes;
+    private final LatencyHistogram serviceTimes;
+
+    /**
+     * Creates new report.
+     */
+    public LoadReport(LoadScenario scenario, long issued, long completed, long failed, long elapsedNanos,
+            LatencyHistogram responseTimes, LatencyHistogram serviceTimes) {
+        this.scenario = scenario;
+        this.issued = issued;
+        this.completed = completed;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.responseTimes = responseTimes;
+        this.serviceTimes = serviceTimes;
+    }
+
+    public LoadScenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * Gets the number of requests sent.
+     */
+    public long getIssuedCount() {
+        return issued;
+    }
+
+    /**
+     * Gets the number of requests answered.
+     */
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Gets the number of requests that failed or timed out.
+     */
+    public long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Gets the time from the first request to the last reply, or to the reply timeout.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets answered requests per second over the whole run.
+     */
+    public double getRequestsPerSecond() {
+        return elapsedNanos == 0 ? 0 : completed * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public LatencyHistogram getServiceTimes() {
+        return serviceTimes;
+    }
+
+    /**
+     * Writes the response time distribution in microseconds, in HdrHistogram's percentile distribution format
+     * (see LatencyHistogram.outputPercentileDistribution), so runs can be plotted and compared across releases.
+     */
+    public void writeHistogramLog(Path file) {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            responseTimes.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write histogram log " + file, e);
+        }
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        return String.format("p50=%.1f, p90=%.1f, p99=%.1f, p99.9=%.1f, p99.99=%.1f, max=%.1f",
+                histogram.getValueAtPercentile(50) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO,
+                histogram.getValueAtPercentile(99.99) / NANOS_PER_MICRO,
+                histogram.getMax() / NANOS_PER_MICRO);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Load: %d requests over %d pairs (%d completed, %d failed) in %.1f ms, %.0f req/s%n"
+                        + "Response time (us): %s%n"
+                        + "Service time (us):  %s",
+                issued, scenario.getPairs(), completed, failed, elapsedNanos / 1_000_000.0, getRequestsPerSecond(),
+                percentiles(responseTimes), percentiles(serviceTimes));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable description of a LoadGenerator run. Start from defaults() and override with the with* methods.
+ * A run stops after the given number of requests or once the duration elapsed, whichever comes first.
+ */
+public final class LoadScenario {
+    private static final LoadScenario DEFAULTS = new LoadScenario(1, 100_000, 0L, 0, 0L, Transport.IN_MEMORY);
+
+    private final int pairs;
+    private final long messages;
+    private final long durationNanos;
+    private final int payloadBytes;
+    private final long rate;
+    private final Transport transport;
+
+    private LoadScenario(int pairs, long messages, long durationNanos, int payloadBytes, long rate,
+            Transport transport) {
+        this.pairs = pairs;
+        this.messages = messages;
+        this.durationNanos = durationNanos;
+        this.payloadBytes = payloadBytes;
+        this.rate = rate;
+        this.transport = transport;
+    }
+
+    /**
+     * One pair, 100,000 requests, numeric payloads, closed loop, in-memory channels.
+     */
+    public static LoadScenario defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns a copy with the given number of initiator/responder pairs.
+     */
+    public LoadScenario withPairs(int pairs) {
+        if (pairs < 1) {
+            throw new IllegalArgumentException("Need at least one pair: " + pairs);
+        }
+        return new LoadScenario(pairs, messages, durationNanos, payloadBytes, rate, transport);
+    }
+
+    /**
+     * Returns a copy that stops after the given number of requests over all pairs; 0 leaves only the duration.
+     */
+    public LoadScenario withMessages(long messages) {
+        if (messages < 0 || (messages == 0 && durationNanos == 0)) {
+            throw new IllegalArgumentException("Need a positive message count or a duration: " + messages);
+        }
+        return new LoadScenario(pairs, messages, durationNanos, payloadBytes, rate, transport);
+    }
+
+    /**
+     * Returns a copy that stops issuing requests once the duration elapsed; 0 leaves only the message count.
+     */
+    public LoadScenario withDuration(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        if (nanos < 0 || (nanos == 0 && messages == 0)) {
+            throw new IllegalArgumentException("Need a positive duration or a message count: " + duration);
+        }
+        return new LoadScenario(pairs, messages, nanos, payloadBytes, rate, transport);
+    }
+
+    /**
+     * Returns a copy whose requests carry a text payload of the given size in bytes; 0 sends numeric payloads.
+     */
+    public LoadScenario withPayloadBytes(int payloadBytes) {
+        if (payloadBytes < 0) {
+            throw new IllegalArgumentException("Payload size cannot be negative: " + payloadBytes);
+        }
+        return new LoadScenario(pairs, messages, durationNanos, payloadBytes, rate, transport);
+    }
+
+    /**
+     * Returns a copy issuing requests at the given total rate per second, open loop, whether or not replies keep
+     * up; 0 runs closed loop, each pair sending its next request when the previous reply arrived.
+     */
+    public LoadScenario withRate(long rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate cannot be negative: " + rate);
+        }
+        return new LoadScenario(pairs, messages, durationNanos, payloadBytes, rate, transport);
+    }
+
+    /**
+     * Returns a copy connecting the players of each pair through the given channel implementation.
+     */
+    public LoadScenario withTransport(Transport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("Transport cannot be null");
+        }
+        return new LoadScenario(pairs, messages, durationNanos, payloadBytes, rate, transport);
+    }
+
+    public int getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Gets the number of requests after which the run stops, or 0 for no limit.
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * Gets the duration after which no more requests are issued, or 0 for no limit.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public int getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    /**
+     * Gets the target rate in requests per second, or 0 for closed loop.
+     */
+    public long getRate() {
+        return rate;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadScenario{pairs=" + pairs + ", messages=" + (messages > 0 ? messages : "unlimited")
+                + ", duration=" + (durationNanos > 0 ? TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms" : "unlimited")
+                + ", payloadBytes=" + payloadBytes + ", rate=" + (rate > 0 ? rate + "/s" : "closed-loop")
+                + ", transport=" + transport + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Messages waiting for one player, delivered by a Dispatcher.
+ * <p>
+ * Any thread can enqueue. A mailbox is on the dispatcher's pool only while it has messages: the enqueue that
+ * finds it idle schedules it, and a turn delivers at most throughput messages (in order, through one onMessages
+ * call) before the mailbox goes back to idle, or to the back of the ready queue if more messages arrived.
+ * Only one turn runs at a time, so the player sees its messages one at a time and in arrival order.
+ */
+final class Mailbox implements Runnable {
+    private final Player player;
+    private final Dispatcher dispatcher;
+    private final Queue<Message> queue;
+    private final AtomicBoolean scheduled;
+    // Only touched by the turn that holds the scheduled flag
+    private final List<Message> batch;
+
+    Mailbox(Player player, Dispatcher dispatcher) {
+        this.player = player;
+        this.dispatcher = dispatcher;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.batch = new ArrayList<>();
+    }
+
+    Player getPlayer() {
+        return player;
+    }
+
+    Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Tells whether the mailbox has nothing queued and no turn running.
+     */
+    boolean isIdle() {
+        return !scheduled.get() && queue.isEmpty();
+    }
+
+    void enqueue(Message message) {
+        queue.add(message);
+        scheduleIfIdle();
+    }
+
+    private void scheduleIfIdle() {
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            int quota = dispatcher.getThroughput();
+            Message message;
+            while (batch.size() < quota && (message = queue.poll()) != null) {
+                batch.add(message);
+            }
+            if (!batch.isEmpty()) {
+                dispatcher.recordTurn(batch.size());
+                player.onMessages(batch);
+            }
+        } catch (RuntimeException e) {
+            // Keep the mailbox alive: one failing delivery must not silence the player for good
+            dispatcher.deliveryFailed(player, e);
+        } finally {
+            batch.clear();
+            scheduled.set(false);
+            // A message enqueued while this turn ran found the mailbox scheduled and relies on this check
+            if (!queue.isEmpty()) {
+                scheduleIfIdle();
+            }
+        }
+    }
+}
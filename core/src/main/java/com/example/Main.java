@@ -0,0 +1,227 @@
+package com.example;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main entry point for player messaging system.
+ * Usage:
+ * <pre>
+ * Main                                   both players in this process
+ * Main --execution=virtual               channel threading: platform (default), virtual, pool or pool:N
+ * Main --batch-size=K --linger-us=N      deliver up to K queued messages per wakeup, waiting up to N us to fill a batch
+ * Main --capacity=N --overflow=P         bound channel queues; P: block, fail-fast, drop-oldest, drop-newest, credit
+ * Main --events=async                    player output: console (default), async or off; add :info for lifecycle only
+ * Main --metrics[=S]                     collect metrics, expose them over JMX, dump every S seconds and at the end
+ * Main --journal=DIR [--journal-sync=P]  journal routed messages, resume from DIR; P: none, every:N or interval:MS
+ * Main --pool[=debug]                    reply with pooled message envelopes; debug adds leak detection
+ * Main --dispatcher[=N]                 deliver from per-player mailboxes on N work-stealing threads (default: cores)
+ * Main --throughput=K                    messages a mailbox delivers per turn with --dispatcher (default 32)
+ * Main --first=N --messages=M            open with payload N (default 1), stop after M messages (default 10)
+ * Main --pipeline=W --messages=M         M requests with up to W in flight (request/reply API); W=1 is lock-step
+ * Main --games=N [--shards=M]            N independent games sharded over M partitions (default: cores)
+ * Main --drain=discard                   on shutdown, report queued messages instead of delivering them (flush)
+ * Main --load --pairs=N --rate=R         load test: R requests/s over N pairs, open loop (closed loop without R)
+ * Main --load --messages=M|--duration=S  stop after M requests (default 100000) or S seconds
+ * Main --load --payload-bytes=B          send B-byte text payloads instead of numbers
+ * Main --load --transport=T              in-memory (default), spsc, shared-memory or tcp
+ * Main --load --histogram-log=FILE       write response times in HdrHistogram percentile format
+ * Main --multi-process[=shm]             responder runs in a separate JVM, connected over TCP or shared memory
+ * Main --role=responder --peer-port=N    responder side of a multi-process game (started by the initiator)
+ * Main --role=responder --shm=DIR        responder side of a shared memory game, over the ring files in DIR
+ * </pre>
+ */
+public class Main {
+    public static void main(String[] args) {
+        String multiProcess = null;
+        String role = null;
+        int peerPort = -1;
+        String sharedMemoryDir = null;
+        String execution = "platform";
+        String eventSpec = "console";
+        int batchSize = 1;
+        long lingerMicros = 0;
+        int capacity = Integer.MAX_VALUE;
+        OverflowPolicy overflow = OverflowPolicy.BLOCK;
+        long metricsPeriod = -1;
+        String journalDir = null;
+        MessagePool messagePool = null;
+        String dispatcherSpec = null;
+        int throughput = Dispatcher.DEFAULT_THROUGHPUT;
+        JournalSyncPolicy journalSync = JournalSyncPolicy.none();
+        int games = 0;
+        int pipelineWindow = 0;
+        boolean load = false;
+        boolean messageLimitSet = false;
+        LoadScenario scenario = LoadScenario.defaults();
+        String histogramLog = null;
+        long firstPayload = 1;
+        long messageLimit = Player.DEFAULT_MESSAGE_LIMIT;
+        int shards = Runtime.getRuntime().availableProcessors();
+        DrainMode drainMode = DrainMode.FLUSH;
+        for (String arg : args) {
+            if (arg.startsWith("--execution=")) {
+                execution = arg.substring("--execution=".length());
+            } else if (arg.startsWith("--events=")) {
+                eventSpec = arg.substring("--events=".length());
+            } else if (arg.startsWith("--batch-size=")) {
+                batchSize = Integer.parseInt(arg.substring("--batch-size=".length()));
+            } else if (arg.startsWith("--linger-us=")) {
+                lingerMicros = Long.parseLong(arg.substring("--linger-us=".length()));
+            } else if (arg.startsWith("--capacity=")) {
+                capacity = Integer.parseInt(arg.substring("--capacity=".length()));
+            } else if (arg.startsWith("--overflow=")) {
+                overflow = OverflowPolicy.parse(arg.substring("--overflow=".length()));
+            } else if (arg.equals("--metrics")) {
+                metricsPeriod = 0;
+            } else if (arg.startsWith("--metrics=")) {
+                metricsPeriod = Long.parseLong(arg.substring("--metrics=".length()));
+            } else if (arg.startsWith("--journal=")) {
+                journalDir = arg.substring("--journal=".length());
+            } else if (arg.startsWith("--journal-sync=")) {
+                journalSync = JournalSyncPolicy.parse(arg.substring("--journal-sync=".length()));
+            } else if (arg.equals("--pool")) {
+                messagePool = new MessagePool();
+            } else if (arg.startsWith("--pool=")) {
+                messagePool = MessagePool.parse(arg.substring("--pool=".length()));
+            } else if (arg.equals("--dispatcher")) {
+                dispatcherSpec = "on";
+            } else if (arg.startsWith("--dispatcher=")) {
+                dispatcherSpec = arg.substring("--dispatcher=".length());
+            } else if (arg.startsWith("--throughput=")) {
+                throughput = Integer.parseInt(arg.substring("--throughput=".length()));
+            } else if (arg.startsWith("--first=")) {
+                firstPayload = Long.parseLong(arg.substring("--first=".length()));
+            } else if (arg.startsWith("--messages=")) {
+                messageLimit = Long.parseLong(arg.substring("--messages=".length()));
+                messageLimitSet = true;
+            } else if (arg.startsWith("--pipeline=")) {
+                pipelineWindow = Integer.parseInt(arg.substring("--pipeline=".length()));
+            } else if (arg.equals("--load")) {
+                load = true;
+            } else if (arg.startsWith("--pairs=")) {
+                scenario = scenario.withPairs(Integer.parseInt(arg.substring("--pairs=".length())));
+            } else if (arg.startsWith("--rate=")) {
+                scenario = scenario.withRate(Long.parseLong(arg.substring("--rate=".length())));
+            } else if (arg.startsWith("--duration=")) {
+                scenario = scenario.withDuration(Long.parseLong(arg.substring("--duration=".length())),
+                        TimeUnit.SECONDS);
+            } else if (arg.startsWith("--payload-bytes=")) {
+                scenario = scenario.withPayloadBytes(Integer.parseInt(arg.substring("--payload-bytes=".length())));
+            } else if (arg.startsWith("--transport=")) {
+                scenario = scenario.withTransport(Transport.parse(arg.substring("--transport=".length())));
+            } else if (arg.startsWith("--histogram-log=")) {
+                histogramLog = arg.substring("--histogram-log=".length());
+            } else if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(arg.substring("--games=".length()));
+            } else if (arg.startsWith("--shards=")) {
+                shards = Integer.parseInt(arg.substring("--shards=".length()));
+            } else if (arg.startsWith("--drain=")) {
+                drainMode = DrainMode.parse(arg.substring("--drain=".length()));
+            } else if (arg.equals("--multi-process")) {
+                multiProcess = "tcp";
+            } else if (arg.startsWith("--multi-process=")) {
+                multiProcess = arg.substring("--multi-process=".length());
+                if (!multiProcess.equals("tcp") && !multiProcess.equals("shm")) {
+                    System.err.println("Unknown multi-process transport: " + multiProcess);
+                    System.exit(2);
+                }
+            } else if (arg.startsWith("--role=")) {
+                role = arg.substring("--role=".length());
+            } else if (arg.startsWith("--peer-port=")) {
+                peerPort = Integer.parseInt(arg.substring("--peer-port=".length()));
+            } else if (arg.startsWith("--shm=")) {
+                sharedMemoryDir = arg.substring("--shm=".length());
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+        }
+
+        // Create and start game controller
+        EventSink events = EventSink.noOp();
+        MetricsRegistry metrics = metricsPeriod >= 0 ? new MetricsRegistry() : null;
+        MessageJournal journal = null;
+        Dispatcher dispatcher = null;
+        try {
+            events = EventSink.parse(eventSpec);
+            if (metrics != null) {
+                metrics.registerMBean(role != null ? role : "game");
+                if (metricsPeriod > 0) {
+                    metrics.startDump(metricsPeriod, TimeUnit.SECONDS, System.out);
+                }
+            }
+            if (dispatcherSpec != null) {
+                dispatcher = Dispatcher.parse(dispatcherSpec, throughput);
+            }
+            ChannelConfig channelConfig = ChannelConfig.defaults()
+                    .withExecutionModel(ExecutionModel.parse(execution))
+                    .withMaxBatchSize(batchSize)
+                    .withLinger(lingerMicros, TimeUnit.MICROSECONDS)
+                    .withCapacity(capacity, overflow)
+                    .withMetrics(metrics)
+                    .withMessagePool(messagePool)
+                    .withDispatcher(dispatcher);
+            GameController controller = new GameController(channelConfig, events);
+            controller.setFirstPayload(firstPayload);
+            controller.setMessageLimit(messageLimit);
+            controller.setDrainMode(drainMode);
+            if (journalDir != null) {
+                journal = new MessageJournal(Paths.get(journalDir), MessageJournal.DEFAULT_SEGMENT_SIZE, journalSync);
+                controller.setJournal(journal);
+            }
+            if (load) {
+                // With a duration and no explicit count, the duration alone ends the run
+                scenario = scenario.withMessages(messageLimitSet ? messageLimit
+                        : scenario.getDurationNanos() > 0 ? 0 : scenario.getMessages());
+                LoadReport report = controller.startLoad(scenario);
+                if (histogramLog != null) {
+                    report.writeHistogramLog(Paths.get(histogramLog));
+                }
+            } else if ("responder".equals(role) && sharedMemoryDir != null) {
+                controller.runRemoteResponder(Paths.get(sharedMemoryDir));
+            } else if ("responder".equals(role)) {
+                controller.runRemoteResponder(peerPort);
+            } else if (pipelineWindow > 0) {
+                controller.startPipelined(pipelineWindow);
+            } else if (games > 0) {
+                controller.startMultiGame(games, shards, 10, TimeUnit.MINUTES);
+            } else if ("shm".equals(multiProcess)) {
+                controller.startSharedMemory();
+            } else if (multiProcess != null) {
+                controller.startMultiProcess();
+            } else {
+                controller.start();
+            }
+        } catch (Exception e) {
+            events.close();
+            if (journal != null) {
+                journal.close();
+            }
+            if (dispatcher != null) {
+                dispatcher.close();
+            }
+            System.err.println("Error running game: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        events.close();
+        if (journal != null) {
+            journal.close();
+        }
+        if (dispatcher != null) {
+            dispatcher.close();
+            System.out.println("Dispatcher: turns=" + dispatcher.getTurnCount()
+                    + ", delivered=" + dispatcher.getDeliveredCount());
+        }
+        if (messagePool != null) {
+            messagePool.checkLeaks();
+            System.out.println("Message pool: allocated=" + messagePool.getAllocatedCount()
+                    + ", outstanding=" + messagePool.getOutstandingCount() + ", leaks=" + messagePool.getLeakCount());
+        }
+        if (metrics != null) {
+            metrics.close();
+            metrics.dump(System.out);
+        }
+    }
+}
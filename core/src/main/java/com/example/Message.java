@@ -0,0 +1,470 @@
+package com.example;
+
+/**
+ * Represents a message exchanged between Player instances.
+ * For network communication, messages are serialized to a line-based format.
+ * <p>
+ * Messages created with a constructor are immutable: their fields are final, so they are safely published to any
+ * thread. Messages acquired from a MessagePool are envelopes that are refilled and reused: they read their
+ * fields from a mutable MessageEnvelope, their payload lives in a reusable buffer (see getPayloadChars()), they
+ * rely on the channel that carries them for publication and they must not be touched after recycle().
+ */
+public final class Message {
+    private static final int UNRESOLVED = -2;
+
+    private final String payload;
+    private final String fromPlayerId;
+    private final String toPlayerId;
+    private final long sequenceNumber;
+    private final boolean hasSequenceNumber;
+    private final boolean numeric;
+    private final long number;
+    // Request/response correlation (see Player.request); 0 when the message is not part of a request
+    private final long correlationId;
+    private final boolean reply;
+    private final MessagePriority priority;
+
+    // Pooled messages only: the refillable state the getters read instead of the fields above
+    private final MessageEnvelope envelope;
+
+    // PlayerIds handles; resolved lazily for messages built from Strings (racy but idempotent, like String.hash)
+    private int fromHandle;
+    private int toHandle;
+
+    // Stamped by an instrumented channel on send and read on delivery; not part of the message's value
+    long enqueuedAtNanos;
+
+    /**
+     * Creates a new message.
+     */
+    public Message(String payload, String fromPlayerId, String toPlayerId, Integer sequenceNumber) {
+        this(payload, false, 0, fromPlayerId, toPlayerId, UNRESOLVED, UNRESOLVED,
+                sequenceNumber != null ? sequenceNumber : 0L, sequenceNumber != null, 0, false,
+                MessagePriority.NORMAL);
+    }
+
+    /**
+     * Creates a new message with a primitive sequence number (no boxing).
+     */
+    public Message(String payload, String fromPlayerId, String toPlayerId, long sequenceNumber) {
+        this(payload, false, 0, fromPlayerId, toPlayerId, UNRESOLVED, UNRESOLVED, sequenceNumber, true, 0, false,
+                MessagePriority.NORMAL);
+    }
+
+    /**
+     * Creates a new message with a numeric payload, carried as a primitive end to end (in memory and by
+     * BinaryMessageCodec) so it is never parsed or formatted on the way.
+     */
+    public Message(long payload, String fromPlayerId, String toPlayerId, long sequenceNumber) {
+        this(null, true, payload, fromPlayerId, toPlayerId, UNRESOLVED, UNRESOLVED, sequenceNumber, true, 0, false,
+                MessagePriority.NORMAL);
+    }
+
+    /**
+     * Creates a new message with a numeric payload, addressed by interned player handles.
+     */
+    public Message(long payload, int fromHandle, int toHandle, long sequenceNumber) {
+        this(null, true, payload, PlayerIds.idOf(fromHandle), PlayerIds.idOf(toHandle), fromHandle, toHandle,
+                sequenceNumber, true, 0, false, MessagePriority.NORMAL);
+    }
+
+    /**
+     * Creates a new message addressed by interned player handles (see PlayerIds); the ids are the canonical
+     * Strings of the handles.
+     */
+    public Message(String payload, int fromHandle, int toHandle, long sequenceNumber) {
+        this(payload, false, 0, PlayerIds.idOf(fromHandle), PlayerIds.idOf(toHandle), fromHandle, toHandle,
+                sequenceNumber, true, 0, false, MessagePriority.NORMAL);
+    }
+
+    /**
+     * Creates a message without sequence number.
+     */
+    public Message(String payload, String fromPlayerId, String toPlayerId) {
+        this(payload, fromPlayerId, toPlayerId, (Integer) null);
+    }
+
+    /**
+     * Creates a message with every field known up front, for senders and decoders. Handles may be UNRESOLVED
+     * (or any negative value) to be looked up from the ids when first asked for.
+     */
+    Message(String payload, boolean numeric, long number, String fromPlayerId, String toPlayerId, int fromHandle,
+            int toHandle, long sequenceNumber, boolean hasSequenceNumber, long correlationId, boolean reply,
+            MessagePriority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority cannot be null");
+        }
+        this.payload = payload;
+        this.numeric = numeric;
+        this.number = number;
+        this.fromPlayerId = fromPlayerId;
+        this.toPlayerId = toPlayerId;
+        this.fromHandle = fromHandle >= 0 ? fromHandle : UNRESOLVED;
+        this.toHandle = toHandle >= 0 ? toHandle : UNRESOLVED;
+        this.sequenceNumber = sequenceNumber;
+        this.hasSequenceNumber = hasSequenceNumber;
+        this.correlationId = correlationId;
+        this.reply = reply;
+        this.priority = priority;
+        this.envelope = null;
+    }
+
+    /**
+     * Creates an empty envelope owned by the pool.
+     */
+    Message(MessagePool pool) {
+        this.payload = null;
+        this.numeric = false;
+        this.number = 0;
+        this.fromPlayerId = null;
+        this.toPlayerId = null;
+        this.sequenceNumber = 0;
+        this.hasSequenceNumber = true;
+        this.correlationId = 0;
+        this.reply = false;
+        this.priority = MessagePriority.NORMAL;
+        this.envelope = new MessageEnvelope(pool);
+    }
+
+    /**
+     * Gets the payload. For a pooled message this copies the payload buffer into a new String and for a numeric
+     * payload it formats the number; prefer getPayloadChars() or getNumericPayload() on hot paths.
+     */
+    public String getPayload() {
+        if (hasNumericPayload()) {
+            return Long.toString(getNumber());
+        }
+        return envelope != null ? envelope.text.toString() : payload;
+    }
+
+    /**
+     * Gets the payload without copying (a numeric payload is still formatted). For a pooled message the
+     * characters are only valid until the message is recycled; copy them (toString()) to keep them longer.
+     */
+    public CharSequence getPayloadChars() {
+        if (hasNumericPayload()) {
+            return Long.toString(getNumber());
+        }
+        return envelope != null ? envelope.text : payload;
+    }
+
+    /**
+     * Checks if the payload is a primitive number (see getNumericPayload()).
+     */
+    public boolean hasNumericPayload() {
+        return envelope != null ? envelope.numeric : numeric;
+    }
+
+    /**
+     * Gets the numeric payload.
+     *
+     * @throws IllegalStateException if the payload is text
+     */
+    public long getNumericPayload() {
+        if (!hasNumericPayload()) {
+            throw new IllegalStateException("Payload is not numeric: " + this);
+        }
+        return getNumber();
+    }
+
+    private long getNumber() {
+        return envelope != null ? envelope.number : number;
+    }
+
+    public String getFromPlayerId() {
+        return envelope != null ? envelope.fromPlayerId : fromPlayerId;
+    }
+
+    public String getToPlayerId() {
+        return envelope != null ? envelope.toPlayerId : toPlayerId;
+    }
+
+    /**
+     * Gets the PlayerIds handle of the sender, or PlayerIds.NO_HANDLE if the id is null or not interned.
+     */
+    public int getFromHandle() {
+        if (envelope != null) {
+            return envelope.fromHandle;
+        }
+        int handle = fromHandle;
+        if (handle == UNRESOLVED) {
+            handle = PlayerIds.handleOf(fromPlayerId);
+            // An unknown id may still be registered later; only cache a final answer
+            if (handle != PlayerIds.NO_HANDLE || fromPlayerId == null) {
+                fromHandle = handle;
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Gets the PlayerIds handle of the target, or PlayerIds.NO_HANDLE if the id is null or not interned.
+     */
+    public int getToHandle() {
+        if (envelope != null) {
+            return envelope.toHandle;
+        }
+        int handle = toHandle;
+        if (handle == UNRESOLVED) {
+            handle = PlayerIds.handleOf(toPlayerId);
+            // An unknown id may still be registered later; only cache a final answer
+            if (handle != PlayerIds.NO_HANDLE || toPlayerId == null) {
+                toHandle = handle;
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Gets the sequence number, or null if there is none.
+     *
+     * @throws ArithmeticException if the sequence number is beyond the int range
+     * @deprecated sequence numbers are 64-bit; use hasSequenceNumber() and getSequence()
+     */
+    @Deprecated
+    public Integer getSequenceNumber() {
+        return hasSequenceNumber() ? Integer.valueOf(Math.toIntExact(getSequence())) : null;
+    }
+
+    /**
+     * Checks if this message carries a sequence number. Pooled messages always do.
+     */
+    public boolean hasSequenceNumber() {
+        return hasSequenceNumber;
+    }
+
+    /**
+     * Gets the sequence number as a primitive, or 0 if there is none.
+     */
+    public long getSequence() {
+        return envelope != null ? envelope.sequenceNumber : sequenceNumber;
+    }
+
+    /**
+     * Gets the id correlating a request with its reply, or 0 if this message is neither.
+     */
+    public long getCorrelationId() {
+        return envelope != null ? envelope.correlationId : correlationId;
+    }
+
+    /**
+     * Checks if this message answers a request (see Player.request); its correlation id is the request's.
+     */
+    public boolean isReply() {
+        return envelope != null ? envelope.reply : reply;
+    }
+
+    /**
+     * Gets the lane this message takes through a channel with priority lanes (NORMAL unless set otherwise).
+     */
+    public MessagePriority getPriority() {
+        return envelope != null ? envelope.priority : priority;
+    }
+
+    /**
+     * Gets a copy of this message in the given priority lane (see MessagePriority); this message is unchanged.
+     */
+    public Message withPriority(MessagePriority priority) {
+        return copy(getCorrelationId(), isReply(), priority);
+    }
+
+    /**
+     * Gets a copy of this message marked as a request or a reply with the given id; this message is unchanged.
+     */
+    Message withCorrelation(long correlationId, boolean reply) {
+        return copy(correlationId, reply, getPriority());
+    }
+
+    /**
+     * Gets a message that stays valid after this one is delivered: a copy of a pooled envelope, otherwise this.
+     */
+    Message detach() {
+        return envelope == null ? this : copy(getCorrelationId(), isReply(), getPriority());
+    }
+
+    /**
+     * Gets a constructed (immutable, not pooled) copy of this message with the given correlation and lane.
+     */
+    private Message copy(long correlationId, boolean reply, MessagePriority priority) {
+        boolean isNumeric = hasNumericPayload();
+        return new Message(isNumeric ? null : getPayload(), isNumeric, getNumber(), getFromPlayerId(),
+                getToPlayerId(), getFromHandle(), getToHandle(), getSequence(), hasSequenceNumber(), correlationId,
+                reply, priority);
+    }
+
+    /**
+     * Checks if this message is an envelope from a MessagePool.
+     */
+    public boolean isPooled() {
+        return envelope != null;
+    }
+
+    /**
+     * Returns a pooled message to its pool once the receiver is done with it; the caller must not use it
+     * afterwards. Does nothing for constructed messages, so channels can call it on every delivered message.
+     *
+     * @throws IllegalStateException if a pooled message is recycled twice
+     */
+    public void recycle() {
+        if (envelope != null) {
+            envelope.pool.release(this);
+        }
+    }
+
+    /**
+     * Refills a pooled envelope with a sender, target and sequence number and clears everything else, including
+     * its payload buffer, which the caller then fills through payloadBuffer() or fillNumericPayload().
+     */
+    Message fill(int fromHandle, int toHandle, long sequenceNumber) {
+        return fill(fromHandle, PlayerIds.idOf(fromHandle), toHandle, PlayerIds.idOf(toHandle), sequenceNumber);
+    }
+
+    /**
+     * Refills a pooled envelope like fill(int, int, long), with the ids the handles stand for, so a handle released
+     * meanwhile (see PlayerIds.release) is not resolved.
+     */
+    Message fill(int fromHandle, String fromPlayerId, int toHandle, String toPlayerId, long sequenceNumber) {
+        envelope().fill(fromHandle, fromPlayerId, toHandle, toPlayerId, sequenceNumber);
+        this.enqueuedAtNanos = 0;
+        return this;
+    }
+
+    /**
+     * Sets a numeric payload on a pooled envelope, instead of filling its payload buffer.
+     */
+    Message fillNumericPayload(long value) {
+        MessageEnvelope state = envelope();
+        state.numeric = true;
+        state.number = value;
+        return this;
+    }
+
+    /**
+     * Marks a pooled envelope as a request or a reply with the given id and puts it in the given lane.
+     */
+    Message fillCorrelation(long correlationId, boolean reply, MessagePriority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority cannot be null");
+        }
+        MessageEnvelope state = envelope();
+        state.correlationId = correlationId;
+        state.reply = reply;
+        state.priority = priority;
+        return this;
+    }
+
+    /**
+     * Gets the payload buffer of a pooled envelope.
+     */
+    StringBuilder payloadBuffer() {
+        return envelope().text;
+    }
+
+    /**
+     * Gets the refillable state of a pooled envelope.
+     *
+     * @throws IllegalStateException if this is a constructed message
+     */
+    MessageEnvelope envelope() {
+        if (envelope == null) {
+            throw new IllegalStateException("Not a pooled message: " + this);
+        }
+        return envelope;
+    }
+
+    MessagePool getPool() {
+        return envelope != null ? envelope.pool : null;
+    }
+
+    /**
+     * Serializes this message to line-based string format for network transmission.
+     * Format: fromPlayerId|toPlayerId|sequenceNumber|payload
+     * The correlation id is not part of this format. For a compact, allocation-free encoding that carries it
+     * use BinaryMessageCodec.
+     * 
+     * @return serialized message string
+     */
+    public String serialize() {
+        boolean isNumeric = hasNumericPayload();
+        CharSequence payload = isNumeric ? null : getPayloadChars();
+        String fromPlayerId = getFromPlayerId();
+        String toPlayerId = getToPlayerId();
+        StringBuilder sb = new StringBuilder(24
+                + (fromPlayerId != null ? fromPlayerId.length() : 0)
+                + (toPlayerId != null ? toPlayerId.length() : 0)
+                + (payload != null ? payload.length() : 0));
+        sb.append(fromPlayerId != null ? fromPlayerId : "");
+        sb.append('|');
+        sb.append(toPlayerId != null ? toPlayerId : "");
+        sb.append('|');
+        if (hasSequenceNumber()) {
+            sb.append(getSequence());
+        }
+        sb.append('|');
+        if (isNumeric) {
+            sb.append(getNumber());
+        } else if (payload != null) {
+            sb.append(payload);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Deserializes a message from a line-based string format.
+     * Everything after the third separator is the payload, so payloads may contain '|'.
+     */
+    public static Message deserialize(String serialized) {
+        if (serialized == null || serialized.trim().isEmpty()) {
+            throw new IllegalArgumentException("Serialized message cannot be null or empty");
+        }
+
+        int first = serialized.indexOf('|');
+        int second = first < 0 ? -1 : serialized.indexOf('|', first + 1);
+        int third = second < 0 ? -1 : serialized.indexOf('|', second + 1);
+        if (third < 0) {
+            throw new IllegalArgumentException("Invalid message format: " + serialized);
+        }
+
+        String from = first == 0 ? null : serialized.substring(0, first);
+        String to = second == first + 1 ? null : serialized.substring(first + 1, second);
+        String payload = serialized.substring(third + 1);
+        if (third == second + 1) {
+            return new Message(payload, from, to, (Integer) null);
+        }
+        try {
+            long seq = Long.parseLong(serialized, second + 1, third, 10);
+            return new Message(payload, from, to, seq);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sequence number in message: " + serialized, e);
+        }
+    }
+
+    /**
+     * Special message type that used to signal shutdown.
+     *
+     * @deprecated channels are stopped out of band (see MessageChannel.stopAsync); this is an ordinary message
+     *             that channels deliver like any other
+     */
+    @Deprecated
+    public static Message stopMessage(String fromPlayerId) {
+        return new Message("STOP", fromPlayerId, null, (Integer) null);
+    }
+
+    /**
+     * Checks if this is a stop message.
+     *
+     * @deprecated channels no longer look at payloads to stop, see stopMessage
+     */
+    @Deprecated
+    public boolean isStopMessage() {
+        return envelope == null && !numeric && "STOP".equals(payload);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Message{from=%s, to=%s, seq=%s, payload='%s'}", 
+            getFromPlayerId(), getToPlayerId(), hasSequenceNumber() ? Long.valueOf(getSequence()) : null,
+            getPayloadChars());
+    }
+}
+
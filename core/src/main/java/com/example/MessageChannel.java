@@ -0,0 +1,67 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abstraction for message delivery between Player instances.
+ */
+public interface MessageChannel {
+    /**
+     * Sends a message through this channel.
+     */
+    void send(Message message);
+
+    /**
+     * Sends a message without ever blocking the caller.
+     * The default suits channels whose send never waits; bounded channels override it.
+     *
+     * @return false if the channel had no room for the message (it was not sent)
+     */
+    default boolean offer(Message message) {
+        send(message);
+        return true;
+    }
+
+    /**
+     * Returns send credits to a channel using credit-based flow control, once the receiver handled
+     * that many of its messages. Channels without flow control ignore grants.
+     */
+    default void grantCredits(int credits) {
+    }
+
+    /**
+     * Starts the message channel, initializing any necessary resources (threads, sockets, etc.) and beginning to process messages.
+     */
+    void start();
+
+    /**
+     * Stops the message channel, gracefully shutting down resources. After calling stop(), the channel should not accept new messages.
+     */
+    void stop();
+
+    /**
+     * Starts stopping the channel without waiting for it: the channel accepts no new messages, and its queued ones
+     * are delivered or set aside as the drain mode says. Pair with awaitStop. The default simply calls stop(),
+     * which suits channels whose stop never waits long.
+     */
+    default void stopAsync(DrainMode mode) {
+        stop();
+    }
+
+    /**
+     * Waits for a stop started with stopAsync to finish. If it does not finish in time, the channel gives up
+     * delivering and the rest of its queue counts as undelivered.
+     *
+     * @param undelivered receives the messages the channel accepted but never delivered, detached from any pool
+     * @return true if the channel stopped within the timeout
+     */
+    default boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undelivered) throws InterruptedException {
+        return true;
+    }
+
+    /**
+     * Checks if the channel is currently running.
+     */
+    boolean isRunning();
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes length-prefixed Message frames to and from caller-supplied ByteBuffers.
+ * Every frame starts with a 4-byte big-endian length of the frame body, so frames can be read
+ * from a stream without knowing the codec details.
+ * Implementations are not thread-safe; use one instance per connection or thread.
+ */
+public interface MessageCodec {
+    /**
+     * Size of the length prefix in front of every frame.
+     */
+    int LENGTH_PREFIX_BYTES = 4;
+
+    /**
+     * Largest frame body accepted, so that a corrupt or hostile length prefix cannot make a reader wait for or
+     * allocate an arbitrary amount of memory.
+     */
+    int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Gets the wire format version produced and accepted by this codec.
+     */
+    CodecVersion version();
+
+    /**
+     * Writes one frame for the message at the buffer's position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough room; the buffer position is
+     *         left unchanged in that case
+     */
+    void encode(Message message, ByteBuffer buffer);
+
+    /**
+     * Reads one frame from the buffer's position.
+     *
+     * @return decoded message, or null if the buffer does not yet hold a complete frame (position unchanged)
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    Message decode(ByteBuffer buffer);
+
+    /**
+     * Checks if the buffer holds at least one complete frame at its position.
+     *
+     * @throws IllegalArgumentException if the length prefix is negative or larger than MAX_FRAME_BYTES
+     */
+    static boolean hasCompleteFrame(ByteBuffer buffer) {
+        int remaining = buffer.remaining();
+        if (remaining < LENGTH_PREFIX_BYTES) {
+            return false;
+        }
+        int bodyLength = checkBodyLength(buffer.getInt(buffer.position()));
+        return remaining - LENGTH_PREFIX_BYTES >= bodyLength;
+    }
+
+    /**
+     * Validates a frame body length read from a length prefix.
+     *
+     * @return the length
+     * @throws IllegalArgumentException if it is negative or larger than MAX_FRAME_BYTES
+     */
+    static int checkBodyLength(int bodyLength) {
+        if (bodyLength < 0 || bodyLength > MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Invalid frame length: " + bodyLength);
+        }
+        return bodyLength;
+    }
+}
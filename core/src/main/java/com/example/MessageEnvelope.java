@@ -0,0 +1,54 @@
+package com.example;
+
+/**
+ * Refillable state of a pooled Message (see MessagePool). A pooled message reads its fields from here instead of
+ * its own final ones, so constructed messages stay immutable while envelopes are reused.
+ * <p>
+ * Not thread-safe: an envelope is filled by the sending thread and handed to the receiving side by the channel,
+ * whose queue publishes it, and is only refilled after the receiver recycled it.
+ */
+final class MessageEnvelope {
+    final MessagePool pool;
+    // Reusable payload buffer, used when the payload is not numeric
+    final StringBuilder text;
+
+    String fromPlayerId;
+    String toPlayerId;
+    int fromHandle;
+    int toHandle;
+    long sequenceNumber;
+    boolean numeric;
+    long number;
+    long correlationId;
+    boolean reply;
+    MessagePriority priority;
+
+    // Ownership flag and leak tracker (debug), managed by the pool
+    boolean inUse;
+    Object leakTracker;
+
+    MessageEnvelope(MessagePool pool) {
+        this.pool = pool;
+        this.text = new StringBuilder(16);
+        this.fromHandle = PlayerIds.NO_HANDLE;
+        this.toHandle = PlayerIds.NO_HANDLE;
+        this.priority = MessagePriority.NORMAL;
+    }
+
+    /**
+     * Refills the envelope with a sender, target and sequence number, clearing everything else.
+     */
+    void fill(int fromHandle, String fromPlayerId, int toHandle, String toPlayerId, long sequenceNumber) {
+        this.fromPlayerId = fromPlayerId;
+        this.toPlayerId = toPlayerId;
+        this.fromHandle = fromHandle;
+        this.toHandle = toHandle;
+        this.sequenceNumber = sequenceNumber;
+        this.numeric = false;
+        this.number = 0;
+        this.correlationId = 0;
+        this.reply = false;
+        this.priority = MessagePriority.NORMAL;
+        text.setLength(0);
+    }
+}
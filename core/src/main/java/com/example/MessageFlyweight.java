@@ -0,0 +1,203 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the fields of a BinaryMessageCodec frame in place, without building a Message.
+ * Fields are located lazily the first time they are accessed. A single instance can be
+ * re-pointed at successive frames with wrap(), so steady-state reading does not allocate.
+ * Not thread-safe.
+ */
+public final class MessageFlyweight {
+    private ByteBuffer buffer;
+    private int frameStart;
+    private int bodyStart;
+    private int toLengthIndex;
+    private int payloadLengthIndex;
+
+    /**
+     * Points this flyweight at the frame starting (with its length prefix) at the given absolute index.
+     *
+     * @return this flyweight
+     */
+    public MessageFlyweight wrap(ByteBuffer buffer, int index) {
+        this.buffer = buffer;
+        this.frameStart = index;
+        this.bodyStart = index + MessageCodec.LENGTH_PREFIX_BYTES;
+        this.toLengthIndex = -1;
+        this.payloadLengthIndex = -1;
+        int version = buffer.get(bodyStart + BinaryMessageCodec.VERSION_OFFSET);
+        if (version != CodecVersion.BINARY.getId()) {
+            throw new IllegalArgumentException("Unexpected codec version in frame: " + version);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the total frame size including the length prefix; add it to the wrap index to reach the next frame.
+     */
+    public int frameLength() {
+        return MessageCodec.LENGTH_PREFIX_BYTES + buffer.getInt(frameStart);
+    }
+
+    public boolean hasSequenceNumber() {
+        return (buffer.get(bodyStart + BinaryMessageCodec.FLAGS_OFFSET) & BinaryMessageCodec.FLAG_HAS_SEQUENCE) != 0;
+    }
+
+    public long getSequence() {
+        return buffer.getLong(bodyStart + BinaryMessageCodec.SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Gets the correlation id, or 0 if the frame has none (see Message.getCorrelationId()).
+     */
+    public long getCorrelationId() {
+        if ((buffer.get(bodyStart + BinaryMessageCodec.FLAGS_OFFSET) & BinaryMessageCodec.FLAG_HAS_CORRELATION) == 0) {
+            return 0;
+        }
+        // The correlation id closes the frame
+        return buffer.getLong(frameStart + frameLength() - Long.BYTES);
+    }
+
+    public boolean isReply() {
+        return (buffer.get(bodyStart + BinaryMessageCodec.FLAGS_OFFSET) & BinaryMessageCodec.FLAG_REPLY) != 0;
+    }
+
+    public MessagePriority getPriority() {
+        int flags = buffer.get(bodyStart + BinaryMessageCodec.FLAGS_OFFSET);
+        return MessagePriority.fromWireCode(
+                flags >> BinaryMessageCodec.PRIORITY_SHIFT & BinaryMessageCodec.PRIORITY_MASK);
+    }
+
+    private int fromLengthIndex() {
+        return bodyStart + BinaryMessageCodec.FROM_LENGTH_OFFSET;
+    }
+
+    private int toLengthIndex() {
+        if (toLengthIndex < 0) {
+            int fromIndex = fromLengthIndex();
+            toLengthIndex = fromIndex + 2 + Math.max(0, buffer.getShort(fromIndex));
+        }
+        return toLengthIndex;
+    }
+
+    private int payloadLengthIndex() {
+        if (payloadLengthIndex < 0) {
+            int toIndex = toLengthIndex();
+            payloadLengthIndex = toIndex + 2 + Math.max(0, buffer.getShort(toIndex));
+        }
+        return payloadLengthIndex;
+    }
+
+    /**
+     * Gets the UTF-8 byte length of the payload, -1 if the payload is null or -2 if it is numeric.
+     */
+    public int payloadLength() {
+        return buffer.getInt(payloadLengthIndex());
+    }
+
+    /**
+     * Checks if the payload is a primitive number (see getNumericPayload()).
+     */
+    public boolean hasNumericPayload() {
+        return payloadLength() == BinaryMessageCodec.NUMERIC_LENGTH;
+    }
+
+    /**
+     * Gets the numeric payload.
+     *
+     * @throws IllegalStateException if the payload is text
+     */
+    public long getNumericPayload() {
+        int index = payloadLengthIndex();
+        if (buffer.getInt(index) != BinaryMessageCodec.NUMERIC_LENGTH) {
+            throw new IllegalStateException("Payload is not numeric");
+        }
+        return buffer.getLong(index + 4);
+    }
+
+    /**
+     * Compares the sender id with the given characters without decoding it.
+     */
+    public boolean fromPlayerIdEquals(CharSequence playerId) {
+        return shortFieldEquals(fromLengthIndex(), playerId);
+    }
+
+    /**
+     * Compares the target id with the given characters without decoding it.
+     */
+    public boolean toPlayerIdEquals(CharSequence playerId) {
+        return shortFieldEquals(toLengthIndex(), playerId);
+    }
+
+    /**
+     * Compares the payload with the given characters without decoding it.
+     */
+    public boolean payloadEquals(CharSequence payload) {
+        int index = payloadLengthIndex();
+        int length = buffer.getInt(index);
+        if (length == BinaryMessageCodec.NUMERIC_LENGTH) {
+            // Equal to the number's canonical text: same value and same length (no sign or leading zeros)
+            long number = buffer.getLong(index + 4);
+            return payload != null && payload.length() == Numbers.decimalLength(number)
+                    && Numbers.parseLong(payload, ~number) == number;
+        }
+        if (length < 0) {
+            return payload == null;
+        }
+        return payload != null && Utf8.contentEquals(buffer, index + 4, length, payload);
+    }
+
+    private boolean shortFieldEquals(int lengthIndex, CharSequence value) {
+        int length = buffer.getShort(lengthIndex);
+        if (length < 0) {
+            return value == null;
+        }
+        return value != null && Utf8.contentEquals(buffer, lengthIndex + 2, length, value);
+    }
+
+    /**
+     * Appends the sender id to the builder (nothing if null).
+     */
+    public StringBuilder appendFromPlayerId(StringBuilder target) {
+        return appendShortField(fromLengthIndex(), target);
+    }
+
+    /**
+     * Appends the target id to the builder (nothing if null).
+     */
+    public StringBuilder appendToPlayerId(StringBuilder target) {
+        return appendShortField(toLengthIndex(), target);
+    }
+
+    /**
+     * Appends the payload to the builder (nothing if null).
+     */
+    public StringBuilder appendPayload(StringBuilder target) {
+        int index = payloadLengthIndex();
+        int length = buffer.getInt(index);
+        if (length == BinaryMessageCodec.NUMERIC_LENGTH) {
+            target.append(buffer.getLong(index + 4));
+        } else if (length > 0) {
+            Utf8.appendTo(buffer, index + 4, length, target);
+        }
+        return target;
+    }
+
+    private StringBuilder appendShortField(int lengthIndex, StringBuilder target) {
+        int length = buffer.getShort(lengthIndex);
+        if (length > 0) {
+            Utf8.appendTo(buffer, lengthIndex + 2, length, target);
+        }
+        return target;
+    }
+
+    /**
+     * Materializes the frame as a Message (allocates).
+     */
+    public Message toMessage() {
+        ByteBuffer view = buffer.duplicate();
+        view.position(frameStart);
+        return new BinaryMessageCodec().decode(view);
+    }
+}
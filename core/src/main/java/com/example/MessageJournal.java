@@ -0,0 +1,367 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of routed messages, stored in memory-mapped segment files.
+ * <p>
+ * Each record is a BinaryMessageCodec frame followed by a CRC32C of the frame. Appending is a copy into the
+ * mapped segment; when a segment is full the journal rolls over to a new file. A zero length prefix marks the
+ * end of a segment, and a record whose checksum does not match (torn by a crash) is treated as the end too,
+ * so reopening a journal resumes appending right after the last intact record.
+ * Durability is governed by JournalSyncPolicy. Thread-safety: appends and replay are serialized; syncs run
+ * outside the append lock so other threads can keep appending while one of them waits for the disk.
+ */
+public class MessageJournal implements AutoCloseable {
+    /**
+     * Segment size used when none is given.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int LENGTH_PREFIX = MessageCodec.LENGTH_PREFIX_BYTES;
+    private static final int CRC_BYTES = 4;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final JournalSyncPolicy syncPolicy;
+    private final BinaryMessageCodec codec;
+    private final CRC32C checksum;
+    private final Object syncLock;
+    private final ScheduledExecutorService syncExecutor;
+
+    // Guarded by this
+    private long segmentIndex;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private long appendedCount;
+    private int unsyncedCount;
+    private boolean closed;
+
+    // Guarded by syncLock
+    private long syncedCount;
+
+    /**
+     * Opens (or creates) a journal in the directory with the default segment size and no explicit syncs.
+     */
+    public MessageJournal(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, JournalSyncPolicy.none());
+    }
+
+    /**
+     * Opens (or creates) a journal in the directory. Existing segments are kept; appends continue after the
+     * last intact record of the newest segment.
+     */
+    public MessageJournal(Path directory, int segmentSize, JournalSyncPolicy syncPolicy) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1024 bytes: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncPolicy = syncPolicy;
+        this.codec = new BinaryMessageCodec();
+        this.checksum = new CRC32C();
+        this.syncLock = new Object();
+
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments();
+            openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal in " + directory, e);
+        }
+        int end = scan(segment.duplicate(), null);
+        segment.position(end);
+        if (end + LENGTH_PREFIX <= segmentSize && segment.getInt(end) != 0) {
+            // Leftovers of a torn write: clear them so they cannot be mistaken for records later
+            for (int i = end; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+
+        if (syncPolicy.getKind() == JournalSyncPolicy.Kind.INTERVAL) {
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "JournalSync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = syncPolicy.getIntervalNanos();
+            syncExecutor.scheduleAtFixedRate(this::sync, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            syncExecutor = null;
+        }
+    }
+
+    /**
+     * Appends one message.
+     *
+     * @throws IllegalArgumentException if the encoded message does not fit into an empty segment
+     */
+    public void append(Message message) {
+        boolean syncNeeded;
+        synchronized (this) {
+            ensureOpen();
+            appendRecord(message);
+            syncNeeded = countAppended(1);
+        }
+        if (syncNeeded) {
+            sync();
+        }
+    }
+
+    /**
+     * Appends several messages under one lock acquisition and with at most one sync.
+     */
+    public void appendAll(List<Message> messages) {
+        boolean syncNeeded;
+        synchronized (this) {
+            ensureOpen();
+            for (int i = 0; i < messages.size(); i++) {
+                appendRecord(messages.get(i));
+            }
+            syncNeeded = countAppended(messages.size());
+        }
+        if (syncNeeded) {
+            sync();
+        }
+    }
+
+    private void appendRecord(Message message) {
+        if (!tryAppendRecord(message)) {
+            rollSegment();
+            if (!tryAppendRecord(message)) {
+                throw new IllegalArgumentException("Message does not fit into a journal segment of "
+                        + segmentSize + " bytes: " + message);
+            }
+        }
+    }
+
+    /**
+     * Writes frame and checksum at the segment position.
+     *
+     * @return false (position unchanged) if the record does not fit into the rest of the segment
+     */
+    private boolean tryAppendRecord(Message message) {
+        int start = segment.position();
+        try {
+            codec.encode(message, segment);
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+        // Keep room for the checksum plus the zero length that marks the end of the segment
+        if (segment.remaining() < CRC_BYTES) {
+            segment.position(start);
+            return false;
+        }
+        int end = segment.position();
+        segment.putInt(checksum(segment, start, end));
+        return true;
+    }
+
+    private int checksum(ByteBuffer buffer, int start, int end) {
+        checksum.reset();
+        ByteBuffer frame = buffer.duplicate();
+        frame.limit(end).position(start);
+        checksum.update(frame);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Counts appended records against the sync policy.
+     *
+     * @return true if the caller should sync now
+     */
+    private boolean countAppended(int count) {
+        appendedCount += count;
+        if (syncPolicy.getKind() != JournalSyncPolicy.Kind.EVERY_MESSAGES) {
+            return false;
+        }
+        unsyncedCount += count;
+        if (unsyncedCount < syncPolicy.getMessages()) {
+            return false;
+        }
+        unsyncedCount = 0;
+        return true;
+    }
+
+    /**
+     * Forces every record appended so far to disk. If another thread's sync already covered them,
+     * returns without touching the disk.
+     */
+    public void sync() {
+        synchronized (syncLock) {
+            MappedByteBuffer current;
+            long target;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                current = segment;
+                target = appendedCount;
+            }
+            if (target <= syncedCount) {
+                return;
+            }
+            // Earlier segments were forced when they were rolled
+            current.force();
+            syncedCount = target;
+        }
+    }
+
+    private void rollSegment() {
+        segment.force();
+        closeSegment();
+        try {
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment in " + directory, e);
+        }
+    }
+
+    private void openSegment(long index) throws IOException {
+        segmentIndex = index;
+        segmentChannel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void closeSegment() {
+        try {
+            segmentChannel.close();
+        } catch (IOException e) {
+            // The mapping stays valid after the channel is closed
+        }
+    }
+
+    /**
+     * Calls the consumer for every intact record, oldest first, on the calling thread.
+     * Typically used right after opening a journal to recover state (see JournalRecovery).
+     */
+    public synchronized void replay(Consumer<Message> consumer) {
+        ensureOpen();
+        try {
+            for (long index : listSegments()) {
+                if (index == segmentIndex) {
+                    ByteBuffer written = segment.duplicate();
+                    written.flip();
+                    scan(written, consumer);
+                } else {
+                    try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+                        scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), consumer);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads records from the buffer's position until the end marker or the first damaged record.
+     *
+     * @param consumer receives each message; may be null to only find the end
+     * @return position right after the last intact record
+     */
+    private int scan(ByteBuffer buffer, Consumer<Message> consumer) {
+        BinaryMessageCodec reader = new BinaryMessageCodec();
+        while (buffer.remaining() >= LENGTH_PREFIX) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt(start);
+            int frameEnd = start + LENGTH_PREFIX + bodyLength;
+            if (bodyLength <= 0 || bodyLength > buffer.limit() - start - LENGTH_PREFIX - CRC_BYTES
+                    || buffer.getInt(frameEnd) != checksum(buffer, start, frameEnd)) {
+                break;
+            }
+            Message message;
+            try {
+                message = reader.decode(buffer);
+            } catch (IllegalArgumentException e) {
+                buffer.position(start);
+                break;
+            }
+            buffer.position(frameEnd + CRC_BYTES);
+            if (consumer != null) {
+                consumer.accept(message);
+            }
+        }
+        return buffer.position();
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> indexes.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /**
+     * Gets the number of messages appended since the journal was opened.
+     */
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /**
+     * Gets the index of the segment currently appended to; segments are numbered from 0.
+     */
+    public synchronized long getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    public JournalSyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the current segment.
+     */
+    @Override
+    public void close() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                segment.force();
+                closed = true;
+                closeSegment();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of reusable Message envelopes for the opt-in pooled mode (see Player.setMessagePool).
+ * <p>
+ * A player acquires an envelope, fills it and sends it; the channel that delivered it recycles it once
+ * the receiver's onMessage returned. Free envelopes are kept on per-thread stacks, so acquire and release
+ * are a few plain array operations. A player answers on the thread that delivered the message it answers,
+ * which is also where that message is recycled, so the stacks stay balanced; envelopes beyond a stack's
+ * capacity are left to the garbage collector.
+ * <p>
+ * With leak detection on (debug mode) every acquired envelope is tracked by a phantom reference together with
+ * the stack trace of its acquisition. An envelope that becomes garbage without being recycled is reported on
+ * System.err the next time the pool is used or checkLeaks() is called. Recycling an envelope twice always fails.
+ */
+public final class MessagePool {
+    /**
+     * Free envelopes kept per thread by default.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final boolean leakDetection;
+    private final ThreadLocal<FreeStack> freeStacks;
+    // Every thread's stack, for the statistics; stacks of finished threads stay until the pool is dropped
+    private final List<FreeStack> allStacks;
+    private final LongAdder allocated;
+    private final LongAdder leaked;
+
+    // Leak detection only
+    private final ReferenceQueue<Message> collected;
+    private final Set<LeakTracker> tracked;
+
+    public MessagePool() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity free envelopes kept per thread
+     * @param leakDetection track every acquired envelope and report the ones never recycled (costly)
+     */
+    public MessagePool(int capacity, boolean leakDetection) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.leakDetection = leakDetection;
+        this.allStacks = new CopyOnWriteArrayList<>();
+        this.freeStacks = ThreadLocal.withInitial(() -> {
+            FreeStack stack = new FreeStack(capacity);
+            allStacks.add(stack);
+            return stack;
+        });
+        this.allocated = new LongAdder();
+        this.leaked = new LongAdder();
+        this.collected = leakDetection ? new ReferenceQueue<>() : null;
+        this.tracked = leakDetection ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    /**
+     * Parses a command line value: "on" (default capacity) or "debug" (with leak detection).
+     */
+    public static MessagePool parse(String value) {
+        if (value.equals("on")) {
+            return new MessagePool();
+        } else if (value.equals("debug")) {
+            return new MessagePool(DEFAULT_CAPACITY, true);
+        }
+        throw new IllegalArgumentException("Unknown message pool mode: " + value);
+    }
+
+    /**
+     * Takes an envelope from the calling thread's free stack, or creates one if it is empty.
+     * Fill it with Message.fill() before sending.
+     */
+    Message acquire() {
+        FreeStack stack = freeStacks.get();
+        Message message;
+        if (stack.size > 0) {
+            message = stack.items[--stack.size];
+            stack.items[stack.size] = null;
+        } else {
+            message = new Message(this);
+            allocated.increment();
+        }
+        message.envelope().inUse = true;
+        stack.acquired++;
+        if (leakDetection) {
+            checkLeaks();
+            LeakTracker tracker = new LeakTracker(message, collected);
+            tracked.add(tracker);
+            message.envelope().leakTracker = tracker;
+        }
+        return message;
+    }
+
+    /**
+     * Returns an envelope to the calling thread's free stack (see Message.recycle()).
+     */
+    void release(Message message) {
+        if (message.getPool() != this) {
+            throw new IllegalArgumentException("Message does not belong to this pool: " + message);
+        }
+        MessageEnvelope envelope = message.envelope();
+        if (!envelope.inUse) {
+            throw new IllegalStateException("Message recycled twice: " + message);
+        }
+        envelope.inUse = false;
+        if (envelope.leakTracker != null) {
+            LeakTracker tracker = (LeakTracker) envelope.leakTracker;
+            envelope.leakTracker = null;
+            tracker.clear();
+            tracked.remove(tracker);
+        }
+        FreeStack stack = freeStacks.get();
+        stack.released++;
+        if (stack.size < stack.items.length) {
+            stack.items[stack.size++] = message;
+        }
+    }
+
+    /**
+     * Reports envelopes that were garbage collected without being recycled. Only finds leaks when leak detection
+     * is on, and only after the garbage collector noticed the lost envelopes.
+     *
+     * @return number of leaks reported by this call
+     */
+    public int checkLeaks() {
+        if (!leakDetection) {
+            return 0;
+        }
+        int found = 0;
+        Reference<? extends Message> reference;
+        while ((reference = collected.poll()) != null) {
+            LeakTracker tracker = (LeakTracker) reference;
+            if (tracked.remove(tracker)) {
+                found++;
+                leaked.increment();
+                System.err.println("LEAK: pooled message was not recycled; acquired at:");
+                tracker.acquiredAt.printStackTrace();
+            }
+        }
+        return found;
+    }
+
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of envelopes created because a free stack was empty.
+     */
+    public long getAllocatedCount() {
+        return allocated.sum();
+    }
+
+    /**
+     * Gets the number of acquired envelopes not recycled yet (in flight, or leaked).
+     * Exact once the threads using the pool were stopped (joined); approximate while they run.
+     */
+    public long getOutstandingCount() {
+        long outstanding = 0;
+        for (FreeStack stack : allStacks) {
+            outstanding += stack.acquired - stack.released;
+        }
+        return outstanding;
+    }
+
+    /**
+     * Gets the number of leaks reported so far.
+     */
+    public long getLeakCount() {
+        return leaked.sum();
+    }
+
+    @Override
+    public String toString() {
+        return leakDetection ? "debug" : "on";
+    }
+
+    private static final class FreeStack {
+        final Message[] items;
+        int size;
+        // Written by the owning thread only; read racily for statistics
+        long acquired;
+        long released;
+
+        FreeStack(int capacity) {
+            this.items = new Message[capacity];
+        }
+    }
+
+    private static final class LeakTracker extends PhantomReference<Message> {
+        final Throwable acquiredAt;
+
+        LeakTracker(Message message, ReferenceQueue<Message> queue) {
+            super(message, queue);
+            this.acquiredAt = new Throwable("Message acquired");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example;
+
+/**
+ * Lane a message takes through a channel with priority lanes (see ChannelConfig.withPriorityLanes).
+ * <ul>
+ * <li>CONTROL - small lane for signals that must not wait behind a backlog: acks, stop and coordination messages</li>
+ * <li>NORMAL - regular game traffic, the default</li>
+ * <li>BULK - bulk data that may be delayed in favor of the other lanes, but is never starved</li>
+ * </ul>
+ * Channels without lanes ignore the priority and deliver in send order.
+ */
+public enum MessagePriority {
+    CONTROL(1),
+    NORMAL(0),
+    BULK(2);
+
+    private static final MessagePriority[] BY_WIRE_CODE = {NORMAL, CONTROL, BULK};
+
+    // Two flag bits in BinaryMessageCodec frames; NORMAL is 0 so frames without a priority decode as NORMAL
+    private final int wireCode;
+
+    MessagePriority(int wireCode) {
+        this.wireCode = wireCode;
+    }
+
+    int getWireCode() {
+        return wireCode;
+    }
+
+    static MessagePriority fromWireCode(int wireCode) {
+        if (wireCode < 0 || wireCode >= BY_WIRE_CODE.length) {
+            throw new IllegalArgumentException("Unknown message priority code: " + wireCode);
+        }
+        return BY_WIRE_CODE[wireCode];
+    }
+}
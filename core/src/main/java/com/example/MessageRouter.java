@@ -0,0 +1,385 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes messages between players in the same process.
+ * This class is used only in single-process mode to enable communication between players without direct references.
+ * Players are looked up by their interned PlayerIds handle in a HandleMap, which is sized by the players registered
+ * here rather than by every id the process has interned.
+ * <p>
+ * A message can also be addressed to a topic: it is then delivered to every subscribed player (see subscribe and
+ * Topic). Topic names are interned into the same PlayerIds handle space as player ids, so a name is either a player
+ * or a topic, and players publish with a regular send to the topic name.
+ * <p>
+ * By default the routing thread (usually a channel's consume loop) runs the target's onMessage itself. With a
+ * Dispatcher set, routing only queues the message in the target's mailbox and returns.
+ */
+public class MessageRouter {
+    /**
+     * Subscribers per parallel fan-out partition, unless set otherwise.
+     */
+    public static final int DEFAULT_FANOUT_PARTITION = 1024;
+
+    // By PlayerIds handle; written under the router's lock
+    private final HandleMap<Player> players;
+    private final HandleMap<Topic> topics;
+    private volatile ForkJoinPool fanoutPool;
+    private volatile int fanoutPartition;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder rejected;
+    private volatile MessageJournal journal;
+    private volatile Dispatcher dispatcher;
+    private volatile PlayerCache playerCache;
+    private volatile AdmissionControl admissionControl;
+
+    public MessageRouter() {
+        this.players = new HandleMap<>();
+        this.topics = new HandleMap<>();
+        this.fanoutPartition = DEFAULT_FANOUT_PARTITION;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Creates new router that reports route hits and misses (target not registered) to the registry
+     * as router.hits and router.misses, and messages refused by admission control as router.rejected.
+     * Routers sharing a registry share these counters.
+     */
+    public MessageRouter(MetricsRegistry metrics) {
+        this.players = new HandleMap<>();
+        this.topics = new HandleMap<>();
+        this.fanoutPartition = DEFAULT_FANOUT_PARTITION;
+        this.hits = metrics.counter("router.hits");
+        this.misses = metrics.counter("router.misses");
+        this.rejected = metrics.counter("router.rejected");
+    }
+
+    /**
+     * Registers a player with this router, interning its id.
+     */
+    public synchronized void register(String playerId, Player player) {
+        int handle = PlayerIds.intern(playerId);
+        if (topics.get(handle) != null) {
+            throw new IllegalArgumentException("Already a topic: " + playerId);
+        }
+        players.put(handle, player);
+    }
+
+    /**
+     * Subscribes a registered player to a topic, creating the topic on first use.
+     *
+     * @return false if the player already subscribed
+     */
+    public synchronized boolean subscribe(String topicName, String playerId) {
+        Player player = players.get(PlayerIds.handleOf(playerId));
+        if (player == null) {
+            throw new IllegalArgumentException("Player is not registered: " + playerId);
+        }
+        int handle = PlayerIds.intern(topicName);
+        if (players.get(handle) != null) {
+            throw new IllegalArgumentException("Already a player: " + topicName);
+        }
+        Topic topic = topics.get(handle);
+        if (topic == null) {
+            topic = new Topic(topicName);
+            topics.put(handle, topic);
+        }
+        return topic.add(player);
+    }
+
+    /**
+     * Unsubscribes a player from a topic.
+     *
+     * @return false if the player was not subscribed
+     */
+    public synchronized boolean unsubscribe(String topicName, String playerId) {
+        Topic topic = topics.get(PlayerIds.handleOf(topicName));
+        Player player = players.get(PlayerIds.handleOf(playerId));
+        return topic != null && player != null && topic.remove(player);
+    }
+
+    /**
+     * Gets the number of players subscribed to the topic (0 for an unknown topic).
+     */
+    public int getSubscriberCount(String topicName) {
+        Topic topic = topics.get(PlayerIds.handleOf(topicName));
+        return topic != null ? topic.getSubscriberCount() : 0;
+    }
+
+    /**
+     * Delivers fan-outs to more than partitionSize subscribers in parallel on the pool, in partitions of at most
+     * partitionSize subscribers; route() still returns after the last delivery. A null pool (the default) delivers
+     * every fan-out on the routing thread. The caller owns the pool.
+     */
+    public void setFanoutPool(ForkJoinPool pool, int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be positive: " + partitionSize);
+        }
+        this.fanoutPartition = partitionSize;
+        this.fanoutPool = pool;
+    }
+
+    private Player lookup(int handle) {
+        return players.get(handle);
+    }
+
+    /**
+     * Fans the message (or batch) out to the topic under the handle.
+     *
+     * @return false if there is no such topic
+     */
+    private boolean publish(int handle, Message message, List<Message> batch) {
+        Topic topic = topics.get(handle);
+        if (topic == null) {
+            return false;
+        }
+        int delivered = topic.deliver(message, batch, fanoutPool, fanoutPartition, dispatcher);
+        hits.add((long) delivered * (batch != null ? batch.size() : 1));
+        return true;
+    }
+
+    /**
+     * Sets the dispatcher that delivers routed messages from per-player mailboxes on its pool; null (the default)
+     * delivers on the routing thread. Pooled messages are copied into the mailbox, since the channel recycles
+     * them once route() returns, and channel credits come back when a message is queued rather than handled.
+     * The caller owns the dispatcher.
+     */
+    public void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Hands the messages to the target, directly or through its mailbox.
+     */
+    private void deliver(Player target, List<Message> messages) {
+        Dispatcher dispatcher = this.dispatcher;
+        if (dispatcher == null) {
+            target.onMessages(messages);
+            return;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            dispatcher.dispatch(target, messages.get(i).detach());
+        }
+    }
+
+    /**
+     * Sets the check every message must pass before it is routed, e.g. a RateLimiter capping the router's total
+     * rate; refused messages are dropped and counted as rejected. Null (the default) admits everything.
+     */
+    public void setAdmissionControl(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Sets the cache that activates players on demand: a message for an id with no registered player (and no
+     * topic) activates it through the cache instead of counting as a miss, and every delivery tells the cache the
+     * target was used. Null (the default) routes to registered players only. See PlayerCache.
+     */
+    public void setPlayerCache(PlayerCache playerCache) {
+        this.playerCache = playerCache;
+    }
+
+    /**
+     * Gets the target player of a route: the registered one, or one the player cache activates, or null.
+     */
+    private Player target(int handle, String playerId) {
+        Player target = lookup(handle);
+        PlayerCache cache = playerCache;
+        if (cache == null) {
+            return target;
+        }
+        if (target != null) {
+            cache.touch(target);
+            return target;
+        }
+        if (topics.get(handle) != null) {
+            return null;
+        }
+        return cache.activate(playerId);
+    }
+
+    /**
+     * Sets the journal that records every routed message before it is delivered; null stops journaling.
+     */
+    public void setJournal(MessageJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Routes a message to the target player, or to every subscriber of the target topic.
+     */
+    public void route(Message message) {
+        if (message.getToPlayerId() == null) {
+            return;
+        }
+        AdmissionControl admission = admissionControl;
+        if (admission != null && !admission.admit(message)) {
+            rejected.increment();
+            return;
+        }
+        MessageJournal journal = this.journal;
+        if (journal != null) {
+            journal.append(message);
+        }
+
+        int handle = message.getToHandle();
+        Player target = target(handle, message.getToPlayerId());
+        if (target != null) {
+            hits.increment();
+            Dispatcher dispatcher = this.dispatcher;
+            if (dispatcher != null) {
+                dispatcher.dispatch(target, message.detach());
+            } else {
+                target.onMessage(message);
+            }
+        } else if (!publish(handle, message, null)) {
+            misses.increment();
+        }
+    }
+
+    /**
+     * Routes a batch of messages, grouped by target player so each player gets one onMessages call.
+     * Messages to the same player keep their relative order.
+     */
+    public void routeBatch(List<Message> messages) {
+        AdmissionControl admission = admissionControl;
+        if (admission != null) {
+            messages = admitted(admission, messages);
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        MessageJournal journal = this.journal;
+        if (journal != null) {
+            journal.appendAll(messages);
+        }
+
+        // Common case: a channel's batch is addressed to a single player
+        int firstTarget = messages.get(0).getToHandle();
+        boolean singleTarget = messages.get(0).getToPlayerId() != null && firstTarget != PlayerIds.NO_HANDLE;
+        for (int i = 1; singleTarget && i < messages.size(); i++) {
+            singleTarget = firstTarget == messages.get(i).getToHandle();
+        }
+        if (singleTarget) {
+            Player target = target(firstTarget, messages.get(0).getToPlayerId());
+            if (target != null) {
+                hits.add(messages.size());
+                deliver(target, messages);
+            } else if (!publish(firstTarget, null, messages)) {
+                misses.add(messages.size());
+            }
+            return;
+        }
+
+        Map<Integer, List<Message>> byTarget = new LinkedHashMap<>();
+        for (Message message : messages) {
+            if (message.getToPlayerId() != null) {
+                byTarget.computeIfAbsent(message.getToHandle(), handle -> new ArrayList<>()).add(message);
+            }
+        }
+        for (Map.Entry<Integer, List<Message>> group : byTarget.entrySet()) {
+            if (group.getKey() == PlayerIds.NO_HANDLE) {
+                // Ids never interned differ from each other; only the player cache can know them
+                routeUninterned(group.getValue());
+                continue;
+            }
+            Player target = target(group.getKey(), group.getValue().get(0).getToPlayerId());
+            if (target != null) {
+                hits.add(group.getValue().size());
+                deliver(target, group.getValue());
+            } else if (!publish(group.getKey(), null, group.getValue())) {
+                misses.add(group.getValue().size());
+            }
+        }
+    }
+
+    /**
+     * Gets the messages of the batch the admission control lets through, in order.
+     */
+    private List<Message> admitted(AdmissionControl admission, List<Message> messages) {
+        List<Message> admitted = null;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getToPlayerId() == null || admission.admit(message)) {
+                if (admitted != null) {
+                    admitted.add(message);
+                }
+            } else {
+                rejected.increment();
+                if (admitted == null) {
+                    // First refusal: copy what was admitted so far
+                    admitted = new ArrayList<>(messages.subList(0, i));
+                }
+            }
+        }
+        return admitted != null ? admitted : messages;
+    }
+
+    private void routeUninterned(List<Message> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            Player target = target(PlayerIds.NO_HANDLE, message.getToPlayerId());
+            if (target != null) {
+                hits.increment();
+                deliver(target, Collections.singletonList(message));
+            } else {
+                misses.increment();
+            }
+        }
+    }
+
+    /**
+     * Hands send credits back to the channel of the given (sending) player, after its messages were handled.
+     *
+     * @return false if the player is not registered here
+     */
+    public boolean grantCredits(String playerId, int credits) {
+        Player sender = lookup(PlayerIds.handleOf(playerId));
+        if (sender == null) {
+            return false;
+        }
+        sender.getMessageChannel().grantCredits(credits);
+        return true;
+    }
+
+    /**
+     * Gets the number of messages delivered to a registered player; a topic message counts once per subscriber.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of messages dropped because their target was not registered.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of messages dropped because admission control refused them.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Unregisters a player and removes it from every topic it subscribed to.
+     */
+    public synchronized void unregister(String playerId) {
+        Player player = players.remove(PlayerIds.handleOf(playerId));
+        if (player == null) {
+            return;
+        }
+        topics.forEach(topic -> topic.remove(player));
+    }
+}
\ No newline at end of file
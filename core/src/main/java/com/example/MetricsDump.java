@@ -0,0 +1,45 @@
+package com.example;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Prints registry snapshots, one metric per line. Remembers the previous snapshot so repeated prints
+ * can show the per-second rate of cumulative metrics.
+ */
+class MetricsDump {
+    private final MetricsRegistry registry;
+    private final PrintStream out;
+    private Map<String, Long> previous;
+    private long previousNanos;
+
+    MetricsDump(MetricsRegistry registry, PrintStream out) {
+        this.registry = registry;
+        this.out = out;
+    }
+
+    void print() {
+        long now = System.nanoTime();
+        SortedMap<String, Long> snapshot = registry.snapshot();
+        double seconds = previous == null ? 0 : (now - previousNanos) / 1e9;
+
+        StringBuilder sb = new StringBuilder(64 * (snapshot.size() + 1));
+        sb.append("--- metrics ---").append(System.lineSeparator());
+        for (Map.Entry<String, Long> metric : snapshot.entrySet()) {
+            sb.append(metric.getKey()).append(' ').append(metric.getValue());
+            Long before = previous == null ? null : previous.get(metric.getKey());
+            if (before != null && seconds > 0 && registry.isCumulative(metric.getKey())) {
+                sb.append(String.format(" (%.1f/s)", (metric.getValue() - before) / seconds));
+            }
+            sb.append(System.lineSeparator());
+        }
+        // One print call so the dump is not interleaved with other stdout users
+        out.print(sb);
+        out.flush();
+
+        previous = new HashMap<>(snapshot);
+        previousNanos = now;
+    }
+}
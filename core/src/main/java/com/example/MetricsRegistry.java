@@ -0,0 +1,173 @@
+package com.example;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Named metrics of a game: striped counters, gauges, meters (counts owned by another object) and latency
+ * histograms. Metrics are created once and then updated without locking or allocation; reading happens
+ * through snapshot(), the JMX MBean (registerMBean()) or a periodic dump (startDump()).
+ * <p>
+ * Snapshots flatten every metric to long values: a histogram named "x" appears as x.count, x.p50, x.p99,
+ * x.p999 and x.max. Counters and meters are cumulative; the periodic dump also reports their rate per second.
+ */
+public class MetricsRegistry implements AutoCloseable {
+    private final Map<String, LongAdder> counters;
+    private final Map<String, LongSupplier> gauges;
+    private final Map<String, LongSupplier> meters;
+    private final Map<String, LatencyHistogram> histograms;
+    private final List<ObjectName> registeredBeans;
+    private ScheduledExecutorService dumpExecutor;
+
+    /**
+     * Creates empty registry.
+     */
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+        this.meters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+        this.registeredBeans = new ArrayList<>();
+    }
+
+    /**
+     * Gets or creates the counter with the given name.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Gets or creates the histogram with the given name.
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a gauge: an instantaneous value such as a queue depth. Replaces a gauge with the same name.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Registers a meter: a cumulative count maintained elsewhere, such as a player's sent count.
+     * The periodic dump reports it with its rate. Replaces a meter with the same name.
+     */
+    public void meter(String name, LongSupplier count) {
+        meters.put(name, count);
+    }
+
+    /**
+     * Reads every metric, flattened to long values and sorted by name.
+     */
+    public SortedMap<String, Long> snapshot() {
+        SortedMap<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            snapshot.put(counter.getKey(), counter.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> meter : meters.entrySet()) {
+            snapshot.put(meter.getKey(), meter.getValue().getAsLong());
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            snapshot.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        for (Map.Entry<String, LatencyHistogram> histogram : histograms.entrySet()) {
+            String name = histogram.getKey();
+            LatencyHistogram h = histogram.getValue();
+            snapshot.put(name + ".count", h.getCount());
+            snapshot.put(name + ".p50", h.getValueAtPercentile(50));
+            snapshot.put(name + ".p99", h.getValueAtPercentile(99));
+            snapshot.put(name + ".p999", h.getValueAtPercentile(99.9));
+            snapshot.put(name + ".max", h.getMax());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads a single flattened metric, or returns null if it does not exist.
+     */
+    Long read(String name) {
+        return snapshot().get(name);
+    }
+
+    /**
+     * Checks if the metric is cumulative, i.e. a counter or meter.
+     */
+    boolean isCumulative(String name) {
+        return counters.containsKey(name) || meters.containsKey(name);
+    }
+
+    /**
+     * Registers the registry with the platform MBean server as com.example:type=Metrics,name=&lt;name&gt;.
+     * Every flattened metric becomes a read-only long attribute.
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = ObjectName.getInstance("com.example:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), objectName);
+            registeredBeans.add(objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register metrics MBean " + name, e);
+        }
+    }
+
+    /**
+     * Prints a snapshot to out every period on a daemon thread, with per-second rates for cumulative metrics.
+     */
+    public synchronized void startDump(long period, TimeUnit unit, PrintStream out) {
+        if (dumpExecutor != null) {
+            throw new IllegalStateException("Dump is already running");
+        }
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MetricsDump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsDump dump = new MetricsDump(this, out);
+        dumpExecutor.scheduleAtFixedRate(dump::print, period, period, unit);
+    }
+
+    /**
+     * Prints one snapshot to out, without rates.
+     */
+    public void dump(PrintStream out) {
+        new MetricsDump(this, out).print();
+    }
+
+    /**
+     * Stops the periodic dump and unregisters the MBeans.
+     */
+    @Override
+    public synchronized void close() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredBeans) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // Already gone
+            }
+        }
+        registeredBeans.clear();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example;
+
+/**
+ * Discards every event. With this sink the JIT can inline the calls away entirely.
+ */
+final class NoOpEventSink implements EventSink {
+    static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    private NoOpEventSink() {
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload) {
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+    }
+
+    @Override
+    public void messageSent(String playerId, long sequence, String toPlayerId, long payload) {
+    }
+
+    @Override
+    public void messageReceived(String playerId, String fromPlayerId, long payload) {
+    }
+
+    @Override
+    public void progress(String playerId, long sent, long received) {
+    }
+
+    @Override
+    public void info(String playerId, String text) {
+    }
+
+    @Override
+    public String toString() {
+        return "off";
+    }
+}
@@ -0,0 +1,16 @@
+package com.example;
+
+/**
+ * Carries messages from a PartitionedRouter to the router of another node, which hands them to
+ * PartitionedRouter.receive. LoopbackTransport connects routers in one JVM; a network transport would do the same
+ * over sockets.
+ */
+public interface NodeTransport {
+    /**
+     * Forwards a message to the given node. The message is only valid during the call (it may be a pooled envelope
+     * the sending channel recycles afterwards), so a transport that delivers later must encode or copy it first.
+     *
+     * @throws IllegalStateException if the node cannot be reached
+     */
+    void forward(String nodeId, Message message);
+}
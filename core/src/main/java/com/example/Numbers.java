@@ -0,0 +1,65 @@
+package com.example;
+
+/**
+ * Exception-free decimal parsing for payloads. Integer.parseInt throws (and fills in a stack trace) for every
+ * non-numeric payload; these helpers report bad input through a fallback value instead.
+ */
+final class Numbers {
+    private Numbers() {
+    }
+
+    /**
+     * Parses an optionally signed decimal long.
+     *
+     * @return the value, or fallback if chars is null, empty, not a decimal number or out of the long range
+     */
+    static long parseLong(CharSequence chars, long fallback) {
+        if (chars == null) {
+            return fallback;
+        }
+        int length = chars.length();
+        if (length == 0) {
+            return fallback;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = chars.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) {
+                return fallback;
+            }
+            negative = first == '-';
+            i = 1;
+        }
+        // Accumulate negatively so that Long.MIN_VALUE can be represented
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = chars.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                return fallback;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return fallback;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Gets the length of Long.toString(value) without building the String.
+     */
+    static int decimalLength(long value) {
+        int length = value < 0 ? 2 : 1;
+        // Count on the negative side so that Long.MIN_VALUE does not overflow
+        long rest = value < 0 ? value : -value;
+        while (rest <= -10) {
+            rest /= 10;
+            length++;
+        }
+        return length;
+    }
+}
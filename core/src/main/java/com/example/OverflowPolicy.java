@@ -0,0 +1,31 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * What a bounded InMemoryMessageChannel does with a send when its queue is full.
+ * <ul>
+ * <li>BLOCK - the sender waits for space (the original behaviour, with an unbounded queue)</li>
+ * <li>FAIL_FAST - send throws ChannelFullException</li>
+ * <li>DROP_OLDEST - the oldest queued message is discarded to make room</li>
+ * <li>DROP_NEWEST - the message being sent is discarded</li>
+ * <li>CREDIT - the sender holds one credit per queued message and waits for credits, which the receiving
+ * side grants back through MessageRouter.grantCredits once a message has been handled</li>
+ * </ul>
+ * BLOCK and CREDIT make the sender wait; with a multiplexed execution model a sender running on the same
+ * workers as the consumer can therefore stall that worker until another one drains the queue.
+ */
+public enum OverflowPolicy {
+    BLOCK,
+    FAIL_FAST,
+    DROP_OLDEST,
+    DROP_NEWEST,
+    CREDIT;
+
+    /**
+     * Parses a command line value such as "block", "fail-fast" or "drop-oldest".
+     */
+    public static OverflowPolicy parse(String value) {
+        return valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
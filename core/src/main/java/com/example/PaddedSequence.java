@@ -0,0 +1,61 @@
+package com.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Left padding so the sequence value does not share a cache line with preceding fields.
+ */
+abstract class PaddedSequenceLeftPad {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * Holds the actual sequence value.
+ */
+abstract class PaddedSequenceValue extends PaddedSequenceLeftPad {
+    protected volatile long value;
+}
+
+/**
+ * A cache-line padded counter used for ring buffer head/tail indices.
+ * Padding on both sides prevents false sharing between producer and consumer indices.
+ */
+final class PaddedSequence extends PaddedSequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(PaddedSequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    PaddedSequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Reads the value with acquire semantics.
+     */
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Writes the value with release semantics (ordered store, no full fence).
+     */
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /**
+     * Reads the value with full volatile semantics.
+     */
+    long get() {
+        return value;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MessageRouter for one node of a cluster of routers. A ConsistentHashRing shared by (or equal on) all nodes decides
+ * which node each player id lives on: messages for players of this node are delivered locally as by MessageRouter,
+ * all others are forwarded through the NodeTransport to their node, which delivers them with receive().
+ * Channels and players work unchanged on top of it.
+ * <p>
+ * Owners are cached per PlayerIds handle, so the hot path is a HandleMap lookup plus a ring version check; the cache
+ * is dropped whenever the ring changes. After a node joins or leaves, misplacedPlayers() lists the local players the
+ * ring now places elsewhere; the caller moves them (unregister here, register on their new node), and consistent
+ * hashing keeps that to about 1/N of the players.
+ * <p>
+ * Topics are placed on the ring by name like players, so subscribers must live on the topic's node.
+ */
+public class PartitionedRouter extends MessageRouter {
+    private final String nodeId;
+    private final ConsistentHashRing ring;
+    private final NodeTransport transport;
+    private final Set<String> localPlayers;
+    private final LongAdder forwarded;
+    private final LongAdder received;
+    private volatile OwnerCache owners;
+
+    /**
+     * Creates the router of the given node. The node is expected to be on the ring; this router does not add it.
+     */
+    public PartitionedRouter(String nodeId, ConsistentHashRing ring, NodeTransport transport) {
+        if (nodeId == null || ring == null || transport == null) {
+            throw new IllegalArgumentException("Node id, ring and transport are required");
+        }
+        this.nodeId = nodeId;
+        this.ring = ring;
+        this.transport = transport;
+        this.localPlayers = ConcurrentHashMap.newKeySet();
+        this.forwarded = new LongAdder();
+        this.received = new LongAdder();
+        this.owners = new OwnerCache(ring.getVersion());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Registers a player that the ring places on this node.
+     *
+     * @throws IllegalArgumentException if the player belongs to another node
+     */
+    @Override
+    public synchronized void register(String playerId, Player player) {
+        String owner = ring.nodeFor(playerId);
+        if (!owner.equals(nodeId)) {
+            throw new IllegalArgumentException("Player " + playerId + " belongs to node " + owner + ", not " + nodeId);
+        }
+        super.register(playerId, player);
+        localPlayers.add(playerId);
+    }
+
+    @Override
+    public synchronized void unregister(String playerId) {
+        super.unregister(playerId);
+        localPlayers.remove(playerId);
+    }
+
+    /**
+     * Checks if the ring places the player (or topic) on this node.
+     */
+    public boolean isLocal(String playerId) {
+        return nodeId.equals(ring.nodeFor(playerId));
+    }
+
+    /**
+     * Gets the players registered here that the ring now places on another node, e.g. after a node joined.
+     */
+    public List<String> misplacedPlayers() {
+        List<String> misplaced = new ArrayList<>();
+        for (String playerId : localPlayers) {
+            if (!isLocal(playerId)) {
+                misplaced.add(playerId);
+            }
+        }
+        return misplaced;
+    }
+
+    /**
+     * Delivers the message locally if its target lives on this node, otherwise forwards it to the target's node.
+     */
+    @Override
+    public void route(Message message) {
+        if (message.getToPlayerId() == null) {
+            return;
+        }
+        String owner = ownerOf(message);
+        if (owner.equals(nodeId)) {
+            super.route(message);
+        } else {
+            forwarded.increment();
+            transport.forward(owner, message);
+        }
+    }
+
+    /**
+     * Delivers the local part of the batch as one batch and forwards the rest message by message, in order.
+     */
+    @Override
+    public void routeBatch(List<Message> messages) {
+        List<Message> local = null;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getToPlayerId() == null) {
+                continue;
+            }
+            String owner = ownerOf(message);
+            if (owner.equals(nodeId)) {
+                if (local == null) {
+                    // Common case: the whole batch is local and is passed on as it is
+                    if (allLocal(messages, i + 1)) {
+                        super.routeBatch(i == 0 ? messages : messages.subList(i, messages.size()));
+                        return;
+                    }
+                    local = new ArrayList<>();
+                }
+                local.add(message);
+            } else {
+                forwarded.increment();
+                transport.forward(owner, message);
+            }
+        }
+        if (local != null) {
+            super.routeBatch(local);
+        }
+    }
+
+    private boolean allLocal(List<Message> messages, int from) {
+        for (int i = from; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getToPlayerId() != null && !ownerOf(message).equals(nodeId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Delivers a message another node forwarded here. It is never forwarded again, even if the ring moved its
+     * target meanwhile, so a message cannot bounce between nodes; a target no longer here counts as a miss.
+     */
+    public void receive(Message message) {
+        received.increment();
+        super.route(message);
+    }
+
+    /**
+     * Gets the number of messages this router forwarded to other nodes.
+     */
+    public long getForwardedCount() {
+        return forwarded.sum();
+    }
+
+    /**
+     * Gets the number of messages other nodes forwarded to this router.
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    private String ownerOf(Message message) {
+        int handle = message.getToHandle();
+        if (handle == PlayerIds.NO_HANDLE) {
+            return ring.nodeFor(message.getToPlayerId());
+        }
+        OwnerCache cache = owners;
+        long version = ring.getVersion();
+        if (cache.version != version) {
+            cache = new OwnerCache(version);
+            owners = cache;
+        }
+        String owner = cache.byHandle.get(handle);
+        if (owner == null) {
+            // Two threads resolving the same handle store the same owner
+            owner = ring.nodeFor(message.getToPlayerId());
+            cache.byHandle.put(handle, owner);
+        }
+        return owner;
+    }
+
+    /**
+     * Owner node per PlayerIds handle routed through this node, valid for one ring version.
+     */
+    private static final class OwnerCache {
+        final long version;
+        final HandleMap<String> byHandle;
+
+        OwnerCache(long version) {
+            this.version = version;
+            this.byHandle = new HandleMap<>();
+        }
+    }
+}
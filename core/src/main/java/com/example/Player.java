@@ -0,0 +1,753 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Represents a player in messaging system that can send and receive messages.
+ */
+public class Player {
+    /**
+     * Messages the initiator sends and receives before its stop condition is met, unless set otherwise.
+     */
+    public static final long DEFAULT_MESSAGE_LIMIT = 10;
+
+    /**
+     * Requests a player can have waiting for their reply, unless set otherwise.
+     */
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 1024;
+
+    private final String playerId;
+    private final int handle;
+    private final PlayerRole role;
+    private final MessageChannel messageChannel;
+    private final AtomicLong sentCount;
+    // Last sequence number sent to each target, so each receiver's window sees contiguous numbers; counters
+    // created after restore() start from sequenceBase, the restored sent count when the targets are unknown
+    private final ConcurrentHashMap<String, AtomicLong> sequences;
+    private volatile long sequenceBase;
+    // Set by restore(): senders continue where they left off, so new receive windows adopt their first number
+    private volatile boolean restored;
+    private final LongAdder receivedCount;
+
+    // Only used by INITIATOR to track stop condition
+    private final AtomicLong messagesSent;
+    private final AtomicLong responsesReceived;
+    private volatile long messageLimit;
+    private final Runnable onStopConditionMet;
+    private final EventSink events;
+    private volatile MessagePool messagePool;
+    private volatile RateLimiter rateLimiter;
+
+    // Requests waiting for their reply, by correlation id (see request())
+    private final ConcurrentHashMap<Long, PendingRequest> pendingRequests;
+    private final AtomicInteger pendingCount;
+    private final AtomicLong lastCorrelationId;
+    private volatile int maxPendingRequests;
+    private volatile HashedWheelTimer requestTimer;
+    private volatile long requestTimeoutNanos;
+
+    // Receive windows (see setReceiveWindow), per sender for messages to this player and per topic and sender for
+    // broadcasts, as a sender numbers its messages to each target separately; size 0 handles messages as they arrive
+    private volatile int receiveWindowSize;
+    private final ConcurrentHashMap<String, ReceiveWindow> receiveWindows;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ReceiveWindow>> topicWindows;
+    private final Consumer<Message> inOrderHandler;
+
+    // Mailbox of the Dispatcher that last delivered to this player, if any
+    private volatile Mailbox mailbox;
+    // Last delivery seen by a PlayerCache, in the cache's clock; written racily by routing threads
+    private long lastAccess;
+
+    // Flag to prevent sending messages after shutdown
+    private volatile boolean stopped;
+
+    /**
+     * Creates new Player instance that prints its events to the console.
+     */
+    public Player(String playerId, PlayerRole role, MessageChannel messageChannel, Runnable onStopConditionMet) {
+        this(playerId, role, messageChannel, onStopConditionMet, EventSink.console());
+    }
+
+    /**
+     * Creates new Player instance that reports its events to the given sink.
+     */
+    public Player(String playerId, PlayerRole role, MessageChannel messageChannel, Runnable onStopConditionMet,
+            EventSink events) {
+        this.playerId = playerId;
+        this.handle = PlayerIds.intern(playerId);
+        this.role = role;
+        this.messageChannel = messageChannel;
+        this.sentCount = new AtomicLong(0);
+        this.sequences = new ConcurrentHashMap<>();
+        this.receivedCount = new LongAdder();
+        this.messagesSent = new AtomicLong(0);
+        this.responsesReceived = new AtomicLong(0);
+        this.messageLimit = DEFAULT_MESSAGE_LIMIT;
+        this.onStopConditionMet = onStopConditionMet;
+        this.events = events;
+        this.pendingRequests = new ConcurrentHashMap<>();
+        this.pendingCount = new AtomicInteger();
+        this.lastCorrelationId = new AtomicLong();
+        this.maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+        this.receiveWindows = new ConcurrentHashMap<>();
+        this.topicWindows = new ConcurrentHashMap<>();
+        this.inOrderHandler = this::handleMessage;
+    }
+
+    /**
+     * Gets unique identifier of this player.
+     */
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Gets the PlayerIds handle of this player's id.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    Mailbox getMailbox() {
+        return mailbox;
+    }
+
+    void setMailbox(Mailbox mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void setLastAccess(long lastAccess) {
+        this.lastAccess = lastAccess;
+    }
+
+    /**
+     * Gets role of this player.
+     */
+    public PlayerRole getRole() {
+        return role;
+    }
+
+    /**
+     * Gets the channel this player sends through.
+     */
+    public MessageChannel getMessageChannel() {
+        return messageChannel;
+    }
+
+    /**
+     * Gets current count of messages sent by this player.
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Gets the number of messages this player has received.
+     */
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    /**
+     * Reports this player's sent and received counts to the registry as player.&lt;id&gt;.sent/received.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.meter("player." + playerId + ".sent", sentCount::get);
+        metrics.meter("player." + playerId + ".received", receivedCount::sum);
+        if (receiveWindowSize > 0) {
+            metrics.meter("player." + playerId + ".duplicates", this::getDuplicateCount);
+            metrics.meter("player." + playerId + ".reordered", this::getReorderedCount);
+            metrics.meter("player." + playerId + ".gaps", this::getGapCount);
+        }
+    }
+
+    /**
+     * Puts incoming messages through a ReceiveWindow per sender (and per topic, for broadcasts) before handling
+     * them, so duplicates are dropped
+     * and messages arriving out of order are handled in sequence order, as long as they are less than size
+     * sequence numbers ahead of a missing one (see ReceiveWindow). Size 0 (the default) handles messages as they
+     * arrive. Set it before the player receives messages; subclasses overriding onMessage bypass the windows.
+     */
+    public void setReceiveWindow(int size) {
+        if (size < 0 || size > ReceiveWindow.MAX_SIZE) {
+            throw new IllegalArgumentException("Window size must be between 0 and " + ReceiveWindow.MAX_SIZE + ": "
+                    + size);
+        }
+        this.receiveWindowSize = size;
+    }
+
+    /**
+     * Gets the number of duplicate messages the receive windows dropped.
+     */
+    public long getDuplicateCount() {
+        return sumWindows(ReceiveWindow::getDuplicateCount);
+    }
+
+    /**
+     * Gets the number of messages the receive windows held back until an earlier one arrived.
+     */
+    public long getReorderedCount() {
+        return sumWindows(ReceiveWindow::getReorderedCount);
+    }
+
+    /**
+     * Gets the number of messages the receive windows gave up waiting for.
+     */
+    public long getGapCount() {
+        return sumWindows(ReceiveWindow::getGapCount);
+    }
+
+    private long sumWindows(ToLongFunction<ReceiveWindow> counter) {
+        long total = sumWindows(receiveWindows, counter);
+        for (Map<String, ReceiveWindow> windows : topicWindows.values()) {
+            total += sumWindows(windows, counter);
+        }
+        return total;
+    }
+
+    private static long sumWindows(Map<String, ReceiveWindow> windows, ToLongFunction<ReceiveWindow> counter) {
+        long total = 0;
+        for (ReceiveWindow window : windows.values()) {
+            synchronized (window) {
+                total += counter.applyAsLong(window);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Restores the counters without the sequence numbers per target, as PlayerStateStore keeps them, before the
+     * player is started. The next message to any target gets sequence number sent + 1: past every number sent to
+     * it before, so a windowed peer skips a gap rather than dropping duplicates. See restore(long, long, Map).
+     */
+    public void restore(long sent, long received) {
+        restore(sent, received, sent, Collections.emptyMap());
+    }
+
+    /**
+     * Restores the counters and the last sequence number sent to each target from a recovered journal (see
+     * JournalRecovery.getLastSequences), before the player is started. Messages to each journaled target continue
+     * from its number, and to any other target start at 1. Either way the receive windows start over and adopt the
+     * first sequence number each sender sends (see ReceiveWindow).
+     */
+    public void restore(long sent, long received, Map<String, Long> lastSequences) {
+        restore(sent, received, 0, lastSequences);
+    }
+
+    private void restore(long sent, long received, long base, Map<String, Long> lastSequences) {
+        sentCount.set(sent);
+        sequences.clear();
+        sequenceBase = base;
+        for (Map.Entry<String, Long> entry : lastSequences.entrySet()) {
+            String target = entry.getKey();
+            sequences.put(target != null ? target : "", new AtomicLong(entry.getValue()));
+        }
+        receiveWindows.clear();
+        topicWindows.clear();
+        restored = true;
+        receivedCount.reset();
+        receivedCount.add(received);
+        if (role == PlayerRole.INITIATOR) {
+            messagesSent.set(sent);
+            responsesReceived.set(received);
+        }
+    }
+
+    /**
+     * Sets how many messages the initiator sends and receives before its stop condition is met (default 10).
+     * Counters and payloads are 64-bit, so long runs can go past the int range.
+     */
+    public void setMessageLimit(long messageLimit) {
+        if (messageLimit < 1) {
+            throw new IllegalArgumentException("Message limit must be positive: " + messageLimit);
+        }
+        this.messageLimit = messageLimit;
+    }
+
+    /**
+     * Switches replies to pooled envelopes from the given pool, or back to new immutable messages for null.
+     * Pooled envelopes are only valid until the receiver's onMessage returns; see MessagePool. Replies to players
+     * without a local PlayerIds handle (e.g. in another process) still use regular messages.
+     */
+    public void setMessagePool(MessagePool messagePool) {
+        this.messagePool = messagePool;
+    }
+
+    /**
+     * Limits what this player sends, replies included, to the limiter's rate; null (the default) sends without
+     * limit. Over the limit, sends throw RateLimitedException, wait or are dropped according to its policy, and a
+     * request that cannot go out fails. A reply is never thrown into the delivering channel: with REJECT it is
+     * dropped and reported, like one that is shed. The same limiter can be shared to cap a group of players together.
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Takes a send token from the rate limiter, if any.
+     *
+     * @return false if the message is shed
+     */
+    private boolean admitSend() {
+        RateLimiter limiter = rateLimiter;
+        return limiter == null || limiter.acquire();
+    }
+
+    /**
+     * Expires requests whose reply did not arrive within the timeout, using the given timer (shared between
+     * players; the caller owns it). Without a timer, which is the default, requests wait until the player stops.
+     */
+    public void setRequestTimeout(HashedWheelTimer timer, long timeout, TimeUnit unit) {
+        this.requestTimeoutNanos = unit.toNanos(timeout);
+        this.requestTimer = timer;
+    }
+
+    /**
+     * Sets how many requests can wait for their reply at once (default 1024); further requests fail right away.
+     */
+    public void setMaxPendingRequests(int maxPendingRequests) {
+        if (maxPendingRequests < 1) {
+            throw new IllegalArgumentException("Max pending requests must be positive: " + maxPendingRequests);
+        }
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * Gets the number of requests waiting for their reply.
+     */
+    public int getPendingRequestCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Sends message through this player's message channel.
+     */
+    public void send(String payload, String toPlayerId) {
+        send(payload, 0, toPlayerId, 0, false, MessagePriority.NORMAL);
+    }
+
+    /**
+     * Sends a message in the given priority lane (see MessagePriority); the reply comes back in the same lane.
+     */
+    public void send(String payload, String toPlayerId, MessagePriority priority) {
+        send(payload, 0, toPlayerId, 0, false, priority);
+    }
+
+    /**
+     * Sends a message with a numeric payload, which travels as a primitive and is answered without parsing.
+     */
+    public void send(long payload, String toPlayerId) {
+        send(null, payload, toPlayerId, 0, false, MessagePriority.NORMAL);
+    }
+
+    /**
+     * Sends a numeric message in the given priority lane (see MessagePriority); the reply comes back in the same lane.
+     */
+    public void send(long payload, String toPlayerId, MessagePriority priority) {
+        send(null, payload, toPlayerId, 0, false, priority);
+    }
+
+    /**
+     * Creates a message from this player, addressed by handle when the target has one; a null text means the
+     * payload is the number.
+     */
+    private Message message(String text, long number, String toPlayerId, long sequence, long correlationId,
+            boolean reply, MessagePriority priority) {
+        int toHandle = PlayerIds.handleOf(toPlayerId);
+        return new Message(text, text == null, number, playerId, toPlayerId,
+                toHandle != PlayerIds.NO_HANDLE ? handle : PlayerIds.NO_HANDLE, toHandle, sequence, true, correlationId,
+                reply, priority);
+    }
+
+    /**
+     * Numbers a message and sends it, unless the rate limiter sheds it; a null text means the payload is the
+     * number.
+     *
+     * @return false if the message is shed
+     */
+    private boolean send(String text, long number, String toPlayerId, long correlationId, boolean reply,
+            MessagePriority priority) {
+        if (!admitSend()) {
+            return false;
+        }
+        AtomicLong sequence = sequenceTo(toPlayerId);
+        long currentCount = nextSequence(sequence);
+
+        try {
+            messageChannel.send(message(text, number, toPlayerId, currentCount, correlationId, reply, priority));
+        } catch (RuntimeException e) {
+            unsend(sequence, currentCount);
+            throw e;
+        }
+
+        if (text == null) {
+            events.messageSent(playerId, currentCount, toPlayerId, number);
+        } else {
+            events.messageSent(playerId, currentCount, toPlayerId, text);
+        }
+        return true;
+    }
+
+    /**
+     * Sends a request and returns a future completed with its reply, which the target correlates by id.
+     * Any number of requests (up to the pending cap) can be outstanding at once, so callers can pipeline them.
+     * <p>
+     * The future completes on the thread that delivered the reply; use the *Async methods of the future for
+     * anything slow. It fails with TimeoutException when the request timeout (see setRequestTimeout) passes first,
+     * with IllegalStateException right away when too many requests are pending, and when the player stops.
+     */
+    public CompletableFuture<Message> request(long payload, String toPlayerId) {
+        return request(null, payload, toPlayerId);
+    }
+
+    /**
+     * Sends a request with a text payload; see request(long, String).
+     */
+    public CompletableFuture<Message> request(String payload, String toPlayerId) {
+        return request(payload, 0, toPlayerId);
+    }
+
+    private CompletableFuture<Message> request(String text, long number, String toPlayerId) {
+        PendingRequest request = beginRequest(toPlayerId);
+        if (request == null) {
+            return tooManyPendingRequests();
+        }
+        try {
+            if (!send(text, number, toPlayerId, request.correlationId, false, MessagePriority.NORMAL)) {
+                failRequest(request.correlationId, new RateLimitedException("Request to " + toPlayerId + " shed"));
+            }
+        } catch (RuntimeException e) {
+            failRequest(request.correlationId, e);
+        }
+        return request.future;
+    }
+
+    /**
+     * Registers a new pending request and starts its timeout, or returns null if the pending cap is reached.
+     */
+    private PendingRequest beginRequest(String toPlayerId) {
+        if (pendingCount.incrementAndGet() > maxPendingRequests) {
+            pendingCount.decrementAndGet();
+            return null;
+        }
+        long correlationId = lastCorrelationId.incrementAndGet();
+        PendingRequest request = new PendingRequest(correlationId);
+        pendingRequests.put(correlationId, request);
+        HashedWheelTimer timer = requestTimer;
+        if (timer != null) {
+            long timeoutNanos = requestTimeoutNanos;
+            request.timeout = timer.schedule(() -> failRequest(correlationId, new TimeoutException(
+                    "No reply from " + toPlayerId + " within " + timeoutNanos / 1_000_000 + " ms")),
+                    timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return request;
+    }
+
+    private CompletableFuture<Message> tooManyPendingRequests() {
+        CompletableFuture<Message> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IllegalStateException(
+                "Too many pending requests: " + maxPendingRequests));
+        return rejected;
+    }
+
+    /**
+     * Completes the request the reply answers.
+     *
+     * @return false if no request with the reply's correlation id is pending (e.g. it timed out)
+     */
+    private boolean completeRequest(Message reply) {
+        PendingRequest request = pendingRequests.remove(reply.getCorrelationId());
+        if (request == null) {
+            return false;
+        }
+        pendingCount.decrementAndGet();
+        HashedWheelTimer.Timeout timeout = request.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        // A pooled reply is recycled once this delivery returns; the future outlives it
+        request.future.complete(reply.detach());
+        return true;
+    }
+
+    private void failRequest(long correlationId, Throwable cause) {
+        PendingRequest request = pendingRequests.remove(correlationId);
+        if (request != null) {
+            pendingCount.decrementAndGet();
+            HashedWheelTimer.Timeout timeout = request.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Gets the sequence counter for messages to the target.
+     */
+    private AtomicLong sequenceTo(String toPlayerId) {
+        // A message without a target id still needs a counter
+        String key = toPlayerId != null ? toPlayerId : "";
+        AtomicLong sequence = sequences.get(key);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(key, id -> new AtomicLong(sequenceBase));
+        }
+        return sequence;
+    }
+
+    /**
+     * Counts a message as sent and takes its sequence number from the target's counter.
+     */
+    private long nextSequence(AtomicLong sequence) {
+        sentCount.incrementAndGet();
+
+        if (role == PlayerRole.INITIATOR) {
+            messagesSent.incrementAndGet();
+        }
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Takes back a message the channel refused: it no longer counts as sent, and its sequence number is handed
+     * back unless a concurrent send to the same target has taken a later one already, in which case that receiver
+     * sees it as a gap.
+     */
+    private void unsend(AtomicLong sequence, long number) {
+        sentCount.decrementAndGet();
+
+        if (role == PlayerRole.INITIATOR) {
+            messagesSent.decrementAndGet();
+        }
+        sequence.compareAndSet(number, number - 1);
+    }
+
+    /**
+     * Sends a numeric reply in an envelope from the pool, without allocating.
+     */
+    private void sendPooled(MessagePool pool, long number, String toPlayerId, int toHandle, long correlationId,
+            MessagePriority priority) {
+        if (!admitSend()) {
+            return;
+        }
+        AtomicLong sequence = sequenceTo(toPlayerId);
+        long currentCount = nextSequence(sequence);
+
+        Message message = pool.acquire().fill(handle, playerId, toHandle, toPlayerId, currentCount)
+                .fillNumericPayload(number).fillCorrelation(correlationId, correlationId != 0, priority);
+        // Report before sending: once sent, the envelope belongs to the receiving side and may be recycled
+        events.messageSent(playerId, currentCount, toPlayerId, number);
+        try {
+            messageChannel.send(message);
+        } catch (RuntimeException e) {
+            message.recycle();
+            unsend(sequence, currentCount);
+            throw e;
+        }
+    }
+
+    /**
+     * Handles an incoming message, after the sender's receive window if one is set (see setReceiveWindow).
+     */
+    public void onMessage(Message message) {
+        int windowSize = receiveWindowSize;
+        String fromPlayerId = message.getFromPlayerId();
+        if (windowSize == 0 || fromPlayerId == null) {
+            handleMessage(message);
+            return;
+        }
+        ReceiveWindow window = receiveWindow(message, windowSize);
+        synchronized (window) {
+            long gaps = window.getGapCount();
+            window.accept(message, inOrderHandler);
+            if (window.getGapCount() != gaps) {
+                events.info(playerId, "Gave up on " + (window.getGapCount() - gaps) + " message(s) from "
+                        + fromPlayerId + " before #" + window.getNextSequence());
+            }
+        }
+    }
+
+    /**
+     * Gets the window of the message's sender: its window for messages to this player, or for a broadcast its
+     * window on the topic, which it numbers separately. Windows on topics and windows created after restore()
+     * adopt the first sequence number they see.
+     */
+    private ReceiveWindow receiveWindow(Message message, int size) {
+        Map<String, ReceiveWindow> windows = receiveWindows;
+        if (isBroadcast(message)) {
+            windows = topicWindows.get(message.getToPlayerId());
+            if (windows == null) {
+                windows = topicWindows.computeIfAbsent(message.getToPlayerId(), id -> new ConcurrentHashMap<>());
+            }
+        }
+        ReceiveWindow window = windows.get(message.getFromPlayerId());
+        if (window == null) {
+            // A topic may have been subscribed to after the sender started publishing
+            boolean adoptFirst = restored || windows != receiveWindows;
+            window = windows.computeIfAbsent(message.getFromPlayerId(), id -> new ReceiveWindow(size, adoptFirst));
+        }
+        return window;
+    }
+
+    private void handleMessage(Message message) {
+        receivedCount.increment();
+        long receivedNumber;
+        if (message.hasNumericPayload()) {
+            receivedNumber = message.getNumericPayload();
+            events.messageReceived(playerId, message.getFromPlayerId(), receivedNumber);
+        } else {
+            CharSequence receivedPayload = message.getPayloadChars();
+            events.messageReceived(playerId, message.getFromPlayerId(), receivedPayload);
+            // Text payloads that are not a number count as 0, so the reply starts from 1
+            receivedNumber = Numbers.parseLong(receivedPayload, 0);
+        }
+
+        // A reply completes its request and is never answered itself
+        if (message.isReply()) {
+            completeRequest(message);
+            return;
+        }
+
+        // A broadcast is addressed to a topic, not to this player: answering it would flood the publisher with one
+        // reply per subscriber
+        if (isBroadcast(message)) {
+            return;
+        }
+
+        // Don't send response if player is already stopped (prevents race condition
+        // during shutdown)
+        if (stopped) {
+            return;
+        }
+
+        // Build response: the received number incremented, as a numeric payload; a request's reply carries its id
+        // and every reply takes the lane of the message it answers
+        long nextNumber = receivedNumber + 1;
+        long correlationId = message.getCorrelationId();
+        MessagePriority priority = message.getPriority();
+
+        // Send response back to sender (only if not stopped)
+        if (!stopped) {
+            MessagePool pool = messagePool;
+            try {
+                if (pool != null && message.getFromHandle() != PlayerIds.NO_HANDLE) {
+                    sendPooled(pool, nextNumber, message.getFromPlayerId(), message.getFromHandle(), correlationId,
+                            priority);
+                } else {
+                    send(null, nextNumber, message.getFromPlayerId(), correlationId, correlationId != 0, priority);
+                }
+            } catch (ChannelFullException | RateLimitedException e) {
+                // The reply is lost like one the channel drops or the limiter sheds; failing here would fail the
+                // delivering channel
+                events.info(playerId, "Dropped reply to " + message.getFromPlayerId() + ": " + e.getMessage());
+            }
+        }
+
+        // If this is the initiator, check stop condition
+        if (role == PlayerRole.INITIATOR) {
+            long received = responsesReceived.incrementAndGet();
+            long sent = messagesSent.get();
+
+            events.progress(playerId, sent, received);
+
+            long limit = messageLimit;
+            if (sent >= limit && received >= limit) {
+                events.info(playerId, "Stop condition met! Sending STOP signal.");
+                if (onStopConditionMet != null) {
+                    onStopConditionMet.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a message reached this player through a topic it subscribed to (see MessageRouter.subscribe).
+     */
+    private boolean isBroadcast(Message message) {
+        String toPlayerId = message.getToPlayerId();
+        return toPlayerId != null && !toPlayerId.equals(playerId);
+    }
+
+    /**
+     * Handles a batch of incoming messages, in order. Subclasses can override this to amortize per-message work.
+     */
+    public void onMessages(List<Message> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            onMessage(messages.get(i));
+        }
+    }
+
+    /**
+     * Starts this player's message channel.
+     */
+    public void start() {
+        messageChannel.start();
+    }
+
+    /**
+     * Stops this player's message channel and fails the requests still waiting for a reply.
+     */
+    public void stop() {
+        stopped = true; // Set flag first to prevent new messages during shutdown
+        messageChannel.stop();
+        failPendingRequests();
+    }
+
+    /**
+     * Starts stopping this player's message channel without waiting for it (see MessageChannel.stopAsync),
+     * so a caller can stop many players in parallel and then await each with awaitStop.
+     */
+    public void stopAsync(DrainMode mode) {
+        stopped = true;
+        messageChannel.stopAsync(mode);
+    }
+
+    /**
+     * Waits for a stop started with stopAsync, then fails the requests still waiting for a reply.
+     *
+     * @param undelivered receives the messages the channel accepted but never delivered
+     * @return true if the channel stopped within the timeout
+     */
+    public boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undelivered) throws InterruptedException {
+        try {
+            return messageChannel.awaitStop(timeout, unit, undelivered);
+        } finally {
+            failPendingRequests();
+        }
+    }
+
+    private void failPendingRequests() {
+        for (Long correlationId : pendingRequests.keySet()) {
+            failRequest(correlationId, new IllegalStateException("Player stopped: " + playerId));
+        }
+    }
+
+    /**
+     * A request waiting for its reply.
+     */
+    private static final class PendingRequest {
+        final long correlationId;
+        final CompletableFuture<Message> future;
+        volatile HashedWheelTimer.Timeout timeout;
+
+        PendingRequest(long correlationId) {
+            this.correlationId = correlationId;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,439 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Virtual-actor style lifecycle for players of a MessageRouter: a player exists only while it is active.
+ * <p>
+ * The router asks the cache for the target of a message that has no registered player (see
+ * MessageRouter.setPlayerCache). The cache creates the player with its factory, restores its counters from the
+ * PlayerStateStore, registers and starts it, and the message is delivered as usual. A player is passivated,
+ * meaning unregistered, stopped and saved to the store, once it has been idle for the idle timeout, or when
+ * activating another player would exceed the maximum number of active players. The save waits, outside the cache's
+ * lock, until the player's channel and dispatcher mailbox have delivered what they queued, so those messages are
+ * counted. The cache's sweeper thread saves evicted players, so routing only waits for a drain when it activates a
+ * player again before its save, and then without holding the lock.
+ * <p>
+ * Eviction under that limit uses the CLOCK approximation of LRU: active players sit in a ring of slots, and the
+ * clock hand passes over players that received messages since its last visit and evicts the first one that did not.
+ * Routing only records the access time on the target player, so the hot path stays free of locks; activation,
+ * passivation and idle sweeps are serialized on the cache. Bookkeeping is per slot, and the cache releases the id of
+ * every player it saves from PlayerIds (see PlayerIds.release), so neither holds on to players that are not active;
+ * a reactivated player gets a new handle.
+ * <p>
+ * Players must not keep state outside their counters across passivation, and their channels should run on a
+ * shared ExecutionModel rather than a thread each. A message racing with the passivation of its target can reach
+ * the stopped player and go unanswered (it is still counted if it arrives before the save), so the idle timeout
+ * should be well above the gaps of a conversation.
+ */
+public final class PlayerCache implements AutoCloseable {
+    private static final long DRAIN_TIMEOUT_SECONDS = 1;
+
+    private final MessageRouter router;
+    private final Function<String, Player> factory;
+    private final PlayerStateStore store;
+    private final int maxActivePlayers;
+    private final long idleTimeoutNanos;
+    private final long startNanos;
+    private final LongAdder hits;
+    private final LongAdder activations;
+    private final LongAdder passivations;
+    private final LongAdder unknown;
+    private final LongAdder drainTimeouts;
+    private volatile EventSink events;
+    private final LatencyHistogram activationNanos;
+    private final Thread sweeper;
+
+    // Guarded by this: active players in clock order, the access time each slot had at the hand's last visit,
+    // the slot of each active player, and passivated players whose channel is still draining before their save
+    private Player[] slots;
+    private long[] visited;
+    private final Map<String, Integer> slotById;
+    private final Map<String, Player> draining;
+    private int activeCount;
+    private int hand;
+    private boolean closed;
+
+    /**
+     * Creates a cache that activates players on the router with the factory and keeps at most maxActivePlayers
+     * of them active. A daemon thread saves evicted players and, with a positive idle timeout, passivates idle ones.
+     *
+     * @param factory creates the player for an id, or returns null for ids that are not players
+     */
+    public PlayerCache(MessageRouter router, Function<String, Player> factory, PlayerStateStore store,
+            int maxActivePlayers, long idleTimeout, TimeUnit unit) {
+        if (maxActivePlayers < 1) {
+            throw new IllegalArgumentException("Need room for at least one active player: " + maxActivePlayers);
+        }
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("Idle timeout cannot be negative: " + idleTimeout);
+        }
+        this.router = router;
+        this.factory = factory;
+        this.store = store;
+        this.maxActivePlayers = maxActivePlayers;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.startNanos = System.nanoTime();
+        this.hits = new LongAdder();
+        this.activations = new LongAdder();
+        this.passivations = new LongAdder();
+        this.unknown = new LongAdder();
+        this.drainTimeouts = new LongAdder();
+        this.events = EventSink.console();
+        this.activationNanos = new LatencyHistogram();
+        this.slots = new Player[Math.min(maxActivePlayers, 64)];
+        this.visited = new long[slots.length];
+        this.slotById = new HashMap<>();
+        this.draining = new LinkedHashMap<>();
+
+        sweeper = new Thread(this::sweepLoop, "PlayerCacheSweeper");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    /**
+     * Records an access to an active player; called by the router for every delivered message.
+     */
+    void touch(Player player) {
+        hits.increment();
+        player.setLastAccess(now());
+    }
+
+    /**
+     * Gets the active player for the id, activating it first if needed.
+     *
+     * @return the player, or null if the factory does not know the id
+     */
+    Player activate(String playerId) {
+        long start = System.nanoTime();
+        while (true) {
+            Player previous;
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+                Integer active = slotById.get(playerId);
+                if (active != null) {
+                    // Another routing thread activated it while this one waited for the lock
+                    return slots[active];
+                }
+                previous = draining.get(playerId);
+                if (previous == null) {
+                    return activateNew(playerId, start);
+                }
+            }
+            // Passivated moments ago: its counters must be saved before they are restored. Wait outside the lock,
+            // since its draining channel may route to a player this cache has to activate
+            awaitDrained(previous);
+            synchronized (this) {
+                // Unless the sweeper or another activation saved it already
+                if (draining.remove(playerId, previous)) {
+                    saveAndRelease(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates, restores, registers and starts a player that is neither active nor draining.
+     */
+    private Player activateNew(String playerId, long start) {
+        Player player = factory.apply(playerId);
+        if (player == null) {
+            unknown.increment();
+            return null;
+        }
+        if (activeCount == maxActivePlayers) {
+            passivate(victim());
+            // The sweeper saves the victim once it has drained
+            notifyAll();
+        }
+        store.restore(player);
+        router.register(playerId, player);
+        player.setLastAccess(now());
+        addSlot(player);
+        player.start();
+        activations.increment();
+        activationNanos.record(System.nanoTime() - start);
+        return player;
+    }
+
+    private void addSlot(Player player) {
+        if (activeCount == slots.length) {
+            int size = Math.min(maxActivePlayers, slots.length * 2);
+            slots = Arrays.copyOf(slots, size);
+            visited = Arrays.copyOf(visited, size);
+        }
+        slots[activeCount] = player;
+        visited[activeCount] = player.getLastAccess();
+        slotById.put(player.getPlayerId(), activeCount);
+        activeCount++;
+    }
+
+    /**
+     * Advances the clock hand to the first player not accessed since the hand last passed it.
+     */
+    private int victim() {
+        // Two full turns at most: after one, only players accessed meanwhile still get a second chance
+        for (int step = 0; ; step++) {
+            if (hand >= activeCount) {
+                hand = 0;
+            }
+            long accessed = slots[hand].getLastAccess();
+            if (accessed == visited[hand] || step == 2 * activeCount) {
+                return hand;
+            }
+            // Second chance: remember the access and move on
+            visited[hand] = accessed;
+            hand++;
+        }
+    }
+
+    /**
+     * Unregisters the player in the slot and starts stopping it; it is saved once its channel has drained (see
+     * saveDrained). The last slot moves into its place.
+     */
+    private void passivate(int slot) {
+        Player player = slots[slot];
+        router.unregister(player.getPlayerId());
+        player.stopAsync(DrainMode.FLUSH);
+        draining.put(player.getPlayerId(), player);
+        activeCount--;
+        slotById.remove(player.getPlayerId());
+        if (slot != activeCount) {
+            slots[slot] = slots[activeCount];
+            visited[slot] = visited[activeCount];
+            slotById.put(slots[slot].getPlayerId(), slot);
+        }
+        slots[activeCount] = null;
+        passivations.increment();
+    }
+
+    /**
+     * Saves the passivated players once their channels have delivered what they queued. Waits outside the lock,
+     * since a draining channel may route to a player this cache has to activate.
+     */
+    private void saveDrained() {
+        List<Player> players;
+        synchronized (this) {
+            if (draining.isEmpty()) {
+                return;
+            }
+            players = new ArrayList<>(draining.values());
+        }
+        for (Player player : players) {
+            awaitDrained(player);
+            synchronized (this) {
+                // Unless an activation saved it already
+                if (draining.remove(player.getPlayerId(), player)) {
+                    saveAndRelease(player);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves a drained player and releases its id, which nothing routes to until it is activated again.
+     */
+    private void saveAndRelease(Player player) {
+        store.save(player);
+        PlayerIds.release(player.getPlayerId());
+    }
+
+    /**
+     * Waits for the player's channel to stop and for its dispatcher mailbox, if any, to deliver what was queued
+     * before the player was unregistered.
+     */
+    private void awaitDrained(Player player) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        try {
+            boolean drained = player.awaitStop(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS, new ArrayList<>());
+            Mailbox mailbox = player.getMailbox();
+            while (mailbox != null && !mailbox.isIdle() && drained) {
+                drained = System.nanoTime() < deadline;
+                Thread.sleep(1);
+            }
+            if (!drained) {
+                drainTimeouts.increment();
+                events.info(player.getPlayerId(), "Did not drain in time; saving its counters anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Passivates every player that has not received a message for the idle timeout.
+     *
+     * @return the number of players passivated
+     */
+    public int passivateIdle() {
+        if (idleTimeoutNanos == 0) {
+            return 0;
+        }
+        int passivated = 0;
+        synchronized (this) {
+            long idleSince = now() - idleTimeoutNanos;
+            for (int i = activeCount - 1; i >= 0; i--) {
+                if (slots[i].getLastAccess() < idleSince) {
+                    passivate(i);
+                    passivated++;
+                }
+            }
+        }
+        saveDrained();
+        return passivated;
+    }
+
+    /**
+     * Passivates the given active player right away.
+     *
+     * @return false if the player is not active
+     */
+    public boolean passivate(String playerId) {
+        synchronized (this) {
+            Integer slot = slotById.get(playerId);
+            if (slot == null) {
+                return false;
+            }
+            passivate(slot);
+        }
+        saveDrained();
+        return true;
+    }
+
+    private void sweepLoop() {
+        // Idle players go within 1.25x the timeout
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), idleTimeoutNanos / 4);
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    if (draining.isEmpty()) {
+                        // Woken early by an eviction or by close()
+                        if (idleTimeoutNanos == 0) {
+                            wait();
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(this, period);
+                        }
+                    }
+                }
+                passivateIdle();
+                saveDrained();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long now() {
+        // Never 0, which marks a player that was never accessed
+        return System.nanoTime() - startNanos + 1;
+    }
+
+    /**
+     * Gets the ids of the active players.
+     */
+    public synchronized List<String> getActivePlayerIds() {
+        List<String> ids = new ArrayList<>(activeCount);
+        for (int i = 0; i < activeCount; i++) {
+            ids.add(slots[i].getPlayerId());
+        }
+        return ids;
+    }
+
+    public synchronized int getActiveCount() {
+        return activeCount;
+    }
+
+    public long getActivationCount() {
+        return activations.sum();
+    }
+
+    public long getPassivationCount() {
+        return passivations.sum();
+    }
+
+    /**
+     * Gets the number of passivated players saved without having drained within a second.
+     */
+    public long getDrainTimeoutCount() {
+        return drainTimeouts.sum();
+    }
+
+    /**
+     * Sets where drain timeouts are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the share of delivered messages whose target was already active, from 0 to 1.
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + activations.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Reports the cache to the registry: playerCache.hits, .activations, .passivations, .unknown (messages
+     * for ids the factory rejected) and .drainTimeouts as meters, and playerCache.active, .hitRatePercent and the activation latency
+     * in nanos (.activation.p50, .p99, .max) as gauges.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.meter("playerCache.hits", hits::sum);
+        metrics.meter("playerCache.activations", activations::sum);
+        metrics.meter("playerCache.passivations", passivations::sum);
+        metrics.meter("playerCache.unknown", unknown::sum);
+        metrics.meter("playerCache.drainTimeouts", drainTimeouts::sum);
+        metrics.gauge("playerCache.active", this::getActiveCount);
+        metrics.gauge("playerCache.hitRatePercent", () -> Math.round(getHitRate() * 100));
+        metrics.gauge("playerCache.activation.p50", () -> getActivationLatency().getValueAtPercentile(50));
+        metrics.gauge("playerCache.activation.p99", () -> getActivationLatency().getValueAtPercentile(99));
+        metrics.gauge("playerCache.activation.max", () -> getActivationLatency().getMax());
+    }
+
+    /**
+     * Gets the histogram of activation latencies in nanos: creation, restore, registration and start, plus the
+     * passivation of a victim when the cache is full.
+     */
+    public LatencyHistogram getActivationLatency() {
+        return activationNanos;
+    }
+
+    /**
+     * Stops the sweeper and passivates every active player, saving their counters.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (activeCount > 0) {
+                passivate(activeCount - 1);
+            }
+            notifyAll();
+        }
+        saveDrained();
+        // Not interrupted: an interrupt during a save would close the store's file channel
+        try {
+            sweeper.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide table that interns player ids to int handles (0, 1, 2, ...).
+ * <p>
+ * Every Player interns its own id when it is created, and MessageRouter interns topic names on subscribe(), so
+ * routing by handle is an int hash instead of hashing and comparing Strings. Messages built from handles share the
+ * canonical String instance for display and the wire format. Ids that arrive over the wire are only looked up
+ * (see handleOf), so they cannot grow the table.
+ * <p>
+ * A PlayerCache releases the id of each player it passivates (see release), so ids of players that are not active
+ * do not pile up. Released handles are never reused: a handle kept across a release, say by a message in flight,
+ * only stops resolving and never names another id. The ids live in chunks of 1024 handles, and a chunk whose ids
+ * were all released is dropped, so the table holds the live ids plus one chunk slot per 1024 handles ever assigned.
+ * Tables keyed by handle use a HandleMap, which is sized by its own entries, rather than an array indexed by handle.
+ */
+public final class PlayerIds {
+    /**
+     * Handle of a null or unknown id.
+     */
+    public static final int NO_HANDLE = -1;
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final Map<String, Integer> HANDLES = new ConcurrentHashMap<>();
+    // Copy-on-grow; readers may see a shorter array than the latest handle, never a wrong entry
+    private static volatile String[][] chunks = new String[64][];
+    // Guarded by the class: interned ids per chunk, and the next handle to assign
+    private static int[] liveCounts = new int[64];
+    private static int size;
+
+    private PlayerIds() {
+    }
+
+    /**
+     * Gets the handle for the id, assigning the next free one on first use.
+     */
+    public static int intern(String playerId) {
+        if (playerId == null) {
+            throw new IllegalArgumentException("Player id must not be null");
+        }
+        Integer handle = HANDLES.get(playerId);
+        return handle != null ? handle : assign(playerId);
+    }
+
+    private static synchronized int assign(String playerId) {
+        Integer existing = HANDLES.get(playerId);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Player handles exhausted");
+        }
+        int handle = size;
+        int chunk = handle >>> CHUNK_BITS;
+        String[][] table = chunks;
+        if (chunk == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+            liveCounts = Arrays.copyOf(liveCounts, table.length);
+        }
+        if (table[chunk] == null) {
+            table[chunk] = new String[CHUNK_SIZE];
+            // The previous chunk is full now; drop it if every id in it was released meanwhile
+            if (chunk > 0 && liveCounts[chunk - 1] == 0) {
+                table[chunk - 1] = null;
+            }
+        }
+        table[chunk][handle & (CHUNK_SIZE - 1)] = playerId;
+        liveCounts[chunk]++;
+        // Publish the id before the handle can be looked up
+        chunks = table;
+        size = handle + 1;
+        HANDLES.put(playerId, handle);
+        return handle;
+    }
+
+    /**
+     * Releases the handle of an id that nothing routes to any longer. The handle is not reused; looking the id up
+     * again finds nothing until it is interned again, under a new handle.
+     *
+     * @return false if the id was not interned
+     */
+    static synchronized boolean release(String playerId) {
+        Integer handle = playerId != null ? HANDLES.remove(playerId) : null;
+        if (handle == null) {
+            return false;
+        }
+        int chunk = handle >>> CHUNK_BITS;
+        String[][] table = chunks;
+        table[chunk][handle & (CHUNK_SIZE - 1)] = null;
+        // The chunk still taking new handles stays until it is full
+        if (--liveCounts[chunk] == 0 && chunk != size >>> CHUNK_BITS) {
+            table[chunk] = null;
+        }
+        chunks = table;
+        return true;
+    }
+
+    /**
+     * Gets the handle of an already interned id without interning it.
+     *
+     * @return handle, or NO_HANDLE if the id is null or is not interned
+     */
+    public static int handleOf(String playerId) {
+        if (playerId == null) {
+            return NO_HANDLE;
+        }
+        Integer handle = HANDLES.get(playerId);
+        return handle != null ? handle : NO_HANDLE;
+    }
+
+    /**
+     * Gets the canonical id for a handle.
+     *
+     * @return id, or null for NO_HANDLE
+     * @throws IllegalArgumentException if the handle was never assigned or was released
+     */
+    public static String idOf(int handle) {
+        if (handle == NO_HANDLE) {
+            return null;
+        }
+        String[][] table = chunks;
+        int chunk = handle >>> CHUNK_BITS;
+        String[] ids = handle >= 0 && chunk < table.length ? table[chunk] : null;
+        String id = ids != null ? ids[handle & (CHUNK_SIZE - 1)] : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown player handle: " + handle);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Local file store of the counters of passivated players (see PlayerCache), so a player activated again
+ * continues where it left off.
+ * <p>
+ * The store is one file of records: id length (2 bytes), UTF-8 id, sent count, received count. A player's record
+ * is appended on its first save and updated in place afterwards, so the file grows with the number of distinct
+ * players, not with the number of passivations. The index from id to record is an open-addressing table of file
+ * offsets and id hashes, about 24 bytes per stored player; it keeps no ids, so a hash match is confirmed against the
+ * id in the file. Writes go to the OS without fsync; close() forces them to disk.
+ * Thread-safety: all operations are serialized.
+ */
+public class PlayerStateStore implements AutoCloseable {
+    private static final String FILE_NAME = "players.dat";
+    private static final int COUNTERS_BYTES = 16;
+    private static final int MAX_ID_BYTES = Short.MAX_VALUE;
+    private static final int MIN_CAPACITY = 64;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer counters;
+
+    // Guarded by this; record offset + 1 and id hash per table slot, offset 0 for a free slot
+    private long[] offsets;
+    private int[] hashes;
+    private long end;
+    private int recordCount;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) the store in the directory and indexes the records already in it.
+     */
+    public PlayerStateStore(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+        this.counters = ByteBuffer.allocate(COUNTERS_BYTES);
+        this.offsets = new long[MIN_CAPACITY];
+        this.hashes = new int[MIN_CAPACITY];
+        try {
+            Files.createDirectories(directory);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            index();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open player state store " + file, e);
+        }
+    }
+
+    /**
+     * Reads every record once; a record cut short by a crash ends the file and is overwritten by the next append.
+     */
+    private void index() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(2);
+        long position = 0;
+        while (position + 2 <= size) {
+            header.clear();
+            readFully(header, position);
+            int idBytes = header.getShort(0) & 0xFFFF;
+            if (idBytes == 0 || position + 2 + idBytes + COUNTERS_BYTES > size) {
+                break;
+            }
+            ByteBuffer id = ByteBuffer.allocate(idBytes);
+            readFully(id, position + 2);
+            // Ids are unique in the file, so there is nothing to look up
+            addOffset(hash(id.array()), position);
+            recordCount++;
+            position += 2 + idBytes + COUNTERS_BYTES;
+        }
+        end = position;
+    }
+
+    /**
+     * Stores the player's sent and received counts.
+     */
+    public synchronized void save(Player player) {
+        ensureOpen();
+        long sent = player.getSentCount();
+        long received = player.getReceivedCount();
+        byte[] id = player.getPlayerId().getBytes(StandardCharsets.UTF_8);
+        try {
+            long offset = offsetOf(id);
+            if (offset < 0) {
+                append(id, sent, received);
+                return;
+            }
+            counters.clear();
+            counters.putLong(sent).putLong(received).flip();
+            writeFully(counters, offset + 2 + id.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save state of " + player.getPlayerId(), e);
+        }
+    }
+
+    private void append(byte[] id, long sent, long received) throws IOException {
+        if (id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Player id too long to store: " + id.length + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(2 + id.length + COUNTERS_BYTES);
+        record.putShort((short) id.length).put(id).putLong(sent).putLong(received).flip();
+        writeFully(record, end);
+        addOffset(hash(id), end);
+        end += record.capacity();
+        recordCount++;
+    }
+
+    /**
+     * Restores the stored counters into the player (see Player.restore), before it is started.
+     *
+     * @return false if nothing is stored for the player, which then starts from zero
+     */
+    public synchronized boolean restore(Player player) {
+        ensureOpen();
+        byte[] id = player.getPlayerId().getBytes(StandardCharsets.UTF_8);
+        try {
+            long offset = offsetOf(id);
+            if (offset < 0) {
+                return false;
+            }
+            counters.clear();
+            readFully(counters, offset + 2 + id.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load state of " + player.getPlayerId(), e);
+        }
+        player.restore(counters.getLong(0), counters.getLong(8));
+        return true;
+    }
+
+    /**
+     * Gets the number of players with a stored record.
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the offset of the record for the id, or -1.
+     */
+    private long offsetOf(byte[] id) throws IOException {
+        int hash = hash(id);
+        int mask = offsets.length - 1;
+        for (int i = hash & mask; offsets[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && idAt(offsets[i] - 1, id)) {
+                return offsets[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean idAt(long offset, byte[] id) throws IOException {
+        ByteBuffer stored = ByteBuffer.allocate(2 + id.length);
+        readFully(stored, offset);
+        return (stored.getShort(0) & 0xFFFF) == id.length
+                && Arrays.equals(stored.array(), 2, stored.capacity(), id, 0, id.length);
+    }
+
+    private void addOffset(int hash, long offset) {
+        if ((recordCount + 1) * 2 > offsets.length) {
+            grow();
+        }
+        int mask = offsets.length - 1;
+        int i = hash & mask;
+        while (offsets[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        offsets[i] = offset + 1;
+        hashes[i] = hash;
+    }
+
+    private void grow() {
+        long[] oldOffsets = offsets;
+        int[] oldHashes = hashes;
+        offsets = new long[oldOffsets.length * 2];
+        hashes = new int[oldOffsets.length * 2];
+        int mask = offsets.length - 1;
+        for (int j = 0; j < oldOffsets.length; j++) {
+            if (oldOffsets[j] != 0) {
+                int i = oldHashes[j] & mask;
+                while (offsets[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                offsets[i] = oldOffsets[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    private static int hash(byte[] id) {
+        int hash = Arrays.hashCode(id) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Player state store is closed");
+        }
+    }
+
+    /**
+     * Forces the stored records to disk and closes the file.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close player state store " + file, e);
+        }
+    }
+}
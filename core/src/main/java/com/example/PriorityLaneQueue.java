@@ -0,0 +1,327 @@
+package com.example;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Blocking queue of messages with one FIFO lane per MessagePriority, used by InMemoryMessageChannel when
+ * priority lanes are configured. Each lane keeps send order and has its own capacity.
+ * <p>
+ * Takes drain the lanes by weight: a lane gets up to its weight of messages per round, lanes are visited from
+ * CONTROL to BULK, and a new round starts (CONTROL first again) once every non-empty lane used its share. So a
+ * control message waits behind at most the NORMAL and BULK weights of a saturated channel, and bulk traffic still
+ * gets its share instead of starving. Like LinkedBlockingQueue for a single lane, all operations take one lock.
+ */
+final class PriorityLaneQueue extends AbstractQueue<Message> implements BlockingQueue<Message> {
+    private static final MessagePriority[] LANES = {MessagePriority.CONTROL, MessagePriority.NORMAL,
+            MessagePriority.BULK};
+
+    private final ArrayDeque<Message>[] lanes;
+    private final int[] capacities;
+    private final int[] weights;
+    // Messages each lane may still take in the current round
+    private final int[] credits;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private int count;
+
+    /**
+     * Creates lanes with the given capacities and weights, both indexed in CONTROL, NORMAL, BULK order.
+     */
+    @SuppressWarnings("unchecked")
+    PriorityLaneQueue(int[] capacities, int[] weights) {
+        if (capacities.length != LANES.length || weights.length != LANES.length) {
+            throw new IllegalArgumentException("Need a capacity and a weight for each of " + LANES.length + " lanes");
+        }
+        this.lanes = new ArrayDeque[LANES.length];
+        for (int i = 0; i < LANES.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        this.capacities = capacities.clone();
+        this.weights = weights.clone();
+        this.credits = weights.clone();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    private static int laneOf(Message message) {
+        return laneOf(message.getPriority());
+    }
+
+    private static int laneOf(MessagePriority priority) {
+        switch (priority) {
+            case CONTROL:
+                return 0;
+            case BULK:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public boolean offer(Message message) {
+        int lane = laneOf(message);
+        lock.lock();
+        try {
+            if (lanes[lane].size() >= capacities[lane]) {
+                return false;
+            }
+            enqueue(lane, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Message message, long timeout, TimeUnit unit) throws InterruptedException {
+        int lane = laneOf(message);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (lanes[lane].size() >= capacities[lane]) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(lane, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Message message) throws InterruptedException {
+        int lane = laneOf(message);
+        lock.lockInterruptibly();
+        try {
+            while (lanes[lane].size() >= capacities[lane]) {
+                notFull.await();
+            }
+            enqueue(lane, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(int lane, Message message) {
+        lanes[lane].addLast(message);
+        count++;
+        notEmpty.signal();
+    }
+
+    @Override
+    public Message poll() {
+        lock.lock();
+        try {
+            return count > 0 ? dequeue() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Message take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next message by weight; the queue must not be empty.
+     */
+    private Message dequeue() {
+        int lane = nextLane();
+        if (lane < 0) {
+            // Every non-empty lane used its share of the round
+            System.arraycopy(weights, 0, credits, 0, weights.length);
+            lane = nextLane();
+        }
+        credits[lane]--;
+        count--;
+        notFull.signalAll();
+        return lanes[lane].pollFirst();
+    }
+
+    private int nextLane() {
+        for (int i = 0; i < lanes.length; i++) {
+            if (credits[i] > 0 && !lanes[i].isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the oldest message of the given lane, or returns null if it is empty; for DROP_OLDEST,
+     * which must make room in the lane the new message goes to.
+     */
+    Message pollLane(MessagePriority priority) {
+        lock.lock();
+        try {
+            Message oldest = lanes[laneOf(priority)].pollFirst();
+            if (oldest != null) {
+                count--;
+                notFull.signalAll();
+            }
+            return oldest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Message peek() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            int lane = nextLane();
+            if (lane >= 0) {
+                return lanes[lane].peekFirst();
+            }
+            // The next take starts a new round, which visits the lanes from CONTROL again
+            for (ArrayDeque<Message> each : lanes) {
+                if (!each.isEmpty()) {
+                    return each.peekFirst();
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Message> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Message> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count > 0) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of messages waiting in the given lane.
+     */
+    int size(MessagePriority priority) {
+        lock.lock();
+        try {
+            return lanes[laneOf(priority)].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            long remaining = 0;
+            for (int i = 0; i < lanes.length; i++) {
+                remaining += capacities[i] - lanes[i].size();
+            }
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Message> filter) {
+        lock.lock();
+        try {
+            boolean removed = false;
+            for (ArrayDeque<Message> lane : lanes) {
+                int before = lane.size();
+                if (lane.removeIf(filter)) {
+                    count -= before - lane.size();
+                    removed = true;
+                }
+            }
+            if (removed) {
+                notFull.signalAll();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot, lane by lane; the iterator does not support remove (use removeIf).
+     */
+    @Override
+    public Iterator<Message> iterator() {
+        lock.lock();
+        try {
+            List<Message> snapshot = new ArrayList<>(count);
+            for (ArrayDeque<Message> lane : lanes) {
+                snapshot.addAll(lane);
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
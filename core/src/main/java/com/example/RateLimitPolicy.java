@@ -0,0 +1,25 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * What a RateLimiter does with a message over its limit.
+ * <ul>
+ * <li>REJECT - Player.send throws RateLimitedException; admission control refuses the message</li>
+ * <li>DELAY - the caller waits until the message fits the rate, then it goes through</li>
+ * <li>SHED - the message is silently dropped</li>
+ * </ul>
+ * Every message over the limit counts as throttled, whatever the policy.
+ */
+public enum RateLimitPolicy {
+    REJECT,
+    DELAY,
+    SHED;
+
+    /**
+     * Parses a command line value such as "reject", "delay" or "shed".
+     */
+    public static RateLimitPolicy parse(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
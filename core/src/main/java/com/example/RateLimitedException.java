@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Thrown by Player.send when the player's RateLimiter is over its limit and its policy is REJECT.
+ */
+public class RateLimitedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free token bucket: up to permitsPerSecond messages on average, with bursts of up to burst messages.
+ * Give one to a player (Player.setRateLimiter) to cap what it sends, share one between players or install one as
+ * the router's AdmissionControl to cap a group or the whole router.
+ * <p>
+ * The bucket is kept as a single timestamp, the time at which it would be full again (the virtual scheduling form
+ * of the token bucket, also known as GCRA). Taking a token moves that time one interval ahead with one CAS;
+ * refilling needs no work at all, since tokens follow from how far the timestamp lies in the past. A message
+ * under the limit therefore costs a clock read and a CAS, and only throttled messages touch the counters.
+ */
+public final class RateLimiter implements AdmissionControl {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final RateLimitPolicy policy;
+    // Time at which the bucket is full again; up to toleranceNanos ahead of now while tokens are left
+    private final AtomicLong fullAt;
+    private final LongAdder throttled;
+    private final LongAdder delayedNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param permitsPerSecond sustained rate, at most one per nanosecond
+     * @param burst messages that can go out back to back after an idle period
+     */
+    public RateLimiter(long permitsPerSecond, int burst, RateLimitPolicy policy) {
+        if (permitsPerSecond < 1 || permitsPerSecond > TimeUnit.SECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("Rate must be between 1 and 10^9 per second: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be positive: " + burst);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Rate limit policy cannot be null");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.policy = policy;
+        this.fullAt = new AtomicLong(System.nanoTime() - intervalNanos);
+        this.throttled = new LongAdder();
+        this.delayedNanos = new LongAdder();
+    }
+
+    /**
+     * Takes a token for one message, applying the policy if there is none.
+     *
+     * @return true if the message may go out (at once or, with DELAY, after waiting); false if it is shed
+     * @throws RateLimitedException if over the limit with REJECT
+     */
+    public boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (policy == RateLimitPolicy.REJECT) {
+            throw new RateLimitedException("Rate limit of " + getPermitsPerSecond() + "/s exceeded");
+        }
+        return policy == RateLimitPolicy.DELAY;
+    }
+
+    /**
+     * Takes a token for a routed message. Unlike acquire(), REJECT refuses the message instead of throwing,
+     * since there is no sender to tell on the routing thread.
+     */
+    @Override
+    public boolean admit(Message message) {
+        return tryAcquire() || policy == RateLimitPolicy.DELAY;
+    }
+
+    /**
+     * Takes a token if one is left; with DELAY, reserves the next one and waits for it instead.
+     *
+     * @return false if over the limit and not delayed
+     */
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long start = Math.max(current, now);
+            long waitNanos = start - now - toleranceNanos;
+            if (waitNanos > 0 && policy != RateLimitPolicy.DELAY) {
+                throttled.increment();
+                return false;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                if (waitNanos > 0) {
+                    throttled.increment();
+                    delayedNanos.add(waitNanos);
+                    sleepUntil(now + waitNanos);
+                }
+                return true;
+            }
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                // The reservation is kept; the caller sees the interrupt and may stop
+                return;
+            }
+        }
+    }
+
+    public long getPermitsPerSecond() {
+        return TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    public RateLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the number of messages that were over the limit (rejected, delayed or shed).
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Gets the total time DELAY made callers wait, in nanos.
+     */
+    public long getDelayedNanos() {
+        return delayedNanos.sum();
+    }
+
+    /**
+     * Reports the limiter to the registry as rateLimit.&lt;name&gt;.throttled and .delayedNanos meters.
+     */
+    public void registerMetrics(MetricsRegistry metrics, String name) {
+        metrics.meter("rateLimit." + name + ".throttled", throttled::sum);
+        metrics.meter("rateLimit." + name + ".delayedNanos", delayedNanos::sum);
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" + getPermitsPerSecond() + "/s, burst=" + (toleranceNanos / intervalNanos + 1)
+                + ", policy=" + policy + "}";
+    }
+}
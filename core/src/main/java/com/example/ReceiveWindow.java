@@ -0,0 +1,179 @@
+package com.example;
+
+import java.util.function.Consumer;
+
+/**
+ * Receive-side window over the sequence numbers of one sender: drops duplicates, holds back messages that arrive
+ * ahead of a missing one, and releases them in sequence order once the missing one arrives.
+ * <p>
+ * The window is a 64-bit sliding bitset: bit i stands for sequence number next + i, where next is the lowest
+ * sequence number not yet released, so bit 0 is always clear. Releasing shifts the bitset right. Messages held
+ * back go into a ring of 64 slots by sequence number, which is only allocated once a sender actually reorders,
+ * so an in-order sender costs a few words. Sequence numbers start at 1 and are contiguous per sender and target,
+ * as Player numbers the messages to each target (a topic counts as one) separately. A window can instead adopt the
+ * sequence number of the first message it sees, for a sender that was talking before the window existed: to a
+ * topic the receiver subscribed to late, or to a receiver restored from a journal or store. A message that
+ * overtakes that first one is then dropped as a duplicate.
+ * <p>
+ * A message too far ahead to fit the window means the ones in between are given up on: everything held back
+ * before it is released in order, the missing sequence numbers are counted as gaps, and the window slides.
+ * Messages without a sequence number pass straight through. Not thread-safe; Player serializes each window.
+ */
+public final class ReceiveWindow {
+    /**
+     * Largest window, in sequence numbers.
+     */
+    public static final int MAX_SIZE = 64;
+
+    private final int size;
+    private long next;
+    private long pending;
+    private Message[] held;
+    private int heldCount;
+    private long duplicates;
+    private long reordered;
+    private long gaps;
+
+    /**
+     * Creates a window that holds back messages up to size - 1 sequence numbers ahead of a missing one.
+     */
+    public ReceiveWindow(int size) {
+        this(size, false);
+    }
+
+    /**
+     * Creates a window like ReceiveWindow(int) that, if adoptFirst is set, starts at the sequence number of the
+     * first message it accepts instead of at 1.
+     */
+    public ReceiveWindow(int size, boolean adoptFirst) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Window size must be between 1 and " + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        // 0 is never a sequence number; it marks a window that has not adopted one yet
+        this.next = adoptFirst ? 0 : 1;
+    }
+
+    /**
+     * Accepts a message from the sender and hands every message that is now in order to the sink, which may
+     * therefore run zero or several times. A held-back message is detached first, since a pooled envelope is only
+     * valid during this call.
+     */
+    public void accept(Message message, Consumer<Message> sink) {
+        if (!message.hasSequenceNumber()) {
+            sink.accept(message);
+            return;
+        }
+        long sequence = message.getSequence();
+        if (next == 0) {
+            next = sequence;
+        }
+        long ahead = sequence - next;
+        if (ahead < 0) {
+            duplicates++;
+            return;
+        }
+        if (ahead >= size) {
+            skip(ahead - size + 1, sink);
+            // Releasing what was held may have moved the window past the skipped part too
+            ahead = sequence - next;
+        }
+        if (ahead == 0) {
+            sink.accept(message);
+            slide(1);
+            releaseInOrder(sink);
+            return;
+        }
+        if ((pending & (1L << ahead)) != 0) {
+            duplicates++;
+            return;
+        }
+        if (held == null) {
+            held = new Message[MAX_SIZE];
+        }
+        pending |= 1L << ahead;
+        held[slot(sequence)] = message.detach();
+        heldCount++;
+        reordered++;
+    }
+
+    /**
+     * Gives up on the next count sequence numbers: releases what is held among them and counts the rest as gaps.
+     */
+    private void skip(long count, Consumer<Message> sink) {
+        long scanned = Math.min(count, MAX_SIZE);
+        for (long i = 0; i < scanned; i++) {
+            if ((pending & 1L) != 0) {
+                sink.accept(take(next));
+            } else {
+                gaps++;
+            }
+            slide(1);
+        }
+        if (count > scanned) {
+            // Nothing is held that far ahead
+            gaps += count - scanned;
+            next += count - scanned;
+        }
+        releaseInOrder(sink);
+    }
+
+    private void releaseInOrder(Consumer<Message> sink) {
+        while ((pending & 1L) != 0) {
+            sink.accept(take(next));
+            slide(1);
+        }
+    }
+
+    private void slide(int count) {
+        next += count;
+        pending >>>= count;
+    }
+
+    private Message take(long sequence) {
+        int slot = slot(sequence);
+        Message message = held[slot];
+        held[slot] = null;
+        heldCount--;
+        return message;
+    }
+
+    private static int slot(long sequence) {
+        return (int) (sequence & (MAX_SIZE - 1));
+    }
+
+    /**
+     * Gets the lowest sequence number not yet released, or 0 if the window is still to adopt one.
+     */
+    public long getNextSequence() {
+        return next;
+    }
+
+    /**
+     * Gets the number of messages held back waiting for an earlier one.
+     */
+    public int getHeldCount() {
+        return heldCount;
+    }
+
+    /**
+     * Gets the number of messages dropped because their sequence number was already seen or released.
+     */
+    public long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the number of messages that arrived ahead of an earlier one and were held back.
+     */
+    public long getReorderedCount() {
+        return reordered;
+    }
+
+    /**
+     * Gets the number of sequence numbers given up on because later messages pushed them out of the window.
+     */
+    public long getGapCount() {
+        return gaps;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Plays the increment protocol as pipelined requests: keeps up to window requests from one player outstanding
+ * (see Player.request) and sends the next one, with the answered number plus one, as each reply arrives.
+ * A window of 1 is strict lock-step.
+ */
+public final class RequestPipeline implements BiConsumer<Message, Throwable> {
+    private final Player requester;
+    private final String targetId;
+    private final int window;
+    private final AtomicLong issued;
+    private final AtomicLong completed;
+    private final CompletableFuture<Long> done;
+    private long requests;
+
+    /**
+     * Creates a pipeline; the requester's pending cap should be at least the window.
+     */
+    public RequestPipeline(Player requester, String targetId, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.requester = requester;
+        this.targetId = targetId;
+        this.window = window;
+        this.issued = new AtomicLong();
+        this.completed = new AtomicLong();
+        this.done = new CompletableFuture<>();
+    }
+
+    /**
+     * Sends the given number of requests, opening with firstPayload.
+     *
+     * @return future completed with the number answered last once every reply arrived, or failed with the
+     *         first failed request
+     */
+    public CompletableFuture<Long> run(long firstPayload, long requests) {
+        if (requests < 1) {
+            throw new IllegalArgumentException("Need at least one request: " + requests);
+        }
+        this.requests = requests;
+        long initial = Math.min(window, requests);
+        issued.set(initial);
+        for (long i = 0; i < initial && !done.isDone(); i++) {
+            requester.request(firstPayload + i, targetId).whenComplete(this);
+        }
+        return done;
+    }
+
+    /**
+     * Gets the number of replies received so far.
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Handles one reply: sends the next request while any are left.
+     */
+    @Override
+    public void accept(Message reply, Throwable failure) {
+        if (failure != null) {
+            done.completeExceptionally(failure);
+            return;
+        }
+        long answered = reply.getNumericPayload();
+        if (issued.getAndIncrement() < requests) {
+            requester.request(answered + 1, targetId).whenComplete(this);
+        }
+        if (completed.incrementAndGet() == requests) {
+            done.complete(answered);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MessageChannel between two processes on the same host, through a pair of memory-mapped ring files (one per
+ * direction, see SharedMemoryRing). Sent messages are encoded with BinaryMessageCodec straight into the outbound
+ * ring; a consumer thread decodes the inbound ring and routes every message to the local MessageRouter.
+ * Compared to TcpMessageChannel over loopback, a message costs no system calls and no kernel copies.
+ * <p>
+ * There is no cross-process wake-up, so an idle consumer spins, yields and then parks for short timed intervals
+ * (WaitStrategy.PARK by default); a producer facing a full ring waits the same way. Stopping the channel closes
+ * the outbound ring, which the peer's channel reports through its onPeerClosed callback once it has drained it.
+ * Thread-safety: send() and offer() may be called from multiple threads; they are serialized on the channel.
+ */
+public class SharedMemoryMessageChannel implements MessageChannel {
+    /** Default size of each ring's data area in bytes. */
+    public static final int DEFAULT_RING_BYTES = 1 << 20;
+
+    private final MessageRouter router;
+    private final SharedMemoryRing outbound;
+    private final SharedMemoryRing inbound;
+    private final WaitStrategy waitStrategy;
+    private final Runnable onPeerClosed;
+    private final MessageCodec encoder;
+    private final MessageCodec decoder;
+    private final AtomicBoolean running;
+    private volatile Thread consumerThread;
+    private final LongAdder failed;
+    private volatile EventSink events;
+
+    /**
+     * Creates new channel over existing ring files with the PARK wait strategy.
+     *
+     * @param outbound ring this side writes; the peer reads it as its inbound ring
+     * @param inbound ring the peer writes
+     */
+    public SharedMemoryMessageChannel(MessageRouter router, Path outbound, Path inbound) {
+        this(router, outbound, inbound, WaitStrategy.PARK, null);
+    }
+
+    /**
+     * Creates new channel over existing ring files.
+     *
+     * @param onPeerClosed called on the consumer thread once the peer closed its side and everything it sent was
+     *        routed; may be null
+     */
+    public SharedMemoryMessageChannel(MessageRouter router, Path outbound, Path inbound, WaitStrategy waitStrategy,
+            Runnable onPeerClosed) {
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+        this.router = router;
+        this.outbound = SharedMemoryRing.open(outbound);
+        this.inbound = SharedMemoryRing.open(inbound);
+        this.waitStrategy = waitStrategy;
+        this.onPeerClosed = onPeerClosed;
+        this.encoder = new BinaryMessageCodec();
+        this.decoder = new BinaryMessageCodec();
+        this.running = new AtomicBoolean(false);
+        this.failed = new LongAdder();
+        this.events = EventSink.console();
+    }
+
+    /**
+     * Creates (or resets) a ring file that two channels can then open. Capacity is rounded up to a power of two
+     * of at least 1 KiB.
+     */
+    public static void createRing(Path file, int capacity) {
+        SharedMemoryRing.create(file, capacity);
+    }
+
+    /**
+     * Gets the directory ring files should go to by default: /dev/shm where it exists, so the mapping is backed
+     * by memory only, or the temporary directory otherwise.
+     */
+    public static Path defaultDirectory() {
+        Path shm = Paths.get("/dev/shm");
+        return Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Creates a fresh directory for the rings of one channel pair under defaultDirectory().
+     */
+    public static Path createDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(defaultDirectory(), prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create shared memory directory", e);
+        }
+    }
+
+    /**
+     * Sets where failed deliveries are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the number of messages whose delivery threw; the channel went on with the next one.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the data area size of the outbound ring in bytes.
+     */
+    public int getCapacity() {
+        return outbound.getCapacity();
+    }
+
+    @Override
+    public synchronized void send(Message message) {
+        checkRunning();
+        int idle = 0;
+        while (!outbound.offer(message, encoder)) {
+            if (!running.get()) {
+                throw new IllegalStateException("Channel stopped while waiting for ring space");
+            }
+            idle = waitStrategy.idle(idle);
+        }
+        // Encoded into the ring, so a pooled envelope can go back right away
+        message.recycle();
+    }
+
+    /**
+     * Writes the message only if the outbound ring has room right now.
+     */
+    @Override
+    public synchronized boolean offer(Message message) {
+        checkRunning();
+        if (!outbound.offer(message, encoder)) {
+            return false;
+        }
+        message.recycle();
+        return true;
+    }
+
+    private void checkRunning() {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running.getAndSet(true)) {
+            throw new IllegalStateException("Channel is already running");
+        }
+        Thread thread = new Thread(this::consumeLoop, "SharedMemoryChannel-" + inbound.getFile().getFileName());
+        thread.setDaemon(true);
+        consumerThread = thread;
+        thread.start();
+    }
+
+    private void consumeLoop() {
+        int idle = 0;
+        while (true) {
+            Message message = inbound.poll(decoder);
+            if (message != null) {
+                idle = 0;
+                deliver(message);
+            } else if (inbound.isClosed()) {
+                // Re-check: the peer may have published its last frames right before closing
+                if ((message = inbound.poll(decoder)) != null) {
+                    deliver(message);
+                    continue;
+                }
+                if (onPeerClosed != null) {
+                    onPeerClosed.run();
+                }
+                break;
+            } else if (!running.get()) {
+                break;
+            } else {
+                idle = waitStrategy.idle(idle);
+            }
+        }
+    }
+
+    private void deliver(Message message) {
+        try {
+            router.route(message);
+        } catch (RuntimeException e) {
+            // The channel still reports itself running, so it must go on consuming
+            failed.increment();
+            events.info(inbound.getFile().getFileName().toString(), "Failed to route message: " + e);
+        }
+    }
+
+    /**
+     * Closes the outbound ring, so the peer sees the end of the stream, and stops the consumer thread.
+     * Messages the peer has not sent yet are not waited for.
+     */
+    @Override
+    public void stop() {
+        if (!running.get()) {
+            return; // Already stopped
+        }
+        stopAsync(DrainMode.FLUSH);
+        try {
+            awaitStop(1, TimeUnit.SECONDS, new ArrayList<>());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the outbound ring and wakes the consumer thread without waiting for it. Whatever was sent is
+     * already in the ring for the peer, so both drain modes behave the same.
+     */
+    @Override
+    public void stopAsync(DrainMode mode) {
+        if (!running.getAndSet(false)) {
+            return; // Already stopped
+        }
+        synchronized (this) {
+            outbound.close();
+        }
+        LockSupport.unpark(consumerThread);
+    }
+
+    /**
+     * Waits for the consumer thread to exit. Nothing is ever reported undelivered: sent frames belong to the peer.
+     */
+    @Override
+    public boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undelivered) throws InterruptedException {
+        Thread thread = consumerThread;
+        if (thread == null || thread == Thread.currentThread()) {
+            return true;
+        }
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        return !thread.isAlive();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+}
@@ -0,0 +1,242 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Single-producer/single-consumer byte ring in a memory-mapped file, so the producer and the consumer can live
+ * in different processes on the same host. Records are BinaryMessageCodec frames written straight into the
+ * mapping; no system call is made per message.
+ * <p>
+ * File layout:
+ * <pre>
+ * 0    int   magic
+ * 4    int   capacity of the data area in bytes (power of two)
+ * 128  long  tail: bytes published by the producer so far
+ * 256  long  head: bytes consumed so far
+ * 384  int   closed: set by the producer once it sends nothing more
+ * 512  ...   data area
+ * </pre>
+ * Head and tail are monotonic byte counts on their own pair of cache lines. The producer writes a record and
+ * then publishes the new tail with a release store; the consumer reads the tail with an acquire load, reads the
+ * record and releases its space with a release store of the head. Records start 8-byte aligned with their frame
+ * length prefix; a record that does not fit before the end of the data area is preceded by a padding marker and
+ * written at the start instead.
+ * Thread-safety: one producer thread and one consumer thread at a time, in this or another process.
+ */
+final class SharedMemoryRing {
+    static final int MIN_CAPACITY = 1024;
+
+    private static final int MAGIC = 0x504D5252;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int TAIL_OFFSET = 128;
+    private static final int HEAD_OFFSET = 256;
+    private static final int CLOSED_OFFSET = 384;
+    private static final int DATA_OFFSET = 512;
+    private static final int PADDING = -1;
+    private static final int ALIGNMENT = Long.BYTES;
+
+    // Native order: both sides run on the same host, and the fields are never read as frame bytes
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Path file;
+    private final MappedByteBuffer mapping;
+    private final int capacity;
+    private final int mask;
+    // Separate views so the producer and the consumer never share ByteBuffer position and limit
+    private final ByteBuffer producerView;
+    private final ByteBuffer consumerView;
+
+    // Producer-local copy of the tail and cache of the head
+    private long tail;
+    private long cachedHead;
+    // Consumer-local copy of the head and cache of the tail
+    private long head;
+    private long cachedTail;
+
+    private SharedMemoryRing(Path file, MappedByteBuffer mapping, int capacity) {
+        this.file = file;
+        this.mapping = mapping;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        ByteBuffer data = mapping.duplicate().position(DATA_OFFSET).slice();
+        this.producerView = data.duplicate();
+        this.consumerView = data.duplicate();
+        this.tail = (long) LONGS.getAcquire(mapping, TAIL_OFFSET);
+        this.cachedHead = (long) LONGS.getAcquire(mapping, HEAD_OFFSET);
+        this.head = cachedHead;
+        this.cachedTail = tail;
+    }
+
+    /**
+     * Creates (or truncates) the ring file with an empty ring. Capacity is rounded up to the next power of two.
+     */
+    static SharedMemoryRing create(Path file, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Math.max(MIN_CAPACITY, SpscRingBufferChannel.nextPowerOfTwo(capacity));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + (long) size);
+            mapping.putInt(CAPACITY_OFFSET, size);
+            // Magic last: a peer opening the file concurrently only trusts a complete header
+            INTS.setRelease(mapping, MAGIC_OFFSET, MAGIC);
+            return new SharedMemoryRing(file, mapping, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create shared memory ring " + file, e);
+        }
+    }
+
+    /**
+     * Maps an existing ring file created by create().
+     */
+    static SharedMemoryRing open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < DATA_OFFSET) {
+                throw new IllegalArgumentException("Not a shared memory ring: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET);
+            if ((int) INTS.getAcquire(header, MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalArgumentException("Not a shared memory ring: " + file);
+            }
+            int size = header.getInt(CAPACITY_OFFSET);
+            if (Integer.bitCount(size) != 1 || channel.size() < DATA_OFFSET + (long) size) {
+                throw new IllegalArgumentException("Corrupt shared memory ring header in " + file + ": capacity " + size);
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + (long) size);
+            return new SharedMemoryRing(file, mapping, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open shared memory ring " + file, e);
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes one frame and publishes it, if the ring has room for it right now. Producer side only.
+     *
+     * @return false if the ring is too full
+     * @throws IllegalArgumentException if the frame is larger than the whole ring
+     */
+    boolean offer(Message message, MessageCodec codec) {
+        while (true) {
+            int index = (int) tail & mask;
+            int contiguous = capacity - index;
+            long free = capacity - (tail - cachedHead);
+            if (free < contiguous) {
+                cachedHead = (long) LONGS.getAcquire(mapping, HEAD_OFFSET);
+                free = capacity - (tail - cachedHead);
+            }
+            int room = (int) Math.min(contiguous, free);
+            if (room > 0 && encode(message, codec, index, room)) {
+                publish(tail + align(producerView.position() - index));
+                return true;
+            }
+            if (room == capacity) {
+                throw new IllegalArgumentException("Message does not fit in a " + capacity
+                        + " byte shared memory ring: " + message);
+            }
+            long stale = cachedHead;
+            if ((cachedHead = (long) LONGS.getAcquire(mapping, HEAD_OFFSET)) != stale) {
+                continue; // The consumer freed more space since the cached head was read
+            }
+            if (contiguous >= free) {
+                return false;
+            }
+            // Too close to the end: skip the rest of the data area and retry at its start
+            producerView.clear();
+            producerView.putInt(index, PADDING);
+            publish(tail + contiguous);
+        }
+    }
+
+    private boolean encode(Message message, MessageCodec codec, int index, int room) {
+        producerView.clear();
+        producerView.limit(index + room).position(index);
+        try {
+            codec.encode(message, producerView);
+            return true;
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+    }
+
+    private void publish(long newTail) {
+        tail = newTail;
+        LONGS.setRelease(mapping, TAIL_OFFSET, newTail);
+    }
+
+    /**
+     * Reads the next frame and frees its space. Consumer side only.
+     *
+     * @return decoded message, or null if the ring is empty
+     */
+    Message poll(MessageCodec codec) {
+        while (true) {
+            if (head >= cachedTail && head >= (cachedTail = (long) LONGS.getAcquire(mapping, TAIL_OFFSET))) {
+                return null;
+            }
+            int index = (int) head & mask;
+            consumerView.clear();
+            int bodyLength = consumerView.getInt(index);
+            if (bodyLength == PADDING) {
+                release(head + capacity - index);
+                continue;
+            }
+            int frameLength = MessageCodec.LENGTH_PREFIX_BYTES + bodyLength;
+            consumerView.limit(index + frameLength).position(index);
+            Message message = codec.decode(consumerView);
+            if (message == null) {
+                throw new IllegalStateException("Truncated frame in shared memory ring " + file + " at " + head);
+            }
+            // Decoding copied everything out of the mapping, so the producer may reuse the space now
+            release(head + align(frameLength));
+            return message;
+        }
+    }
+
+    private void release(long newHead) {
+        head = newHead;
+        LONGS.setRelease(mapping, HEAD_OFFSET, newHead);
+    }
+
+    /**
+     * Checks if the consumer has read everything published so far.
+     */
+    boolean isEmpty() {
+        return (long) LONGS.getAcquire(mapping, HEAD_OFFSET) >= (long) LONGS.getAcquire(mapping, TAIL_OFFSET);
+    }
+
+    /**
+     * Marks the ring as closed: the producer publishes nothing more. Frames already published stay readable.
+     */
+    void close() {
+        INTS.setRelease(mapping, CLOSED_OFFSET, 1);
+    }
+
+    boolean isClosed() {
+        return (int) INTS.getAcquire(mapping, CLOSED_OFFSET) != 0;
+    }
+
+    private static long align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer/single-consumer implementation of MessageChannel.
+ * Messages are stored in a preallocated power-of-two ring, so sending does not allocate a queue node and
+ * never takes a lock. Head and tail indices are cache-line padded to avoid false sharing.
+ * Thread-safety: at most one thread may call send() at a time. Handing the producer role from one thread
+ * to another is safe as long as the hand-off itself is ordered (e.g. ping-pong where each send is caused
+ * by the previous delivery).
+ */
+public class SpscRingBufferChannel implements MessageChannel {
+    /** Default ring capacity. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final MessageRouter router;
+    private final String targetPlayerId;
+    private final WaitStrategy waitStrategy;
+    private final Message[] ring;
+    private final int mask;
+
+    // Consumer position: next slot to read. Written only by the consumer thread.
+    private final PaddedSequence head;
+    // Producer position: next slot to write. Written only by the producer thread.
+    private final PaddedSequence tail;
+    // Producer-local cache of head, avoids reading the consumer's cache line on every send.
+    private long cachedHead;
+
+    private final AtomicBoolean running;
+    private volatile boolean consumerParked;
+    private volatile boolean discarding;
+    private volatile Thread processingThread;
+    private final LongAdder failed;
+    private volatile EventSink events;
+
+    /**
+     * Creates new ring buffer channel with default capacity and PARK wait strategy.
+     */
+    public SpscRingBufferChannel(MessageRouter router, String targetPlayerId) {
+        this(router, targetPlayerId, DEFAULT_CAPACITY, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates new ring buffer channel. Capacity is rounded up to the next power of two.
+     */
+    public SpscRingBufferChannel(MessageRouter router, String targetPlayerId, int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+        int size = nextPowerOfTwo(capacity);
+        this.router = router;
+        this.targetPlayerId = targetPlayerId;
+        this.waitStrategy = waitStrategy;
+        this.ring = new Message[size];
+        this.mask = size - 1;
+        this.head = new PaddedSequence(0L);
+        this.tail = new PaddedSequence(0L);
+        this.running = new AtomicBoolean(false);
+        this.failed = new LongAdder();
+        this.events = EventSink.console();
+    }
+
+    /**
+     * Sets where failed deliveries are reported (default EventSink.console()); they are counted either way.
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the number of messages whose delivery threw; the channel went on with the next one.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the actual (power-of-two) capacity of the ring.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    @Override
+    public void send(Message message) {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+        long currentTail = tail.get();
+        long wrapPoint = currentTail - ring.length;
+        if (cachedHead <= wrapPoint) {
+            int idle = 0;
+            while ((cachedHead = head.getAcquire()) <= wrapPoint) {
+                if (!running.get()) {
+                    throw new IllegalStateException("Channel stopped while waiting for free slot");
+                }
+                idle = waitStrategy.idle(idle);
+            }
+        }
+        publish(message, currentTail);
+    }
+
+    /**
+     * Publishes the message only if a slot is free right now.
+     */
+    @Override
+    public boolean offer(Message message) {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+        long currentTail = tail.get();
+        long wrapPoint = currentTail - ring.length;
+        if (cachedHead <= wrapPoint && (cachedHead = head.getAcquire()) <= wrapPoint) {
+            return false;
+        }
+        publish(message, currentTail);
+        return true;
+    }
+
+    private void publish(Message message, long currentTail) {
+        ring[(int) currentTail & mask] = message;
+        tail.setRelease(currentTail + 1);
+
+        if (waitStrategy == WaitStrategy.PARK) {
+            // Store-load barrier: the tail store must be visible before we read the consumer's parked flag
+            VarHandle.fullFence();
+            if (consumerParked) {
+                LockSupport.unpark(processingThread);
+            }
+        }
+    }
+
+    static int nextPowerOfTwo(int value) {
+        if (value > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    @Override
+    public void start() {
+        if (running.getAndSet(true)) {
+            throw new IllegalStateException("Channel is already running");
+        }
+
+        discarding = false;
+        Thread thread = new Thread(this::consumeLoop, "SpscChannel-" + targetPlayerId);
+        processingThread = thread;
+        thread.start();
+    }
+
+    private void consumeLoop() {
+        long currentHead = head.get();
+        int idle = 0;
+        while (true) {
+            if (currentHead < tail.getAcquire() && !discarding) {
+                int index = (int) currentHead & mask;
+                Message message = ring[index];
+                ring[index] = null;
+                head.setRelease(++currentHead);
+                idle = 0;
+                deliver(message);
+            } else if (!running.get()) {
+                // Stopped and drained (re-check tail to pick up a send that raced with stop)
+                if (discarding || currentHead >= tail.getAcquire()) {
+                    break;
+                }
+            } else if (waitStrategy.parks(idle)) {
+                consumerParked = true;
+                // Re-check after publishing the parked flag so a concurrent send cannot be missed
+                if (currentHead == tail.get() && running.get()) {
+                    idle = waitStrategy.idle(idle);
+                }
+                consumerParked = false;
+            } else {
+                idle = waitStrategy.idle(idle);
+            }
+        }
+    }
+
+    private void deliver(Message message) {
+        try {
+            router.route(message);
+        } catch (RuntimeException e) {
+            // The channel still reports itself running, so it must go on consuming
+            failed.increment();
+            events.info(targetPlayerId, "Failed to route message: " + e);
+        } finally {
+            message.recycle();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running.get()) {
+            return; // Already stopped
+        }
+        stopAsync(DrainMode.FLUSH);
+        try {
+            awaitStop(1, TimeUnit.SECONDS, new ArrayList<>());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stopAsync(DrainMode mode) {
+        if (mode == DrainMode.DISCARD) {
+            discarding = true;
+        }
+        if (running.getAndSet(false)) {
+            LockSupport.unpark(processingThread);
+        }
+    }
+
+    /**
+     * Waits for the consumer thread to exit. Only then are the messages left in the ring collected as undelivered,
+     * since the ring must never have two consumers; a consumer still busy at the timeout is told to stop after
+     * its current delivery, and its leftovers are not reported.
+     */
+    @Override
+    public boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undelivered) throws InterruptedException {
+        Thread thread = processingThread;
+        if (thread != null) {
+            thread.join(Math.max(1, unit.toMillis(timeout)));
+            if (thread.isAlive()) {
+                discarding = true;
+                return false;
+            }
+        }
+        long currentHead = head.get();
+        for (long end = tail.getAcquire(); currentHead < end; currentHead++) {
+            int index = (int) currentHead & mask;
+            Message message = ring[index];
+            ring[index] = null;
+            undelivered.add(message.detach());
+            message.recycle();
+        }
+        head.setRelease(currentHead);
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+}
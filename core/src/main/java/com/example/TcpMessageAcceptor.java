@@ -0,0 +1,263 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server side of TcpMessageChannel: accepts connections, decodes incoming frames and feeds them to a MessageRouter.
+ * A single selector thread serves all connections. Each connection has its own direct read buffer and codec,
+ * chosen by negotiating codec versions with the connecting channel.
+ */
+public class TcpMessageAcceptor {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final MessageRouter router;
+    private final String bindHost;
+    private final int bindPort;
+    private final boolean tcpNoDelay;
+    private final Set<CodecVersion> supportedVersions;
+    private final Runnable onConnectionClosed;
+    private final AtomicBoolean running;
+
+    private ServerSocketChannel serverSocket;
+    private Selector selector;
+    private Thread acceptorThread;
+
+    /**
+     * Creates new acceptor on localhost; port 0 picks a free port (see getPort()).
+     */
+    public TcpMessageAcceptor(MessageRouter router, int port) {
+        this(router, "localhost", port, true, EnumSet.allOf(CodecVersion.class), null);
+    }
+
+    /**
+     * Creates new acceptor.
+     *
+     * @param onConnectionClosed called on the acceptor thread whenever a peer disconnects; may be null
+     */
+    public TcpMessageAcceptor(MessageRouter router, String bindHost, int port, boolean tcpNoDelay,
+            Set<CodecVersion> supportedVersions, Runnable onConnectionClosed) {
+        this.router = router;
+        this.bindHost = bindHost;
+        this.bindPort = port;
+        this.tcpNoDelay = tcpNoDelay;
+        this.supportedVersions = EnumSet.copyOf(supportedVersions);
+        this.onConnectionClosed = onConnectionClosed;
+        this.running = new AtomicBoolean(false);
+    }
+
+    /**
+     * Binds the server socket and starts the selector thread.
+     */
+    public void start() {
+        if (running.getAndSet(true)) {
+            throw new IllegalStateException("Acceptor is already running");
+        }
+
+        try {
+            serverSocket = ServerSocketChannel.open();
+            serverSocket.bind(new InetSocketAddress(bindHost, bindPort));
+            serverSocket.configureBlocking(false);
+            selector = Selector.open();
+            serverSocket.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            running.set(false);
+            closeQuietly();
+            throw new UncheckedIOException("Failed to bind " + bindHost + ":" + bindPort, e);
+        }
+
+        acceptorThread = new Thread(this::selectLoop, "TcpAcceptor-" + getPort());
+        acceptorThread.start();
+    }
+
+    /**
+     * Gets the port the acceptor is bound to (useful when created with port 0).
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverSocket.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (running.get()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running.get()) {
+                System.err.println("TCP acceptor failed: " + e.getMessage());
+            }
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel socket = serverSocket.accept();
+        if (socket == null) {
+            return;
+        }
+        socket.configureBlocking(false);
+        socket.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+        socket.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel socket = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (socket.read(connection.readBuffer) < 0) {
+                close(key);
+                return;
+            }
+            connection.readBuffer.flip();
+            if (connection.codec == null && !negotiate(socket, connection)) {
+                connection.readBuffer.compact();
+                return;
+            }
+            Message message;
+            while (connection.codec != null && (message = connection.codec.decode(connection.readBuffer)) != null) {
+                router.route(message);
+            }
+            connection.readBuffer.compact();
+            connection.ensureCapacityForNextFrame();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Closing TCP connection after error: " + e.getMessage());
+            close(key);
+        }
+    }
+
+    /**
+     * Reads the peer's supported version mask and answers with the chosen version id (0 if none is common).
+     *
+     * @return true once a codec is selected; false if the mask has not fully arrived yet
+     */
+    private boolean negotiate(SocketChannel socket, Connection connection) throws IOException {
+        if (connection.readBuffer.remaining() < 4) {
+            return false;
+        }
+        Set<CodecVersion> remoteVersions = CodecVersion.fromMask(connection.readBuffer.getInt());
+        CodecVersion chosen;
+        try {
+            chosen = CodecVersion.negotiate(supportedVersions, remoteVersions);
+        } catch (IllegalArgumentException e) {
+            writeFully(socket, ByteBuffer.wrap(new byte[] {0}));
+            throw new IOException(e.getMessage(), e);
+        }
+        writeFully(socket, ByteBuffer.wrap(new byte[] {(byte) chosen.getId()}));
+        connection.codec = chosen.newCodec();
+        return true;
+    }
+
+    private static void writeFully(SocketChannel socket, ByteBuffer buffer) throws IOException {
+        // Single byte on a fresh connection: the send buffer is empty, so this does not spin in practice
+        while (buffer.hasRemaining()) {
+            socket.write(buffer);
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Nothing useful to do while closing
+        }
+        if (onConnectionClosed != null) {
+            onConnectionClosed.run();
+        }
+    }
+
+    /**
+     * Stops accepting, closes all connections and waits for the selector thread to exit.
+     */
+    public void stop() {
+        if (!running.getAndSet(false)) {
+            return; // Already stopped
+        }
+        selector.wakeup();
+        if (acceptorThread != null && acceptorThread != Thread.currentThread()) {
+            try {
+                acceptorThread.join(1000); // Wait up to 1 second
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Checks if the acceptor is currently running.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Nothing useful to do while closing
+        }
+    }
+
+    /**
+     * Per-connection read state.
+     */
+    private static final class Connection {
+        private ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private MessageCodec codec;
+
+        /**
+         * Grows the read buffer when a partially received frame would not fit into it (buffer is in write mode).
+         *
+         * @throws IllegalArgumentException if the peer declared a frame length out of bounds
+         */
+        void ensureCapacityForNextFrame() {
+            if (codec == null || readBuffer.position() < MessageCodec.LENGTH_PREFIX_BYTES) {
+                return;
+            }
+            int frameLength = MessageCodec.LENGTH_PREFIX_BYTES + MessageCodec.checkBodyLength(readBuffer.getInt(0));
+            if (frameLength > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(frameLength) << 1);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        }
+    }
+}
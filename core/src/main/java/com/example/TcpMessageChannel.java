@@ -0,0 +1,351 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking TCP implementation of MessageChannel for players in another process.
+ * Messages are encoded on a dedicated I/O thread into per-connection direct buffers. Everything queued since
+ * the last write is coalesced and flushed with a single gathering write, so a burst of sends costs one syscall.
+ * The codec version is negotiated with the TcpMessageAcceptor on connect.
+ * Thread-safety: This implementation is thread-safe and supports concurrent send operations from multiple threads.
+ */
+public class TcpMessageChannel implements MessageChannel {
+    private static final int WRITE_BUFFER_COUNT = 4;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    // Generous bound on the frame bytes besides the payload and ids: length prefix, flags, numbers, delimiters
+    private static final int FRAME_OVERHEAD_BYTES = 128;
+    private static final Set<CodecVersion> SUPPORTED_VERSIONS = EnumSet.allOf(CodecVersion.class);
+
+    private final String host;
+    private final int port;
+    private final boolean tcpNoDelay;
+    private final Queue<Message> outbound;
+    // Messages taken off the outbound queue by a stop, until awaitStop reports them
+    private final Queue<Message> discarded;
+    private final AtomicBoolean running;
+    private final AtomicBoolean wakeupPending;
+    private final ByteBuffer[] writeBuffers;
+    private final ByteBuffer readProbe;
+
+    private SocketChannel socket;
+    private volatile Selector selector;
+    private volatile MessageCodec codec;
+    private Thread ioThread;
+
+    // I/O thread state
+    private Message overflow;
+    private int usedBuffers;
+    private boolean flushing;
+
+    /**
+     * Creates new TCP channel to the given acceptor with TCP_NODELAY enabled.
+     */
+    public TcpMessageChannel(String host, int port) {
+        this(host, port, true);
+    }
+
+    /**
+     * Creates new TCP channel to the given acceptor.
+     *
+     * @param tcpNoDelay disable Nagle's algorithm; recommended for request/response traffic
+     */
+    public TcpMessageChannel(String host, int port, boolean tcpNoDelay) {
+        this.host = host;
+        this.port = port;
+        this.tcpNoDelay = tcpNoDelay;
+        this.outbound = new ConcurrentLinkedQueue<>();
+        this.discarded = new ConcurrentLinkedQueue<>();
+        this.running = new AtomicBoolean(false);
+        this.wakeupPending = new AtomicBoolean(false);
+        this.writeBuffers = new ByteBuffer[WRITE_BUFFER_COUNT];
+        for (int i = 0; i < WRITE_BUFFER_COUNT; i++) {
+            writeBuffers[i] = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        }
+        this.readProbe = ByteBuffer.allocateDirect(64);
+    }
+
+    @Override
+    public void send(Message message) {
+        if (!running.get()) {
+            throw new IllegalStateException("Channel is not running");
+        }
+        checkFits(message);
+        outbound.add(message);
+        // Wake the selector only once per batch of sends
+        Selector currentSelector = selector;
+        if (currentSelector != null && !wakeupPending.getAndSet(true)) {
+            currentSelector.wakeup();
+        }
+    }
+
+    /**
+     * Rejects a message whose frame would not fit in one write buffer, so it fails here instead of being dropped
+     * by the I/O thread after the sender counted it as sent.
+     *
+     * @throws IllegalArgumentException if the message is too large
+     */
+    private void checkFits(Message message) {
+        // UTF-8 takes at most 3 bytes per char; only a message that might not fit is encoded to find out
+        long maxBytes = FRAME_OVERHEAD_BYTES + 3L * (charCount(message.getFromPlayerId())
+                + charCount(message.getToPlayerId())
+                + (message.hasNumericPayload() ? 20 : message.getPayloadChars().length()));
+        if (maxBytes <= WRITE_BUFFER_SIZE) {
+            return;
+        }
+        MessageCodec current = codec;
+        ByteBuffer probe = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        // The I/O thread owns the connection's codec; probe with a fresh one of the same version
+        for (CodecVersion version : current != null ? EnumSet.of(current.version()) : SUPPORTED_VERSIONS) {
+            probe.clear();
+            try {
+                version.newCodec().encode(message, probe);
+            } catch (BufferOverflowException e) {
+                throw new IllegalArgumentException("Message from " + message.getFromPlayerId() + " to "
+                        + message.getToPlayerId() + " does not fit in a " + WRITE_BUFFER_SIZE + " byte frame");
+            }
+        }
+    }
+
+    private static int charCount(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    @Override
+    public void start() {
+        if (running.getAndSet(true)) {
+            throw new IllegalStateException("Channel is already running");
+        }
+
+        try {
+            socket = SocketChannel.open();
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+            socket.connect(new InetSocketAddress(host, port));
+            codec = handshake(socket);
+            socket.configureBlocking(false);
+            selector = Selector.open();
+            // OP_READ only detects the peer closing the connection; the acceptor never writes after the handshake
+            socket.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            running.set(false);
+            closeQuietly();
+            throw new UncheckedIOException("Failed to connect to " + host + ":" + port, e);
+        }
+
+        ioThread = new Thread(this::ioLoop, "TcpChannel-" + host + ":" + port);
+        ioThread.start();
+    }
+
+    /**
+     * Sends our supported codec versions and reads back the version chosen by the acceptor (blocking mode).
+     */
+    private static MessageCodec handshake(SocketChannel socket) throws IOException {
+        ByteBuffer hello = ByteBuffer.allocate(4).putInt(CodecVersion.toMask(SUPPORTED_VERSIONS));
+        hello.flip();
+        while (hello.hasRemaining()) {
+            socket.write(hello);
+        }
+        ByteBuffer reply = ByteBuffer.allocate(1);
+        while (reply.hasRemaining()) {
+            if (socket.read(reply) < 0) {
+                throw new IOException("Connection closed during codec negotiation");
+            }
+        }
+        int versionId = reply.get(0);
+        if (versionId <= 0) {
+            throw new IOException("Acceptor rejected all codec versions " + SUPPORTED_VERSIONS);
+        }
+        return CodecVersion.fromId(versionId).newCodec();
+    }
+
+    private void ioLoop() {
+        try {
+            while (running.get() || !outbound.isEmpty() || overflow != null || flushing) {
+                selector.select();
+                wakeupPending.set(false);
+                if (!handleReadiness()) {
+                    break;
+                }
+                flush();
+            }
+        } catch (IOException e) {
+            System.err.println("TCP channel to " + host + ":" + port + " failed: " + e.getMessage());
+        } finally {
+            running.set(false);
+            closeQuietly();
+        }
+    }
+
+    private boolean handleReadiness() throws IOException {
+        for (SelectionKey key : selector.selectedKeys()) {
+            if (key.isValid() && key.isReadable()) {
+                readProbe.clear();
+                if (socket.read(readProbe) < 0) {
+                    System.err.println("TCP channel to " + host + ":" + port + " closed by peer");
+                    return false;
+                }
+            }
+        }
+        selector.selectedKeys().clear();
+        return true;
+    }
+
+    /**
+     * Encodes queued messages into the write buffers and writes them with one gathering write.
+     * If the socket cannot take everything, OP_WRITE interest is registered and the rest is written later.
+     */
+    private void flush() throws IOException {
+        if (!flushing) {
+            fillWriteBuffers();
+            if (usedBuffers == 0) {
+                return;
+            }
+            flushing = true;
+        }
+
+        socket.write(writeBuffers, 0, usedBuffers);
+        if (writeBuffers[usedBuffers - 1].hasRemaining()) {
+            socket.keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            return;
+        }
+
+        for (int i = 0; i < usedBuffers; i++) {
+            writeBuffers[i].clear();
+        }
+        usedBuffers = 0;
+        flushing = false;
+        socket.keyFor(selector).interestOps(SelectionKey.OP_READ);
+
+        // More sends may have arrived while writing
+        if (!outbound.isEmpty() || overflow != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void fillWriteBuffers() {
+        int index = 0;
+        Message message;
+        while ((message = overflow != null ? overflow : outbound.poll()) != null) {
+            try {
+                codec.encode(message, writeBuffers[index]);
+                overflow = null;
+                // Encoded bytes are all the peer needs; a pooled envelope can be reused right away
+                message.recycle();
+            } catch (BufferOverflowException e) {
+                if (writeBuffers[index].position() == 0) {
+                    // send() rejects these, so only a codec under-reporting its sizes gets here
+                    overflow = null;
+                    System.err.println("Dropping message larger than " + WRITE_BUFFER_SIZE + " bytes: " + message);
+                    message.recycle();
+                    continue;
+                }
+                overflow = message;
+                if (++index == WRITE_BUFFER_COUNT) {
+                    break;
+                }
+            }
+        }
+        usedBuffers = 0;
+        for (ByteBuffer buffer : writeBuffers) {
+            if (buffer.position() == 0) {
+                break;
+            }
+            buffer.flip();
+            usedBuffers++;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running.get()) {
+            return; // Already stopped
+        }
+        stopAsync(DrainMode.FLUSH);
+        try {
+            awaitStop(1, TimeUnit.SECONDS, new ArrayList<>());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wakes the I/O thread so it flushes what is queued and closes the socket. With DrainMode.DISCARD the
+     * messages not yet encoded are taken off the queue first and reported by awaitStop.
+     */
+    @Override
+    public void stopAsync(DrainMode mode) {
+        if (!running.getAndSet(false)) {
+            return; // Already stopped
+        }
+        if (mode == DrainMode.DISCARD) {
+            takeQueued();
+        }
+        Selector currentSelector = selector;
+        if (currentSelector != null) {
+            currentSelector.wakeup();
+        }
+    }
+
+    /**
+     * Waits for the I/O thread to flush and close the socket. On timeout the messages not yet encoded are
+     * reported undelivered; bytes already in the write buffers are lost with the connection.
+     */
+    @Override
+    public boolean awaitStop(long timeout, TimeUnit unit, Collection<Message> undelivered) throws InterruptedException {
+        Thread thread = ioThread;
+        boolean stopped = thread == null || thread == Thread.currentThread();
+        if (!stopped) {
+            thread.join(Math.max(1, unit.toMillis(timeout)));
+            stopped = !thread.isAlive();
+        }
+        if (!stopped) {
+            takeQueued();
+        }
+        Message message;
+        while ((message = discarded.poll()) != null) {
+            undelivered.add(message.detach());
+            message.recycle();
+        }
+        return stopped;
+    }
+
+    private void takeQueued() {
+        Message message;
+        while ((message = outbound.poll()) != null) {
+            discarded.add(message);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Nothing useful to do while closing
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+}
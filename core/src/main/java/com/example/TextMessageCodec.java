@@ -0,0 +1,38 @@
+package com.example;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames the pipe-delimited Message.serialize() format as UTF-8 with a length prefix.
+ * Kept for peers that only speak CodecVersion.TEXT; allocates on every call.
+ */
+public final class TextMessageCodec implements MessageCodec {
+
+    @Override
+    public CodecVersion version() {
+        return CodecVersion.TEXT;
+    }
+
+    @Override
+    public void encode(Message message, ByteBuffer buffer) {
+        byte[] body = message.serialize().getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < LENGTH_PREFIX_BYTES + body.length) {
+            throw new BufferOverflowException();
+        }
+        buffer.putInt(body.length);
+        buffer.put(body);
+    }
+
+    @Override
+    public Message decode(ByteBuffer buffer) {
+        if (!MessageCodec.hasCompleteFrame(buffer)) {
+            return null;
+        }
+        int bodyLength = buffer.getInt();
+        byte[] body = new byte[bodyLength];
+        buffer.get(body);
+        return Message.deserialize(new String(body, StandardCharsets.UTF_8));
+    }
+}
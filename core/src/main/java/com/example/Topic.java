@@ -0,0 +1,147 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Subscribers of one MessageRouter topic. The subscriber array is copy-on-write: subscribe and unsubscribe
+ * (under the router's lock) replace it, so delivery reads one volatile snapshot and takes no locks.
+ * <p>
+ * Every subscriber gets the same Message instance; messages are immutable, and a pooled envelope is only
+ * recycled after delivery to the last subscriber returned. Large fan-outs can be split into partitions that are
+ * delivered in parallel on a ForkJoinPool; delivery returns once every partition is done. Each subscriber is still
+ * called by one thread per message, but different subscribers of one message run concurrently.
+ */
+final class Topic {
+    private static final Player[] NO_SUBSCRIBERS = new Player[0];
+
+    private final String name;
+    private volatile Player[] subscribers;
+
+    Topic(String name) {
+        this.name = name;
+        this.subscribers = NO_SUBSCRIBERS;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.length;
+    }
+
+    /**
+     * Adds a subscriber; caller holds the router's lock.
+     *
+     * @return false if the player already subscribed
+     */
+    boolean add(Player player) {
+        Player[] current = subscribers;
+        for (Player subscriber : current) {
+            if (subscriber == player) {
+                return false;
+            }
+        }
+        Player[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = player;
+        subscribers = grown;
+        return true;
+    }
+
+    /**
+     * Removes a subscriber; caller holds the router's lock.
+     *
+     * @return false if the player was not subscribed
+     */
+    boolean remove(Player player) {
+        Player[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == player) {
+                Player[] shrunk = new Player[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                subscribers = shrunk;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delivers the message (or, if batch is not null, the batch) to every subscriber.
+     *
+     * @param pool pool for parallel delivery, or null to deliver on the calling thread
+     * @param partitionSize subscribers per parallel partition; smaller fan-outs are delivered on the calling thread
+     * @param dispatcher dispatcher whose mailboxes take the deliveries instead, or null
+     * @return number of subscribers delivered to
+     */
+    int deliver(Message message, List<Message> batch, ForkJoinPool pool, int partitionSize, Dispatcher dispatcher) {
+        Player[] snapshot = subscribers;
+        if (dispatcher != null) {
+            // Queueing is cheap, so nothing to parallelize; subscribers share one copy of a pooled message
+            if (batch != null) {
+                for (Message each : batch) {
+                    dispatch(snapshot, each.detach(), dispatcher);
+                }
+            } else {
+                dispatch(snapshot, message.detach(), dispatcher);
+            }
+        } else if (pool == null || snapshot.length <= partitionSize) {
+            deliver(snapshot, 0, snapshot.length, message, batch);
+        } else {
+            pool.invoke(new Partition(snapshot, 0, snapshot.length, message, batch, partitionSize));
+        }
+        return snapshot.length;
+    }
+
+    private static void dispatch(Player[] subscribers, Message message, Dispatcher dispatcher) {
+        for (Player subscriber : subscribers) {
+            dispatcher.dispatch(subscriber, message);
+        }
+    }
+
+    private static void deliver(Player[] subscribers, int from, int to, Message message, List<Message> batch) {
+        for (int i = from; i < to; i++) {
+            if (batch != null) {
+                subscribers[i].onMessages(batch);
+            } else {
+                subscribers[i].onMessage(message);
+            }
+        }
+    }
+
+    /**
+     * Splits the subscriber range in halves until a part fits in one partition.
+     */
+    private static final class Partition extends RecursiveAction {
+        private final Player[] subscribers;
+        private final int from;
+        private final int to;
+        private final Message message;
+        private final List<Message> batch;
+        private final int partitionSize;
+
+        Partition(Player[] subscribers, int from, int to, Message message, List<Message> batch, int partitionSize) {
+            this.subscribers = subscribers;
+            this.from = from;
+            this.to = to;
+            this.message = message;
+            this.batch = batch;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= partitionSize) {
+                deliver(subscribers, from, to, message, batch);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Partition(subscribers, from, middle, message, batch, partitionSize),
+                    new Partition(subscribers, middle, to, message, batch, partitionSize));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example;
+
+import java.util.Locale;
+
+/**
+ * Channel implementation a LoadGenerator puts between its players.
+ * <ul>
+ * <li>IN_MEMORY - InMemoryMessageChannel with the controller's ChannelConfig</li>
+ * <li>SPSC - SpscRingBufferChannel with the PARK wait strategy</li>
+ * <li>SHARED_MEMORY - SharedMemoryMessageChannel over ring files mapped by both players of a pair</li>
+ * <li>TCP - TcpMessageChannel to a TcpMessageAcceptor on localhost</li>
+ * </ul>
+ */
+public enum Transport {
+    IN_MEMORY,
+    SPSC,
+    SHARED_MEMORY,
+    TCP;
+
+    /**
+     * Parses a command line value such as "in-memory", "spsc", "shared-memory" or "tcp".
+     */
+    public static Transport parse(String value) {
+        return valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
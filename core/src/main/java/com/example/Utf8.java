@@ -0,0 +1,116 @@
+package com.example;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free UTF-8 helpers for the binary codec.
+ * String.getBytes() and new String(bytes) allocate intermediate arrays; these work directly on ByteBuffers.
+ */
+final class Utf8 {
+    private Utf8() {
+    }
+
+    /**
+     * Writes the characters as UTF-8 at the buffer's position.
+     *
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer runs out of room
+     */
+    static int encode(CharSequence chars, ByteBuffer buffer) {
+        int start = buffer.position();
+        int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensure(buffer, 2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                ensure(buffer, 4);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are encoded as '?' like String.getBytes(UTF_8) does
+                buffer.put((byte) '?');
+            } else {
+                ensure(buffer, 3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return buffer.position() - start;
+    }
+
+    private static void ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() < bytes) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /**
+     * Decodes length bytes starting at an absolute index and appends the characters. Does not move the position.
+     */
+    static void appendTo(ByteBuffer buffer, int index, int length, StringBuilder target) {
+        int end = index + length;
+        int i = index;
+        while (i < end) {
+            int b = buffer.get(i++) & 0xFF;
+            if (b < 0x80) {
+                target.append((char) b);
+            } else if (b < 0xE0) {
+                target.append((char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F)));
+            } else if (b < 0xF0) {
+                target.append((char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6)
+                        | (buffer.get(i++) & 0x3F)));
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get(i++) & 0x3F) << 12)
+                        | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F);
+                target.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            }
+        }
+    }
+
+    /**
+     * Compares length UTF-8 bytes at an absolute index with the given characters without decoding to a String.
+     */
+    static boolean contentEquals(ByteBuffer buffer, int index, int length, CharSequence chars) {
+        int end = index + length;
+        int i = index;
+        int c = 0;
+        int charCount = chars.length();
+        while (i < end) {
+            int b = buffer.get(i++) & 0xFF;
+            if (b < 0x80) {
+                if (c >= charCount || chars.charAt(c++) != b) {
+                    return false;
+                }
+            } else if (b < 0xE0) {
+                char decoded = (char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+                if (c >= charCount || chars.charAt(c++) != decoded) {
+                    return false;
+                }
+            } else if (b < 0xF0) {
+                char decoded = (char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6)
+                        | (buffer.get(i++) & 0x3F));
+                if (c >= charCount || chars.charAt(c++) != decoded) {
+                    return false;
+                }
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get(i++) & 0x3F) << 12)
+                        | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F);
+                if (c + 1 >= charCount || chars.charAt(c++) != Character.highSurrogate(codePoint)
+                        || chars.charAt(c++) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+            }
+        }
+        return c == charCount;
+    }
+}
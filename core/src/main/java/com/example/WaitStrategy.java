@@ -0,0 +1,73 @@
+package com.example;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategy used by SpscRingBufferChannel when the ring is empty (consumer) or full (producer).
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU. Lowest latency, burns a full core per waiting thread.
+     */
+    BUSY_SPIN {
+        @Override
+        int idle(int idleCount) {
+            Thread.onSpinWait();
+            return idleCount + 1;
+        }
+    },
+
+    /**
+     * Spins briefly, then yields the CPU to other runnable threads.
+     */
+    YIELD {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return idleCount + 1;
+        }
+    },
+
+    /**
+     * Spins, then yields, then parks until the other side signals or a short timeout elapses.
+     */
+    PARK {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return idleCount + 1;
+        }
+
+        @Override
+        boolean parks(int idleCount) {
+            return idleCount >= SPIN_TRIES + YIELD_TRIES;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Performs one idle step and returns the updated idle counter.
+     * Callers reset the counter to 0 as soon as they make progress.
+     */
+    abstract int idle(int idleCount);
+
+    /**
+     * Checks if the next idle step for the given counter will park the thread.
+     */
+    boolean parks(int idleCount) {
+        return false;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+/**
+ * Unit tests for BinaryMessageCodec, MessageFlyweight and CodecVersion.
+ */
+public class BinaryMessageCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256)}) {
+            BinaryMessageCodec codec = new BinaryMessageCodec();
+            codec.encode(new Message("42", "initiator", "responder", 7), buffer);
+            codec.encode(new Message("héllo € 😀", null, "responder", (Integer) null), buffer);
+            buffer.flip();
+
+            Message first = codec.decode(buffer);
+            assertEquals("42", first.getPayload());
+            assertEquals("initiator", first.getFromPlayerId());
+            assertEquals("responder", first.getToPlayerId());
+            assertEquals(7L, first.getSequence());
+
+            Message second = codec.decode(buffer);
+            assertEquals("héllo € 😀", second.getPayload());
+            assertNull(second.getFromPlayerId());
+            assertNull(second.getSequenceNumber());
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testPartialFrameReturnsNull() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(new Message("1", "a", "b", 1), buffer);
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+
+        assertNull(codec.decode(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testOverflowLeavesBufferUnchanged() {
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        try {
+            new BinaryMessageCodec().encode(new Message("a long payload", "initiator", "responder", 1), buffer);
+            fail("Expected BufferOverflowException");
+        } catch (BufferOverflowException expected) {
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    public void testFlyweightReadsFieldsInPlace() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(new Message("10", "initiator", "responder", 9), buffer);
+        codec.encode(new Message("11", "responder", "initiator", 10), buffer);
+
+        MessageFlyweight flyweight = new MessageFlyweight().wrap(buffer, 0);
+        assertTrue(flyweight.hasSequenceNumber());
+        assertEquals(9L, flyweight.getSequence());
+        assertTrue(flyweight.toPlayerIdEquals("responder"));
+        assertFalse(flyweight.toPlayerIdEquals("responde"));
+        assertTrue(flyweight.payloadEquals("10"));
+        assertEquals("initiator", flyweight.appendFromPlayerId(new StringBuilder()).toString());
+
+        flyweight.wrap(buffer, flyweight.frameLength());
+        assertEquals(10L, flyweight.getSequence());
+        assertEquals("11", flyweight.appendPayload(new StringBuilder()).toString());
+        assertEquals("initiator", flyweight.toMessage().getToPlayerId());
+    }
+
+    @Test
+    public void testTextCodecCompatibility() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        MessageCodec codec = CodecVersion.TEXT.newCodec();
+        codec.encode(new Message("a|b", "p1", "p2", 3), buffer);
+        buffer.flip();
+
+        Message decoded = codec.decode(buffer);
+        assertEquals("a|b", decoded.getPayload());
+        assertEquals(Integer.valueOf(3), decoded.getSequenceNumber());
+    }
+
+    @Test
+    public void testNegotiatePicksHighestCommonVersion() {
+        EnumSet<CodecVersion> both = EnumSet.allOf(CodecVersion.class);
+        EnumSet<CodecVersion> textOnly = EnumSet.of(CodecVersion.TEXT);
+
+        assertEquals(CodecVersion.BINARY, CodecVersion.negotiate(both, both));
+        assertEquals(CodecVersion.TEXT, CodecVersion.negotiate(both, textOnly));
+        assertEquals(both, CodecVersion.fromMask(CodecVersion.toMask(both)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegotiateWithoutCommonVersionFails() {
+        CodecVersion.negotiate(EnumSet.of(CodecVersion.BINARY), EnumSet.of(CodecVersion.TEXT));
+    }
+
+    @Test
+    public void testNumericPayloadRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(new Message(Integer.MAX_VALUE + 1L, "initiator", "responder", 3), buffer);
+        codec.encode(new Message(-5L, "responder", "initiator", 4), buffer);
+
+        MessageFlyweight flyweight = new MessageFlyweight().wrap(buffer, 0);
+        assertTrue(flyweight.hasNumericPayload());
+        assertEquals(2147483648L, flyweight.getNumericPayload());
+        assertTrue(flyweight.payloadEquals("2147483648"));
+        assertFalse(flyweight.payloadEquals("214748364"));
+        assertEquals("2147483648", flyweight.appendPayload(new StringBuilder()).toString());
+
+        buffer.flip();
+        Message first = codec.decode(buffer);
+        assertTrue(first.hasNumericPayload());
+        assertEquals(2147483648L, first.getNumericPayload());
+        assertEquals(3L, first.getSequence());
+        Message second = codec.decode(buffer);
+        assertEquals(-5L, second.getNumericPayload());
+        assertEquals("initiator", second.getToPlayerId());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testCorrelationIdRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(new Message(5L, "initiator", "responder", 1).withCorrelation(77, false), buffer);
+        codec.encode(new Message("6", "responder", "initiator", 2).withCorrelation(77, true), buffer);
+        codec.encode(new Message("plain", "responder", "initiator", 3), buffer);
+
+        MessageFlyweight flyweight = new MessageFlyweight().wrap(buffer, 0);
+        assertEquals(77, flyweight.getCorrelationId());
+        assertFalse(flyweight.isReply());
+        assertEquals(5, flyweight.getNumericPayload());
+
+        buffer.flip();
+        Message request = codec.decode(buffer);
+        assertEquals(77, request.getCorrelationId());
+        assertFalse(request.isReply());
+        Message reply = codec.decode(buffer);
+        assertEquals(77, reply.getCorrelationId());
+        assertTrue(reply.isReply());
+        assertEquals("6", reply.getPayload());
+        Message plain = codec.decode(buffer);
+        assertEquals(0, plain.getCorrelationId());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testPriorityRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(new Message(1L, "a", "b", 1).withPriority(MessagePriority.CONTROL).withCorrelation(9, true),
+                buffer);
+        codec.encode(new Message("bulk", "a", "b", 2).withPriority(MessagePriority.BULK), buffer);
+        codec.encode(new Message("normal", "a", "b", 3), buffer);
+
+        assertEquals(MessagePriority.CONTROL, new MessageFlyweight().wrap(buffer, 0).getPriority());
+        buffer.flip();
+        Message control = codec.decode(buffer);
+        assertEquals(MessagePriority.CONTROL, control.getPriority());
+        assertTrue(control.isReply());
+        assertEquals(MessagePriority.BULK, codec.decode(buffer).getPriority());
+        assertEquals(MessagePriority.NORMAL, codec.decode(buffer).getPriority());
+    }
+}
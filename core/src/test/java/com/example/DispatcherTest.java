@@ -0,0 +1,186 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for Dispatcher class and mailbox delivery through MessageRouter.
+ */
+public class DispatcherTest {
+
+    @Test
+    public void testSlowReceiverDoesNotStallRouting() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastReceived = new CountDownLatch(1);
+        try (Dispatcher dispatcher = new Dispatcher(2, Dispatcher.DEFAULT_THROUGHPUT)) {
+            MessageRouter router = new MessageRouter();
+            router.setDispatcher(dispatcher);
+            router.register("slow", receiver("slow", router, message -> awaitQuietly(release)));
+            router.register("fast", receiver("fast", router, message -> fastReceived.countDown()));
+
+            router.route(new Message("1", "x", "slow"));
+            router.route(new Message("2", "x", "fast"));
+
+            assertTrue("fast receiver waited for the slow one", fastReceived.await(2, TimeUnit.SECONDS));
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testFailingDeliveryIsCountedAndMailboxGoesOn() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        try (Dispatcher dispatcher = new Dispatcher(1, 1)) {
+            dispatcher.setEventSink(EventSink.noOp());
+            MessageRouter router = new MessageRouter();
+            router.setDispatcher(dispatcher);
+            router.register("flaky", receiver("flaky", router, message -> {
+                if (message.getPayload().equals("bad")) {
+                    throw new IllegalStateException("Cannot handle bad");
+                }
+                delivered.countDown();
+            }));
+
+            router.route(new Message("bad", "x", "flaky"));
+            router.route(new Message("good", "x", "flaky"));
+
+            assertTrue(delivered.await(2, TimeUnit.SECONDS));
+            assertEquals(1, dispatcher.getFailedCount());
+        }
+    }
+
+    @Test
+    public void testOrderIsKeptPerPlayer() throws InterruptedException {
+        int senders = 4;
+        int perSender = 2000;
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(senders * perSender);
+        try (Dispatcher dispatcher = new Dispatcher(4, 8)) {
+            MessageRouter router = new MessageRouter();
+            router.setDispatcher(dispatcher);
+            router.register("ordered", receiver("ordered", router, message -> {
+                received.add(message.getFromPlayerId() + ":" + message.getSequence());
+                done.countDown();
+            }));
+
+            List<Thread> threads = new ArrayList<>();
+            for (int s = 0; s < senders; s++) {
+                String sender = "sender-" + s;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < perSender; i++) {
+                        router.route(new Message("x", sender, "ordered", i));
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        long[] next = new long[senders];
+        synchronized (received) {
+            for (String entry : received) {
+                int sender = Integer.parseInt(entry.substring("sender-".length(), entry.indexOf(':')));
+                assertEquals(next[sender]++, Long.parseLong(entry.substring(entry.indexOf(':') + 1)));
+            }
+        }
+    }
+
+    @Test
+    public void testThroughputQuotaInterleavesMailboxes() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(1, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(20);
+        try (Dispatcher dispatcher = new Dispatcher(pool, 4)) {
+            MessageRouter router = new MessageRouter();
+            router.setDispatcher(dispatcher);
+            router.register("quota-a", receiver("quota-a", router, message -> {
+                order.add("a");
+                done.countDown();
+            }));
+            router.register("quota-b", receiver("quota-b", router, message -> {
+                order.add("b");
+                done.countDown();
+            }));
+
+            // Occupy the only worker so both backlogs are queued before the first turn
+            pool.execute(() -> awaitQuietly(blocked));
+            List<Message> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                batch.add(new Message("a", "x", "quota-a"));
+                batch.add(new Message("b", "x", "quota-b"));
+            }
+            router.routeBatch(batch);
+            blocked.countDown();
+
+            assertTrue(done.await(2, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("a", "a", "a", "a", "b", "b", "b", "b", "a", "a", "a", "a",
+                    "b", "b", "b", "b", "a", "a", "b", "b"), order);
+            assertEquals(6, dispatcher.getTurnCount());
+            assertEquals(20, dispatcher.getDeliveredCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testPooledMessageIsCopiedIntoMailbox() throws InterruptedException {
+        MessagePool messagePool = new MessagePool();
+        CountDownLatch received = new CountDownLatch(1);
+        List<Long> payloads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try (Dispatcher dispatcher = new Dispatcher(1, 1)) {
+            MessageRouter router = new MessageRouter();
+            router.setDispatcher(dispatcher);
+            router.register("pooled-target", receiver("pooled-target", router, message -> {
+                awaitQuietly(release);
+                payloads.add(message.getNumericPayload());
+                received.countDown();
+            }));
+
+            Message envelope = messagePool.acquire()
+                    .fill(PlayerIds.intern("x"), PlayerIds.handleOf("pooled-target"), 1)
+                    .fillNumericPayload(7);
+            router.route(envelope);
+            // The channel recycles right after routing; the mailbox must not see the reused envelope
+            envelope.recycle();
+            messagePool.acquire().fill(PlayerIds.intern("x"), PlayerIds.handleOf("pooled-target"), 2)
+                    .fillNumericPayload(8);
+            release.countDown();
+
+            assertTrue(received.await(2, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(7L), payloads);
+        }
+    }
+
+    private interface Handler {
+        void handle(Message message);
+    }
+
+    private static Player receiver(String id, MessageRouter router, Handler handler) {
+        return new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                handler.handle(message);
+            }
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
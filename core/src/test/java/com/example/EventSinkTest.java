@@ -0,0 +1,87 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the EventSink implementations.
+ */
+public class EventSinkTest {
+
+    @Test
+    public void testAsyncSinkWritesEventsInOrderOnClose() {
+        StringWriter out = new StringWriter();
+        AsyncEventSink sink = new AsyncEventSink(out, 64);
+
+        sink.messageSent("initiator", 1, "responder", "1");
+        sink.messageReceived("responder", "initiator", "1");
+        sink.progress("initiator", 1, 1);
+        sink.info("initiator", "Stop condition met! Sending STOP signal.");
+        sink.close();
+
+        String n = System.lineSeparator();
+        assertEquals("[initiator] Sent message #1 to responder: 1" + n
+                + "[responder] Received message from initiator: 1" + n
+                + "[initiator] Progress: sent=1, received=1" + n
+                + "[initiator] Stop condition met! Sending STOP signal." + n, out.toString());
+        assertEquals(0, sink.getDroppedCount());
+    }
+
+    @Test
+    public void testAsyncSinkDropsAfterClose() {
+        AsyncEventSink sink = new AsyncEventSink(new StringWriter(), 8);
+        sink.close();
+        sink.info("initiator", "late");
+        assertEquals(1, sink.getDroppedCount());
+    }
+
+    @Test
+    public void testLevelFilterForwardsOnlyInfo() {
+        List<String> forwarded = new ArrayList<>();
+        EventSink recording = new EventSink() {
+            @Override
+            public void messageSent(String playerId, long sequence, String toPlayerId, CharSequence payload) {
+                forwarded.add("sent");
+            }
+
+            @Override
+            public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+                forwarded.add("received");
+            }
+
+            @Override
+            public void progress(String playerId, long sent, long received) {
+                forwarded.add("progress");
+            }
+
+            @Override
+            public void info(String playerId, String text) {
+                forwarded.add(text);
+            }
+        };
+        EventSink sink = new LevelFilteredEventSink(recording, EventSink.Level.INFO);
+
+        sink.messageSent("a", 1, "b", "1");
+        sink.messageReceived("b", "a", "1");
+        sink.progress("a", 1, 0);
+        sink.info("a", "done");
+
+        assertEquals(1, forwarded.size());
+        assertEquals("done", forwarded.get(0));
+    }
+
+    @Test
+    public void testParseRoundTrips() {
+        for (String spec : new String[] {"console", "off", "console:info", "off:debug"}) {
+            assertEquals(spec, EventSink.parse(spec).toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsUnknownSink() {
+        EventSink.parse("syslog");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for ExecutionModel and InMemoryMessageChannel running on it.
+ */
+public class ExecutionModelTest {
+
+    /**
+     * Plays one game on each of the given number of pairs and checks that all reach the stop condition.
+     */
+    private static void playGames(ExecutionModel model, int pairs) throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch finished = new CountDownLatch(pairs);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            CountDownLatch gameOver = new CountDownLatch(1);
+            Runnable onStop = () -> {
+                if (gameOver.getCount() > 0) {
+                    gameOver.countDown();
+                    finished.countDown();
+                }
+            };
+            Player responder = new Player("responder-" + i, PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, "initiator-" + i, model), null);
+            Player initiator = new Player("initiator-" + i, PlayerRole.INITIATOR,
+                    new InMemoryMessageChannel(router, "responder-" + i, model), onStop);
+            router.register(responder.getPlayerId(), responder);
+            router.register(initiator.getPlayerId(), initiator);
+            players.add(responder);
+            players.add(initiator);
+        }
+        for (Player player : players) {
+            player.start();
+        }
+        for (int i = 0; i < pairs; i++) {
+            players.get(2 * i + 1).send("1", "responder-" + i);
+        }
+
+        assertTrue("All games should finish on " + model, finished.await(10, TimeUnit.SECONDS));
+        for (Player player : players) {
+            player.stop();
+        }
+        model.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWorkerPoolMultiplexesManyChannels() throws InterruptedException {
+        // 400 channels on 2 workers
+        playGames(ExecutionModel.workerPool(2), 200);
+    }
+
+    @Test
+    public void testVirtualThreads() throws InterruptedException {
+        Assume.assumeTrue("Virtual threads need Java 21+", ExecutionModel.isVirtualThreadSupported());
+        playGames(ExecutionModel.virtualThreads(), 200);
+    }
+
+    @Test
+    public void testPlatformThreads() throws InterruptedException {
+        playGames(ExecutionModel.platformThreads(), 5);
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(ExecutionModel.Kind.PLATFORM_THREADS, ExecutionModel.parse("platform").getKind());
+        ExecutionModel pool = ExecutionModel.parse("pool:3");
+        assertEquals(ExecutionModel.Kind.WORKER_POOL, pool.getKind());
+        assertTrue(pool.isMultiplexed());
+        pool.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknown() {
+        ExecutionModel.parse("fibers");
+    }
+}
@@ -0,0 +1,77 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for GameController class.
+ */
+public class GameControllerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMultiGameCompletesEveryGame() {
+        GameSummary summary = new GameController().startMultiGame(50, 4, 10, TimeUnit.SECONDS);
+
+        assertEquals(50, summary.getGames());
+        assertEquals(4, summary.getShards());
+        assertEquals(50, summary.getGamesCompleted());
+        // Each game needs at least 10 sends by the initiator and 10 by the responder
+        assertTrue(summary.getMessagesSent() >= 50 * 20);
+        assertTrue(summary.getMessagesPerSecond() > 0);
+    }
+
+    @Test
+    public void testShardCountNeverExceedsGames() {
+        GameSummary summary = new GameController().startMultiGame(2, 8, 10, TimeUnit.SECONDS);
+        assertEquals(2, summary.getShards());
+        assertEquals(2, summary.getGamesCompleted());
+    }
+
+    @Test
+    public void testResumesFromJournal() throws Exception {
+        try (MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096,
+                JournalSyncPolicy.none())) {
+            // A previous run ended after the initiator's second message
+            journal.append(new Message(1L, "initiator", "responder", 1));
+            journal.append(new Message(2L, "responder", "initiator", 1));
+            journal.append(new Message(3L, "initiator", "responder", 2));
+
+            GameController controller = new GameController(ChannelConfig.defaults(), EventSink.noOp());
+            controller.setJournal(journal);
+            controller.setMessageLimit(5);
+            Thread game = new Thread(controller::start);
+            game.start();
+            game.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse("Resumed game should finish", game.isAlive());
+
+            // The last message is sent again, then the initiator's numbering continues where it left off
+            List<Long> sequences = new ArrayList<>();
+            journal.replay(message -> {
+                if (message.getFromPlayerId().equals("initiator")) {
+                    sequences.add(message.getSequence());
+                }
+            });
+            assertTrue(sequences.toString(), sequences.size() >= 6);
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(sequences.toString(), i < 3 ? new long[] {1, 2, 2}[i] : i, (long) sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testPipelinedGameCompletes() {
+        GameController controller = new GameController(ChannelConfig.defaults(), EventSink.noOp());
+        controller.setMessageLimit(500);
+        GameSummary summary = controller.startPipelined(16);
+
+        assertEquals(1, summary.getGamesCompleted());
+        assertEquals(1000, summary.getMessagesSent());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for GracefulShutdown and DrainReport classes.
+ */
+public class GracefulShutdownTest {
+
+    private static List<Player> startPlayers(MessageRouter router, int count) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Player player = new Player("p" + i, PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, "p" + i), null, EventSink.noOp());
+            router.register(player.getPlayerId(), player);
+            player.start();
+            players.add(player);
+        }
+        return players;
+    }
+
+    @Test
+    public void testStopsAllPlayersWithinDeadline() {
+        List<Player> players = startPlayers(new MessageRouter(), 200);
+
+        DrainReport report = GracefulShutdown.stopAll(players, DrainMode.FLUSH, 5, TimeUnit.SECONDS);
+
+        assertEquals(200, report.getPlayerCount());
+        assertTrue(report.toString(), report.isClean());
+        assertTrue(report.getElapsedNanos() < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testStuckChannelMissesDeadlineAndReportsQueue() {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Player stuck = new Player("stuck", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        router.register("stuck", stuck);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "stuck");
+        Player sender = new Player("sender", PlayerRole.INITIATOR, channel, null, EventSink.noOp());
+        List<Player> players = new ArrayList<>(startPlayers(router, 10));
+        players.add(sender);
+        sender.start();
+        channel.send(new Message("0", "sender", "stuck"));
+        channel.send(new Message("1", "sender", "stuck"));
+
+        try {
+            assertTrue(entered.await(1, TimeUnit.SECONDS));
+            DrainReport report = GracefulShutdown.stopAll(players, DrainMode.FLUSH, 200, TimeUnit.MILLISECONDS);
+
+            assertEquals(1, report.getTimedOutCount());
+            assertEquals(1, report.getUndelivered().size());
+            assertEquals("1", report.getUndelivered().get(0).getPayload());
+            // One overall deadline, not one per player
+            assertTrue(report.toString(), report.getElapsedNanos() < TimeUnit.SECONDS.toNanos(1));
+        } catch (InterruptedException e) {
+            fail("Interrupted");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testPendingRequestsFailOnStop() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        // Nobody answers: requests go to a player that is not registered
+        Player player = new Player("requester", PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, "requester"), null, EventSink.noOp());
+        router.register("requester", player);
+        player.start();
+        CompletableFuture<Message> reply = player.request(1, "nobody");
+
+        GracefulShutdown.stopAll(Collections.singletonList(player), DrainMode.DISCARD, 1, TimeUnit.SECONDS);
+
+        try {
+            reply.get(1, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        } catch (java.util.concurrent.TimeoutException e) {
+            fail("Request still pending after stop");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for HandleMap.
+ */
+public class HandleMapTest {
+
+    @Test
+    public void testPutGetReplaceRemove() {
+        HandleMap<String> map = new HandleMap<>();
+        assertNull(map.get(3));
+        assertNull(map.get(PlayerIds.NO_HANDLE));
+
+        assertNull(map.put(3, "a"));
+        assertNull(map.put(1_000_000, "b"));
+        assertEquals("a", map.put(3, "c"));
+        assertEquals("c", map.get(3));
+        assertEquals("b", map.get(1_000_000));
+        assertEquals(2, map.size());
+
+        assertEquals("c", map.remove(3));
+        assertNull(map.remove(3));
+        assertNull(map.get(3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testChurnKeepsEntriesAndDropsRemovedOnes() {
+        HandleMap<Integer> map = new HandleMap<>();
+        // Far more handles pass through the map than it ever holds at once
+        for (int handle = 0; handle < 100_000; handle++) {
+            map.put(handle, handle);
+            if (handle >= 10) {
+                assertEquals(Integer.valueOf(handle - 10), map.remove(handle - 10));
+            }
+        }
+        assertEquals(10, map.size());
+        for (int handle = 0; handle < 100_000; handle++) {
+            assertEquals(handle >= 100_000 - 10 ? Integer.valueOf(handle) : null, map.get(handle));
+        }
+        List<Integer> values = new ArrayList<>();
+        map.forEach(values::add);
+        values.sort(null);
+        assertEquals(10, values.size());
+        assertEquals(Integer.valueOf(100_000 - 10), values.get(0));
+    }
+}
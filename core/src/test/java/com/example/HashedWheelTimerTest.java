@@ -0,0 +1,65 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for HashedWheelTimer class.
+ */
+public class HashedWheelTimerTest {
+
+    @Test
+    public void testTimeoutFiresAfterDelay() throws InterruptedException {
+        try (HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            long start = System.nanoTime();
+            // Longer than one wheel round, so the timeout waits out a round in its bucket
+            HashedWheelTimer.Timeout timeout = timer.schedule(fired::countDown, 60, TimeUnit.MILLISECONDS);
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(60));
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    public void testCancelledTimeoutNeverFires() throws InterruptedException {
+        try (HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8)) {
+            AtomicInteger fired = new AtomicInteger();
+            HashedWheelTimer.Timeout cancelled = timer.schedule(fired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+            CountDownLatch later = new CountDownLatch(1);
+            timer.schedule(later::countDown, 40, TimeUnit.MILLISECONDS);
+
+            assertTrue(cancelled.cancel());
+            assertTrue(later.await(2, TimeUnit.SECONDS));
+            assertEquals(0, fired.get());
+            assertTrue(cancelled.isCancelled());
+        }
+    }
+
+    @Test
+    public void testFailingTaskIsCountedAndTimerGoesOn() throws InterruptedException {
+        try (HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8)) {
+            timer.setEventSink(EventSink.noOp());
+            timer.schedule(() -> {
+                throw new IllegalStateException("task failed");
+            }, 10, TimeUnit.MILLISECONDS);
+            CountDownLatch later = new CountDownLatch(1);
+            timer.schedule(later::countDown, 30, TimeUnit.MILLISECONDS);
+
+            assertTrue(later.await(2, TimeUnit.SECONDS));
+            assertEquals(1, timer.getFailedCount());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleAfterCloseFails() {
+        HashedWheelTimer timer = new HashedWheelTimer();
+        timer.close();
+        timer.schedule(() -> { }, 1, TimeUnit.SECONDS);
+    }
+}
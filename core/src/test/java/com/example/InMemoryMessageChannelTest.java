@@ -0,0 +1,436 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for InMemoryMessageChannel class.
+ */
+public class InMemoryMessageChannelTest {
+
+    @Test
+    public void testMessageDelivery() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch messageReceived = new CountDownLatch(1);
+
+        // Create mock player that counts down when it receives a message
+        Player mockPlayer = new Player("target", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "sender"), null) {
+            @Override
+            public void onMessage(Message message) {
+                super.onMessage(message);
+                messageReceived.countDown();
+            }
+        };
+
+        router.register("target", mockPlayer);
+
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target");
+        mockPlayer.start();
+        channel.start();
+
+        Message msg = new Message("1", "sender", "target");
+        channel.send(msg);
+
+        // Wait for message to be delivered
+        assertTrue("Message should be delivered within 1 second",
+                messageReceived.await(1, TimeUnit.SECONDS));
+
+        channel.stop();
+        mockPlayer.stop();
+    }
+
+    @Test
+    public void testBatchedDeliveryWithLinger() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch allReceived = new CountDownLatch(10);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        Player target = new Player("target", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "sender"), null) {
+            @Override
+            public void onMessage(Message message) {
+                received.add(message.getPayload());
+                allReceived.countDown();
+            }
+        };
+        router.register("target", target);
+
+        // Linger is long enough for all sends to join the first batch
+        ChannelConfig config = ChannelConfig.defaults()
+                .withMaxBatchSize(10)
+                .withLinger(2, TimeUnit.SECONDS);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target", config);
+        channel.start();
+        for (int i = 1; i <= 10; i++) {
+            channel.send(new Message(String.valueOf(i), "sender", "target"));
+        }
+
+        assertTrue("Batch should be delivered once full", allReceived.await(1, TimeUnit.SECONDS));
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            expected.add(String.valueOf(i));
+        }
+        assertEquals(expected, received);
+        assertEquals(1, channel.getBatchStats().getBatchCount());
+        assertEquals(10, channel.getBatchStats().getMaxBatchSize());
+
+        channel.stop();
+    }
+
+    /**
+     * Starts a capacity-2 channel whose target blocks in onMessage until released, with one message in flight,
+     * so the queue can be filled deterministically.
+     */
+    private static InMemoryMessageChannel blockedChannel(MessageRouter router, OverflowPolicy policy,
+            List<String> received, CountDownLatch release) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(message.getPayload());
+            }
+        };
+        router.register("target", target);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target",
+                ChannelConfig.defaults().withCapacity(2, policy));
+        channel.start();
+        channel.send(new Message("0", "sender", "target"));
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+        return channel;
+    }
+
+    @Test
+    public void testDropNewestAndOffer() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.DROP_NEWEST,
+                received, release);
+
+        channel.send(new Message("1", "sender", "target"));
+        channel.send(new Message("2", "sender", "target"));
+        channel.send(new Message("3", "sender", "target"));
+        assertFalse(channel.offer(new Message("4", "sender", "target")));
+        assertEquals(1, channel.getDroppedCount());
+        assertEquals(1, channel.getRejectedCount());
+
+        release.countDown();
+        channel.stop();
+        assertEquals(Arrays.asList("0", "1", "2"), received);
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.DROP_OLDEST,
+                received, release);
+
+        for (int i = 1; i <= 4; i++) {
+            channel.send(new Message(String.valueOf(i), "sender", "target"));
+        }
+        assertEquals(2, channel.getDroppedCount());
+
+        release.countDown();
+        channel.stop();
+        assertEquals(Arrays.asList("0", "3", "4"), received);
+    }
+
+    @Test
+    public void testFailFast() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.FAIL_FAST,
+                Collections.synchronizedList(new ArrayList<>()), release);
+
+        channel.send(new Message("1", "sender", "target"));
+        channel.send(new Message("2", "sender", "target"));
+        try {
+            channel.send(new Message("3", "sender", "target"));
+            fail("Expected ChannelFullException");
+        } catch (ChannelFullException expected) {
+            assertEquals(1, channel.getRejectedCount());
+        }
+
+        release.countDown();
+        channel.stop();
+    }
+
+    @Test
+    public void testReplyToFullChannelDoesNotStopDelivery() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel replies = blockedChannel(router, OverflowPolicy.FAIL_FAST, received, release);
+        CountDownLatch handled = new CountDownLatch(5);
+        Player responder = new Player("responder", PlayerRole.RESPONDER, replies, null, EventSink.noOp()) {
+            @Override
+            public void onMessage(Message message) {
+                super.onMessage(message);
+                handled.countDown();
+            }
+        };
+        router.register("responder", responder);
+        InMemoryMessageChannel inbound = new InMemoryMessageChannel(router, "responder");
+        inbound.start();
+
+        // Two replies fill the blocked channel, the other three fail fast and are dropped
+        for (int i = 1; i <= 5; i++) {
+            inbound.send(new Message(i, "target", "responder", i));
+        }
+        assertTrue(handled.await(1, TimeUnit.SECONDS));
+        assertTrue(inbound.isRunning());
+        assertEquals(2, responder.getSentCount());
+
+        release.countDown();
+        inbound.stop();
+        replies.stop();
+        assertEquals(Arrays.asList("0", "2", "3"), received);
+    }
+
+    @Test
+    public void testFailingReceiverDoesNotStopConsumer() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        router.register("target", new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"),
+                null) {
+            @Override
+            public void onMessage(Message message) {
+                if (message.getPayload().equals("bad")) {
+                    throw new IllegalStateException("Cannot handle " + message.getPayload());
+                }
+                received.add(message.getPayload());
+            }
+        });
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target");
+        channel.setEventSink(EventSink.noOp());
+        channel.start();
+
+        channel.send(new Message("1", "sender", "target"));
+        channel.send(new Message("bad", "sender", "target"));
+        channel.send(new Message("2", "sender", "target"));
+        channel.stop();
+
+        assertEquals(Arrays.asList("1", "2"), received);
+        assertEquals(1, channel.getFailedCount());
+    }
+
+    @Test
+    public void testCreditsReturnedThroughRouter() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch allReceived = new CountDownLatch(20);
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                allReceived.countDown();
+            }
+        };
+        InMemoryMessageChannel senderChannel = new InMemoryMessageChannel(router, "target",
+                ChannelConfig.defaults().withCapacity(2, OverflowPolicy.CREDIT));
+        Player sender = new Player("sender", PlayerRole.INITIATOR, senderChannel, null);
+        router.register("target", target);
+        router.register("sender", sender);
+        sender.start();
+
+        // Only two credits: the remaining sends proceed as the receiver grants credits back via the router
+        for (int i = 0; i < 20; i++) {
+            senderChannel.send(new Message(String.valueOf(i), "sender", "target"));
+        }
+        assertTrue(allReceived.await(2, TimeUnit.SECONDS));
+        assertEquals(0, senderChannel.getDroppedCount());
+
+        sender.stop();
+    }
+
+    @Test
+    public void testStopPayloadIsDeliveredLikeAnyOther() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch allReceived = new CountDownLatch(2);
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                allReceived.countDown();
+            }
+        };
+        router.register("target", target);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target");
+        channel.start();
+
+        channel.send(new Message("STOP", "sender", "target"));
+        channel.send(new Message("after", "sender", "target"));
+
+        assertTrue("A STOP payload must not end the channel", allReceived.await(1, TimeUnit.SECONDS));
+        assertTrue(channel.isRunning());
+        channel.stop();
+    }
+
+    @Test
+    public void testDiscardReportsQueuedMessages() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.BLOCK, received, release);
+        channel.send(new Message("1", "sender", "target"));
+        channel.send(new Message("2", "sender", "target"));
+
+        channel.stopAsync(DrainMode.DISCARD);
+        release.countDown();
+        List<Message> undelivered = new ArrayList<>();
+        assertTrue(channel.awaitStop(1, TimeUnit.SECONDS, undelivered));
+
+        assertEquals(Collections.singletonList("0"), received);
+        assertEquals(Arrays.asList("1", "2"), payloads(undelivered));
+    }
+
+    @Test
+    public void testFlushDeliversQueuedMessages() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.BLOCK, received, release);
+        channel.send(new Message("1", "sender", "target"));
+
+        channel.stopAsync(DrainMode.FLUSH);
+        assertFalse(channel.isRunning());
+        release.countDown();
+        List<Message> undelivered = new ArrayList<>();
+        assertTrue(channel.awaitStop(1, TimeUnit.SECONDS, undelivered));
+
+        assertEquals(Arrays.asList("0", "1"), received);
+        assertTrue(undelivered.isEmpty());
+    }
+
+    @Test
+    public void testAwaitStopTimeoutReportsQueue() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryMessageChannel channel = blockedChannel(new MessageRouter(), OverflowPolicy.BLOCK, received, release);
+        channel.send(new Message("1", "sender", "target"));
+        channel.send(new Message("2", "sender", "target"));
+
+        // The receiver never returns in time, so nothing queued behind it can be delivered
+        channel.stopAsync(DrainMode.FLUSH);
+        List<Message> undelivered = new ArrayList<>();
+        assertFalse(channel.awaitStop(50, TimeUnit.MILLISECONDS, undelivered));
+        assertEquals(Arrays.asList("1", "2"), payloads(undelivered));
+        release.countDown();
+    }
+
+    @Test
+    public void testWorkerPoolChannelFlushesOnStop() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                received.add(message.getPayload());
+            }
+        };
+        router.register("target", target);
+        ExecutionModel pool = ExecutionModel.workerPool(1);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target", pool);
+        channel.start();
+        for (int i = 0; i < 100; i++) {
+            channel.send(new Message(String.valueOf(i), "sender", "target"));
+        }
+
+        channel.stopAsync(DrainMode.FLUSH);
+        List<Message> undelivered = new ArrayList<>();
+        assertTrue(channel.awaitStop(1, TimeUnit.SECONDS, undelivered));
+        assertEquals(100, received.size());
+        assertTrue(undelivered.isEmpty());
+        pool.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues bulk messages and then control messages while the consumer is held on a first message, releases it,
+     * and returns for each control message how many bulk messages were delivered before it.
+     */
+    private static int[] bulkDeliveredBeforeControl(ChannelConfig config, int bulkCount, int controlCount)
+            throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<MessagePriority> delivered = Collections.synchronizedList(new ArrayList<>());
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                if (message.getPayload().equals("gate")) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                }
+                delivered.add(message.getPriority());
+            }
+        };
+        router.register("target", target);
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target", config);
+        channel.start();
+        channel.send(new Message("gate", "sender", "target"));
+        assertTrue(entered.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < bulkCount; i++) {
+            channel.send(new Message("bulk", "sender", "target").withPriority(MessagePriority.BULK));
+        }
+        for (int i = 0; i < controlCount; i++) {
+            channel.send(new Message("control", "sender", "target").withPriority(MessagePriority.CONTROL));
+        }
+        release.countDown();
+        channel.stop();
+
+        assertEquals(bulkCount + controlCount, delivered.size());
+        int[] bulkBefore = new int[controlCount];
+        int bulk = 0;
+        int control = 0;
+        for (MessagePriority priority : delivered) {
+            if (priority == MessagePriority.BULK) {
+                bulk++;
+            } else {
+                bulkBefore[control++] = bulk;
+            }
+        }
+        return bulkBefore;
+    }
+
+    @Test
+    public void testControlLaneBypassesBulkBacklog() throws InterruptedException {
+        int bulkCount = 1000;
+        int controlCount = 20;
+        int controlWeight = 8;
+        int bulkWeight = 1;
+
+        // A single FIFO makes every control message wait for the whole backlog
+        int[] fifo = bulkDeliveredBeforeControl(ChannelConfig.defaults(), bulkCount, controlCount);
+        for (int bulkBefore : fifo) {
+            assertEquals(bulkCount, bulkBefore);
+        }
+
+        // With lanes, control message i waits at most for the bulk share of the rounds up to its own
+        int[] lanes = bulkDeliveredBeforeControl(
+                ChannelConfig.defaults().withPriorityLanes(controlWeight, 4, bulkWeight), bulkCount, controlCount);
+        for (int i = 0; i < controlCount; i++) {
+            int bound = (i / controlWeight + 1) * bulkWeight;
+            assertTrue("control " + i + " after " + lanes[i] + " bulk", lanes[i] <= bound);
+        }
+    }
+
+    private static List<String> payloads(List<Message> messages) {
+        List<String> payloads = new ArrayList<>();
+        for (Message message : messages) {
+            payloads.add(message.getPayload());
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for LatencyHistogram class.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertEquals(20, histogram.getCount());
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(20, histogram.getValueAtPercentile(100));
+        assertEquals(10.5, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1000; v <= 1_000_000; v += 1000) {
+            histogram.record(v);
+        }
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue("p50 was " + p50, Math.abs(p50 - 500_000) <= 500_000 / 16);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(1_000_000, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketBoundsCoverEveryValue() {
+        long[] values = {0, 31, 32, 33, 63, 64, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long v : values) {
+            int index = LatencyHistogram.bucketIndex(v);
+            assertTrue("upper bound below value " + v, LatencyHistogram.bucketUpperBound(index) >= v);
+            if (index > 0) {
+                assertTrue("previous bucket contains " + v, LatencyHistogram.bucketUpperBound(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testPercentileDistributionInHdrHistogramFormat() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 4; i++) {
+            histogram.record(i * 1000);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(bytes, true), 1000.0);
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+
+        assertTrue(lines[0].trim().startsWith("Value"));
+        assertTrue(lines[0].contains("1/(1-Percentile)"));
+        // One row per non-empty bucket; the last one is the 100th percentile, without the 1/(1-p) column
+        String[] first = lines[2].trim().split("\\s+");
+        assertEquals(4, first.length);
+        assertEquals(0.25, Double.parseDouble(first[1]), 0.0);
+        assertEquals(1.0, Double.parseDouble(first[0]), 1000.0 / 16 / 1000);
+        String[] last = lines[5].trim().split("\\s+");
+        assertEquals(3, last.length);
+        assertEquals(1.0, Double.parseDouble(last[1]), 0.0);
+        assertEquals("4", last[2]);
+        assertTrue(lines[6].startsWith("#[Mean"));
+        assertTrue(lines[7].contains("Total count    =            4"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for LoadGenerator and LoadScenario classes.
+ */
+public class LoadGeneratorTest {
+
+    private static LoadReport run(LoadScenario scenario) {
+        return new LoadGenerator(new MessageRouter(), ChannelConfig.defaults(), scenario).run();
+    }
+
+    @Test
+    public void testClosedLoopSendsExactlyTheMessageCount() {
+        LoadReport report = run(LoadScenario.defaults().withPairs(3).withMessages(1000));
+
+        assertEquals(1000, report.getIssuedCount());
+        assertEquals(1000, report.getCompletedCount());
+        assertEquals(0, report.getFailedCount());
+        assertEquals(1000, report.getResponseTimes().getCount());
+        assertTrue(report.getRequestsPerSecond() > 0);
+    }
+
+    @Test
+    public void testOpenLoopKeepsToTheSchedule() {
+        // 200 requests at 2000/s take at least 100 ms however fast the replies are
+        LoadReport report = run(LoadScenario.defaults().withPairs(2).withMessages(200).withRate(2000));
+
+        assertEquals(200, report.getCompletedCount());
+        assertTrue("elapsed " + report.getElapsedNanos(), report.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(99));
+        // Response time counts from the scheduled start, so it is never below the service time
+        assertTrue(report.getResponseTimes().getMax() >= report.getServiceTimes().getMax());
+    }
+
+    @Test
+    public void testDurationEndsRunWithoutMessageCount() {
+        LoadReport report = run(LoadScenario.defaults().withDuration(200, TimeUnit.MILLISECONDS).withMessages(0));
+
+        assertTrue(report.getCompletedCount() > 0);
+        assertEquals(report.getIssuedCount(), report.getCompletedCount());
+        assertTrue(report.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testEveryTransportCarriesTextPayloads() {
+        for (Transport transport : Transport.values()) {
+            LoadReport report = run(LoadScenario.defaults().withTransport(transport).withPayloadBytes(256)
+                    .withMessages(200));
+            assertEquals("completed over " + transport, 200, report.getCompletedCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testScenarioNeedsCountOrDuration() {
+        LoadScenario.defaults().withMessages(0);
+    }
+
+    @Test
+    public void testTransportParse() {
+        assertEquals(Transport.SHARED_MEMORY, Transport.parse("shared-memory"));
+        assertEquals(Transport.IN_MEMORY, Transport.parse("in-memory"));
+    }
+}
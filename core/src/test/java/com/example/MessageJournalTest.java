@@ -0,0 +1,170 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingChannel;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for MessageJournal and JournalRecovery classes.
+ */
+public class MessageJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendRollAndReplay() throws Exception {
+        Path dir = folder.newFolder().toPath();
+        try (MessageJournal journal = new MessageJournal(dir, 1024, JournalSyncPolicy.everyMessages(10))) {
+            for (int i = 1; i <= 100; i++) {
+                journal.append(new Message(String.valueOf(i), "a", "b", i));
+            }
+            assertTrue("segments rolled", journal.getSegmentIndex() > 0);
+            assertEquals(100, journal.getAppendedCount());
+
+            List<Message> replayed = new ArrayList<>();
+            journal.replay(replayed::add);
+            assertEquals(100, replayed.size());
+            assertEquals("1", replayed.get(0).getPayload());
+            assertEquals(100, replayed.get(99).getSequence());
+        }
+
+        // Reopening continues after the last record
+        try (MessageJournal journal = new MessageJournal(dir, 1024, JournalSyncPolicy.none())) {
+            journal.appendAll(Arrays.asList(new Message("101", "a", "b", 101), new Message("102", "a", "b", 102)));
+            List<Message> replayed = new ArrayList<>();
+            journal.replay(replayed::add);
+            assertEquals(102, replayed.size());
+            assertEquals("102", replayed.get(101).getPayload());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws Exception {
+        Path dir = folder.newFolder().toPath();
+        try (MessageJournal journal = new MessageJournal(dir, 4096, JournalSyncPolicy.none())) {
+            journal.append(new Message("1", "a", "b", 1));
+            journal.append(new Message("2", "a", "b", 2));
+        }
+        // Corrupt the second record's payload, as if the crash hit mid-write
+        File segment = dir.resolve(String.format("journal-%020d.log", 0)).toFile();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            int firstRecord = file.readInt() + MessageCodec.LENGTH_PREFIX_BYTES + 4;
+            file.seek(firstRecord + MessageCodec.LENGTH_PREFIX_BYTES + 2);
+            file.write(0x7f);
+        }
+
+        try (MessageJournal journal = new MessageJournal(dir, 4096, JournalSyncPolicy.none())) {
+            List<Message> replayed = new ArrayList<>();
+            journal.replay(replayed::add);
+            assertEquals(1, replayed.size());
+
+            journal.append(new Message("3", "a", "b", 3));
+            replayed.clear();
+            journal.replay(replayed::add);
+            assertEquals(2, replayed.size());
+            assertEquals("3", replayed.get(1).getPayload());
+        }
+    }
+
+    @Test
+    public void testIntervalSync() throws Exception {
+        try (MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096,
+                JournalSyncPolicy.interval(5, TimeUnit.MILLISECONDS))) {
+            journal.append(new Message("1", "a", "b", 1));
+            Thread.sleep(20);
+            journal.sync();
+        }
+    }
+
+    @Test
+    public void testRecoveryRebuildsCounters() throws Exception {
+        try (MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096,
+                JournalSyncPolicy.none())) {
+            journal.append(new Message("1", "initiator", "responder", 1));
+            journal.append(new Message("2", "responder", "initiator", 1));
+            journal.append(new Message("3", "initiator", "responder", 2));
+            // Re-sent after an earlier recovery
+            journal.append(new Message("3", "initiator", "responder", 2));
+
+            JournalRecovery recovery = JournalRecovery.recover(journal);
+            assertEquals(3, recovery.getMessageCount());
+            assertEquals(2, recovery.getSentCount("initiator"));
+            assertEquals(1, recovery.getSentCount("responder"));
+            assertEquals(1, recovery.getReceivedCount("initiator"));
+            assertEquals(1, recovery.getReceivedCount("responder"));
+            assertEquals("3", recovery.getLastMessage().getPayload());
+        }
+    }
+
+    @Test
+    public void testRecoveryNumbersEachTargetSeparately() throws Exception {
+        try (MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096,
+                JournalSyncPolicy.none())) {
+            // The hub numbers its messages to each spoke from 1
+            journal.append(new Message("1", "hub", "spoke-1", 1));
+            journal.append(new Message("1", "hub", "spoke-2", 1));
+            journal.append(new Message("2", "hub", "spoke-1", 2));
+            journal.append(new Message("2", "hub", "spoke-2", 2));
+            journal.append(new Message("2", "hub", "spoke-2", 2));
+
+            JournalRecovery recovery = JournalRecovery.recover(journal);
+            assertEquals(4, recovery.getMessageCount());
+            assertEquals(4, recovery.getSentCount("hub"));
+        }
+    }
+
+    @Test
+    public void testRestoreContinuesEachTargetsSequence() throws Exception {
+        try (MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096,
+                JournalSyncPolicy.none())) {
+            journal.append(new Message("1", "hub", "spoke-1", 1));
+            journal.append(new Message("1", "hub", "spoke-2", 1));
+            journal.append(new Message("2", "hub", "spoke-2", 2));
+            journal.append(new Message("3", "hub", "spoke-2", 3));
+
+            JournalRecovery recovery = JournalRecovery.recover(journal);
+            assertEquals(Long.valueOf(1), recovery.getLastSequences("hub").get("spoke-1"));
+            assertEquals(Long.valueOf(3), recovery.getLastSequences("hub").get("spoke-2"));
+            assertTrue(recovery.getLastSequences("spoke-1").isEmpty());
+
+            List<Message> sent = new ArrayList<>();
+            Player hub = new Player("hub", PlayerRole.RESPONDER, recordingChannel(sent), null,
+                    EventSink.noOp());
+            hub.restore(recovery.getSentCount("hub"), 0, recovery.getLastSequences("hub"));
+            hub.send("a", "spoke-1");
+            hub.send("b", "spoke-2");
+            hub.send("c", "spoke-3");
+
+            // Each spoke's window sees its own numbers continue; a new spoke starts at 1
+            assertEquals(2, sent.get(0).getSequence());
+            assertEquals(4, sent.get(1).getSequence());
+            assertEquals(1, sent.get(2).getSequence());
+            assertEquals(7, hub.getSentCount());
+        }
+    }
+
+    @Test
+    public void testSyncPolicyParse() {
+        assertEquals("none", JournalSyncPolicy.parse("none").toString());
+        assertEquals(8, JournalSyncPolicy.parse("every:8").getMessages());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), JournalSyncPolicy.parse("interval:50").getIntervalNanos());
+        assertEquals("interval:50", JournalSyncPolicy.parse("interval:50").toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAppendAfterClose() throws Exception {
+        MessageJournal journal = new MessageJournal(folder.newFolder().toPath(), 4096, JournalSyncPolicy.none());
+        journal.close();
+        journal.append(new Message("1", "a", "b", 1));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for MessagePool class and pooled Message envelopes.
+ */
+public class MessagePoolTest {
+
+    @Test
+    public void testRecycledEnvelopeIsReused() {
+        MessagePool pool = new MessagePool();
+        int from = PlayerIds.intern("pool-a");
+        int to = PlayerIds.intern("pool-b");
+
+        Message message = pool.acquire().fill(from, to, 7);
+        message.payloadBuffer().append(42);
+        assertTrue(message.isPooled());
+        assertEquals("pool-a", message.getFromPlayerId());
+        assertEquals("pool-b", message.getToPlayerId());
+        assertEquals(7, message.getSequence());
+        assertEquals("42", message.getPayload());
+        assertEquals(1, pool.getOutstandingCount());
+
+        message.recycle();
+        assertEquals(0, pool.getOutstandingCount());
+        Message again = pool.acquire().fill(to, from, 8);
+        assertSame(message, again);
+        assertEquals(0, again.getPayloadChars().length());
+        assertEquals("pool-b", again.getFromPlayerId());
+        assertEquals(1, pool.getAllocatedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleRecycleFails() {
+        MessagePool pool = new MessagePool();
+        Message message = pool.acquire();
+        message.recycle();
+        message.recycle();
+    }
+
+    @Test
+    public void testPooledPayloadIsEncoded() {
+        MessagePool pool = new MessagePool();
+        Message message = pool.acquire().fill(PlayerIds.intern("pool-a"), PlayerIds.intern("pool-b"), 3);
+        message.payloadBuffer().append(123);
+
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        codec.encode(message, buffer);
+        buffer.flip();
+        Message decoded = codec.decode(buffer);
+        assertEquals("123", decoded.getPayload());
+        assertEquals("pool-a|pool-b|3|123", message.serialize());
+        assertFalse(message.isStopMessage());
+    }
+
+    @Test
+    public void testLeakIsReported() throws InterruptedException {
+        MessagePool pool = new MessagePool(8, true);
+        pool.acquire();
+        // The lost envelope is only noticed after a collection
+        for (int i = 0; i < 50 && pool.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.checkLeaks();
+        }
+        assertEquals(1, pool.getLeakCount());
+
+        Message recycled = pool.acquire();
+        recycled.recycle();
+        recycled = null;
+        System.gc();
+        Thread.sleep(10);
+        assertEquals(0, pool.checkLeaks());
+    }
+
+    @Test
+    public void testPooledGameRecyclesEveryEnvelope() throws InterruptedException {
+        MessagePool pool = new MessagePool(16, true);
+        MessageRouter router = new MessageRouter();
+        CountDownLatch done = new CountDownLatch(1);
+        Player responder = new Player("pooled-responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "pooled-initiator"), null, EventSink.noOp());
+        Player initiator = new Player("pooled-initiator", PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, "pooled-responder"), done::countDown, EventSink.noOp());
+        responder.setMessagePool(pool);
+        initiator.setMessagePool(pool);
+        router.register("pooled-responder", responder);
+        router.register("pooled-initiator", initiator);
+        responder.start();
+        initiator.start();
+
+        initiator.send("1", "pooled-responder");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        initiator.stop();
+        responder.stop();
+
+        assertTrue(initiator.getSentCount() >= 10);
+        assertTrue("envelopes were reused", pool.getAllocatedCount() <= 4);
+        assertEquals(0, pool.getOutstandingCount());
+        assertEquals(0, pool.getLeakCount());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for MessageRouter class.
+ */
+public class MessageRouterTest {
+
+    @Test
+    public void testRouteMessage() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch messageReceived = new CountDownLatch(1);
+
+        // Create player
+        Player player = new Player("player1", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "sender"), null) {
+            @Override
+            public void onMessage(Message message) {
+                // Override to just receive, not send response
+                System.out.println(String.format("[%s] Received message from %s: %s",
+                        getPlayerId(), message.getFromPlayerId(), message.getPayload()));
+                messageReceived.countDown();
+            }
+        };
+
+        router.register("player1", player);
+
+        Message msg = new Message("1", "sender", "player1");
+        router.route(msg);
+
+        // Wait for message to be processed (router.route is synchronous)
+        assertTrue("Message should be routed immediately",
+                messageReceived.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRouteBatchGroupsByTargetInOrder() {
+        MessageRouter router = new MessageRouter();
+        List<List<String>> batchesA = new ArrayList<>();
+        List<List<String>> batchesB = new ArrayList<>();
+        router.register("a", recordingPlayer("a", router, batchesA));
+        router.register("b", recordingPlayer("b", router, batchesB));
+
+        router.routeBatch(Arrays.asList(
+                new Message("1", "x", "a"),
+                new Message("2", "x", "b"),
+                new Message("3", "x", "a"),
+                new Message("4", "x", "unknown"),
+                new Message("5", "x", "b")));
+
+        assertEquals(Arrays.asList(Arrays.asList("1", "3")), batchesA);
+        assertEquals(Arrays.asList(Arrays.asList("2", "5")), batchesB);
+    }
+
+    @Test
+    public void testRouteByHandleGrowsAndUnregisters() {
+        MessageRouter router = new MessageRouter();
+        List<List<String>> batches = new ArrayList<>();
+        // Enough registrations to grow the handle table several times
+        for (int i = 0; i < 100; i++) {
+            router.register("grow-" + i, recordingPlayer("grow-" + i, router, new ArrayList<>()));
+        }
+        router.register("late", recordingPlayer("late", router, batches));
+
+        int handle = PlayerIds.handleOf("late");
+        Message byHandle = new Message("1", PlayerIds.intern("x"), handle, 1);
+        assertEquals("late", byHandle.getToPlayerId());
+        router.routeBatch(Arrays.asList(byHandle));
+        router.routeBatch(Arrays.asList(new Message("2", "x", "late")));
+        assertEquals(2, batches.size());
+
+        router.unregister("late");
+        router.routeBatch(Arrays.asList(byHandle));
+        assertEquals(2, batches.size());
+        assertEquals(1, router.getMissCount());
+    }
+
+    @Test
+    public void testMessageResolvesHandleRegisteredLater() {
+        Message message = new Message("1", "x", "registered-after-send-" + System.nanoTime());
+        assertEquals(PlayerIds.NO_HANDLE, message.getToHandle());
+        int handle = PlayerIds.intern(message.getToPlayerId());
+        assertEquals(handle, message.getToHandle());
+        assertSame(message.getToPlayerId(), PlayerIds.idOf(handle));
+        assertEquals(PlayerIds.NO_HANDLE, Message.stopMessage("x").getToHandle());
+    }
+
+    @Test
+    public void testTopicDeliversSharedMessageToEverySubscriber() {
+        MessageRouter router = new MessageRouter();
+        List<List<String>> batchesA = new ArrayList<>();
+        List<List<String>> batchesB = new ArrayList<>();
+        router.register("sub-a", recordingPlayer("sub-a", router, batchesA));
+        router.register("sub-b", recordingPlayer("sub-b", router, batchesB));
+        assertTrue(router.subscribe("state", "sub-a"));
+        assertTrue(router.subscribe("state", "sub-b"));
+        assertFalse(router.subscribe("state", "sub-b"));
+        assertEquals(2, router.getSubscriberCount("state"));
+
+        router.routeBatch(Arrays.asList(new Message("1", "x", "state"), new Message("2", "x", "state")));
+        assertEquals(Arrays.asList(Arrays.asList("1", "2")), batchesA);
+        assertEquals(Arrays.asList(Arrays.asList("1", "2")), batchesB);
+        assertEquals(4, router.getHitCount());
+
+        assertTrue(router.unsubscribe("state", "sub-a"));
+        router.unregister("sub-b");
+        assertEquals(0, router.getSubscriberCount("state"));
+        router.routeBatch(Arrays.asList(new Message("3", "x", "state")));
+        assertEquals(1, batchesA.size());
+        assertEquals(0, router.getMissCount());
+    }
+
+    @Test
+    public void testParallelFanout() {
+        MessageRouter router = new MessageRouter();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        router.setFanoutPool(pool, 16);
+        AtomicInteger deliveries = new AtomicInteger();
+        Set<Message> seen = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        for (int i = 0; i < 1000; i++) {
+            String id = "fan-" + i;
+            router.register(id, new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+                @Override
+                public void onMessage(Message message) {
+                    seen.add(message);
+                    deliveries.incrementAndGet();
+                }
+            });
+            router.subscribe("fan-topic", id);
+        }
+
+        router.route(new Message("1", "x", "fan-topic"));
+        pool.shutdown();
+
+        // route() returns after the last delivery
+        assertEquals(1000, deliveries.get());
+        assertEquals(1, seen.size());
+        assertEquals(1000, router.getHitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopicNameCannotBePlayer() {
+        MessageRouter router = new MessageRouter();
+        router.register("taken", recordingPlayer("taken", router, new ArrayList<>()));
+        router.subscribe("taken", "taken");
+    }
+
+    private static Player recordingPlayer(String id, MessageRouter router, List<List<String>> batches) {
+        return new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessages(List<Message> messages) {
+                List<String> payloads = new ArrayList<>();
+                for (Message message : messages) {
+                    payloads.add(message.getPayload());
+                }
+                batches.add(payloads);
+            }
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the Message class.
+ */
+public class MessageTest {
+
+    @Test
+    public void testMessageCreation() {
+        Message msg = new Message("1", "player1", "player2", 1);
+        assertEquals("1", msg.getPayload());
+        assertEquals("player1", msg.getFromPlayerId());
+        assertEquals("player2", msg.getToPlayerId());
+        assertEquals(Integer.valueOf(1), msg.getSequenceNumber());
+    }
+
+    @Test
+    public void testStopMessage() {
+        Message stop = Message.stopMessage("player1");
+        assertTrue(stop.isStopMessage());
+        assertEquals("STOP", stop.getPayload());
+    }
+
+    @Test
+    public void testSerializeRoundTrip() {
+        Message msg = new Message("5", "player1", "player2", 4);
+        Message copy = Message.deserialize(msg.serialize());
+        assertEquals("player1|player2|4|5", msg.serialize());
+        assertEquals("5", copy.getPayload());
+        assertEquals("player1", copy.getFromPlayerId());
+        assertEquals("player2", copy.getToPlayerId());
+        assertEquals(Integer.valueOf(4), copy.getSequenceNumber());
+    }
+
+    @Test
+    public void testDeserializeWithoutSequenceNumber() {
+        Message copy = Message.deserialize("|player2||hello");
+        assertNull(copy.getFromPlayerId());
+        assertFalse(copy.hasSequenceNumber());
+        assertEquals("hello", copy.getPayload());
+    }
+
+    @Test
+    public void testNumericPayload() {
+        Message message = new Message(Long.MAX_VALUE, "a", "b", 5);
+        assertTrue(message.hasNumericPayload());
+        assertEquals(Long.MAX_VALUE, message.getNumericPayload());
+        assertEquals("9223372036854775807", message.getPayload());
+        assertEquals("a|b|5|9223372036854775807", message.serialize());
+        assertFalse(message.isStopMessage());
+        assertFalse(new Message("7", "a", "b", 5).hasNumericPayload());
+    }
+
+    @Test
+    public void testWithCorrelationLeavesOriginalUnchanged() {
+        Message request = new Message("ping", "a", "b", 4L);
+        Message reply = request.withCorrelation(8, true);
+        assertEquals(0, request.getCorrelationId());
+        assertFalse(request.isReply());
+        assertEquals(8, reply.getCorrelationId());
+        assertTrue(reply.isReply());
+        assertEquals("ping", reply.getPayload());
+        assertEquals(4, reply.getSequence());
+    }
+
+    @Test
+    public void testWithPriorityCopies() {
+        Message message = new Message(7L, "a", "b", 3).withCorrelation(5, true);
+        Message control = message.withPriority(MessagePriority.CONTROL);
+        assertEquals(MessagePriority.NORMAL, message.getPriority());
+        assertEquals(MessagePriority.CONTROL, control.getPriority());
+        assertEquals(7L, control.getNumericPayload());
+        assertEquals(3, control.getSequence());
+        assertEquals(5, control.getCorrelationId());
+        assertTrue(control.isReply());
+
+        Message unsequenced = new Message("x", "a", "b").withPriority(MessagePriority.BULK);
+        assertFalse(unsequenced.hasSequenceNumber());
+        assertEquals("x", unsequenced.getPayload());
+    }
+
+    @Test
+    public void testSequenceBeyondIntRange() {
+        long sequence = Integer.MAX_VALUE + 2L;
+        Message message = new Message("x", "a", "b", sequence);
+        assertEquals(sequence, message.getSequence());
+        assertTrue(message.toString().contains("seq=" + sequence));
+        try {
+            message.getSequenceNumber();
+            fail("Expected ArithmeticException");
+        } catch (ArithmeticException expected) {
+            // The int view cannot hold it
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNumericPayloadOfTextMessageFails() {
+        new Message("7", "a", "b", 5).getNumericPayload();
+    }
+
+    @Test
+    public void testParseLongWithoutExceptions() {
+        assertEquals(42, Numbers.parseLong("42", -1));
+        assertEquals(-42, Numbers.parseLong("-42", -1));
+        assertEquals(42, Numbers.parseLong("+42", -1));
+        assertEquals(Long.MAX_VALUE, Numbers.parseLong("9223372036854775807", -1));
+        assertEquals(Long.MIN_VALUE, Numbers.parseLong("-9223372036854775808", -1));
+        assertEquals(-1, Numbers.parseLong("9223372036854775808", -1));
+        assertEquals(-1, Numbers.parseLong("-9223372036854775809", -1));
+        assertEquals(-1, Numbers.parseLong("99999999999999999999", -1));
+        assertEquals(-1, Numbers.parseLong("", -1));
+        assertEquals(-1, Numbers.parseLong("-", -1));
+        assertEquals(-1, Numbers.parseLong("12a", -1));
+        assertEquals(-1, Numbers.parseLong(null, -1));
+        assertEquals(-1, Numbers.parseLong("STOP", -1));
+    }
+
+    @Test
+    public void testDecimalLength() {
+        for (long value : new long[] {0, 9, 10, -1, -10, 2147483648L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(Long.toString(value).length(), Numbers.decimalLength(value));
+        }
+    }
+}
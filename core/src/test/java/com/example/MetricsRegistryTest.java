@@ -0,0 +1,79 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Unit tests for MetricsRegistry class.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSnapshotFlattensMetrics() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("c").add(3);
+        metrics.counter("c").increment();
+        AtomicLong depth = new AtomicLong(7);
+        metrics.gauge("g", depth::get);
+        metrics.meter("m", () -> 42);
+        metrics.histogram("h").record(10);
+
+        SortedMap<String, Long> snapshot = metrics.snapshot();
+        assertEquals(Long.valueOf(4), snapshot.get("c"));
+        assertEquals(Long.valueOf(7), snapshot.get("g"));
+        assertEquals(Long.valueOf(42), snapshot.get("m"));
+        assertEquals(Long.valueOf(1), snapshot.get("h.count"));
+        assertEquals(Long.valueOf(10), snapshot.get("h.p99"));
+    }
+
+    @Test
+    public void testMBeanExposesMetrics() throws Exception {
+        try (MetricsRegistry metrics = new MetricsRegistry()) {
+            metrics.counter("router.hits").add(5);
+            ObjectName name = metrics.registerMBean("test-" + System.nanoTime());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(5L, server.getAttribute(name, "router.hits"));
+            assertEquals(1, server.getMBeanInfo(name).getAttributes().length);
+
+            metrics.close();
+            assertFalse(server.isRegistered(name));
+        }
+    }
+
+    @Test
+    public void testRouterAndChannelReportMetrics() throws InterruptedException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        MessageRouter router = new MessageRouter(metrics);
+        CountDownLatch delivered = new CountDownLatch(1);
+        Player target = new Player("target", PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null) {
+            @Override
+            public void onMessage(Message message) {
+                delivered.countDown();
+            }
+        };
+        router.register("target", target);
+        router.route(new Message("1", "x", "nobody"));
+
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "target",
+                ChannelConfig.defaults().withMetrics(metrics));
+        channel.start();
+        channel.send(new Message("1", "x", "target"));
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        channel.stop();
+
+        SortedMap<String, Long> snapshot = metrics.snapshot();
+        assertEquals(Long.valueOf(1), snapshot.get("router.hits"));
+        assertEquals(Long.valueOf(1), snapshot.get("router.misses"));
+        assertEquals(Long.valueOf(1), snapshot.get("channel.target.latencyNanos.count"));
+        assertEquals(Long.valueOf(1), snapshot.get("channel.target.delivered"));
+        assertEquals(Long.valueOf(0), snapshot.get("channel.target.queueDepth"));
+    }
+}
@@ -0,0 +1,286 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for ConsistentHashRing and PartitionedRouter, including a multi-node simulation over
+ * LoopbackTransport.
+ */
+public class PartitionedRouterTest {
+    private static final int KEYS = 10_000;
+
+    @Test
+    public void testRingSpreadsKeysEvenly() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("player-" + i), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            // 2500 each on average; 160 virtual nodes keep every node well within 20%
+            assertTrue(count.toString(), count.getValue() > 2000 && count.getValue() < 3000);
+        }
+    }
+
+    @Test
+    public void testJoiningNodeTakesOnlyItsShare() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3");
+        String[] before = ownersOf(ring);
+        long version = ring.getVersion();
+        ring.addNode("node-4");
+        assertNotEquals(version, ring.getVersion());
+
+        String[] after = ownersOf(ring);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("Keys only move to the new node", "node-4", after[i]);
+                moved++;
+            }
+        }
+        // About 1/5 of the keys; rehashing modulo the node count would move about 4/5
+        assertTrue("Moved " + moved, moved > KEYS / 5 - KEYS / 20 && moved < KEYS / 5 + KEYS / 20);
+    }
+
+    @Test
+    public void testLeavingNodeMovesOnlyItsKeys() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3");
+        String[] before = ownersOf(ring);
+        assertTrue(ring.removeNode("node-2"));
+        assertFalse(ring.removeNode("node-2"));
+
+        String[] after = ownersOf(ring);
+        for (int i = 0; i < KEYS; i++) {
+            if (before[i].equals("node-2")) {
+                assertNotEquals("node-2", after[i]);
+            } else {
+                assertEquals("Keys of other nodes stay", before[i], after[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testRingRejectsDuplicateAndEmptyLookups() {
+        ConsistentHashRing ring = new ConsistentHashRing();
+        try {
+            ring.nodeFor("player-1");
+            fail("Empty ring has no owner");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        ring.addNode("node-0");
+        assertEquals("node-0", ring.nodeFor("player-1"));
+        try {
+            ring.addNode("node-0");
+            fail("Node added twice");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRegisterRejectsPlayerOfAnotherNode() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1");
+        PartitionedRouter router = new PartitionedRouter("node-0", ring, new LoopbackTransport());
+        String foreign = idOwnedBy(ring, "node-1", "foreign");
+        try {
+            router.register(foreign, recordingPlayer(foreign, router, new ArrayList<>()));
+            fail("Player belongs to node-1");
+        } catch (IllegalArgumentException expected) {
+            assertFalse(router.isLocal(foreign));
+        }
+    }
+
+    @Test
+    public void testRemoteMessagesAreForwardedAndDeliveredOnce() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1");
+        LoopbackTransport transport = new LoopbackTransport();
+        PartitionedRouter node0 = new PartitionedRouter("node-0", ring, transport);
+        PartitionedRouter node1 = new PartitionedRouter("node-1", ring, transport);
+        transport.connect(node0);
+        transport.connect(node1);
+        String local = idOwnedBy(ring, "node-0", "local");
+        String remote = idOwnedBy(ring, "node-1", "remote");
+        List<String> atLocal = new ArrayList<>();
+        List<String> atRemote = new ArrayList<>();
+        node0.register(local, recordingPlayer(local, node0, atLocal));
+        node1.register(remote, recordingPlayer(remote, node1, atRemote));
+
+        node0.route(new Message("1", "x", local));
+        node0.route(new Message("2", "x", remote).withPriority(MessagePriority.CONTROL));
+        node0.routeBatch(Arrays.asList(new Message("3", "x", remote), new Message("4", "x", local),
+                new Message("5", "x", remote)));
+
+        assertEquals(Arrays.asList("1", "4"), atLocal);
+        assertEquals(Arrays.asList("2", "3", "5"), atRemote);
+        assertEquals(3, node0.getForwardedCount());
+        assertEquals(3, node1.getReceivedCount());
+        assertEquals(0, node1.getForwardedCount());
+    }
+
+    @Test
+    public void testMultiNodeGamesCompleteAcrossNodes() throws InterruptedException {
+        String[] nodeIds = {"node-0", "node-1", "node-2"};
+        ConsistentHashRing ring = ringOf(nodeIds);
+        LoopbackTransport transport = new LoopbackTransport();
+        Map<String, PartitionedRouter> routers = new HashMap<>();
+        for (String nodeId : nodeIds) {
+            PartitionedRouter router = new PartitionedRouter(nodeId, ring, transport);
+            routers.put(nodeId, router);
+            transport.connect(router);
+        }
+
+        int pairs = 30;
+        long messageLimit = 20;
+        CountDownLatch done = new CountDownLatch(pairs);
+        List<Player> players = new ArrayList<>();
+        List<Player> initiators = new ArrayList<>();
+        List<String> responderIds = new ArrayList<>();
+        int crossNode = 0;
+        for (int i = 0; i < pairs; i++) {
+            String initiatorId = "mn-init-" + i;
+            String responderId = "mn-resp-" + i;
+            PartitionedRouter initiatorNode = routers.get(ring.nodeFor(initiatorId));
+            PartitionedRouter responderNode = routers.get(ring.nodeFor(responderId));
+            if (initiatorNode != responderNode) {
+                crossNode++;
+            }
+            Player responder = new Player(responderId, PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(responderNode, initiatorId), null, EventSink.noOp());
+            Player initiator = new Player(initiatorId, PlayerRole.INITIATOR,
+                    new InMemoryMessageChannel(initiatorNode, responderId), done::countDown, EventSink.noOp());
+            initiator.setMessageLimit(messageLimit);
+            responderNode.register(responderId, responder);
+            initiatorNode.register(initiatorId, initiator);
+            players.add(responder);
+            players.add(initiator);
+            initiators.add(initiator);
+            responderIds.add(responderId);
+        }
+        assertTrue("Most pairs should span two nodes", crossNode > pairs / 2);
+
+        long startNanos = System.nanoTime();
+        for (Player player : players) {
+            player.start();
+        }
+        for (int i = 0; i < pairs; i++) {
+            initiators.get(i).send("0", responderIds.get(i));
+        }
+        try {
+            assertTrue("Every game should complete across nodes", done.await(10, TimeUnit.SECONDS));
+        } finally {
+            for (Player player : players) {
+                player.stop();
+            }
+        }
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+
+        long forwarded = 0;
+        long received = 0;
+        for (PartitionedRouter router : routers.values()) {
+            forwarded += router.getForwardedCount();
+            received += router.getReceivedCount();
+            assertEquals(0, router.getMissCount());
+        }
+        assertEquals(forwarded, received);
+        // Each cross-node game forwards every message it exchanges
+        assertTrue(forwarded >= crossNode * messageLimit * 2 - crossNode);
+        System.out.println(String.format("%d games (%d cross-node) on %d nodes in %d us, %d messages forwarded",
+                pairs, crossNode, nodeIds.length, elapsedMicros, forwarded));
+    }
+
+    @Test
+    public void testRebalanceMovesMisplacedPlayers() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1");
+        LoopbackTransport transport = new LoopbackTransport();
+        Map<String, PartitionedRouter> routers = new HashMap<>();
+        for (String nodeId : Arrays.asList("node-0", "node-1")) {
+            routers.put(nodeId, new PartitionedRouter(nodeId, ring, transport));
+            transport.connect(routers.get(nodeId));
+        }
+        Map<String, List<String>> received = new HashMap<>();
+        int count = 200;
+        for (int i = 0; i < count; i++) {
+            String id = "rb-" + i;
+            PartitionedRouter owner = routers.get(ring.nodeFor(id));
+            received.put(id, new ArrayList<>());
+            owner.register(id, recordingPlayer(id, owner, received.get(id)));
+        }
+
+        PartitionedRouter joined = new PartitionedRouter("node-2", ring, transport);
+        routers.put("node-2", joined);
+        transport.connect(joined);
+        ring.addNode("node-2");
+
+        int moved = 0;
+        for (PartitionedRouter router : Arrays.asList(routers.get("node-0"), routers.get("node-1"))) {
+            for (String id : router.misplacedPlayers()) {
+                assertEquals("Players only move to the joined node", "node-2", ring.nodeFor(id));
+                router.unregister(id);
+                joined.register(id, recordingPlayer(id, joined, received.get(id)));
+                moved++;
+            }
+            assertTrue(router.misplacedPlayers().isEmpty());
+        }
+        assertTrue("Moved " + moved, moved > count / 6 && moved < count / 2);
+
+        // Every player is reachable from every node after the move
+        for (PartitionedRouter router : routers.values()) {
+            for (int i = 0; i < count; i++) {
+                router.route(new Message(router.getNodeId(), "x", "rb-" + i));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(Arrays.asList("node-0", "node-1", "node-2"), sorted(received.get("rb-" + i)));
+        }
+    }
+
+    private static ConsistentHashRing ringOf(String... nodeIds) {
+        ConsistentHashRing ring = new ConsistentHashRing();
+        for (String nodeId : nodeIds) {
+            ring.addNode(nodeId);
+        }
+        return ring;
+    }
+
+    private static String[] ownersOf(ConsistentHashRing ring) {
+        String[] owners = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            owners[i] = ring.nodeFor("player-" + i);
+        }
+        return owners;
+    }
+
+    private static String idOwnedBy(ConsistentHashRing ring, String nodeId, String prefix) {
+        for (int i = 0; ; i++) {
+            if (ring.nodeFor(prefix + "-" + i).equals(nodeId)) {
+                return prefix + "-" + i;
+            }
+        }
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    private static Player recordingPlayer(String id, MessageRouter router, List<String> payloads) {
+        return new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null,
+                EventSink.noOp()) {
+            @Override
+            public void onMessage(Message message) {
+                payloads.add(message.getPayload());
+            }
+        };
+    }
+}
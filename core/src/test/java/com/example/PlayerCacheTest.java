@@ -0,0 +1,308 @@
+package com.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Unit tests for PlayerCache and PlayerStateStore.
+ */
+public class PlayerCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFirstMessageActivatesPlayer() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        try (PlayerStateStore store = new PlayerStateStore(folder.getRoot().toPath());
+                PlayerCache cache = new PlayerCache(router, recordingFactory(router, received), store, 10, 0,
+                        TimeUnit.SECONDS)) {
+            router.setPlayerCache(cache);
+
+            router.route(new Message("1", "x", "pc-first"));
+            router.route(new Message("2", "x", "pc-first"));
+            router.routeBatch(Arrays.asList(new Message("3", "x", "pc-first"), new Message("4", "x", "pc-second"),
+                    new Message("5", "x", "not-a-player")));
+
+            assertEquals(Arrays.asList("1", "2", "3"), received.get("pc-first"));
+            assertEquals(Arrays.asList("4"), received.get("pc-second"));
+            assertEquals(2, cache.getActivationCount());
+            assertEquals(2, cache.getActiveCount());
+            assertEquals(1, router.getMissCount());
+            assertEquals(4, router.getHitCount());
+            assertEquals(2.0 / 4, cache.getHitRate(), 1e-9);
+            assertEquals(2, cache.getActivationLatency().getCount());
+
+            MetricsRegistry metrics = new MetricsRegistry();
+            cache.registerMetrics(metrics);
+            assertEquals(Long.valueOf(1), metrics.snapshot().get("playerCache.unknown"));
+            assertEquals(Long.valueOf(50), metrics.snapshot().get("playerCache.hitRatePercent"));
+        }
+    }
+
+    @Test
+    public void testFullCacheEvictsLeastRecentlyUsed() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        try (PlayerStateStore store = new PlayerStateStore(folder.getRoot().toPath());
+                PlayerCache cache = new PlayerCache(router, recordingFactory(router, received), store, 3, 0,
+                        TimeUnit.SECONDS)) {
+            router.setPlayerCache(cache);
+            for (String id : Arrays.asList("pc-a", "pc-b", "pc-c")) {
+                router.route(new Message("1", "x", id));
+            }
+            // pc-c is the only one not used since it was activated
+            Thread.sleep(1);
+            router.route(new Message("2", "x", "pc-a"));
+            router.route(new Message("2", "x", "pc-b"));
+
+            router.route(new Message("1", "x", "pc-d"));
+
+            assertEquals(3, cache.getActiveCount());
+            assertEquals(1, cache.getPassivationCount());
+            List<String> active = cache.getActivePlayerIds();
+            active.sort(null);
+            assertEquals(Arrays.asList("pc-a", "pc-b", "pc-d"), active);
+            // The sweeper saves the victim once it has drained
+            awaitTrue(() -> store.size() == 1);
+        }
+    }
+
+    @Test
+    public void testCountersSurvivePassivationAndReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        MessageRouter router = new MessageRouter();
+        List<Player> created = new ArrayList<>();
+        Function<String, Player> factory = id -> {
+            if (!id.startsWith("pc-")) {
+                return null;
+            }
+            Player player = new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "client"), null,
+                    EventSink.noOp());
+            created.add(player);
+            return player;
+        };
+        try (PlayerStateStore store = new PlayerStateStore(directory);
+                PlayerCache cache = new PlayerCache(router, factory, store, 10, 0, TimeUnit.SECONDS)) {
+            router.setPlayerCache(cache);
+            for (int i = 0; i < 5; i++) {
+                router.route(new Message(String.valueOf(i), "client", "pc-counter"));
+            }
+            Player player = created.get(0);
+            // Replies to the unknown client go out on the player's channel thread
+            awaitTrue(() -> player.getSentCount() == 5);
+            assertTrue(cache.passivate("pc-counter"));
+            assertFalse(cache.passivate("pc-counter"));
+
+            router.route(new Message("5", "client", "pc-counter"));
+            assertEquals(2, created.size());
+            Player activated = created.get(1);
+            awaitTrue(() -> activated.getSentCount() == 6);
+            assertEquals(6, activated.getReceivedCount());
+        }
+
+        // close() passivated the player again; a new store finds its record in the file
+        MessageRouter restarted = new MessageRouter();
+        try (PlayerStateStore store = new PlayerStateStore(directory)) {
+            assertEquals(1, store.size());
+            Player player = new Player("pc-counter", PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(restarted, "client"), null, EventSink.noOp());
+            assertTrue(store.restore(player));
+            assertEquals(6, player.getSentCount());
+            assertEquals(6, player.getReceivedCount());
+        }
+    }
+
+    @Test
+    public void testIdlePlayersArePassivated() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        try (PlayerStateStore store = new PlayerStateStore(folder.getRoot().toPath());
+                PlayerCache cache = new PlayerCache(router, recordingFactory(router, received), store, 100, 200,
+                        TimeUnit.MILLISECONDS)) {
+            router.setPlayerCache(cache);
+            for (int i = 0; i < 20; i++) {
+                router.route(new Message("1", "x", "pc-idle-" + i));
+            }
+            assertEquals(20, cache.getActiveCount());
+
+            // Saves follow once each player has drained
+            awaitTrue(() -> cache.getActiveCount() == 0 && store.size() == 20);
+            assertEquals(20, cache.getPassivationCount());
+            assertEquals(0, router.getMissCount());
+        }
+    }
+
+    @Test
+    public void testPassivationSavesAfterQueuedDeliveries() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        MessageRouter router = new MessageRouter();
+        Function<String, Player> factory = id -> new Player(id, PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "client"), null, EventSink.noOp()) {
+            @Override
+            public void onMessage(Message message) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onMessage(message);
+            }
+        };
+        try (Dispatcher dispatcher = new Dispatcher(2, 4);
+                PlayerStateStore store = new PlayerStateStore(directory);
+                PlayerCache cache = new PlayerCache(router, factory, store, 10, 0, TimeUnit.SECONDS)) {
+            router.setDispatcher(dispatcher);
+            router.setPlayerCache(cache);
+            for (int i = 0; i < 50; i++) {
+                router.route(new Message(String.valueOf(i), "client", "pc-queued"));
+            }
+            // Most of the 50 are still in the mailbox; the save must count them all
+            assertTrue(cache.passivate("pc-queued"));
+
+            Player player = new Player("pc-queued", PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, "client"), null, EventSink.noOp());
+            assertTrue(store.restore(player));
+            assertEquals(50, player.getReceivedCount());
+        }
+    }
+
+    @Test
+    public void testReactivationWaitsForDrainWithoutHoldingTheCache() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        Function<String, Player> recording = recordingFactory(router, received);
+        // pc-relay's mailbox is still delivering when it is evicted, and that delivery activates another player
+        Function<String, Player> factory = id -> !id.equals("pc-relay") ? recording.apply(id)
+                : new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null,
+                        EventSink.noOp()) {
+                    @Override
+                    public void onMessage(Message message) {
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        router.route(new Message("relayed", "pc-relay", "pc-sink"));
+                    }
+                };
+        try (Dispatcher dispatcher = new Dispatcher(2, 4);
+                PlayerStateStore store = new PlayerStateStore(folder.getRoot().toPath());
+                PlayerCache cache = new PlayerCache(router, factory, store, 1, 0, TimeUnit.SECONDS)) {
+            router.setDispatcher(dispatcher);
+            router.setPlayerCache(cache);
+            router.route(new Message("1", "x", "pc-relay"));
+            router.route(new Message("1", "x", "pc-other"));
+
+            long start = System.nanoTime();
+            router.route(new Message("2", "x", "pc-relay"));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+            awaitTrue(() -> received.containsKey("pc-sink"));
+            assertEquals(0, cache.getDrainTimeoutCount());
+        }
+    }
+
+    @Test
+    public void testPassivationReleasesPlayerId() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        try (PlayerStateStore store = new PlayerStateStore(folder.getRoot().toPath());
+                PlayerCache cache = new PlayerCache(router, recordingFactory(router, received), store, 10, 0,
+                        TimeUnit.SECONDS)) {
+            router.setPlayerCache(cache);
+            router.route(new Message("1", "x", "pc-released"));
+            int handle = PlayerIds.handleOf("pc-released");
+            assertNotEquals(PlayerIds.NO_HANDLE, handle);
+            Message stale = new Message("2", PlayerIds.intern("x"), handle, 2);
+
+            assertTrue(cache.passivate("pc-released"));
+            assertEquals(PlayerIds.NO_HANDLE, PlayerIds.handleOf("pc-released"));
+            try {
+                PlayerIds.idOf(handle);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                // Released handles are not reused
+            }
+
+            // A message still holding the released handle reactivates the player under a new one
+            router.route(stale);
+            assertEquals(Arrays.asList("1", "2"), received.get("pc-released"));
+            int reactivated = PlayerIds.handleOf("pc-released");
+            assertNotEquals(PlayerIds.NO_HANDLE, reactivated);
+            assertNotEquals(handle, reactivated);
+        }
+    }
+
+    @Test
+    public void testStoreIndexFindsEveryRecordAfterReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        MessageRouter router = new MessageRouter();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Player player = new Player("pc-store-" + i, PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, "client"), null, EventSink.noOp());
+            player.restore(i, 2L * i);
+            players.add(player);
+        }
+        try (PlayerStateStore store = new PlayerStateStore(directory)) {
+            for (Player player : players) {
+                store.save(player);
+            }
+            // Updated in place, not appended again
+            players.get(7).restore(70, 140);
+            store.save(players.get(7));
+            assertEquals(300, store.size());
+        }
+
+        try (PlayerStateStore store = new PlayerStateStore(directory)) {
+            assertEquals(300, store.size());
+            for (int i = 0; i < 300; i++) {
+                Player player = new Player("pc-store-" + i, PlayerRole.RESPONDER,
+                        new InMemoryMessageChannel(router, "client"), null, EventSink.noOp());
+                assertTrue(store.restore(player));
+                long expected = i == 7 ? 70 : i;
+                assertEquals(expected, player.getSentCount());
+                assertEquals(2 * expected, player.getReceivedCount());
+            }
+            Player unknown = new Player("pc-store-none", PlayerRole.RESPONDER,
+                    new InMemoryMessageChannel(router, "client"), null, EventSink.noOp());
+            assertFalse(store.restore(unknown));
+        }
+    }
+
+    private static Function<String, Player> recordingFactory(MessageRouter router,
+            Map<String, List<String>> received) {
+        return id -> {
+            if (!id.startsWith("pc-")) {
+                return null;
+            }
+            List<String> payloads = received.computeIfAbsent(id, key -> new ArrayList<>());
+            return new Player(id, PlayerRole.RESPONDER, new InMemoryMessageChannel(router, "x"), null,
+                    EventSink.noOp()) {
+                @Override
+                public void onMessage(Message message) {
+                    payloads.add(message.getPayload());
+                }
+            };
+        };
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not met in time", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Unit tests for the Player class.
+ */
+public class PlayerTest {
+
+    @Test
+    public void testPlayerCreation() {
+        MessageChannel channel = new InMemoryMessageChannel(new MessageRouter(), "target");
+        Player player = new Player("testPlayer", PlayerRole.INITIATOR, channel, null);
+
+        assertEquals("testPlayer", player.getPlayerId());
+        assertEquals(PlayerRole.INITIATOR, player.getRole());
+        assertEquals(0, player.getSentCount());
+    }
+
+    @Test
+    public void testInitiatorSendsMessage() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        MessageChannel channel = new InMemoryMessageChannel(router, "responder");
+        CountDownLatch messageReceived = new CountDownLatch(1);
+
+        Player responder = new Player("responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "initiator"), null);
+        router.register("responder", responder);
+
+        Player initiator = new Player("initiator", PlayerRole.INITIATOR, channel, null);
+        router.register("initiator", initiator);
+
+        responder.start();
+        initiator.start();
+
+        initiator.send("1", "responder");
+
+        // Wait a bit for message processing
+        Thread.sleep(100);
+
+        assertTrue("Initiator should have sent at least 1 message", initiator.getSentCount() >= 1);
+
+        responder.stop();
+        initiator.stop();
+    }
+
+    @Test
+    public void testResponderEchoesMessage() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch responseReceived = new CountDownLatch(1);
+
+        Player responder = new Player("responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "initiator"), null);
+        router.register("responder", responder);
+
+        Player initiator = new Player("initiator", PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, "responder"), null);
+        router.register("initiator", initiator);
+
+        responder.start();
+        initiator.start();
+
+        initiator.send("1", "responder");
+
+        // Wait for response
+        Thread.sleep(200);
+
+        // Responder should have sent a response
+        assertTrue("Responder should have sent at least 1 message", responder.getSentCount() >= 1);
+
+        responder.stop();
+        initiator.stop();
+    }
+
+    @Test
+    public void testNumericReplyCrossesIntRange() {
+        List<Message> replies = new ArrayList<>();
+        Player responder = new Player("numeric-responder", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                EventSink.noOp());
+
+        responder.onMessage(new Message((long) Integer.MAX_VALUE, "numeric-initiator", "numeric-responder", 1));
+        responder.onMessage(new Message("41", "numeric-initiator", "numeric-responder", 2));
+        responder.onMessage(new Message("not a number", "numeric-initiator", "numeric-responder", 3));
+
+        assertEquals(3, replies.size());
+        assertTrue(replies.get(0).hasNumericPayload());
+        assertEquals(Integer.MAX_VALUE + 1L, replies.get(0).getNumericPayload());
+        assertEquals("2147483648", replies.get(0).getPayload());
+        assertEquals(42, replies.get(1).getNumericPayload());
+        assertEquals(1, replies.get(2).getNumericPayload());
+        assertEquals(3, responder.getSentCount());
+    }
+
+    @Test
+    public void testSubscribersDoNotAnswerBroadcasts() {
+        MessageRouter router = new MessageRouter();
+        List<Message> replies = new ArrayList<>();
+        Player first = new Player("broadcast-sub-1", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                EventSink.noOp());
+        Player second = new Player("broadcast-sub-2", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                EventSink.noOp());
+        router.register("broadcast-sub-1", first);
+        router.register("broadcast-sub-2", second);
+        router.subscribe("broadcast-topic", "broadcast-sub-1");
+        router.subscribe("broadcast-topic", "broadcast-sub-2");
+
+        router.route(new Message(5L, "broadcast-publisher", "broadcast-topic", 1));
+        assertEquals(1, first.getReceivedCount());
+        assertEquals(1, second.getReceivedCount());
+        assertTrue(replies.isEmpty());
+
+        // A direct message is still answered
+        router.route(new Message(7L, "broadcast-publisher", "broadcast-sub-1", 1));
+        assertEquals(1, replies.size());
+        assertEquals("broadcast-publisher", replies.get(0).getToPlayerId());
+        assertEquals(8, replies.get(0).getNumericPayload());
+    }
+
+    @Test
+    public void testMessageLimitStopsLongGame() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch done = new CountDownLatch(1);
+        Player responder = new Player("long-responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "long-initiator"), null, EventSink.noOp());
+        Player initiator = new Player("long-initiator", PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, "long-responder"), done::countDown, EventSink.noOp());
+        initiator.setMessageLimit(100);
+        router.register("long-responder", responder);
+        router.register("long-initiator", initiator);
+        responder.start();
+        initiator.start();
+
+        initiator.send(Integer.MAX_VALUE - 50L, "long-responder");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        initiator.stop();
+        responder.stop();
+
+        assertTrue(initiator.getSentCount() >= 100);
+        assertTrue(initiator.getReceivedCount() >= 100);
+    }
+
+    @Test
+    public void testRequestsAreCorrelatedWithReplies() throws Exception {
+        MessageRouter router = new MessageRouter();
+        Player responder = new Player("req-responder", PlayerRole.RESPONDER,
+                new InMemoryMessageChannel(router, "req-client"), null, EventSink.noOp());
+        Player client = new Player("req-client", PlayerRole.INITIATOR,
+                new InMemoryMessageChannel(router, "req-responder"), null, EventSink.noOp());
+        router.register("req-responder", responder);
+        router.register("req-client", client);
+        responder.start();
+        client.start();
+
+        List<CompletableFuture<Message>> replies = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            replies.add(client.request(i * 10L, "req-responder"));
+        }
+        for (int i = 0; i < 50; i++) {
+            Message reply = replies.get(i).get(5, TimeUnit.SECONDS);
+            assertTrue(reply.isReply());
+            assertEquals(i * 10L + 1, reply.getNumericPayload());
+        }
+        assertEquals(0, client.getPendingRequestCount());
+        // Replies are not answered
+        assertEquals(50, client.getSentCount());
+        assertEquals(50, responder.getSentCount());
+
+        client.stop();
+        responder.stop();
+    }
+
+    @Test
+    public void testRequestTimesOutAndPendingCapRejects() throws Exception {
+        List<Message> swallowed = new ArrayList<>();
+        Player client = new Player("timeout-client", PlayerRole.INITIATOR, recordingChannel(swallowed), null,
+                EventSink.noOp());
+        try (HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 16)) {
+            client.setRequestTimeout(timer, 30, TimeUnit.MILLISECONDS);
+            client.setMaxPendingRequests(2);
+            CompletableFuture<Message> first = client.request(1, "nobody");
+            CompletableFuture<Message> second = client.request("2", "nobody");
+            CompletableFuture<Message> rejected = client.request(3, "nobody");
+
+            assertTrue(rejected.isCompletedExceptionally());
+            assertEquals(2, swallowed.size());
+            assertTrue(swallowed.get(0).getCorrelationId() != swallowed.get(1).getCorrelationId());
+            try {
+                first.get(2, TimeUnit.SECONDS);
+                fail("Expected the request to time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertTrue(second.handle((reply, failure) -> failure).get(2, TimeUnit.SECONDS)
+                    instanceof TimeoutException);
+            assertEquals(0, client.getPendingRequestCount());
+
+            // A late reply is dropped and not answered
+            client.onMessage(new Message(2L, "nobody", "timeout-client", 1)
+                    .withCorrelation(swallowed.get(0).getCorrelationId(), true));
+            assertEquals(2, swallowed.size());
+        }
+    }
+
+    @Test
+    public void testRefusedSendIsNotCountedAndKeepsSequenceContiguous() {
+        List<Message> sent = new ArrayList<>();
+        boolean[] full = new boolean[1];
+        MessageChannel channel = new MessageChannel() {
+            @Override
+            public void send(Message message) {
+                if (full[0]) {
+                    throw new ChannelFullException("full");
+                }
+                sent.add(message);
+            }
+
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+            }
+
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        };
+        Player player = new Player("refused", PlayerRole.INITIATOR, channel, null, EventSink.noOp());
+        player.send(1, "peer");
+        full[0] = true;
+        try {
+            player.send(2, "peer");
+            fail("Expected ChannelFullException");
+        } catch (ChannelFullException expected) {
+            assertEquals(1, player.getSentCount());
+        }
+        // A reply the channel refuses is dropped instead of failing the delivering thread
+        player.onMessage(new Message(5L, "peer", "refused", 1));
+        assertEquals(1, player.getSentCount());
+
+        full[0] = false;
+        player.send(3, "peer");
+        assertEquals(2, player.getSentCount());
+        assertEquals(2, sent.size());
+        assertEquals(2, sent.get(1).getSequence());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for PriorityLaneQueue class.
+ */
+public class PriorityLaneQueueTest {
+
+    private static Message message(String payload, MessagePriority priority) {
+        return new Message(payload, "a", "b").withPriority(priority);
+    }
+
+    private static String lanes(List<Message> messages) {
+        StringBuilder order = new StringBuilder();
+        for (Message message : messages) {
+            order.append(message.getPayload().charAt(0));
+        }
+        return order.toString();
+    }
+
+    @Test
+    public void testDrainsLanesByWeight() {
+        PriorityLaneQueue queue = new PriorityLaneQueue(new int[] {100, 100, 100}, new int[] {2, 2, 1});
+        for (int i = 0; i < 6; i++) {
+            queue.offer(message("b" + i, MessagePriority.BULK));
+            queue.offer(message("n" + i, MessagePriority.NORMAL));
+        }
+        queue.offer(message("c0", MessagePriority.CONTROL));
+        queue.offer(message("c1", MessagePriority.CONTROL));
+        queue.offer(message("c2", MessagePriority.CONTROL));
+
+        List<Message> drained = new ArrayList<>();
+        assertEquals(15, queue.drainTo(drained));
+        // Control first each round, bulk still gets one per round
+        assertEquals("ccnnbcnnbnnbbbb", lanes(drained));
+        assertEquals("n0", drained.get(2).getPayload());
+        assertEquals("b1", drained.get(8).getPayload());
+    }
+
+    @Test
+    public void testLanesHaveTheirOwnCapacity() {
+        PriorityLaneQueue queue = new PriorityLaneQueue(new int[] {1, 2, 2}, new int[] {1, 1, 1});
+        assertTrue(queue.offer(message("n", MessagePriority.NORMAL)));
+        assertTrue(queue.offer(message("n", MessagePriority.NORMAL)));
+        assertFalse(queue.offer(message("n", MessagePriority.NORMAL)));
+        // A full bulk data lane does not hold back control messages
+        assertTrue(queue.offer(message("c", MessagePriority.CONTROL)));
+        assertFalse(queue.offer(message("c", MessagePriority.CONTROL)));
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.size(MessagePriority.CONTROL));
+        assertEquals("c", queue.peek().getPayload());
+    }
+
+    @Test
+    public void testPollLaneAndRemoveIf() {
+        PriorityLaneQueue queue = new PriorityLaneQueue(new int[] {4, 4, 4}, new int[] {1, 1, 1});
+        queue.offer(message("c", MessagePriority.CONTROL));
+        queue.offer(message("b1", MessagePriority.BULK));
+        queue.offer(message("b2", MessagePriority.BULK));
+
+        assertEquals("b1", queue.pollLane(MessagePriority.BULK).getPayload());
+        assertNull(queue.pollLane(MessagePriority.NORMAL));
+        assertTrue(queue.removeIf(m -> m.getPriority() == MessagePriority.CONTROL));
+        assertEquals(1, queue.size());
+        assertEquals("b2", queue.poll().getPayload());
+        assertTrue(queue.isEmpty());
+    }
+}
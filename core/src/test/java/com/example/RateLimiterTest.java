@@ -0,0 +1,179 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for RateLimiter, Player rate limiting and MessageRouter admission control.
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void testBurstThenShed() {
+        RateLimiter limiter = new RateLimiter(1, 5, RateLimitPolicy.SHED);
+        for (int i = 0; i < 5; i++) {
+            assertTrue("Burst message " + i, limiter.acquire());
+        }
+        assertFalse(limiter.acquire());
+        assertFalse(limiter.acquire());
+        assertEquals(2, limiter.getThrottledCount());
+    }
+
+    @Test(expected = RateLimitedException.class)
+    public void testRejectThrows() {
+        RateLimiter limiter = new RateLimiter(1, 1, RateLimitPolicy.REJECT);
+        assertTrue(limiter.acquire());
+        limiter.acquire();
+    }
+
+    @Test
+    public void testDelayPacesToRate() {
+        RateLimiter limiter = new RateLimiter(1000, 1, RateLimitPolicy.DELAY);
+        long start = System.nanoTime();
+        for (int i = 0; i < 51; i++) {
+            assertTrue(limiter.acquire());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 50 intervals of 1 ms after the first token
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis >= 45);
+        assertTrue(limiter.getThrottledCount() > 0);
+        assertTrue(limiter.getDelayedNanos() > 0);
+    }
+
+    @Test
+    public void testRefillsOverTime() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100, 1, RateLimitPolicy.SHED);
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+        Thread.sleep(20);
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void testConcurrentAcquiresNeverExceedBurst() throws InterruptedException {
+        // One token a second: the burst is all the test can get
+        RateLimiter limiter = new RateLimiter(1, 100, RateLimitPolicy.SHED);
+        AtomicInteger admitted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.acquire()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, admitted.get());
+        assertEquals(40_000 - 100, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void testPlayerSendsAreShedOverLimit() throws InterruptedException {
+        List<Message> sent = new ArrayList<>();
+        Player player = new Player("rl-sender", PlayerRole.INITIATOR, recordingChannel(sent), null,
+                EventSink.noOp());
+        player.setRateLimiter(new RateLimiter(1, 3, RateLimitPolicy.SHED));
+        for (int i = 0; i < 5; i++) {
+            player.send(i, "rl-target");
+        }
+        assertEquals(3, sent.size());
+        assertEquals(3, player.getSentCount());
+
+        CompletableFuture<Message> request = player.request(1, "rl-target");
+        try {
+            request.get(1, TimeUnit.SECONDS);
+            fail("Shed request should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RateLimitedException);
+        } catch (TimeoutException e) {
+            fail("Shed request should fail right away");
+        }
+        assertEquals(0, player.getPendingRequestCount());
+    }
+
+    @Test
+    public void testRejectedRepliesAreDroppedNotThrown() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> replies = Collections.synchronizedList(new ArrayList<>());
+        List<String> infos = Collections.synchronizedList(new ArrayList<>());
+        Player responder = new Player("rl-responder", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                new EventSink() {
+                    @Override
+                    public void messageSent(String playerId, long sequence, String toPlayerId,
+                            CharSequence payload) {
+                    }
+
+                    @Override
+                    public void messageReceived(String playerId, String fromPlayerId, CharSequence payload) {
+                    }
+
+                    @Override
+                    public void progress(String playerId, long sent, long received) {
+                    }
+
+                    @Override
+                    public void info(String playerId, String text) {
+                        infos.add(text);
+                    }
+                });
+        responder.setRateLimiter(new RateLimiter(1, 2, RateLimitPolicy.REJECT));
+        router.register("rl-responder", responder);
+
+        // Called directly, a reply over the limit must not escape into the caller
+        for (int i = 0; i < 3; i++) {
+            responder.onMessage(new Message(i, "rl-client", "rl-responder", 0));
+        }
+        // Nor stop a channel delivering to the player
+        InMemoryMessageChannel channel = new InMemoryMessageChannel(router, "rl-responder");
+        channel.start();
+        for (int i = 3; i < 6; i++) {
+            channel.send(new Message(String.valueOf(i), "rl-client", "rl-responder"));
+        }
+        channel.stop();
+
+        assertEquals(6, responder.getReceivedCount());
+        assertEquals(2, replies.size());
+        assertEquals(2, responder.getSentCount());
+        assertEquals(4, infos.size());
+        assertTrue(infos.get(0), infos.get(0).startsWith("Dropped reply to rl-client"));
+    }
+
+    @Test
+    public void testRouterAdmissionControlRejectsOverLimit() {
+        MessageRouter router = new MessageRouter();
+        List<String> received = new ArrayList<>();
+        router.register("rl-a", new Player("rl-a", PlayerRole.RESPONDER, recordingChannel(new ArrayList<>()), null,
+                EventSink.noOp()) {
+            @Override
+            public void onMessage(Message message) {
+                received.add(message.getPayload());
+            }
+        });
+        router.setAdmissionControl(new RateLimiter(1, 3, RateLimitPolicy.REJECT));
+
+        router.route(new Message("1", "x", "rl-a"));
+        router.routeBatch(Arrays.asList(new Message("2", "x", "rl-a"), new Message("3", "x", "rl-a"),
+                new Message("4", "x", "rl-a"), new Message("5", "x", "rl-a")));
+        router.route(new Message("6", "x", "rl-a"));
+
+        assertEquals(Arrays.asList("1", "2", "3"), received);
+        assertEquals(3, router.getRejectedCount());
+        assertEquals(3, router.getHitCount());
+    }
+}
@@ -0,0 +1,221 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingChannel;
+import static com.example.TestFixtures.routingChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for ReceiveWindow and Player receive windows.
+ */
+public class ReceiveWindowTest {
+
+    @Test
+    public void testInOrderPassesThrough() {
+        ReceiveWindow window = new ReceiveWindow(16);
+        List<Long> released = new ArrayList<>();
+        for (long seq = 1; seq <= 5; seq++) {
+            window.accept(message(seq), m -> released.add(m.getSequence()));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), released);
+        assertEquals(6, window.getNextSequence());
+        assertEquals(0, window.getReorderedCount());
+    }
+
+    @Test
+    public void testReorderedAreReleasedInOrderAndDuplicatesDropped() {
+        ReceiveWindow window = new ReceiveWindow(16);
+        List<Long> released = new ArrayList<>();
+        for (long seq : new long[] {1, 3, 4, 3, 2, 1, 6, 5}) {
+            window.accept(message(seq), m -> released.add(m.getSequence()));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), released);
+        assertEquals(2, window.getDuplicateCount());
+        assertEquals(3, window.getReorderedCount());
+        assertEquals(0, window.getHeldCount());
+        assertEquals(0, window.getGapCount());
+    }
+
+    @Test
+    public void testMessageBeyondWindowReportsGap() {
+        ReceiveWindow window = new ReceiveWindow(4);
+        List<Long> released = new ArrayList<>();
+        // 1 arrives, 2 is lost, 3 and 4 are held; 6 no longer fits a window starting at 2
+        for (long seq : new long[] {1, 3, 4, 6}) {
+            window.accept(message(seq), m -> released.add(m.getSequence()));
+        }
+        assertEquals(Arrays.asList(1L, 3L, 4L), released);
+        assertEquals(1, window.getGapCount());
+        assertEquals(1, window.getHeldCount());
+
+        // A jump far past the window gives up on everything before it
+        window.accept(message(1000), m -> released.add(m.getSequence()));
+        assertEquals(Arrays.asList(1L, 3L, 4L, 6L), released);
+        assertEquals(1 + 1 + (996 - 7 + 1), window.getGapCount());
+        assertEquals(997, window.getNextSequence());
+
+        window.accept(message(2), m -> released.add(m.getSequence()));
+        assertEquals(1, window.getDuplicateCount());
+    }
+
+    @Test
+    public void testUnsequencedPassThrough() {
+        ReceiveWindow window = new ReceiveWindow(8);
+        List<String> released = new ArrayList<>();
+        window.accept(new Message("a", "s", "r"), m -> released.add(m.getPayload()));
+        window.accept(new Message("b", "s", "r"), m -> released.add(m.getPayload()));
+        assertEquals(Arrays.asList("a", "b"), released);
+    }
+
+    @Test
+    public void testShuffledWithinWindowIsRestored() {
+        Random random = new Random(7);
+        int count = 10_000;
+        List<Long> arrivals = new ArrayList<>();
+        for (long seq = 1; seq <= count; seq++) {
+            arrivals.add(seq);
+        }
+        // Shuffle in blocks smaller than the window, and duplicate every 50th message
+        for (int start = 0; start < count; start += 32) {
+            Collections.shuffle(arrivals.subList(start, Math.min(count, start + 32)), random);
+        }
+        for (int i = 0; i < count; i += 50) {
+            arrivals.add(i + 1, arrivals.get(i));
+        }
+
+        ReceiveWindow window = new ReceiveWindow(ReceiveWindow.MAX_SIZE);
+        List<Long> released = new ArrayList<>();
+        for (long seq : arrivals) {
+            window.accept(message(seq), m -> released.add(m.getSequence()));
+        }
+        assertEquals(count, released.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, (long) released.get(i));
+        }
+        assertEquals(count / 50, window.getDuplicateCount());
+        assertEquals(0, window.getGapCount());
+    }
+
+    @Test
+    public void testPlayerHandlesEachMessageOnceInOrder() {
+        List<Message> replies = new ArrayList<>();
+        Player player = new Player("rw-player", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                EventSink.noOp());
+        player.setReceiveWindow(8);
+
+        for (long seq : new long[] {1, 3, 2, 2, 4}) {
+            player.onMessage(new Message(seq * 10, "rw-sender", "rw-player", seq));
+        }
+
+        assertEquals(4, player.getReceivedCount());
+        assertEquals(1, player.getDuplicateCount());
+        assertEquals(1, player.getReorderedCount());
+        List<Long> answered = new ArrayList<>();
+        for (Message reply : replies) {
+            answered.add(reply.getNumericPayload());
+        }
+        assertEquals(Arrays.asList(11L, 21L, 31L, 41L), answered);
+    }
+
+    @Test
+    public void testSenderTalkingToSeveralPlayersLeavesNoHoles() {
+        MessageRouter router = new MessageRouter();
+        Player sender = new Player("rw-a", PlayerRole.RESPONDER, routingChannel(router), null, EventSink.noOp());
+        Player b = new Player("rw-b", PlayerRole.RESPONDER, routingChannel(new MessageRouter()), null,
+                EventSink.noOp());
+        Player c = new Player("rw-c", PlayerRole.RESPONDER, routingChannel(new MessageRouter()), null,
+                EventSink.noOp());
+        b.setReceiveWindow(16);
+        c.setReceiveWindow(16);
+        router.register("rw-b", b);
+        router.register("rw-c", c);
+
+        for (int i = 0; i < 6; i++) {
+            sender.send(i, i % 2 == 0 ? "rw-b" : "rw-c");
+        }
+
+        // Each receiver sees 1, 2, 3 from the sender, not every other number of one shared sequence
+        for (Player receiver : Arrays.asList(b, c)) {
+            assertEquals(3, receiver.getReceivedCount());
+            assertEquals(0, receiver.getReorderedCount());
+            assertEquals(0, receiver.getGapCount());
+        }
+        assertEquals(6, sender.getSentCount());
+    }
+
+    private static Message message(long seq) {
+        return new Message("m" + seq, "sender", "receiver", seq);
+    }
+
+    @Test
+    public void testDirectAndTopicTrafficFromOneSenderHaveSeparateWindows() {
+        MessageRouter router = new MessageRouter();
+        Player sender = new Player("rw-pub", PlayerRole.RESPONDER, routingChannel(router), null, EventSink.noOp());
+        Player receiver = new Player("rw-sub", PlayerRole.RESPONDER, routingChannel(new MessageRouter()), null,
+                EventSink.noOp());
+        receiver.setReceiveWindow(8);
+        router.register("rw-sub", receiver);
+        router.subscribe("rw-news", "rw-sub");
+
+        // Both streams start at 1: the sender numbers the topic like any other target
+        sender.send(1, "rw-sub");
+        sender.send(2, "rw-sub");
+        sender.send(3, "rw-news");
+        sender.send(4, "rw-news");
+
+        assertEquals(4, receiver.getReceivedCount());
+        assertEquals(0, receiver.getDuplicateCount());
+        assertEquals(0, receiver.getReorderedCount());
+    }
+
+    @Test
+    public void testRestoredReceiverAdoptsTheSendersSequence() {
+        List<Message> replies = new ArrayList<>();
+        Player receiver = new Player("rw-restored", PlayerRole.RESPONDER, recordingChannel(replies), null,
+                EventSink.noOp());
+        receiver.setReceiveWindow(8);
+        receiver.restore(5, 5);
+
+        // The peer continues where the conversation stopped, not at 1
+        for (long seq = 6; seq <= 8; seq++) {
+            receiver.onMessage(new Message(seq, "rw-peer", "rw-restored", seq));
+        }
+
+        assertEquals(8, receiver.getReceivedCount());
+        assertEquals(0, receiver.getReorderedCount());
+        assertEquals(0, receiver.getGapCount());
+        assertEquals(3, replies.size());
+        assertEquals(6, replies.get(0).getSequence());
+    }
+
+    @Test
+    public void testLateSubscriberAdoptsTheTopicSequence() {
+        MessageRouter router = new MessageRouter();
+        Player publisher = new Player("rw-publisher", PlayerRole.RESPONDER, routingChannel(router), null,
+                EventSink.noOp());
+        Player early = new Player("rw-early", PlayerRole.RESPONDER, routingChannel(new MessageRouter()), null,
+                EventSink.noOp());
+        Player late = new Player("rw-late", PlayerRole.RESPONDER, routingChannel(new MessageRouter()), null,
+                EventSink.noOp());
+        early.setReceiveWindow(8);
+        late.setReceiveWindow(8);
+        router.register("rw-early", early);
+        router.register("rw-late", late);
+        router.subscribe("rw-updates", "rw-early");
+
+        publisher.send(1, "rw-updates");
+        publisher.send(2, "rw-updates");
+        router.subscribe("rw-updates", "rw-late");
+        publisher.send(3, "rw-updates");
+        publisher.send(4, "rw-updates");
+
+        assertEquals(4, early.getReceivedCount());
+        assertEquals(2, late.getReceivedCount());
+        assertEquals(0, late.getReorderedCount());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingPlayer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for SharedMemoryMessageChannel and SharedMemoryRing. Both sides run in this JVM but map the ring
+ * files independently, as two processes would.
+ */
+public class SharedMemoryMessageChannelTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path toTarget;
+    private Path toSender;
+
+    @Before
+    public void createRings() {
+        toTarget = folder.getRoot().toPath().resolve("to-target.ring");
+        toSender = folder.getRoot().toPath().resolve("to-sender.ring");
+        SharedMemoryMessageChannel.createRing(toTarget, SharedMemoryRing.MIN_CAPACITY);
+        SharedMemoryMessageChannel.createRing(toSender, SharedMemoryRing.MIN_CAPACITY);
+    }
+
+    @Test
+    public void testMessagesDeliveredInOrderAcrossWrapAround() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(5000);
+        router.register("target", recordingPlayer(router, received, latch));
+
+        SharedMemoryMessageChannel receiving = new SharedMemoryMessageChannel(router, toSender, toTarget);
+        SharedMemoryMessageChannel sending = new SharedMemoryMessageChannel(new MessageRouter(), toTarget, toSender);
+        receiving.start();
+        sending.start();
+        // A 1 KiB ring holds a few dozen frames, so the producer waits for the consumer and wraps many times
+        for (int i = 0; i < 5000; i++) {
+            Message message = i % 2 == 0
+                    ? new Message("payload-" + i, "sender", "target", i)
+                    : new Message((long) i, "sender", "target", i);
+            sending.send(message);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5000; i++) {
+            Message message = received.get(i);
+            assertEquals(i, message.getSequence());
+            if (i % 2 == 0) {
+                assertEquals("payload-" + i, message.getPayload());
+            } else {
+                assertEquals(i, message.getNumericPayload());
+            }
+        }
+        sending.stop();
+        receiving.stop();
+    }
+
+    @Test
+    public void testRingReportsFullAndPadsAtTheEnd() {
+        SharedMemoryRing producer = SharedMemoryRing.open(toTarget);
+        SharedMemoryRing consumer = SharedMemoryRing.open(toTarget);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        Message message = new Message("x".repeat(100), "sender", "target", 1);
+
+        int written = 0;
+        while (producer.offer(message, codec)) {
+            written++;
+        }
+        assertTrue(written > 1);
+        assertFalse(consumer.isEmpty());
+
+        // Freeing one frame is not enough room before the end of the data area: the next frame wraps to the start
+        assertEquals(message.getPayload(), consumer.poll(codec).getPayload());
+        assertTrue(producer.offer(message, codec));
+        for (int i = 0; i < written; i++) {
+            assertEquals(message.getPayload(), consumer.poll(codec).getPayload());
+        }
+        assertNull(consumer.poll(codec));
+        assertTrue(consumer.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMessageLargerThanRingRejected() {
+        SharedMemoryRing ring = SharedMemoryRing.open(toTarget);
+        ring.offer(new Message("x".repeat(SharedMemoryRing.MIN_CAPACITY), "sender", "target"), new BinaryMessageCodec());
+    }
+
+    @Test
+    public void testCorrelationSurvivesTheRing() {
+        SharedMemoryRing ring = SharedMemoryRing.open(toTarget);
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        assertTrue(ring.offer(new Message(41L, "sender", "target", 3).withCorrelation(99, true), codec));
+
+        Message decoded = ring.poll(codec);
+        assertEquals(41, decoded.getNumericPayload());
+        assertEquals(99, decoded.getCorrelationId());
+        assertTrue(decoded.isReply());
+    }
+
+    @Test
+    public void testStopTellsPeerAfterDrain() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        router.register("target", recordingPlayer(router, received, latch));
+
+        CountDownLatch peerClosed = new CountDownLatch(1);
+        SharedMemoryMessageChannel receiving = new SharedMemoryMessageChannel(router, toSender, toTarget,
+                WaitStrategy.PARK, peerClosed::countDown);
+        SharedMemoryMessageChannel sending = new SharedMemoryMessageChannel(new MessageRouter(), toTarget, toSender);
+        sending.start();
+        for (int i = 0; i < 20; i++) {
+            sending.send(new Message("1", "sender", "target", i));
+        }
+        sending.stop();
+        receiving.start();
+
+        assertTrue(peerClosed.await(2, TimeUnit.SECONDS));
+        assertEquals(20, received.size());
+        receiving.stop();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSendBeforeStartFails() {
+        SharedMemoryMessageChannel channel = new SharedMemoryMessageChannel(new MessageRouter(), toTarget, toSender);
+        channel.send(new Message("1", "sender", "target"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpeningForeignFileFails() throws Exception {
+        SharedMemoryRing.open(folder.newFile("not-a-ring").toPath());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingPlayer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for SpscRingBufferChannel class.
+ */
+public class SpscRingBufferChannelTest {
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        MessageRouter router = new MessageRouter();
+        assertEquals(1, new SpscRingBufferChannel(router, "t", 1, WaitStrategy.BUSY_SPIN).getCapacity());
+        assertEquals(8, new SpscRingBufferChannel(router, "t", 5, WaitStrategy.BUSY_SPIN).getCapacity());
+        assertEquals(16, new SpscRingBufferChannel(router, "t", 16, WaitStrategy.BUSY_SPIN).getCapacity());
+    }
+
+    @Test
+    public void testMessagesDeliveredInOrderAcrossWrapAround() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            MessageRouter router = new MessageRouter();
+            List<Message> received = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(1000);
+            router.register("target",
+                    recordingPlayer("target", new SpscRingBufferChannel(router, "sender"), received, latch));
+
+            // Small ring forces the producer to wait for the consumer and wrap many times
+            SpscRingBufferChannel channel = new SpscRingBufferChannel(router, "target", 4, strategy);
+            channel.start();
+            for (int i = 0; i < 1000; i++) {
+                channel.send(new Message(String.valueOf(i), "sender", "target", i));
+            }
+
+            assertTrue("All messages should be delivered with " + strategy, latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(Integer.valueOf(i), received.get(i).getSequenceNumber());
+            }
+            channel.stop();
+        }
+    }
+
+    @Test
+    public void testStopDrainsPendingMessages() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        router.register("target",
+                recordingPlayer("target", new SpscRingBufferChannel(router, "sender"), received, latch));
+
+        SpscRingBufferChannel channel = new SpscRingBufferChannel(router, "target", 128, WaitStrategy.PARK);
+        channel.start();
+        for (int i = 0; i < 100; i++) {
+            channel.send(new Message("1", "sender", "target", i));
+        }
+        channel.stop();
+
+        assertFalse(channel.isRunning());
+        assertEquals(100, received.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSendBeforeStartFails() {
+        SpscRingBufferChannel channel = new SpscRingBufferChannel(new MessageRouter(), "target");
+        channel.send(new Message("1", "sender", "target"));
+    }
+
+    @Test
+    public void testPingPongWithPlayers() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        CountDownLatch stopLatch = new CountDownLatch(1);
+
+        Player responder = new Player("responder", PlayerRole.RESPONDER,
+                new SpscRingBufferChannel(router, "initiator"), null);
+        Player initiator = new Player("initiator", PlayerRole.INITIATOR,
+                new SpscRingBufferChannel(router, "responder"), stopLatch::countDown);
+        router.register("responder", responder);
+        router.register("initiator", initiator);
+
+        responder.start();
+        initiator.start();
+        initiator.send("1", "responder");
+
+        assertTrue("Game should reach stop condition", stopLatch.await(5, TimeUnit.SECONDS));
+        initiator.stop();
+        responder.stop();
+        assertTrue(initiator.getSentCount() >= 10);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.example.TestFixtures.recordingPlayer;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for TcpMessageChannel and TcpMessageAcceptor over localhost.
+ */
+public class TcpMessageChannelTest {
+
+    @Test
+    public void testMessagesDeliveredInOrder() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(5000);
+        router.register("target", recordingPlayer(router, received, latch));
+
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, 0);
+        acceptor.start();
+        TcpMessageChannel channel = new TcpMessageChannel("localhost", acceptor.getPort());
+        channel.start();
+
+        // A burst larger than one write buffer exercises coalescing across several gathering writes
+        for (int i = 0; i < 5000; i++) {
+            channel.send(new Message("payload-" + i, "sender", "target", i));
+        }
+
+        assertTrue("All messages should arrive", latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, received.get(i).getSequence());
+            assertEquals("payload-" + i, received.get(i).getPayload());
+        }
+
+        channel.stop();
+        acceptor.stop();
+    }
+
+    @Test
+    public void testNegotiatesTextCodecWithOldAcceptor() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        router.register("target", recordingPlayer(router, received, latch));
+
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, "localhost", 0, false,
+                EnumSet.of(CodecVersion.TEXT), null);
+        acceptor.start();
+        TcpMessageChannel channel = new TcpMessageChannel("localhost", acceptor.getPort(), false);
+        channel.start();
+
+        channel.send(new Message("a|b", "sender", "target", 1));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("a|b", received.get(0).getPayload());
+
+        channel.stop();
+        acceptor.stop();
+    }
+
+    @Test
+    public void testOversizedMessageIsRejectedBySend() throws InterruptedException {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        router.register("target", recordingPlayer(router, received, latch));
+
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, 0);
+        acceptor.start();
+        TcpMessageChannel channel = new TcpMessageChannel("localhost", acceptor.getPort());
+        channel.start();
+        Player sender = new Player("sender", PlayerRole.INITIATOR, channel, null, EventSink.noOp());
+
+        String tooLarge = "x".repeat(70_000);
+        try {
+            sender.send(tooLarge, "target");
+            fail("A message larger than a write buffer should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("does not fit"));
+        }
+        assertEquals(0, sender.getSentCount());
+
+        // Large enough to be probed, small enough to fit
+        String large = "y".repeat(30_000);
+        sender.send(large, "target");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(large, received.get(0).getPayload());
+        assertEquals(1, sender.getSentCount());
+
+        channel.stop();
+        acceptor.stop();
+    }
+
+    @Test
+    public void testAcceptorReportsDisconnect() throws InterruptedException {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(new MessageRouter(), "localhost", 0, true,
+                EnumSet.allOf(CodecVersion.class), disconnected::countDown);
+        acceptor.start();
+        TcpMessageChannel channel = new TcpMessageChannel("localhost", acceptor.getPort());
+        channel.start();
+        channel.stop();
+
+        assertFalse(channel.isRunning());
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+        acceptor.stop();
+    }
+
+    @Test
+    public void testHostileLengthPrefixClosesConnection() throws Exception {
+        MessageRouter router = new MessageRouter();
+        List<Message> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        router.register("target", recordingPlayer(router, received, latch));
+        CountDownLatch disconnected = new CountDownLatch(3);
+        TcpMessageAcceptor acceptor = new TcpMessageAcceptor(router, "localhost", 0, true,
+                EnumSet.allOf(CodecVersion.class), disconnected::countDown);
+        acceptor.start();
+
+        // Negative, overflowing 4 + length, and a huge but positive length
+        for (int length : new int[] {-1, Integer.MAX_VALUE - 1, 1_000_000_000}) {
+            try (Socket socket = new Socket("localhost", acceptor.getPort())) {
+                socket.setSoTimeout(5000);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                out.writeInt(CodecVersion.toMask(EnumSet.allOf(CodecVersion.class)));
+                out.flush();
+                assertTrue(in.readUnsignedByte() > 0);
+                out.writeInt(length);
+                out.write(new byte[16]);
+                out.flush();
+                assertEquals("Acceptor should close the connection for length " + length, -1, in.read());
+            }
+        }
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+
+        // The selector thread survived and still serves well-behaved peers
+        TcpMessageChannel channel = new TcpMessageChannel("localhost", acceptor.getPort());
+        channel.start();
+        channel.send(new Message("ok", "sender", "target", 1));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("ok", received.get(0).getPayload());
+
+        channel.stop();
+        acceptor.stop();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Channels and players shared by the unit tests.
+ */
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Gets an always-running channel that adds every sent message to the list instead of delivering it.
+     */
+    static MessageChannel recordingChannel(List<Message> sent) {
+        return channel(sent::add);
+    }
+
+    /**
+     * Gets an always-running channel that routes every sent message synchronously on the sending thread.
+     */
+    static MessageChannel routingChannel(MessageRouter router) {
+        return channel(router::route);
+    }
+
+    private static MessageChannel channel(Consumer<Message> send) {
+        return new MessageChannel() {
+            @Override
+            public void send(Message message) {
+                send.accept(message);
+            }
+
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+            }
+
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the recording player "target", with an in-memory channel on the router (see recordingPlayer below).
+     */
+    static Player recordingPlayer(MessageRouter router, List<Message> received, CountDownLatch latch) {
+        return recordingPlayer("target", new InMemoryMessageChannel(router, "sender"), received, latch);
+    }
+
+    /**
+     * Gets a responder that adds every message it receives to the list and counts the latch down, without replying.
+     */
+    static Player recordingPlayer(String playerId, MessageChannel channel, List<Message> received,
+            CountDownLatch latch) {
+        return new Player(playerId, PlayerRole.RESPONDER, channel, null) {
+            @Override
+            public void onMessage(Message message) {
+                received.add(message);
+                latch.countDown();
+            }
+        };
+    }
+}